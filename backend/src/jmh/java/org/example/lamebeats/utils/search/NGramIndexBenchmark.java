@@ -0,0 +1,61 @@
+package org.example.lamebeats.utils.search;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query latency and memory footprint of NGramIndex over a synthetic catalog.
+ * The footprint is printed once per trial, allocation rates come from the gc profiler.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class NGramIndexBenchmark {
+
+    private static final String[] WORDS = {
+            "love", "night", "dance", "heart", "fire", "dream", "summer", "rain", "city", "lights",
+            "blue", "golden", "wild", "forever", "midnight", "river", "shadow", "electric", "sweet", "home"
+    };
+
+    @Param({"10000", "100000"})
+    public int documents;
+
+    private NGramIndex index;
+
+    @Setup(Level.Trial)
+    public void buildIndex() {
+        Random random = new Random(42);
+        index = new NGramIndex();
+        for (int i = 0; i < documents; i++) {
+            int words = 1 + random.nextInt(4);
+            StringBuilder title = new StringBuilder();
+            for (int w = 0; w < words; w++) {
+                title.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            title.append(i);
+            index.put(new UUID(random.nextLong(), i), title.toString());
+        }
+        System.out.printf("%nNGramIndex: %d documents, ~%d KB%n", index.size(), index.estimatedSizeBytes() / 1024);
+    }
+
+    @Benchmark
+    public List<NGramIndex.Hit> exactWord() {
+        return index.search("midnight", 20);
+    }
+
+    @Benchmark
+    public List<NGramIndex.Hit> misspelledPhrase() {
+        return index.search("electrik dreem", 20);
+    }
+
+    @Benchmark
+    public void update() {
+        UUID id = new UUID(7, 7);
+        index.put(id, "golden river lights");
+        index.remove(id);
+    }
+}
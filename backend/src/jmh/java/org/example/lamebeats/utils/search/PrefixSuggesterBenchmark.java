@@ -0,0 +1,49 @@
+package org.example.lamebeats.utils.search;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Suggestion latency distribution (SampleTime reports p99) of PrefixSuggester,
+ * with several threads querying the same instance as the endpoint does.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Threads(4)
+public class PrefixSuggesterBenchmark {
+
+    private static final String[] PREFIXES = {"l", "lo", "lov", "love s", "mi", "mid", "e", "ele", "sum", "go"};
+
+    @Param({"100000", "1000000"})
+    public int entries;
+
+    private PrefixSuggester suggester;
+
+    @Setup(Level.Trial)
+    public void build() {
+        Random random = new Random(42);
+        String[] words = {"love", "night", "dance", "heart", "fire", "dream", "summer", "rain", "city", "lights",
+                "blue", "golden", "wild", "forever", "midnight", "river", "shadow", "electric", "sweet", "home"};
+        PrefixSuggester.Builder builder = PrefixSuggester.builder();
+        for (int i = 0; i < entries; i++) {
+            String text = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)] + " " + i;
+            builder.add("song", new UUID(random.nextLong(), i), text, random.nextInt(10_000));
+        }
+        suggester = builder.build();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public List<PrefixSuggester.Suggestion> suggest(Cursor cursor) {
+        return suggester.suggest(PREFIXES[cursor.next++ % PREFIXES.length], 10);
+    }
+}
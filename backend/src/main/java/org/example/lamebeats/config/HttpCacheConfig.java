@@ -0,0 +1,24 @@
+package org.example.lamebeats.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+@Configuration
+public class HttpCacheConfig {
+
+    /**
+     * ETags for the main list endpoints, hashed from the response body: a client revalidating an
+     * unchanged page gets a 304 without the body. Detail endpoints compute their own ETags from
+     * entity versions instead, and streaming endpoints must not be buffered, so only these paths match
+     */
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> listEtagFilter() {
+        ShallowEtagHeaderFilter filter = new ShallowEtagHeaderFilter();
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/api/songs", "/api/albums", "/api/artists", "/api/genres", "/api/playlists");
+        registration.setName("listEtagFilter");
+        return registration;
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.lamebeats.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Maximum number of SQL statements a request to the annotated endpoint may issue.
+ * Checked by QueryBudgetAdvice before the response is written (QueryBudgetInterceptor only resets
+ * the count); budgets assume a page no larger than hibernate.default_batch_fetch_size, so each
+ * association loads in one batch.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+    int value();
+}
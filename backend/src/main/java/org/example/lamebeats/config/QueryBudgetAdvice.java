@@ -0,0 +1,50 @@
+package org.example.lamebeats.config;
+
+import org.example.lamebeats.utils.QueryCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Checks the SQL statements of a request against the @QueryBudget of its handler right before
+ * the response body is written, while the response can still be turned into an error. Over
+ * budget is logged as a warning, or fails the request when enforcement is on
+ * (jpa.query-budget.enforce=true, meant for tests and local runs).
+ */
+@ControllerAdvice
+public class QueryBudgetAdvice implements ResponseBodyAdvice<Object> {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryBudgetAdvice.class);
+
+    @Value("${jpa.query-budget.enforce:false}")
+    private boolean enforce;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return returnType.hasMethodAnnotation(QueryBudget.class);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        QueryBudget budget = returnType.getMethodAnnotation(QueryBudget.class);
+        long count = QueryCounter.count();
+        if (budget != null && count > budget.value()) {
+            String message = String.format("%s %s issued %d SQL statements, budget is %d",
+                    request.getMethod(), request.getURI().getPath(), count, budget.value());
+            if (enforce) {
+                throw new IllegalStateException(message);
+            }
+            logger.warn(message);
+        }
+        return body;
+    }
+}
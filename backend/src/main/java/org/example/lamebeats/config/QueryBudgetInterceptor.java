@@ -0,0 +1,20 @@
+package org.example.lamebeats.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.lamebeats.utils.QueryCounter;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Starts counting the SQL statements of each request from zero. The count is checked against
+ * the @QueryBudget of the handler by QueryBudgetAdvice, and stays readable on the request thread
+ * after the request (tests assert it through QueryCounter).
+ */
+public class QueryBudgetInterceptor implements HandlerInterceptor {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        QueryCounter.reset();
+        return true;
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.lamebeats.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Primary + read replica connection pools, active when datasource.replica.urls is set.
+ * Without it the single auto-configured pool is used as before.
+ */
+@Configuration
+@ConditionalOnProperty("datasource.replica.urls")
+public class ReplicaDataSourceConfig {
+
+    @Value("${datasource.replica.urls}")
+    private List<String> replicaUrls;
+
+    @Value("${datasource.replica.max-lag-ms:2000}")
+    private long maxLagMillis;
+
+    @Value("${datasource.replica.read-your-writes-ms:5000}")
+    private long readYourWritesMillis;
+
+    @Value("${datasource.replica.lag-check-interval-ms:5000}")
+    private long lagCheckIntervalMillis;
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties properties, Environment environment,
+                                                             MeterRegistry meterRegistry) {
+        HikariDataSource primary = pool(properties, environment, meterRegistry, properties.getUrl(), "PostgresHikariCP");
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            String key = "replica-" + i;
+            replicas.put(key, pool(properties, environment, meterRegistry, replicaUrls.get(i).trim(),
+                    "ReplicaHikariCP-" + i));
+        }
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replicas, maxLagMillis, readYourWritesMillis,
+                lagCheckIntervalMillis);
+        for (String key : routing.getReplicaKeys()) {
+            Gauge.builder("datasource.replica.lag", routing, r -> r.getLagMillis(key))
+                    .tag("replica", key)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+            Gauge.builder("datasource.replica.healthy", routing, r -> r.isHealthy(key) ? 1 : 0)
+                    .tag("replica", key)
+                    .register(meterRegistry);
+        }
+        return routing;
+    }
+
+    /**
+     * The DataSource used by JPA: connections are only taken from a pool on the first statement,
+     * once the transaction is known to be read-only or not
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    // A Hikari pool with the spring.datasource.hikari settings, exporting hikaricp.* metrics under its pool name
+    private HikariDataSource pool(DataSourceProperties properties, Environment environment, MeterRegistry meterRegistry,
+                                  String url, String poolName) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        dataSource.setPoolName(poolName);
+        dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return dataSource;
+    }
+}
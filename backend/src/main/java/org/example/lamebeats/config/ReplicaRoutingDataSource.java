@@ -0,0 +1,205 @@
+package org.example.lamebeats.config;
+
+import org.example.lamebeats.utils.CurrentUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Routes read-only transactions to the read replicas (round robin) and everything else to the
+ * primary. Must sit behind a LazyConnectionDataSourceProxy so the key is looked up on the first
+ * statement, once the transaction's read-only flag is known. A read-only transaction that has to
+ * see every committed write calls readFromPrimary() first.
+ *
+ * Read-your-writes: after a read-write transaction, the same user is kept on the primary for
+ * a short window, so e.g. the playlist read right after createPlaylist or addSongToPlaylist
+ * sees the write. Replicas lagging more than the allowed lag, or failing the lag check, are
+ * skipped until they catch up; with no usable replica reads go to the primary. The lag check
+ * runs on its own thread, so long @Scheduled jobs cannot keep a lagging replica in rotation.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    static final String PRIMARY = "primary";
+
+    // Transaction resource marking a read-only transaction that has to run on the primary
+    private static final Object PRIMARY_READ = new Object();
+
+    // Replication delay in ms, 0 when the replica has replayed everything it received, -1 when it
+    // is not streaming from the primary (having replayed all it received says nothing then)
+    private static final String LAG_QUERY = "SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0 " +
+            "WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming') THEN -1 " +
+            "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 END";
+
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final List<String> replicaKeys;
+    private final Map<String, AtomicLong> lagMillis = new ConcurrentHashMap<>();
+    private final Set<String> healthy = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, Long> primaryPinnedUntil = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final long maxLagMillis;
+    private final long readYourWritesMillis;
+    private final long lagCheckIntervalMillis;
+    private ScheduledExecutorService lagChecker;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    long maxLagMillis, long readYourWritesMillis, long lagCheckIntervalMillis) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.replicaKeys = List.copyOf(replicas.keySet());
+        this.maxLagMillis = maxLagMillis;
+        this.readYourWritesMillis = readYourWritesMillis;
+        this.lagCheckIntervalMillis = lagCheckIntervalMillis;
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+
+        for (String key : replicaKeys) {
+            lagMillis.put(key, new AtomicLong(-1));
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        lagChecker = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "replica-lag-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lagChecker.scheduleWithFixedDelay(this::checkReplicas, 0, lagCheckIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the lag check and close the pools, which are built by ReplicaDataSourceConfig rather than
+     * registered as beans of their own
+     */
+    @Override
+    public void destroy() {
+        if (lagChecker != null) {
+            lagChecker.shutdownNow();
+        }
+        close(primary);
+        replicas.values().forEach(this::close);
+    }
+
+    private void close(DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                logger.warn("Closing connection pool failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return PRIMARY;
+        }
+
+        UUID userId = CurrentUser.getCurrentUserId();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (userId != null) {
+                primaryPinnedUntil.put(userId, System.currentTimeMillis() + readYourWritesMillis);
+            }
+            return PRIMARY;
+        }
+        if (TransactionSynchronizationManager.hasResource(PRIMARY_READ)) {
+            return PRIMARY;
+        }
+        if (userId != null && primaryPinnedUntil.getOrDefault(userId, 0L) > System.currentTimeMillis()) {
+            return PRIMARY;
+        }
+
+        for (int attempt = 0; attempt < replicaKeys.size(); attempt++) {
+            String key = replicaKeys.get(Math.floorMod(next.getAndIncrement(), replicaKeys.size()));
+            if (healthy.contains(key)) {
+                return key;
+            }
+        }
+        return PRIMARY;
+    }
+
+    /**
+     * Run the current read-only transaction on the primary, without pinning the user to it the way
+     * a write does. Must be called before the transaction's first statement; does nothing outside
+     * a transaction or without replicas configured
+     */
+    public static void readFromPrimary() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(PRIMARY_READ)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(PRIMARY_READ, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(PRIMARY_READ);
+            }
+        });
+    }
+
+    /**
+     * Measure the replication lag of every replica and take lagging or unreachable ones out of rotation
+     */
+    void checkReplicas() {
+        for (String key : replicaKeys) {
+            long lag;
+            try (Connection connection = replicas.get(key).getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+                rs.next();
+                lag = rs.getLong(1);
+            } catch (Exception e) {
+                logger.warn("Replica {} lag check failed: {}", key, e.getMessage());
+                lag = -1;
+            }
+
+            lagMillis.get(key).set(lag);
+            boolean usable = lag >= 0 && lag <= maxLagMillis;
+            if (usable ? healthy.add(key) : healthy.remove(key)) {
+                logger.info("Replica {} {} (lag {} ms)", key, usable ? "back in rotation" : "out of rotation", lag);
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        primaryPinnedUntil.values().removeIf(until -> until <= now);
+    }
+
+    /**
+     * Last measured lag of a replica in ms, -1 when unreachable or not yet checked
+     */
+    public long getLagMillis(String key) {
+        return lagMillis.get(key).get();
+    }
+
+    public boolean isHealthy(String key) {
+        return healthy.contains(key);
+    }
+
+    public List<String> getReplicaKeys() {
+        return replicaKeys;
+    }
+}
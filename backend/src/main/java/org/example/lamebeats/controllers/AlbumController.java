@@ -2,13 +2,19 @@ package org.example.lamebeats.controllers;
 
 import org.example.lamebeats.dto.AlbumDto;
 import org.example.lamebeats.models.Album;
+import org.example.lamebeats.repositories.CatalogExportRepository;
 import org.example.lamebeats.services.AlbumService;
+import org.example.lamebeats.services.CatalogCleanupService;
+import org.example.lamebeats.services.CatalogExportService;
+import org.example.lamebeats.services.FuzzySearchService;
 import org.example.lamebeats.utils.CurrentUser;
+import org.example.lamebeats.utils.HttpCacheUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
 import java.util.*;
@@ -19,19 +25,33 @@ import java.util.stream.Collectors;
 public class AlbumController {
     private final AlbumService albumService;
     private final CurrentUser currentUser;
+    private final FuzzySearchService fuzzySearchService;
+    private final CatalogCleanupService catalogCleanupService;
+    private final CatalogExportService catalogExportService;
 
     @Autowired
-    public AlbumController(AlbumService albumService, CurrentUser currentUser) {
+    public AlbumController(AlbumService albumService, CurrentUser currentUser, FuzzySearchService fuzzySearchService,
+                           CatalogCleanupService catalogCleanupService, CatalogExportService catalogExportService) {
         this.albumService = albumService;
+        this.fuzzySearchService = fuzzySearchService;
+        this.catalogCleanupService = catalogCleanupService;
+        this.catalogExportService = catalogExportService;
         this.currentUser = currentUser;
     }
 
     @GetMapping
     public ResponseEntity<Map<String, Object>> getAllAlbums(
             @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "20") int limit) {
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "false") boolean exactTotal) {
 
-        Map<String, Object> response = albumService.getAllActiveAlbumsPaginated(page, limit);
+        Map<String, Object> response;
+        try {
+            response = albumService.getAllActiveAlbumsPaginated(page, limit, sort, exactTotal);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
 
         // Convert entities to DTOs
         List<Album> albums = (List<Album>) response.get("data");
@@ -42,26 +62,25 @@ public class AlbumController {
         Map<String, Object> dtoResponse = new HashMap<>(response);
         dtoResponse.put("data", albumDtos);
 
-        return ResponseEntity.ok(dtoResponse);
+        return ResponseEntity.ok().cacheControl(HttpCacheUtil.REVALIDATE).body(dtoResponse);
     }
 
-    @GetMapping("/all")
-    public ResponseEntity<?> getAllAlbumsIncludingDeleted() {
-        // Only admins can see deleted albums
+    /**
+     * Stream every album (deleted included) as newline-delimited JSON, gzipped with ?gzip=true.
+     * Memory use does not grow with the catalog. /all is a deprecated alias that used to load the
+     * whole table into one JSON response
+     */
+    @GetMapping({"/export", "/all"})
+    public ResponseEntity<?> exportAlbums(@RequestParam(defaultValue = "false") boolean gzip) {
         if (!CurrentUser.isAdmin()) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Only Admins can access this endpoint"));
         }
 
-        List<Album> albums = albumService.getAllAlbums();
-        List<AlbumDto> albumDtos = albums.stream()
-                .map(AlbumDto::fromEntitySimple)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(Map.of("data", albumDtos));
+        return catalogExportService.export(CatalogExportRepository.Table.ALBUMS, gzip);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getAlbumById(@PathVariable String id) {
+    public ResponseEntity<?> getAlbumById(@PathVariable String id, WebRequest webRequest) {
         UUID albumId;
         try {
             albumId = UUID.fromString(id);
@@ -69,26 +88,53 @@ public class AlbumController {
             return ResponseEntity.badRequest().body(Map.of("error", "Invalid album ID format"));
         }
 
+        // Cheap version check first: a matching If-None-Match gets a 304
+        // without loading the album
+        Optional<HttpCacheUtil.Version> version = albumService.getActiveAlbumVersion(albumId);
+        if (version.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (webRequest.checkNotModified(version.get().etag(), version.get().lastModified())) {
+            return HttpCacheUtil.notModified(HttpCacheUtil.CATALOG);
+        }
+
         return albumService.getActiveAlbumById(albumId)
                 .map(album -> {
                     AlbumDto dto = AlbumDto.fromEntity(album);
-                    return ResponseEntity.ok(dto);
+                    return HttpCacheUtil.ok(version.get(), HttpCacheUtil.CATALOG).body(dto);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/search")
-    public ResponseEntity<?> searchAlbums(@RequestParam String title) {
+    public ResponseEntity<?> searchAlbums(
+            @RequestParam String title,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "false") boolean fuzzy) {
         if (title == null || title.trim().isEmpty()) {
             return ResponseEntity.badRequest().body(Map.of("error", "Search term is required"));
         }
 
-        List<Album> albums = albumService.searchActiveAlbumsByTitle(title);
+        if (fuzzy) {
+            List<AlbumDto> albumDtos = fuzzySearchService.searchAlbums(title, limit).stream()
+                    .map(AlbumDto::fromEntitySimple)
+                    .collect(Collectors.toList());
+            return ResponseEntity.ok(Map.of("data", albumDtos, "limit", fuzzySearchService.capLimit(limit)));
+        }
+
+        Map<String, Object> response = albumService.searchActiveAlbumsPaginated(title, page, limit);
+
+        // Convert entities to DTOs
+        List<Album> albums = (List<Album>) response.get("data");
         List<AlbumDto> albumDtos = albums.stream()
                 .map(AlbumDto::fromEntitySimple)
                 .collect(Collectors.toList());
 
-        return ResponseEntity.ok(Map.of("data", albumDtos));
+        Map<String, Object> dtoResponse = new HashMap<>(response);
+        dtoResponse.put("data", albumDtos);
+
+        return ResponseEntity.ok(dtoResponse);
     }
 
     @GetMapping("/artist/{artistId}")
@@ -220,7 +266,9 @@ public class AlbumController {
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteAlbum(@PathVariable String id, @RequestParam(defaultValue = "false") boolean hard) {
+    public ResponseEntity<?> deleteAlbum(@PathVariable String id,
+                                          @RequestParam(defaultValue = "false") boolean hard,
+                                          @RequestParam(defaultValue = "false") boolean async) {
         // Only admins can delete artists
         if (!CurrentUser.isAdmin()) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Only Admins can delete artists"));
@@ -233,14 +281,20 @@ public class AlbumController {
             return ResponseEntity.badRequest().body(Map.of("error", "Invalid album ID format"));
         }
 
-        boolean deleted;
         if (hard) {
-            deleted = albumService.hardDeleteAlbum(albumId);
-        } else {
-            deleted = albumService.softDeleteAlbum(albumId);
+            if (async) {
+                if (!albumService.albumExists(albumId)) {
+                    return ResponseEntity.notFound().build();
+                }
+                catalogCleanupService.hardDeleteAlbumAsync(albumId);
+                return ResponseEntity.accepted().build();
+            }
+            return albumService.hardDeleteAlbum(albumId)
+                    .<ResponseEntity<?>>map(counts -> ResponseEntity.ok(Map.of("deleted", counts)))
+                    .orElseGet(() -> ResponseEntity.notFound().build());
         }
 
-        if (deleted) {
+        if (albumService.softDeleteAlbum(albumId)) {
             return ResponseEntity.noContent().build();
         } else {
             return ResponseEntity.notFound().build();
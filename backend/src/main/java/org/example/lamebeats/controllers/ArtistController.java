@@ -6,13 +6,20 @@ import org.example.lamebeats.dto.GenreDto;
 import org.example.lamebeats.models.Artist;
 import org.example.lamebeats.models.ArtistGenre;
 import org.example.lamebeats.models.Genre;
+import org.example.lamebeats.repositories.CatalogExportRepository;
+import org.example.lamebeats.services.ArtistCollaborationService;
 import org.example.lamebeats.services.ArtistService;
+import org.example.lamebeats.services.CatalogCleanupService;
+import org.example.lamebeats.services.CatalogExportService;
+import org.example.lamebeats.services.FuzzySearchService;
 import org.example.lamebeats.services.GenreService;
 import org.example.lamebeats.utils.CurrentUser;
+import org.example.lamebeats.utils.HttpCacheUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -20,13 +27,27 @@ import java.util.stream.Collectors;
 @RestController
 @RequestMapping("/api/artists")
 public class ArtistController {
+    private static final int MAX_GRAPH_LIMIT = 200;
+    private static final int MAX_HOPS = 3;
+    private static final int MAX_PATH_HOPS = 6;
+
     private final ArtistService artistService;
     private final GenreService genreService;
     private final CurrentUser currentUser;
+    private final FuzzySearchService fuzzySearchService;
+    private final CatalogCleanupService catalogCleanupService;
+    private final ArtistCollaborationService artistCollaborationService;
+    private final CatalogExportService catalogExportService;
 
     @Autowired
-    public ArtistController(ArtistService artistService, GenreService genreService, CurrentUser currentUser) {
+    public ArtistController(ArtistService artistService, GenreService genreService, CurrentUser currentUser, FuzzySearchService fuzzySearchService,
+                            CatalogCleanupService catalogCleanupService, ArtistCollaborationService artistCollaborationService,
+                            CatalogExportService catalogExportService) {
         this.artistService = artistService;
+        this.fuzzySearchService = fuzzySearchService;
+        this.catalogCleanupService = catalogCleanupService;
+        this.artistCollaborationService = artistCollaborationService;
+        this.catalogExportService = catalogExportService;
         this.genreService = genreService;
         this.currentUser = currentUser;
     }
@@ -34,9 +55,16 @@ public class ArtistController {
     @GetMapping
     public ResponseEntity<Map<String, Object>> getAllArtists(
             @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "20") int limit) {
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "false") boolean exactTotal) {
 
-        Map<String, Object> response = artistService.getAllActiveArtistsPaginated(page, limit);
+        Map<String, Object> response;
+        try {
+            response = artistService.getAllActiveArtistsPaginated(page, limit, sort, exactTotal);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
 
         // Convert entities to DTOs
         List<Artist> artists = (List<Artist>) response.get("data");
@@ -47,26 +75,25 @@ public class ArtistController {
         Map<String, Object> dtoResponse = new HashMap<>(response);
         dtoResponse.put("data", artistDtos);
 
-        return ResponseEntity.ok(dtoResponse);
+        return ResponseEntity.ok().cacheControl(HttpCacheUtil.REVALIDATE).body(dtoResponse);
     }
 
-    @GetMapping("/all")
-    public ResponseEntity<?> getAllArtistsIncludingDeleted() {
-        // Only admins can see deleted artists
+    /**
+     * Stream every artist (deleted included) as newline-delimited JSON, gzipped with ?gzip=true.
+     * Memory use does not grow with the catalog. /all is a deprecated alias that used to load the
+     * whole table into one JSON response
+     */
+    @GetMapping({"/export", "/all"})
+    public ResponseEntity<?> exportArtists(@RequestParam(defaultValue = "false") boolean gzip) {
         if (!CurrentUser.isAdmin()) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Only Admins can access this endpoint"));
         }
 
-        List<Artist> artists = artistService.getAllArtists();
-        List<ArtistDto> artistDtos = artists.stream()
-                .map(ArtistDto::fromEntity)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(Map.of("data", artistDtos));
+        return catalogExportService.export(CatalogExportRepository.Table.ARTISTS, gzip);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getArtistById(@PathVariable String id) {
+    public ResponseEntity<?> getArtistById(@PathVariable String id, WebRequest webRequest) {
         UUID artistId;
         try {
             artistId = UUID.fromString(id);
@@ -74,26 +101,53 @@ public class ArtistController {
             return ResponseEntity.badRequest().body(Map.of("error", "Invalid artist ID format"));
         }
 
+        // Cheap version check first: a matching If-None-Match gets a 304
+        // without loading the artist
+        Optional<HttpCacheUtil.Version> version = artistService.getActiveArtistVersion(artistId);
+        if (version.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (webRequest.checkNotModified(version.get().etag(), version.get().lastModified())) {
+            return HttpCacheUtil.notModified(HttpCacheUtil.CATALOG);
+        }
+
         return artistService.getActiveArtistById(artistId)
                 .map(artist -> {
                     ArtistDto dto = ArtistDto.fromEntity(artist);
-                    return ResponseEntity.ok(dto);
+                    return HttpCacheUtil.ok(version.get(), HttpCacheUtil.CATALOG).body(dto);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/search")
-    public ResponseEntity<?> searchArtists(@RequestParam String name) {
+    public ResponseEntity<?> searchArtists(
+            @RequestParam String name,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "false") boolean fuzzy) {
         if (name == null || name.trim().isEmpty()) {
             return ResponseEntity.badRequest().body(Map.of("error", "Search term is required"));
         }
 
-        List<Artist> artists = artistService.searchActiveArtistsByName(name);
+        if (fuzzy) {
+            List<ArtistDto> artistDtos = fuzzySearchService.searchArtists(name, limit).stream()
+                    .map(ArtistDto::fromEntity)
+                    .collect(Collectors.toList());
+            return ResponseEntity.ok(Map.of("data", artistDtos, "limit", fuzzySearchService.capLimit(limit)));
+        }
+
+        Map<String, Object> response = artistService.searchActiveArtistsPaginated(name, page, limit);
+
+        // Convert entities to DTOs
+        List<Artist> artists = (List<Artist>) response.get("data");
         List<ArtistDto> artistDtos = artists.stream()
                 .map(ArtistDto::fromEntity)
                 .collect(Collectors.toList());
 
-        return ResponseEntity.ok(Map.of("data", artistDtos));
+        Map<String, Object> dtoResponse = new HashMap<>(response);
+        dtoResponse.put("data", artistDtos);
+
+        return ResponseEntity.ok(dtoResponse);
     }
 
     @GetMapping("/genre/{genreId}")
@@ -218,7 +272,9 @@ public class ArtistController {
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteArtist(@PathVariable String id, @RequestParam(defaultValue = "false") boolean hard) {
+    public ResponseEntity<?> deleteArtist(@PathVariable String id,
+                                          @RequestParam(defaultValue = "false") boolean hard,
+                                          @RequestParam(defaultValue = "false") boolean async) {
         // Only admins can delete artists
         if (!CurrentUser.isAdmin()) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Only Admins can delete artists"));
@@ -231,14 +287,20 @@ public class ArtistController {
             return ResponseEntity.badRequest().body(Map.of("error", "Invalid artist ID format"));
         }
 
-        boolean deleted;
         if (hard) {
-            deleted = artistService.hardDeleteArtist(artistId);
-        } else {
-            deleted = artistService.softDeleteArtist(artistId);
+            if (async) {
+                if (!artistService.artistExists(artistId)) {
+                    return ResponseEntity.notFound().build();
+                }
+                catalogCleanupService.hardDeleteArtistAsync(artistId);
+                return ResponseEntity.accepted().build();
+            }
+            return artistService.hardDeleteArtist(artistId)
+                    .<ResponseEntity<?>>map(counts -> ResponseEntity.ok(Map.of("deleted", counts)))
+                    .orElseGet(() -> ResponseEntity.notFound().build());
         }
 
-        if (deleted) {
+        if (artistService.softDeleteArtist(artistId)) {
             return ResponseEntity.noContent().build();
         } else {
             return ResponseEntity.notFound().build();
@@ -300,4 +362,69 @@ public class ArtistController {
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
-}
\ No newline at end of file
+
+    /**
+     * Artists this artist has worked with (shared songs and albums), strongest first
+     */
+    @GetMapping("/{id}/collaborators")
+    public ResponseEntity<?> getCollaborators(@PathVariable String id,
+                                              @RequestParam(defaultValue = "20") int limit) {
+        UUID artistId;
+        try {
+            artistId = UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid artist ID format"));
+        }
+
+        int cappedLimit = Math.max(1, Math.min(limit, MAX_GRAPH_LIMIT));
+        return ResponseEntity.ok(Map.of(
+                "data", artistCollaborationService.getTopCollaborators(artistId, cappedLimit),
+                "limit", cappedLimit));
+    }
+
+    /**
+     * Artists within `hops` collaborations of this artist, nearest first
+     */
+    @GetMapping("/{id}/related")
+    public ResponseEntity<?> getRelatedArtists(@PathVariable String id,
+                                               @RequestParam(defaultValue = "2") int hops,
+                                               @RequestParam(defaultValue = "50") int limit) {
+        UUID artistId;
+        try {
+            artistId = UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid artist ID format"));
+        }
+        if (hops < 1 || hops > MAX_HOPS) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Hops must be between 1 and " + MAX_HOPS));
+        }
+
+        int cappedLimit = Math.max(1, Math.min(limit, MAX_GRAPH_LIMIT));
+        return ResponseEntity.ok(Map.of(
+                "data", artistCollaborationService.getRelatedArtists(artistId, hops, cappedLimit),
+                "hops", hops,
+                "limit", cappedLimit));
+    }
+
+    /**
+     * Shortest chain of collaborations from this artist to another one
+     */
+    @GetMapping("/{id}/path/{otherId}")
+    public ResponseEntity<?> getCollaborationPath(@PathVariable String id, @PathVariable String otherId) {
+        UUID artistId;
+        UUID otherArtistId;
+        try {
+            artistId = UUID.fromString(id);
+            otherArtistId = UUID.fromString(otherId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid artist ID format"));
+        }
+
+        List<ArtistCollaborationService.RelatedArtist> path =
+                artistCollaborationService.getCollaborationPath(artistId, otherArtistId, MAX_PATH_HOPS);
+        if (path.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of("data", path, "hops", path.size() - 1));
+    }
+}
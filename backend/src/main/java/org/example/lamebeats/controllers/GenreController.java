@@ -1,13 +1,17 @@
 package org.example.lamebeats.controllers;
 
+import org.example.lamebeats.config.QueryBudget;
 import org.example.lamebeats.dto.GenreDto;
 import org.example.lamebeats.dto.SongDto;
 import org.example.lamebeats.models.Genre;
 import org.example.lamebeats.models.Artist;
 import org.example.lamebeats.models.Song;
+import org.example.lamebeats.repositories.CatalogExportRepository;
+import org.example.lamebeats.services.CatalogExportService;
 import org.example.lamebeats.services.GenreService;
 import org.example.lamebeats.services.SongService;
 import org.example.lamebeats.utils.CurrentUser;
+import org.example.lamebeats.utils.HttpCacheUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -22,20 +26,30 @@ public class GenreController {
     private final GenreService genreService;
     private final SongService songService;
     private final CurrentUser currentUser;
+    private final CatalogExportService catalogExportService;
 
     @Autowired
-    public GenreController(GenreService genreService, SongService songService, CurrentUser currentUser) {
+    public GenreController(GenreService genreService, SongService songService, CurrentUser currentUser,
+                           CatalogExportService catalogExportService) {
         this.genreService = genreService;
         this.songService = songService;
         this.currentUser = currentUser;
+        this.catalogExportService = catalogExportService;
     }
 
     @GetMapping
     public ResponseEntity<Map<String, Object>> getAllGenres(
             @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "20") int limit) {
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "false") boolean exactTotal) {
 
-        Map<String, Object> response = genreService.getAllActiveGenresPaginated(page, limit);
+        Map<String, Object> response;
+        try {
+            response = genreService.getAllActiveGenresPaginated(page, limit, sort, exactTotal);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
 
         // Convert entities to DTOs
         List<Genre> genres = (List<Genre>) response.get("data");
@@ -46,21 +60,21 @@ public class GenreController {
         Map<String, Object> dtoResponse = new HashMap<>(response);
         dtoResponse.put("data", genreDtos);
 
-        return ResponseEntity.ok(dtoResponse);
+        return ResponseEntity.ok().cacheControl(HttpCacheUtil.REVALIDATE).body(dtoResponse);
     }
 
-    @GetMapping("/all")
-    public ResponseEntity<?> getAllGenresIncludingDeleted() {
+    /**
+     * Stream every genre (deleted included) as newline-delimited JSON, gzipped with ?gzip=true.
+     * Memory use does not grow with the catalog. /all is a deprecated alias that used to load the
+     * whole table into one JSON response
+     */
+    @GetMapping({"/export", "/all"})
+    public ResponseEntity<?> exportGenres(@RequestParam(defaultValue = "false") boolean gzip) {
         if (!CurrentUser.isAdmin()) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Only Admins can access this endpoint"));
         }
 
-        List<Genre> genres = genreService.getAllGenres();
-        List<GenreDto> genreDtos = genres.stream()
-                .map(GenreDto::fromEntity)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(Map.of("data", genreDtos));
+        return catalogExportService.export(CatalogExportRepository.Table.GENRES, gzip);
     }
 
     @GetMapping("/{id}")
@@ -98,6 +112,7 @@ public class GenreController {
     }
 
     @GetMapping("/{id}/songs")
+    @QueryBudget(6)
     public ResponseEntity<?> getSongsForGenre(
             @PathVariable String id,
             @RequestParam(defaultValue = "1") int page,
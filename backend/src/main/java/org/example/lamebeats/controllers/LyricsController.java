@@ -8,6 +8,8 @@ import org.example.lamebeats.dto.SongDto;
 import org.example.lamebeats.enums.Language;
 import org.example.lamebeats.models.Lyrics;
 import org.example.lamebeats.models.Song;
+import org.example.lamebeats.repositories.CatalogExportRepository;
+import org.example.lamebeats.services.CatalogExportService;
 import org.example.lamebeats.services.LyricsService;
 import org.example.lamebeats.services.SongService;
 import org.example.lamebeats.utils.CurrentUser;
@@ -28,15 +30,18 @@ public class LyricsController {
     private final LyricsService lyricsService;
     private final CurrentUser currentUser;
     private final SongService songService;
+    private final CatalogExportService catalogExportService;
 
     @Value("${musixmatch.apikey}")
     private String musixmatchApiKey;
 
     @Autowired
-    public LyricsController(LyricsService lyricsService, CurrentUser currentUser, SongService songService) {
+    public LyricsController(LyricsService lyricsService, CurrentUser currentUser, SongService songService,
+                            CatalogExportService catalogExportService) {
         this.lyricsService = lyricsService;
         this.currentUser = currentUser;
         this.songService = songService;
+        this.catalogExportService = catalogExportService;
     }
 
     private String fetchLyricsFromMusixmatch(String commontrack_id) {
@@ -48,9 +53,15 @@ public class LyricsController {
     @GetMapping
     public ResponseEntity<Map<String, Object>> getAllLyrics(
             @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "20") int limit) {
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String sort) {
 
-        Map<String, Object> response = lyricsService.getAllActiveLyricsPaginated(page, limit);
+        Map<String, Object> response;
+        try {
+            response = lyricsService.getAllActiveLyricsPaginated(page, limit, sort);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
 
         // Convert entities to DTOs
         List<Lyrics> lyrics = (List<Lyrics>) response.get("data");
@@ -64,19 +75,18 @@ public class LyricsController {
         return ResponseEntity.ok(dtoResponse);
     }
 
-    @GetMapping("/all")
-    public ResponseEntity<?> getAllLyricsIncludingDeleted() {
-        // Only admins can see deleted lyrics
+    /**
+     * Stream all lyrics (deleted included) as newline-delimited JSON, gzipped with ?gzip=true.
+     * Memory use does not grow with the catalog. /all is a deprecated alias that used to load the
+     * whole table into one JSON response
+     */
+    @GetMapping({"/export", "/all"})
+    public ResponseEntity<?> exportLyrics(@RequestParam(defaultValue = "false") boolean gzip) {
         if (!CurrentUser.isAdmin()) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Only Admins can access this endpoint"));
         }
 
-        List<Lyrics> lyrics = lyricsService.getAllLyrics();
-        List<LyricsDto> lyricsDtos = lyrics.stream()
-                .map(LyricsDto::fromEntity)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(Map.of("data", lyricsDtos));
+        return catalogExportService.export(CatalogExportRepository.Table.LYRICS, gzip);
     }
 
     @GetMapping("/{id}")
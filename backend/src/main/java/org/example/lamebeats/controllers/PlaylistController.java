@@ -1,13 +1,20 @@
 package org.example.lamebeats.controllers;
 
 import org.example.lamebeats.dto.PlaylistDto;
+import org.example.lamebeats.dto.SmartPlaylistRules;
 import org.example.lamebeats.models.Playlist;
+import org.example.lamebeats.services.PlaylistMembershipService;
 import org.example.lamebeats.services.PlaylistService;
+import org.example.lamebeats.services.SmartPlaylistService;
 import org.example.lamebeats.utils.CurrentUser;
+import org.example.lamebeats.utils.CursorUtil;
+import org.example.lamebeats.utils.HttpCacheUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -15,25 +22,45 @@ import java.util.stream.Collectors;
 @RestController
 @RequestMapping("/api/playlists")
 public class PlaylistController {
+    private static final int MAX_TRACKS_LIMIT = 200;
+    private static final int MAX_MEMBERSHIP_SONGS = 500;
+
     private final PlaylistService playlistService;
+    private final PlaylistMembershipService playlistMembershipService;
+    private final SmartPlaylistService smartPlaylistService;
     private final CurrentUser currentUser;
 
     @Autowired
-    public PlaylistController(PlaylistService playlistService, CurrentUser currentUser) {
+    public PlaylistController(PlaylistService playlistService, PlaylistMembershipService playlistMembershipService,
+                              SmartPlaylistService smartPlaylistService, CurrentUser currentUser) {
         this.playlistService = playlistService;
+        this.playlistMembershipService = playlistMembershipService;
+        this.smartPlaylistService = smartPlaylistService;
         this.currentUser = currentUser;
     }
 
     @GetMapping
     public ResponseEntity<Map<String, Object>> getAllPlaylists(
             @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "10") int limit) {
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String after) {
 
         if (!CurrentUser.isAdmin()) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Only Admins can access this endpoint"));
         }
 
-        Map<String, Object> response = playlistService.getAllActivePlaylistsPaginated(page, limit);
+        int cappedLimit = CursorUtil.clampLimit(limit);
+        int cappedPage = CursorUtil.clampPage(page);
+
+        // A cursor (`after`, empty for the first page) switches to keyset pagination
+        Map<String, Object> response;
+        try {
+            response = after != null
+                    ? playlistService.getActivePlaylistsAfter(after, cappedLimit)
+                    : playlistService.getAllActivePlaylistsPaginated(cappedPage, cappedLimit);
+        } catch (CursorUtil.InvalidCursorException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+        }
 
         // Convert entities to DTOs
         List<Playlist> playlists = (List<Playlist>) response.get("data");
@@ -44,20 +71,32 @@ public class PlaylistController {
         Map<String, Object> dtoResponse = new HashMap<>(response);
         dtoResponse.put("data", playlistDtos);
 
-        return ResponseEntity.ok(dtoResponse);
+        return ResponseEntity.ok().cacheControl(HttpCacheUtil.REVALIDATE).body(dtoResponse);
     }
 
     @GetMapping("/me")
     public ResponseEntity<Map<String, Object>> getCurrentUserPlaylists(
             @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "10") int limit) {
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String after) {
 
         UUID currentUserId = CurrentUser.getCurrentUserId();
         if (currentUserId == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "User not authenticated"));
         }
 
-        Map<String, Object> response = playlistService.getActivePlaylistsByUserIdPaginated(currentUserId, page, limit);
+        int cappedLimit = CursorUtil.clampLimit(limit);
+        int cappedPage = CursorUtil.clampPage(page);
+
+        // A cursor (`after`, empty for the first page) switches to keyset pagination
+        Map<String, Object> response;
+        try {
+            response = after != null
+                    ? playlistService.getActivePlaylistsByUserIdAfter(currentUserId, after, cappedLimit)
+                    : playlistService.getActivePlaylistsByUserIdPaginated(currentUserId, cappedPage, cappedLimit);
+        } catch (CursorUtil.InvalidCursorException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+        }
 
         // Convert entities to DTOs
         List<Playlist> playlists = (List<Playlist>) response.get("data");
@@ -71,11 +110,42 @@ public class PlaylistController {
         return ResponseEntity.ok(dtoResponse);
     }
 
+    /**
+     * For each of the given songs, which of the current user's playlists contain it
+     */
+    @GetMapping("/me/containing")
+    public ResponseEntity<?> getCurrentUserPlaylistsContaining(@RequestParam List<String> songIds) {
+        UUID currentUserId = CurrentUser.getCurrentUserId();
+        if (currentUserId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "User not authenticated"));
+        }
+        if (songIds.isEmpty() || songIds.size() > MAX_MEMBERSHIP_SONGS) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Between 1 and " + MAX_MEMBERSHIP_SONGS + " song IDs are required"));
+        }
+
+        List<UUID> songUUIDs;
+        try {
+            songUUIDs = songIds.stream()
+                    .map(UUID::fromString)
+                    .collect(Collectors.toList());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid song ID format"));
+        }
+
+        if (!playlistMembershipService.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Playlist membership index is still being built"));
+        }
+        return ResponseEntity.ok(Map.of("data", playlistMembershipService.playlistsOfUserContaining(currentUserId, songUUIDs)));
+    }
+
     @GetMapping("/user/{userId}")
     public ResponseEntity<Map<String, Object>> getUserPlaylists(
             @PathVariable String userId,
             @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "10") int limit) {
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String after) {
 
         UUID userUUID;
         try {
@@ -84,7 +154,18 @@ public class PlaylistController {
             return ResponseEntity.badRequest().body(Map.of("error", "Invalid user ID format"));
         }
 
-        Map<String, Object> response = playlistService.getActivePlaylistsByUserIdPaginated(userUUID, page, limit);
+        int cappedLimit = CursorUtil.clampLimit(limit);
+        int cappedPage = CursorUtil.clampPage(page);
+
+        // A cursor (`after`, empty for the first page) switches to keyset pagination
+        Map<String, Object> response;
+        try {
+            response = after != null
+                    ? playlistService.getActivePlaylistsByUserIdAfter(userUUID, after, cappedLimit)
+                    : playlistService.getActivePlaylistsByUserIdPaginated(userUUID, cappedPage, cappedLimit);
+        } catch (CursorUtil.InvalidCursorException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+        }
 
         // Convert entities to DTOs
         List<Playlist> playlists = (List<Playlist>) response.get("data");
@@ -99,7 +180,7 @@ public class PlaylistController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getPlaylistById(@PathVariable String id) {
+    public ResponseEntity<?> getPlaylistById(@PathVariable String id, WebRequest webRequest) {
         UUID playlistId;
         try {
             playlistId = UUID.fromString(id);
@@ -107,10 +188,20 @@ public class PlaylistController {
             return ResponseEntity.badRequest().body(Map.of("error", "Invalid playlist ID format"));
         }
 
+        // Cheap version check first: a matching If-None-Match / If-Modified-Since gets a 304
+        // without loading the playlist
+        Optional<HttpCacheUtil.Version> version = playlistService.getActivePlaylistVersion(playlistId);
+        if (version.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (webRequest.checkNotModified(version.get().etag(), version.get().lastModified())) {
+            return HttpCacheUtil.notModified(HttpCacheUtil.REVALIDATE);
+        }
+
         return playlistService.getActivePlaylistById(playlistId)
                 .map(playlist -> {
                     PlaylistDto dto = PlaylistDto.fromEntity(playlist);
-                    return ResponseEntity.ok(dto);
+                    return HttpCacheUtil.ok(version.get(), HttpCacheUtil.REVALIDATE).body(dto);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -143,6 +234,63 @@ public class PlaylistController {
         }
     }
 
+    /**
+     * Create a smart playlist from {name, description, photo, rules}; see SmartPlaylistRules
+     */
+    @PostMapping("/smart")
+    public ResponseEntity<?> createSmartPlaylist(@RequestBody Map<String, Object> payload) {
+        if (!(payload.get("name") instanceof String name) || name.trim().isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Playlist name is required"));
+        }
+
+        UUID currentUserId = CurrentUser.getCurrentUserId();
+        if (currentUserId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "User not authenticated"));
+        }
+
+        String description = payload.get("description") instanceof String value ? value : "";
+        String photo = payload.get("photo") instanceof String value ? value : "";
+
+        try {
+            SmartPlaylistRules rules = smartPlaylistService.parseRules(payload.get("rules"));
+            Playlist createdPlaylist = smartPlaylistService.createSmartPlaylist(name, description, photo, currentUserId, rules);
+            return ResponseEntity.status(HttpStatus.CREATED).body(PlaylistDto.fromEntity(createdPlaylist));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Replace the rules of a smart playlist; its songs are re-evaluated right away
+     */
+    @PutMapping("/{id}/rules")
+    public ResponseEntity<?> updateSmartPlaylistRules(@PathVariable String id, @RequestBody Map<String, Object> payload) {
+        UUID playlistId;
+        try {
+            playlistId = UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid playlist ID format"));
+        }
+
+        // Check if user owns this playlist
+        UUID currentUserId = CurrentUser.getCurrentUserId();
+        if (!playlistService.isPlaylistOwnedByUser(playlistId, currentUserId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "You don't have permission to update this playlist"));
+        }
+
+        try {
+            SmartPlaylistRules rules = smartPlaylistService.parseRules(payload);
+            return smartPlaylistService.updateRules(playlistId, rules)
+                    .map(playlist -> ResponseEntity.ok(PlaylistDto.fromEntity(playlist)))
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (OptimisticLockingFailureException e) {
+            return concurrentEditConflict();
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<?> updatePlaylist(@PathVariable String id, @RequestBody Map<String, String> payload) {
         UUID playlistId;
@@ -165,12 +313,16 @@ public class PlaylistController {
         String photo = payload.get("photo");
 
         // Update playlist
-        return playlistService.updatePlaylist(playlistId, name, photo, description)
-                .map(playlist -> {
-                    PlaylistDto dto = PlaylistDto.fromEntity(playlist);
-                    return ResponseEntity.ok(dto);
-                })
-                .orElse(ResponseEntity.notFound().build());
+        try {
+            return playlistService.updatePlaylist(playlistId, name, photo, description)
+                    .map(playlist -> {
+                        PlaylistDto dto = PlaylistDto.fromEntity(playlist);
+                        return ResponseEntity.ok(dto);
+                    })
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (OptimisticLockingFailureException e) {
+            return concurrentEditConflict();
+        }
     }
 
     @PostMapping("/{id}/songs")
@@ -201,11 +353,203 @@ public class PlaylistController {
                     .body(Map.of("error", "You don't have permission to modify this playlist"));
         }
 
+        if (smartPlaylistService.isSmartPlaylist(playlistId)) {
+            return smartPlaylistConflict();
+        }
+
         return playlistService.addSongToPlaylist(playlistId, songId)
-                .map(playlist -> {
-                    PlaylistDto dto = PlaylistDto.fromEntity(playlist);
-                    return ResponseEntity.ok(dto);
-                })
+                .map(added -> ResponseEntity.ok(Map.of("playlistId", playlistId, "added", added)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Songs of a playlist in playlist order with keyset pagination (`after` is the `next` cursor of
+     * the previous page), with the playlist's track count and total duration
+     */
+    @GetMapping("/{id}/tracks")
+    public ResponseEntity<?> getPlaylistTracks(
+            @PathVariable String id,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int limit) {
+        UUID playlistId;
+        try {
+            playlistId = UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid playlist ID format"));
+        }
+
+        int cappedLimit = Math.max(1, Math.min(limit, MAX_TRACKS_LIMIT));
+        try {
+            return playlistService.getPlaylistTracksAfter(playlistId, after, cappedLimit)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (CursorUtil.InvalidCursorException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+        }
+    }
+
+    /**
+     * Insert a song right after `afterSongId` or at a zero-based `index` (at the end when neither
+     * is given). A song already in the playlist is moved there
+     */
+    @PostMapping("/{id}/songs/insert")
+    public ResponseEntity<?> insertSongIntoPlaylist(@PathVariable String id, @RequestBody Map<String, String> payload) {
+        UUID playlistId;
+        try {
+            playlistId = UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid playlist ID format"));
+        }
+
+        // Check if song ID is provided
+        if (!payload.containsKey("songId")) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Song ID is required"));
+        }
+
+        UUID songId;
+        UUID afterSongId;
+        Integer index;
+        try {
+            songId = UUID.fromString(payload.get("songId"));
+            afterSongId = parseOptionalUuid(payload.get("afterSongId"));
+            index = parseOptionalIndex(payload.get("index"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid song ID or index format"));
+        }
+
+        // Check if user owns this playlist
+        UUID currentUserId = CurrentUser.getCurrentUserId();
+        if (!playlistService.isPlaylistOwnedByUser(playlistId, currentUserId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "You don't have permission to modify this playlist"));
+        }
+
+        if (smartPlaylistService.isSmartPlaylist(playlistId)) {
+            return smartPlaylistConflict();
+        }
+
+        try {
+            return playlistService.insertSongAt(playlistId, songId, afterSongId, index)
+                    .<ResponseEntity<?>>map(track -> ResponseEntity.ok(Map.of(
+                            "playlistId", playlistId,
+                            "songId", songId,
+                            "position", track.getPosition())))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(Map.of("error", "Playlist or song not found")));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (OptimisticLockingFailureException e) {
+            return concurrentEditConflict();
+        }
+    }
+
+    /**
+     * Move a song of a playlist right after `afterSongId` or to a zero-based `index` (to the end
+     * when neither is given)
+     */
+    @PutMapping("/{id}/songs/{songId}/position")
+    public ResponseEntity<?> moveSongInPlaylist(@PathVariable String id, @PathVariable String songId,
+                                                @RequestBody Map<String, String> payload) {
+        UUID playlistId;
+        UUID songUUID;
+        UUID afterSongId;
+        Integer index;
+        try {
+            playlistId = UUID.fromString(id);
+            songUUID = UUID.fromString(songId);
+            afterSongId = parseOptionalUuid(payload.get("afterSongId"));
+            index = parseOptionalIndex(payload.get("index"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid ID or index format"));
+        }
+
+        // Check if user owns this playlist
+        UUID currentUserId = CurrentUser.getCurrentUserId();
+        if (!playlistService.isPlaylistOwnedByUser(playlistId, currentUserId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "You don't have permission to modify this playlist"));
+        }
+
+        try {
+            return playlistService.moveSong(playlistId, songUUID, afterSongId, index)
+                    .<ResponseEntity<?>>map(position -> ResponseEntity.ok(Map.of(
+                            "playlistId", playlistId,
+                            "songId", songUUID,
+                            "position", position)))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(Map.of("error", "Song is not in this playlist")));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (OptimisticLockingFailureException e) {
+            return concurrentEditConflict();
+        }
+    }
+
+    @GetMapping("/{id}/contains/{songId}")
+    public ResponseEntity<?> playlistContainsSong(@PathVariable String id, @PathVariable String songId) {
+        UUID playlistId;
+        UUID songUUID;
+        try {
+            playlistId = UUID.fromString(id);
+            songUUID = UUID.fromString(songId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid ID format"));
+        }
+
+        if (!playlistMembershipService.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Playlist membership index is still being built"));
+        }
+        return playlistMembershipService.contains(playlistId, songUUID)
+                .<ResponseEntity<?>>map(contains -> ResponseEntity.ok(Map.of(
+                        "playlistId", playlistId,
+                        "songId", songUUID,
+                        "contains", contains)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Songs in either playlist
+     */
+    @GetMapping("/{id}/union/{otherId}")
+    public ResponseEntity<?> unionOfPlaylists(@PathVariable String id, @PathVariable String otherId) {
+        return combinePlaylists(id, otherId, PlaylistMembershipService.SetOperation.UNION);
+    }
+
+    /**
+     * Songs in both playlists
+     */
+    @GetMapping("/{id}/intersection/{otherId}")
+    public ResponseEntity<?> intersectionOfPlaylists(@PathVariable String id, @PathVariable String otherId) {
+        return combinePlaylists(id, otherId, PlaylistMembershipService.SetOperation.INTERSECTION);
+    }
+
+    /**
+     * Songs in the first playlist but not in the other
+     */
+    @GetMapping("/{id}/difference/{otherId}")
+    public ResponseEntity<?> differenceOfPlaylists(@PathVariable String id, @PathVariable String otherId) {
+        return combinePlaylists(id, otherId, PlaylistMembershipService.SetOperation.DIFFERENCE);
+    }
+
+    private ResponseEntity<?> combinePlaylists(String id, String otherId, PlaylistMembershipService.SetOperation operation) {
+        UUID playlistId;
+        UUID otherPlaylistId;
+        try {
+            playlistId = UUID.fromString(id);
+            otherPlaylistId = UUID.fromString(otherId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid playlist ID format"));
+        }
+
+        if (!playlistMembershipService.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Playlist membership index is still being built"));
+        }
+        return playlistMembershipService.combine(playlistId, otherPlaylistId, operation)
+                .<ResponseEntity<?>>map(songIds -> ResponseEntity.ok(Map.of(
+                        "data", songIds,
+                        "total", songIds.size())))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -228,8 +572,13 @@ public class PlaylistController {
                     .body(Map.of("error", "You don't have permission to modify this playlist"));
         }
 
+        if (smartPlaylistService.isSmartPlaylist(playlistId)) {
+            return smartPlaylistConflict();
+        }
+
         return playlistService.removeSongFromPlaylist(playlistId, songUUID)
-                .map(playlist -> ResponseEntity.noContent().build())
+                .filter(removed -> removed > 0)
+                .map(removed -> ResponseEntity.noContent().build())
                 .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(Map.of("error", "Playlist or song not found")));
     }
@@ -265,11 +614,12 @@ public class PlaylistController {
                     .body(Map.of("error", "You don't have permission to modify this playlist"));
         }
 
+        if (smartPlaylistService.isSmartPlaylist(playlistId)) {
+            return smartPlaylistConflict();
+        }
+
         return playlistService.addSongsToPlaylist(playlistId, songIds)
-                .map(playlist -> {
-                    PlaylistDto dto = PlaylistDto.fromEntity(playlist);
-                    return ResponseEntity.ok(dto);
-                })
+                .map(added -> ResponseEntity.ok(Map.of("playlistId", playlistId, "added", added)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -304,11 +654,12 @@ public class PlaylistController {
                     .body(Map.of("error", "You don't have permission to modify this playlist"));
         }
 
+        if (smartPlaylistService.isSmartPlaylist(playlistId)) {
+            return smartPlaylistConflict();
+        }
+
         return playlistService.removeSongsFromPlaylist(playlistId, songIds)
-                .map(playlist -> {
-                    PlaylistDto dto = PlaylistDto.fromEntity(playlist);
-                    return ResponseEntity.ok(dto);
-                })
+                .map(removed -> ResponseEntity.ok(Map.of("playlistId", playlistId, "removed", removed)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -328,25 +679,55 @@ public class PlaylistController {
                     .body(Map.of("error", "You don't have permission to modify this playlist"));
         }
 
+        if (smartPlaylistService.isSmartPlaylist(playlistId)) {
+            return smartPlaylistConflict();
+        }
+
         return playlistService.clearPlaylist(playlistId)
-                .map(playlist -> {
-                    PlaylistDto dto = PlaylistDto.fromEntity(playlist);
-                    return ResponseEntity.ok(dto);
-                })
+                .map(removed -> ResponseEntity.ok(Map.of("playlistId", playlistId, "removed", removed)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/search")
-    public ResponseEntity<?> searchPlaylists(@RequestParam String name) {
+    public ResponseEntity<?> searchPlaylists(
+            @RequestParam String name,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "10") int limit) {
         if (name == null || name.trim().isEmpty()) {
             return ResponseEntity.badRequest().body(Map.of("error", "Search term is required"));
         }
 
-        List<Playlist> playlists = playlistService.searchActivePlaylistsByName(name);
+        Map<String, Object> response = playlistService.searchActivePlaylistsPaginated(name, page, limit);
+
+        // Convert entities to DTOs
+        List<Playlist> playlists = (List<Playlist>) response.get("data");
         List<PlaylistDto> playlistDtos = playlists.stream()
                 .map(PlaylistDto::fromEntity)
                 .collect(Collectors.toList());
 
-        return ResponseEntity.ok(Map.of("data", playlistDtos));
+        Map<String, Object> dtoResponse = new HashMap<>(response);
+        dtoResponse.put("data", playlistDtos);
+
+        return ResponseEntity.ok(dtoResponse);
+    }
+
+    // The songs of a smart playlist are maintained from its rules
+    private static ResponseEntity<Map<String, String>> smartPlaylistConflict() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", "Smart playlist songs follow its rules and cannot be edited"));
+    }
+
+    // Every retry of the edit lost against concurrent edits of the same playlist
+    private static ResponseEntity<Map<String, String>> concurrentEditConflict() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", "The playlist is being edited concurrently, please try again"));
+    }
+
+    private static UUID parseOptionalUuid(String value) {
+        return value == null || value.isBlank() ? null : UUID.fromString(value.trim());
+    }
+
+    private static Integer parseOptionalIndex(String value) {
+        return value == null || value.isBlank() ? null : Integer.valueOf(value.trim());
     }
-}
\ No newline at end of file
+}
@@ -5,6 +5,7 @@ import org.example.lamebeats.models.RecentTrack;
 import org.example.lamebeats.models.Song;
 import org.example.lamebeats.services.RecentTrackService;
 import org.example.lamebeats.utils.CurrentUser;
+import org.example.lamebeats.utils.CursorUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
@@ -31,11 +32,24 @@ public class RecentTrackController {
     @GetMapping
     public ResponseEntity<?> getCurrentUserRecentTracks(
             @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "20") int limit) {
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "false") boolean exactTotal) {
 
         UUID userId = currentUser.getCurrentUserId();
 
-        Map<String, Object> response = recentTrackService.getRecentTracksByUserPaginated(userId, page, limit);
+        int cappedLimit = CursorUtil.clampLimit(limit);
+        int cappedPage = CursorUtil.clampPage(page);
+
+        // A cursor (`after`, empty for the first page) switches to keyset pagination
+        Map<String, Object> response;
+        try {
+            response = after != null
+                    ? recentTrackService.getRecentTracksByUserAfter(userId, after, cappedLimit)
+                    : recentTrackService.getRecentTracksByUserPaginated(userId, cappedPage, cappedLimit, exactTotal);
+        } catch (CursorUtil.InvalidCursorException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+        }
 
         // Convert entities to DTOs
         List<RecentTrack> tracks = (List<RecentTrack>) response.get("data");
@@ -52,7 +66,9 @@ public class RecentTrackController {
     @GetMapping("/all")
     public ResponseEntity<?> getAllRecentTracks(
             @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "20") int limit) {
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "false") boolean exactTotal) {
 
         // Only admins can view all recent tracks
         if (!CurrentUser.isAdmin()) {
@@ -60,7 +76,18 @@ public class RecentTrackController {
                     .body(Map.of("error", "Only Admins can access this endpoint"));
         }
 
-        Map<String, Object> response = recentTrackService.getAllRecentTracksPaginated(page, limit);
+        int cappedLimit = CursorUtil.clampLimit(limit);
+        int cappedPage = CursorUtil.clampPage(page);
+
+        // A cursor (`after`, empty for the first page) switches to keyset pagination
+        Map<String, Object> response;
+        try {
+            response = after != null
+                    ? recentTrackService.getAllRecentTracksAfter(after, cappedLimit)
+                    : recentTrackService.getAllRecentTracksPaginated(cappedPage, cappedLimit, exactTotal);
+        } catch (CursorUtil.InvalidCursorException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+        }
 
         // Convert entities to DTOs
         List<RecentTrack> tracks = (List<RecentTrack>) response.get("data");
@@ -78,7 +105,9 @@ public class RecentTrackController {
     public ResponseEntity<?> getUserRecentTracks(
             @PathVariable String userId,
             @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "20") int limit) {
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "false") boolean exactTotal) {
 
         // Only admins can view other users' recent tracks
         if (!CurrentUser.isAdmin() && !userId.equals(currentUser.getCurrentUserId().toString())) {
@@ -93,7 +122,18 @@ public class RecentTrackController {
             return ResponseEntity.badRequest().body(Map.of("error", "Invalid user ID format"));
         }
 
-        Map<String, Object> response = recentTrackService.getRecentTracksByUserPaginated(userUUID, page, limit);
+        int cappedLimit = CursorUtil.clampLimit(limit);
+        int cappedPage = CursorUtil.clampPage(page);
+
+        // A cursor (`after`, empty for the first page) switches to keyset pagination
+        Map<String, Object> response;
+        try {
+            response = after != null
+                    ? recentTrackService.getRecentTracksByUserAfter(userUUID, after, cappedLimit)
+                    : recentTrackService.getRecentTracksByUserPaginated(userUUID, cappedPage, cappedLimit, exactTotal);
+        } catch (CursorUtil.InvalidCursorException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+        }
 
         // Convert entities to DTOssdaw
         List<RecentTrack> tracks = (List<RecentTrack>) response.get("data");
@@ -0,0 +1,76 @@
+package org.example.lamebeats.controllers;
+
+import org.example.lamebeats.events.CatalogChangeEvent;
+import org.example.lamebeats.services.CatalogSearchIndexService;
+import org.example.lamebeats.services.SearchSuggestService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.*;
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+    private static final int MAX_LIMIT = 50;
+
+    private final CatalogSearchIndexService catalogSearchIndexService;
+    private final SearchSuggestService searchSuggestService;
+
+    @Autowired
+    public SearchController(CatalogSearchIndexService catalogSearchIndexService, SearchSuggestService searchSuggestService) {
+        this.catalogSearchIndexService = catalogSearchIndexService;
+        this.searchSuggestService = searchSuggestService;
+    }
+
+    /**
+     * Search the in-memory catalog index. Without a type, the best songs, artists
+     * and albums are returned together
+     */
+    @GetMapping
+    public ResponseEntity<?> search(
+            @RequestParam String q,
+            @RequestParam(required = false) String type,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (q == null || q.trim().isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Search term is required"));
+        }
+        if (!catalogSearchIndexService.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Search index is still being built"));
+        }
+
+        int cappedLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+
+        if (type != null) {
+            CatalogChangeEvent.Type indexType;
+            try {
+                indexType = CatalogChangeEvent.Type.valueOf(type.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Type must be one of: song, artist, album"));
+            }
+            return ResponseEntity.ok(Map.of(
+                    "data", catalogSearchIndexService.search(indexType, q, cappedLimit),
+                    "limit", cappedLimit));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("songs", catalogSearchIndexService.search(CatalogChangeEvent.Type.SONG, q, cappedLimit));
+        response.put("artists", catalogSearchIndexService.search(CatalogChangeEvent.Type.ARTIST, q, cappedLimit));
+        response.put("albums", catalogSearchIndexService.search(CatalogChangeEvent.Type.ALBUM, q, cappedLimit));
+        response.put("limit", cappedLimit);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Search-as-you-type suggestions for songs, artists, albums and genres, most played first
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        int cappedLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        return ResponseEntity.ok(Map.of("data", searchSuggestService.suggest(prefix, cappedLimit)));
+    }
+}
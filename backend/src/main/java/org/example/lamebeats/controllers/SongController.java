@@ -1,16 +1,23 @@
 package org.example.lamebeats.controllers;
 
+import org.example.lamebeats.config.QueryBudget;
 import org.example.lamebeats.dto.SongDto;
 import org.example.lamebeats.models.Song;
+import org.example.lamebeats.repositories.CatalogExportRepository;
+import org.example.lamebeats.services.CatalogExportService;
+import org.example.lamebeats.services.FuzzySearchService;
 import org.example.lamebeats.services.SongService;
 import org.example.lamebeats.services.SongStreamingService;
 import org.example.lamebeats.services.SpotifyService;
 import org.example.lamebeats.utils.CurrentUser;
+import org.example.lamebeats.utils.CursorUtil;
+import org.example.lamebeats.utils.HttpCacheUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -22,21 +29,29 @@ public class SongController {
     private final CurrentUser currentUser;
     private final SongStreamingService songStreamingService;
     private final SpotifyService spotifyService;
+    private final FuzzySearchService fuzzySearchService;
+    private final CatalogExportService catalogExportService;
 
     @Autowired
-    public SongController(SongService songService, CurrentUser currentUser, SongStreamingService songStreamingService, SpotifyService spotifyService) {
+    public SongController(SongService songService, CurrentUser currentUser, SongStreamingService songStreamingService, SpotifyService spotifyService, FuzzySearchService fuzzySearchService,
+                          CatalogExportService catalogExportService) {
         this.songService = songService;
+        this.fuzzySearchService = fuzzySearchService;
         this.currentUser = currentUser;
         this.songStreamingService = songStreamingService;
         this.spotifyService = spotifyService;
+        this.catalogExportService = catalogExportService;
     }
 
     @GetMapping
+    @QueryBudget(3)
     public ResponseEntity<Map<String, Object>> getAllSongs(
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "20") int limit,
             @RequestParam(required = false) String albumId,
-            @RequestParam(required = false) String artistId) {
+            @RequestParam(required = false) String artistId,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "false") boolean exactTotal) {
 
         UUID albumUUID = null;
         UUID artistUUID = null;
@@ -57,37 +72,39 @@ public class SongController {
             }
         }
 
-        Map<String, Object> response = songService.getAllActiveSongsPaginated(page, limit, albumUUID, artistUUID);
+        int cappedLimit = CursorUtil.clampLimit(limit);
+        int cappedPage = CursorUtil.clampPage(page);
 
-        // Convert entities to DTOs
-        List<Song> songs = (List<Song>) response.get("data");
-        List<SongDto> songDtos = songs.stream()
-                .map(SongDto::fromEntity)
-                .collect(Collectors.toList());
-
-        Map<String, Object> dtoResponse = new HashMap<>(response);
-        dtoResponse.put("data", songDtos);
+        // A cursor (`after`, empty for the first page) switches to keyset pagination
+        Map<String, Object> response;
+        try {
+            response = after != null
+                    ? songService.getActiveSongsAfter(after, cappedLimit, albumUUID, artistUUID)
+                    : songService.getAllActiveSongsPaginated(cappedPage, cappedLimit, albumUUID, artistUUID, exactTotal);
+        } catch (CursorUtil.InvalidCursorException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+        }
 
-        return ResponseEntity.ok(dtoResponse);
+        // Data is already projected into SongSummaryDto
+        return ResponseEntity.ok().cacheControl(HttpCacheUtil.REVALIDATE).body(response);
     }
 
-    @GetMapping("/all")
-    public ResponseEntity<?> getAllSongsIncludingDeleted() {
-        // Only admins can see deleted songs
+    /**
+     * Stream every song (deleted included) as newline-delimited JSON, gzipped with ?gzip=true.
+     * Memory use does not grow with the catalog. /all is a deprecated alias that used to load the
+     * whole table into one JSON response
+     */
+    @GetMapping({"/export", "/all"})
+    public ResponseEntity<?> exportSongs(@RequestParam(defaultValue = "false") boolean gzip) {
         if (!CurrentUser.isAdmin()) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Only Admins can access this endpoint"));
         }
 
-        List<Song> songs = songService.getAllSongs();
-        List<SongDto> songDtos = songs.stream()
-                .map(SongDto::fromEntity)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(Map.of("data", songDtos));
+        return catalogExportService.export(CatalogExportRepository.Table.SONGS, gzip);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getSongById(@PathVariable String id) {
+    public ResponseEntity<?> getSongById(@PathVariable String id, WebRequest webRequest) {
         UUID songId;
         try {
             songId = UUID.fromString(id);
@@ -95,10 +112,20 @@ public class SongController {
             return ResponseEntity.badRequest().body(Map.of("error", "Invalid song ID format"));
         }
 
+        // Cheap version check first: a matching If-None-Match gets a 304
+        // without loading the song
+        Optional<HttpCacheUtil.Version> version = songService.getActiveSongVersion(songId);
+        if (version.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (webRequest.checkNotModified(version.get().etag(), version.get().lastModified())) {
+            return HttpCacheUtil.notModified(HttpCacheUtil.CATALOG);
+        }
+
         return songService.getActiveSongById(songId)
                 .map(song -> {
                     SongDto dto = SongDto.fromEntity(song);
-                    return ResponseEntity.ok(dto);
+                    return HttpCacheUtil.ok(version.get(), HttpCacheUtil.CATALOG).body(dto);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -117,17 +144,24 @@ public class SongController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<?> searchSongs(@RequestParam String title) {
+    @QueryBudget(4)
+    public ResponseEntity<?> searchSongs(
+            @RequestParam String title,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "false") boolean fuzzy) {
         if (title == null || title.trim().isEmpty()) {
             return ResponseEntity.badRequest().body(Map.of("error", "Search title is required"));
         }
 
-        List<Song> songs = songService.searchSongsByTitleOrArtist(title);
-        List<SongDto> songDtos = songs.stream()
-                .map(SongDto::fromEntity)
-                .collect(Collectors.toList());
+        if (fuzzy) {
+            return ResponseEntity.ok(Map.of(
+                    "data", fuzzySearchService.searchSongs(title, limit),
+                    "limit", fuzzySearchService.capLimit(limit)));
+        }
 
-        return ResponseEntity.ok(Map.of("data", songDtos));
+        // Data is already projected into SongSummaryDto
+        return ResponseEntity.ok(songService.searchSongsPaginated(title, page, limit));
     }
 
     @GetMapping("/album/{albumId}")
@@ -182,6 +216,7 @@ public class SongController {
     }
 
     @GetMapping("/genres")
+    @QueryBudget(5)
     public ResponseEntity<?> getSongsByGenres(
             @RequestParam List<String> genreIds,
             @RequestParam(defaultValue = "1") int page,
@@ -0,0 +1,45 @@
+package org.example.lamebeats.controllers;
+
+import org.example.lamebeats.services.PlaylistSyncService;
+import org.example.lamebeats.utils.CurrentUser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/sync")
+public class SyncController {
+    private final PlaylistSyncService playlistSyncService;
+
+    @Autowired
+    public SyncController(PlaylistSyncService playlistSyncService) {
+        this.playlistSyncService = playlistSyncService;
+    }
+
+    /**
+     * Changes to the current user's playlists since the version of the client's last sync.
+     * fullResync=true: download /api/playlists/me and each playlist's /tracks again, then sync from
+     * the returned version. Otherwise apply playlists/tracks (a playlist that is new to the client
+     * has its tracks fetched from /tracks) and call again with `version` while hasMore is true
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> sync(@RequestParam(defaultValue = "0") String since) {
+        UUID currentUserId = CurrentUser.getCurrentUserId();
+        if (currentUserId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "User not authenticated"));
+        }
+
+        long version;
+        try {
+            version = Long.parseLong(since);
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid version"));
+        }
+
+        return ResponseEntity.ok(playlistSyncService.getChangesSince(currentUserId, version));
+    }
+}
@@ -4,8 +4,10 @@ import jakarta.servlet.http.HttpServletRequest;
 import org.example.lamebeats.dto.*;
 import org.example.lamebeats.models.User;
 import org.example.lamebeats.services.AuthService;
+import org.example.lamebeats.services.FuzzySearchService;
 import org.example.lamebeats.services.UserService;
 import org.example.lamebeats.utils.CurrentUser;
+import org.example.lamebeats.utils.CursorUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -21,24 +23,38 @@ public class UserController {
 
     private final UserService userService;
     private final AuthService authService;
+    private final FuzzySearchService fuzzySearchService;
 
     @Autowired
-    public UserController(UserService userService, AuthService authService) {
+    public UserController(UserService userService, AuthService authService, FuzzySearchService fuzzySearchService) {
         this.userService = userService;
+        this.fuzzySearchService = fuzzySearchService;
         this.authService = authService;
     }
 
     @GetMapping
     public ResponseEntity<Map<String, Object>> getAllUsers(
             @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "10") int limit) {
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String after) {
 
         if (!CurrentUser.isAdmin()) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN)
                     .body(Map.of("error", "You do not have permission to access this resource"));
         }
 
-        Map<String, Object> response = userService.getAllActiveUsersPaginated(page, limit);
+        int cappedLimit = CursorUtil.clampLimit(limit);
+        int cappedPage = CursorUtil.clampPage(page);
+
+        // A cursor (`after`, empty for the first page) switches to keyset pagination
+        Map<String, Object> response;
+        try {
+            response = after != null
+                    ? userService.getActiveUsersAfter(after, cappedLimit)
+                    : userService.getAllActiveUsersPaginated(cappedPage, cappedLimit);
+        } catch (CursorUtil.InvalidCursorException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+        }
 
         // Convert entities to DTOs
         List<User> users = (List<User>) response.get("data");
@@ -168,7 +184,20 @@ public class UserController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<?> searchUsers(@RequestParam String username) {
+    public ResponseEntity<?> searchUsers(
+            @RequestParam String username,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (fuzzy) {
+            if (username == null || username.trim().isEmpty()) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Search term is required"));
+            }
+            List<UserDto> userDtos = fuzzySearchService.searchUsers(username, limit).stream()
+                    .map(UserDto::fromEntity)
+                    .collect(Collectors.toList());
+            return ResponseEntity.ok(Map.of("data", userDtos, "limit", fuzzySearchService.capLimit(limit)));
+        }
+
         List<User> users = userService.searchActiveUsersByUsername(username);
 
         List<UserDto> userDtos = users.stream()
@@ -1,12 +1,10 @@
 package org.example.lamebeats.dto;
 
+import com.fasterxml.jackson.annotation.JsonRawValue;
 import org.example.lamebeats.models.Playlist;
-import org.example.lamebeats.models.Song;
 
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 public class PlaylistDto {
     private UUID id;
@@ -15,12 +13,14 @@ public class PlaylistDto {
     private UUID userId;
     private String username;
     private String photo;
-    private List<SongDto> songs;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private int songCount;
+    private long totalDuration;
+    // Smart playlist rules as stored (JSON), null for a regular playlist
+    private String rules;
 
-    // Static factory method
+    // Static factory method. Only the playlist header: its songs are paged from /api/playlists/{id}/tracks
     public static PlaylistDto fromEntity(Playlist playlist) {
         PlaylistDto dto = new PlaylistDto();
         dto.setId(playlist.getId());
@@ -31,13 +31,9 @@ public class PlaylistDto {
         dto.setPhoto(playlist.getPhoto());
         dto.setCreatedAt(playlist.getCreatedAt());
         dto.setUpdatedAt(playlist.getUpdatedAt());
-        
-        if (playlist.getSongs() != null) {
-            dto.setSongs(playlist.getSongs().stream()
-                    .map(SongDto::fromEntity)
-                    .collect(Collectors.toList()));
-            dto.setSongCount(playlist.getSongs().size());
-        }
+        dto.setSongCount(playlist.getTrackCount());
+        dto.setTotalDuration(playlist.getTotalDuration());
+        dto.setRules(playlist.getRules());
         
         return dto;
     }
@@ -83,14 +79,6 @@ public class PlaylistDto {
         this.username = username;
     }
 
-    public List<SongDto> getSongs() {
-        return songs;
-    }
-
-    public void setSongs(List<SongDto> songs) {
-        this.songs = songs;
-    }
-
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -115,6 +103,23 @@ public class PlaylistDto {
         this.songCount = songCount;
     }
 
+    public long getTotalDuration() {
+        return totalDuration;
+    }
+
+    public void setTotalDuration(long totalDuration) {
+        this.totalDuration = totalDuration;
+    }
+
+    @JsonRawValue
+    public String getRules() {
+        return rules;
+    }
+
+    public void setRules(String rules) {
+        this.rules = rules;
+    }
+
     public String getPhoto() {
         return photo;
     }
@@ -0,0 +1,31 @@
+package org.example.lamebeats.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Playlist track list item: the song summary plus where and when it was put in the playlist,
+ * projected from a JPQL constructor expression (see SongReadRepository)
+ */
+public record PlaylistTrackDto(BigDecimal position,
+                               LocalDateTime addedAt,
+                               SongSummaryDto song) {
+
+    /**
+     * Constructor used by the flat playlist_songs + song + album query; artists are attached
+     * afterwards from one batched query
+     */
+    public PlaylistTrackDto(BigDecimal position, LocalDateTime addedAt,
+                            UUID id, String title, Integer duration, String fileUrl, String spotifyId,
+                            UUID albumId, String albumTitle, String albumPhoto,
+                            LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(position, addedAt, new SongSummaryDto(id, title, duration, fileUrl, spotifyId,
+                albumId, albumTitle, albumPhoto, createdAt, updatedAt));
+    }
+
+    public PlaylistTrackDto withArtists(List<SongSummaryDto.ArtistRef> artists) {
+        return new PlaylistTrackDto(position, addedAt, song.withArtists(artists));
+    }
+}
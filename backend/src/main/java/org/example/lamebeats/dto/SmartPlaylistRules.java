@@ -0,0 +1,53 @@
+package org.example.lamebeats.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Rules of a smart playlist, stored as JSON in playlists.rules and evaluated in SQL
+ * (smart_playlist_matches, V8__smart_playlists.sql). A song matches when it has one of the
+ * genres, minDuration <= duration < maxDuration (seconds) and the owner played it within the last
+ * playedWithinDays days; absent conditions are not checked. genreIds or playedWithinDays is required.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SmartPlaylistRules(List<UUID> genreIds,
+                                 Integer minDuration,
+                                 Integer maxDuration,
+                                 Integer playedWithinDays) {
+
+    public static final int MAX_GENRES = 50;
+    public static final int MAX_PLAYED_WITHIN_DAYS = 365;
+
+    /**
+     * The same rules with an empty genre list dropped (it would match nothing)
+     */
+    public SmartPlaylistRules normalized() {
+        return genreIds != null && genreIds.isEmpty()
+                ? new SmartPlaylistRules(null, minDuration, maxDuration, playedWithinDays)
+                : this;
+    }
+
+    /**
+     * Throws IllegalArgumentException describing the first invalid condition
+     */
+    public void validate() {
+        boolean hasGenres = genreIds != null && !genreIds.isEmpty();
+        if (!hasGenres && playedWithinDays == null) {
+            throw new IllegalArgumentException("Rules need genreIds or playedWithinDays");
+        }
+        if (genreIds != null && (genreIds.size() > MAX_GENRES || genreIds.contains(null))) {
+            throw new IllegalArgumentException("genreIds must hold at most " + MAX_GENRES + " genre IDs");
+        }
+        if (minDuration != null && minDuration < 0 || maxDuration != null && maxDuration <= 0) {
+            throw new IllegalArgumentException("Durations must be positive");
+        }
+        if (minDuration != null && maxDuration != null && minDuration >= maxDuration) {
+            throw new IllegalArgumentException("minDuration must be less than maxDuration");
+        }
+        if (playedWithinDays != null && (playedWithinDays < 1 || playedWithinDays > MAX_PLAYED_WITHIN_DAYS)) {
+            throw new IllegalArgumentException("playedWithinDays must be between 1 and " + MAX_PLAYED_WITHIN_DAYS);
+        }
+    }
+}
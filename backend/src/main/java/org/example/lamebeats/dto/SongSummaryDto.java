@@ -0,0 +1,43 @@
+package org.example.lamebeats.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Immutable song list item, projected straight from a JPQL constructor expression
+ * (see SongReadRepository) instead of being copied out of a hydrated Song entity.
+ * The album is flattened to id/title/photo and artists to id/name.
+ */
+public record SongSummaryDto(UUID id,
+                             String title,
+                             Integer duration,
+                             String fileUrl,
+                             String spotifyId,
+                             AlbumRef album,
+                             List<ArtistRef> artists,
+                             LocalDateTime createdAt,
+                             LocalDateTime updatedAt) {
+
+    public record AlbumRef(UUID id, String title, String photo) {
+    }
+
+    public record ArtistRef(UUID id, String name) {
+    }
+
+    /**
+     * Constructor used by the flat song + album query; artists are attached afterwards
+     * from one batched query
+     */
+    public SongSummaryDto(UUID id, String title, Integer duration, String fileUrl, String spotifyId,
+                          UUID albumId, String albumTitle, String albumPhoto,
+                          LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, title, duration, fileUrl, spotifyId,
+                albumId != null ? new AlbumRef(albumId, albumTitle, albumPhoto) : null,
+                List.of(), createdAt, updatedAt);
+    }
+
+    public SongSummaryDto withArtists(List<ArtistRef> artists) {
+        return new SongSummaryDto(id, title, duration, fileUrl, spotifyId, album, List.copyOf(artists), createdAt, updatedAt);
+    }
+}
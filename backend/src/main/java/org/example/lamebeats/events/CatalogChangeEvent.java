@@ -0,0 +1,26 @@
+package org.example.lamebeats.events;
+
+import java.util.UUID;
+
+/**
+ * Published by the catalog services when a song, artist or album is created, renamed,
+ * soft-deleted, restored or hard-deleted. A null title means the entity is no longer active.
+ */
+public record CatalogChangeEvent(Type type, UUID id, String title) {
+
+    public enum Type {
+        SONG, ARTIST, ALBUM
+    }
+
+    public static CatalogChangeEvent upserted(Type type, UUID id, String title) {
+        return new CatalogChangeEvent(type, id, title);
+    }
+
+    public static CatalogChangeEvent removed(Type type, UUID id) {
+        return new CatalogChangeEvent(type, id, null);
+    }
+
+    public boolean isRemoval() {
+        return title == null;
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.lamebeats.events;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Published by PlaylistService when songs are added to or removed from a playlist, or a playlist
+ * becomes active (created or restored, with its songs) or inactive (soft- or hard-deleted).
+ */
+public record PlaylistSongsChangedEvent(Type type, UUID playlistId, UUID userId, Collection<UUID> songIds) {
+
+    public enum Type {
+        ADDED, REMOVED, CLEARED, ACTIVATED, DEACTIVATED
+    }
+
+    public static PlaylistSongsChangedEvent added(UUID playlistId, Collection<UUID> songIds) {
+        return new PlaylistSongsChangedEvent(Type.ADDED, playlistId, null, List.copyOf(songIds));
+    }
+
+    public static PlaylistSongsChangedEvent removed(UUID playlistId, Collection<UUID> songIds) {
+        return new PlaylistSongsChangedEvent(Type.REMOVED, playlistId, null, List.copyOf(songIds));
+    }
+
+    public static PlaylistSongsChangedEvent cleared(UUID playlistId) {
+        return new PlaylistSongsChangedEvent(Type.CLEARED, playlistId, null, List.of());
+    }
+
+    public static PlaylistSongsChangedEvent activated(UUID playlistId, UUID userId, Collection<UUID> songIds) {
+        return new PlaylistSongsChangedEvent(Type.ACTIVATED, playlistId, userId, List.copyOf(songIds));
+    }
+
+    public static PlaylistSongsChangedEvent deactivated(UUID playlistId) {
+        return new PlaylistSongsChangedEvent(Type.DEACTIVATED, playlistId, null, List.of());
+    }
+}
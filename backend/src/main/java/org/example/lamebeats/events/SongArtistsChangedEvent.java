@@ -0,0 +1,11 @@
+package org.example.lamebeats.events;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Published by SongService and ArtistService whenever the artists credited on a song change,
+ * with the complete new set of artist ids (empty when the song lost all its artists).
+ */
+public record SongArtistsChangedEvent(UUID songId, Set<UUID> artistIds) {
+}
@@ -4,6 +4,8 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -23,6 +25,8 @@ import java.util.UUID;
 @AllArgsConstructor
 @Builder
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "catalog.albums")
 public class Album {
 
     @Id
@@ -56,6 +60,7 @@ public class Album {
     @JsonIgnore
     private List<Song> songs = new ArrayList<>();
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "catalog.albums.artists")
     @ManyToMany
     @JoinTable(
             name = "album_artist",
@@ -4,6 +4,8 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -20,6 +22,8 @@ import java.util.UUID;
 @AllArgsConstructor
 @Builder
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "catalog.artists")
 public class Artist {
 
     @Id
@@ -54,6 +58,7 @@ public class Artist {
     @JsonIgnore
     private Set<Song> songs = new HashSet<>();
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "catalog.artists.genres")
     @ManyToMany
     @JoinTable(
             name = "artist_genres",
@@ -4,9 +4,11 @@ import com.fasterxml.jackson.annotation.JsonIdentityInfo;
 import com.fasterxml.jackson.annotation.JsonIdentityReference;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
+import com.vladmihalcea.hibernate.type.json.JsonBinaryType;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Type;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
@@ -54,6 +56,24 @@ public class Playlist {
     @Column(name = "deleted_at")
     private LocalDateTime deletedAt;
 
+    // Smart playlist rules (SmartPlaylistRules as JSON), null for a regular playlist. The songs
+    // matching them are kept in playlist_songs by SmartPlaylistService
+    @Type(JsonBinaryType.class)
+    @Column(columnDefinition = "jsonb")
+    private String rules;
+
+    // Optimistic lock of header edits; ordering changes move it too (PlaylistRepository.claimVersion)
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    // Maintained by the playlist_songs triggers, never written by Hibernate
+    @Column(name = "track_count", insertable = false, updatable = false)
+    private int trackCount;
+
+    @Column(name = "total_duration", insertable = false, updatable = false)
+    private long totalDuration;
+
     @ManyToMany
     @JoinTable(
             name = "playlist_songs",
@@ -6,6 +6,7 @@ import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -28,6 +29,10 @@ public class PlaylistSong {
     @Column(name = "song_id")
     private UUID songId;
 
+    // Fractional sort key within the playlist, see PlaylistPositionUtil
+    @Column(name = "position", nullable = false)
+    private BigDecimal position;
+
     @CreationTimestamp
     @Column(name = "created_at")
     private LocalDateTime createdAt;
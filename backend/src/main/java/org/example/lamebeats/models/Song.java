@@ -22,8 +22,15 @@ import java.util.UUID;
 @AllArgsConstructor
 @Builder
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@NamedEntityGraph(name = Song.WITH_ARTISTS_AND_ALBUM, attributeNodes = {
+        @NamedAttributeNode("artists"),
+        @NamedAttributeNode("album")
+})
 public class Song {
 
+    // Fetch plan for song lists and details: artists and album in the same query
+    public static final String WITH_ARTISTS_AND_ALBUM = "Song.withArtistsAndAlbum";
+
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
@@ -0,0 +1,34 @@
+package org.example.lamebeats.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.util.UUID;
+
+/**
+ * Denormalized (genre, active song) pairs - a song has the genres of its artists.
+ * Maintained by the triggers of migration V2 whenever songs, song_artists or artist_genres change;
+ * read-only for the application. Genre pages read it in (genre, title) order from one index.
+ */
+@Entity
+@Immutable
+@Table(name = "song_genres")
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(SongGenreId.class)
+public class SongGenre {
+
+    @Id
+    @Column(name = "genre_id")
+    private UUID genreId;
+
+    @Id
+    @Column(name = "song_id")
+    private UUID songId;
+
+    // Sort key, copied from songs.title
+    @Column(name = "song_title", nullable = false)
+    private String songTitle;
+}
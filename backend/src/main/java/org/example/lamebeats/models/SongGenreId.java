@@ -0,0 +1,15 @@
+package org.example.lamebeats.models;
+
+import lombok.*;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class SongGenreId implements Serializable {
+    private UUID genreId;
+    private UUID songId;
+}
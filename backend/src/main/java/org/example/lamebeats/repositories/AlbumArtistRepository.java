@@ -30,4 +30,8 @@ public interface AlbumArtistRepository extends JpaRepository<AlbumArtist, AlbumA
     // Count artists for a specific album
     @Query("SELECT COUNT(aa) FROM AlbumArtist aa WHERE aa.albumId = :albumId")
     long countArtistsByAlbumId(@Param("albumId") UUID albumId);
+
+    // Every album-artist link (collaboration graph load)
+    @Query("SELECT aa.albumId, aa.artistId FROM AlbumArtist aa")
+    List<Object[]> findAllAlbumArtistPairs();
 }
\ No newline at end of file
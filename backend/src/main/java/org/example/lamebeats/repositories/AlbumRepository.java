@@ -1,11 +1,15 @@
 package org.example.lamebeats.repositories;
 
+import jakarta.persistence.QueryHint;
 import org.example.lamebeats.models.Album;
 import org.example.lamebeats.models.Artist;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,15 +27,44 @@ public interface AlbumRepository extends JpaRepository<Album, UUID> {
 
     // Find all active albums
     @Query("SELECT a FROM Album a WHERE a.deletedAt IS NULL")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Album> findAllActive();
 
+    // Find a page of active albums, sorted by the pageable (no count query, totals come from CountService)
+    @Query("SELECT a FROM Album a WHERE a.deletedAt IS NULL")
+    List<Album> findActivePage(Pageable pageable);
+
+    // Count active albums
+    @Query("SELECT COUNT(a) FROM Album a WHERE a.deletedAt IS NULL")
+    long countActive();
+
+    // Id and title of all active albums, without hydrating entities (search index build)
+    @Query("SELECT a.id, a.title FROM Album a WHERE a.deletedAt IS NULL")
+    List<Object[]> findAllActiveIdAndTitle();
+
     // Find active by id
     @Query("SELECT a FROM Album a WHERE a.id = :id AND a.deletedAt IS NULL")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Album> findActiveById(@Param("id") UUID id);
 
-    // Find active albums by title
-    @Query("SELECT a FROM Album a WHERE LOWER(a.title) LIKE LOWER(CONCAT('%', :title, '%')) AND a.deletedAt IS NULL")
-    List<Album> findActiveByTitleContaining(@Param("title") String title);
+    // Version rows of an active album, its songs and its artists (ETag checks)
+    @Query("SELECT al.updatedAt, s.id, s.updatedAt, ar.id, ar.updatedAt FROM Album al " +
+            "LEFT JOIN al.songs s LEFT JOIN al.artists ar " +
+            "WHERE al.id = :id AND al.deletedAt IS NULL ORDER BY s.id, ar.id")
+    List<Object[]> findActiveVersionRows(@Param("id") UUID id);
+
+    // Full-text search of active albums by title, ranked by relevance (query built by SearchQueryUtil)
+    @Query(value = "SELECT a.* FROM albums a WHERE a.deleted_at IS NULL AND a.search_vector @@ to_tsquery('simple', :query) " +
+            "ORDER BY ts_rank(a.search_vector, to_tsquery('simple', :query)) DESC, a.id",
+            countQuery = "SELECT COUNT(*) FROM albums a WHERE a.deleted_at IS NULL AND a.search_vector @@ to_tsquery('simple', :query)",
+            nativeQuery = true)
+    Page<Album> searchActive(@Param("query") String query, Pageable pageable);
+
+    // Typo-tolerant search of active albums by title (pg_trgm GIN index), most similar first
+    @Query(value = "SELECT a.* FROM albums a WHERE a.deleted_at IS NULL AND lower(a.title) % lower(:term) " +
+            "ORDER BY similarity(lower(a.title), lower(:term)) DESC, a.id LIMIT :limit",
+            nativeQuery = true)
+    List<Album> findActiveBySimilarTitle(@Param("term") String term, @Param("limit") int limit);
 
     // Find by release date range
     List<Album> findByReleaseDateBetween(LocalDate startDate, LocalDate endDate);
@@ -69,6 +102,7 @@ public interface AlbumRepository extends JpaRepository<Album, UUID> {
     @Query("SELECT COUNT(s) FROM Song s WHERE s.album.id = :albumId")
     long countSongsInAlbum(@Param("albumId") UUID albumId);
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Album findBySpotifyId(String spotifyId);
 
     @Modifying
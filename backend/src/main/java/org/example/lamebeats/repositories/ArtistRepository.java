@@ -1,10 +1,15 @@
 package org.example.lamebeats.repositories;
 
+import jakarta.persistence.QueryHint;
 import org.example.lamebeats.models.Artist;
 import org.example.lamebeats.models.Genre;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,6 +22,7 @@ import java.util.UUID;
 public interface ArtistRepository extends JpaRepository<Artist, UUID> {
 
     // Find by name exactly (case insensitive)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Artist> findByNameIgnoreCase(String name);
 
     // Find by name containing (case insensitive)
@@ -24,15 +30,43 @@ public interface ArtistRepository extends JpaRepository<Artist, UUID> {
 
     // Find all active artists
     @Query("SELECT a FROM Artist a WHERE a.deletedAt IS NULL")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Artist> findAllActive();
 
+    // Find a page of active artists, sorted by the pageable (no count query, totals come from CountService)
+    @Query("SELECT a FROM Artist a WHERE a.deletedAt IS NULL")
+    List<Artist> findActivePage(Pageable pageable);
+
+    // Count active artists
+    @Query("SELECT COUNT(a) FROM Artist a WHERE a.deletedAt IS NULL")
+    long countActive();
+
+    // Id and name of all active artists, without hydrating entities (search index build)
+    @Query("SELECT a.id, a.name FROM Artist a WHERE a.deletedAt IS NULL")
+    List<Object[]> findAllActiveIdAndName();
+
     // Find active by id
     @Query("SELECT a FROM Artist a WHERE a.id = :id AND a.deletedAt IS NULL")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Artist> findActiveById(@Param("id") UUID id);
 
-    // Find active artists by name containing
-    @Query("SELECT a FROM Artist a WHERE LOWER(a.name) LIKE LOWER(CONCAT('%', :name, '%')) AND a.deletedAt IS NULL")
-    List<Artist> findActiveByNameContaining(@Param("name") String name);
+    // Version rows of an active artist and its genres (ETag checks)
+    @Query("SELECT a.updatedAt, g.id, g.updatedAt FROM Artist a LEFT JOIN a.genres g " +
+            "WHERE a.id = :id AND a.deletedAt IS NULL ORDER BY g.id")
+    List<Object[]> findActiveVersionRows(@Param("id") UUID id);
+
+    // Full-text search of active artists by name, ranked by relevance (query built by SearchQueryUtil)
+    @Query(value = "SELECT a.* FROM artists a WHERE a.deleted_at IS NULL AND a.search_vector @@ to_tsquery('simple', :query) " +
+            "ORDER BY ts_rank(a.search_vector, to_tsquery('simple', :query)) DESC, a.id",
+            countQuery = "SELECT COUNT(*) FROM artists a WHERE a.deleted_at IS NULL AND a.search_vector @@ to_tsquery('simple', :query)",
+            nativeQuery = true)
+    Page<Artist> searchActive(@Param("query") String query, Pageable pageable);
+
+    // Typo-tolerant search of active artists by name (pg_trgm GIN index), most similar first
+    @Query(value = "SELECT a.* FROM artists a WHERE a.deleted_at IS NULL AND lower(a.name) % lower(:term) " +
+            "ORDER BY similarity(lower(a.name), lower(:term)) DESC, a.id LIMIT :limit",
+            nativeQuery = true)
+    List<Artist> findActiveBySimilarName(@Param("term") String term, @Param("limit") int limit);
 
     // Find artists by genre
     @Query("SELECT a FROM Artist a JOIN a.genres g WHERE g = :genre")
@@ -48,6 +82,7 @@ public interface ArtistRepository extends JpaRepository<Artist, UUID> {
 
     // Find active artists by genre id
     @Query("SELECT a FROM Artist a JOIN a.genres g WHERE g.id = :genreId AND a.deletedAt IS NULL")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Artist> findActiveByGenreId(@Param("genreId") UUID genreId);
 
     // Find artists with the most songs
@@ -59,6 +94,7 @@ public interface ArtistRepository extends JpaRepository<Artist, UUID> {
     @Query("SELECT a FROM Artist a WHERE a.deletedAt IS NOT NULL")
     List<Artist> findAllDeleted();
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Artist findBySpotifyId(String spotifyId);
 
     @Modifying
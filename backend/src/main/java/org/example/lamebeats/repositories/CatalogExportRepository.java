@@ -0,0 +1,61 @@
+package org.example.lamebeats.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * Full-table reads for catalog exports, deleted rows included. Rows are pulled through a
+ * forward-only cursor `fetch-size` rows at a time and handed to the callback one by one, so
+ * nothing is collected in memory. Postgres only uses a cursor inside a transaction.
+ */
+@Repository
+public class CatalogExportRepository {
+
+    public enum Table {
+        SONGS("SELECT s.id, s.spotify_id, s.title, s.album_id, s.duration, s.file_url, " +
+                "ARRAY(SELECT sa.artist_id FROM song_artists sa WHERE sa.song_id = s.id) AS artist_ids, " +
+                "s.created_at, s.updated_at, s.deleted_at FROM songs s"),
+        ALBUMS("SELECT al.id, al.spotify_id, al.title, al.release_date, al.photo, " +
+                "ARRAY(SELECT aa.artist_id FROM album_artist aa WHERE aa.album_id = al.id) AS artist_ids, " +
+                "al.created_at, al.updated_at, al.deleted_at FROM albums al"),
+        ARTISTS("SELECT a.id, a.spotify_id, a.name, a.photo, " +
+                "ARRAY(SELECT ag.genre_id FROM artist_genres ag WHERE ag.artist_id = a.id) AS genre_ids, " +
+                "a.created_at, a.updated_at, a.deleted_at FROM artists a"),
+        GENRES("SELECT g.id, g.title, g.created_at, g.updated_at, g.deleted_at FROM genres g"),
+        LYRICS("SELECT l.id, l.song_id, l.language, l.content, l.created_at, l.updated_at, l.deleted_at FROM lyrics l");
+
+        private final String sql;
+
+        Table(String sql) {
+            this.sql = sql;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${export.fetch-size:1000}")
+    private int fetchSize;
+
+    @Autowired
+    public CatalogExportRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Stream every row of the table to the handler
+     */
+    public void forEachRow(Table table, RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(table.sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, handler);
+    }
+}
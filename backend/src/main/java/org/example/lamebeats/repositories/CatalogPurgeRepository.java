@@ -0,0 +1,104 @@
+package org.example.lamebeats.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+
+/**
+ * Set-based hard deletes of albums and artists. Each table is cleared with one DELETE driven by
+ * a subquery on the albums being removed, children before parents, instead of loading and
+ * detaching the entity graph row by row. Must run inside a transaction; the native statements
+ * bypass the persistence context, so callers must not hold the deleted entities.
+ */
+@Repository
+public class CatalogPurgeRepository {
+
+    // Songs of the albums being deleted
+    private static final String ALBUM_SONGS = "SELECT s.id FROM songs s WHERE s.album_id IN (:albumIds)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Albums credited to an artist
+    @SuppressWarnings("unchecked")
+    public List<UUID> findAlbumIdsByArtistId(UUID artistId) {
+        return entityManager.createNativeQuery("SELECT aa.album_id FROM album_artist aa WHERE aa.artist_id = :artistId")
+                .setParameter("artistId", artistId)
+                .getResultList();
+    }
+
+    // Songs on the given albums
+    @SuppressWarnings("unchecked")
+    public List<UUID> findSongIdsByAlbumIds(Collection<UUID> albumIds) {
+        if (albumIds.isEmpty()) {
+            return List.of();
+        }
+        return entityManager.createNativeQuery(ALBUM_SONGS)
+                .setParameter("albumIds", albumIds)
+                .getResultList();
+    }
+
+    /**
+     * Songs credited to the artist that survive its deletion (not on one of its albums), each with
+     * the artists it keeps; an empty set when the artist was its only one
+     */
+    @SuppressWarnings("unchecked")
+    public Map<UUID, Set<UUID>> findSurvivingSongArtists(UUID artistId) {
+        List<Object[]> rows = entityManager.createNativeQuery("SELECT sa.song_id, other.artist_id FROM song_artists sa " +
+                        "JOIN songs s ON s.id = sa.song_id " +
+                        "LEFT JOIN song_artists other ON other.song_id = sa.song_id AND other.artist_id <> :artistId " +
+                        "WHERE sa.artist_id = :artistId AND NOT EXISTS (" +
+                        "SELECT 1 FROM album_artist aa WHERE aa.album_id = s.album_id AND aa.artist_id = :artistId)")
+                .setParameter("artistId", artistId)
+                .getResultList();
+
+        Map<UUID, Set<UUID>> songArtists = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            Set<UUID> artists = songArtists.computeIfAbsent((UUID) row[0], id -> new HashSet<>());
+            if (row[1] != null) {
+                artists.add((UUID) row[1]);
+            }
+        }
+        return songArtists;
+    }
+
+    /**
+     * Delete the albums, their songs and every row referencing those songs.
+     * Returns the number of deleted rows per table
+     */
+    public Map<String, Integer> deleteAlbums(Collection<UUID> albumIds) {
+        Map<String, Integer> deleted = new LinkedHashMap<>();
+        if (albumIds.isEmpty()) {
+            return deleted;
+        }
+
+        deleted.put("lyrics", execute("DELETE FROM lyrics WHERE song_id IN (" + ALBUM_SONGS + ")", "albumIds", albumIds));
+        deleted.put("recent_tracks", execute("DELETE FROM recent_tracks WHERE song_id IN (" + ALBUM_SONGS + ")", "albumIds", albumIds));
+        deleted.put("playlist_songs", execute("DELETE FROM playlist_songs WHERE song_id IN (" + ALBUM_SONGS + ")", "albumIds", albumIds));
+        deleted.put("song_artists", execute("DELETE FROM song_artists WHERE song_id IN (" + ALBUM_SONGS + ")", "albumIds", albumIds));
+        deleted.put("songs", execute("DELETE FROM songs WHERE album_id IN (:albumIds)", "albumIds", albumIds));
+        deleted.put("album_artist", execute("DELETE FROM album_artist WHERE album_id IN (:albumIds)", "albumIds", albumIds));
+        deleted.put("albums", execute("DELETE FROM albums WHERE id IN (:albumIds)", "albumIds", albumIds));
+        return deleted;
+    }
+
+    /**
+     * Delete an artist with its albums (see deleteAlbums) and its song and genre links.
+     * Songs of the artist on other artists' albums are kept, without this artist.
+     * Returns the number of deleted rows per table
+     */
+    public Map<String, Integer> deleteArtist(UUID artistId, Collection<UUID> albumIds) {
+        Map<String, Integer> deleted = deleteAlbums(albumIds);
+        deleted.merge("song_artists", execute("DELETE FROM song_artists WHERE artist_id = :artistId", "artistId", artistId), Integer::sum);
+        deleted.merge("album_artist", execute("DELETE FROM album_artist WHERE artist_id = :artistId", "artistId", artistId), Integer::sum);
+        deleted.put("artist_genres", execute("DELETE FROM artist_genres WHERE artist_id = :artistId", "artistId", artistId));
+        deleted.put("artists", execute("DELETE FROM artists WHERE id = :artistId", "artistId", artistId));
+        return deleted;
+    }
+
+    private int execute(String sql, String name, Object value) {
+        return entityManager.createNativeQuery(sql).setParameter(name, value).executeUpdate();
+    }
+}
@@ -1,8 +1,12 @@
 package org.example.lamebeats.repositories;
 
+import jakarta.persistence.QueryHint;
 import org.example.lamebeats.models.Genre;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -14,6 +18,7 @@ import java.util.UUID;
 public interface GenreRepository extends JpaRepository<Genre, UUID> {
 
     // Find by title exactly (case insensitive)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Genre> findByTitleIgnoreCase(String title);
 
     // Find by title containing (case insensitive)
@@ -21,14 +26,29 @@ public interface GenreRepository extends JpaRepository<Genre, UUID> {
 
     // Find all active genres
     @Query("SELECT g FROM Genre g WHERE g.deletedAt IS NULL")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Genre> findAllActive();
 
+    // Find a page of active genres, sorted by the pageable (no count query, totals come from CountService)
+    @Query("SELECT g FROM Genre g WHERE g.deletedAt IS NULL")
+    List<Genre> findActivePage(Pageable pageable);
+
+    // Count active genres
+    @Query("SELECT COUNT(g) FROM Genre g WHERE g.deletedAt IS NULL")
+    long countActive();
+
+    // Id and title of all active genres, without hydrating entities (suggestion index build)
+    @Query("SELECT g.id, g.title FROM Genre g WHERE g.deletedAt IS NULL")
+    List<Object[]> findAllActiveIdAndTitle();
+
     // Find active by id
     @Query("SELECT g FROM Genre g WHERE g.id = :id AND g.deletedAt IS NULL")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Genre> findActiveById(@Param("id") UUID id);
 
     // Find active by title (case insensitive)
     @Query("SELECT g FROM Genre g WHERE LOWER(g.title) = LOWER(:title) AND g.deletedAt IS NULL")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Genre> findActiveByTitle(@Param("title") String title);
 
     // Find active genre by title containing
@@ -41,6 +61,7 @@ public interface GenreRepository extends JpaRepository<Genre, UUID> {
 
     // Find active genres by artist id
     @Query("SELECT g FROM Genre g JOIN g.artists a WHERE a.id = :artistId AND g.deletedAt IS NULL")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Genre> findActiveByArtistId(@Param("artistId") UUID artistId);
 
     // Find all deleted genres
@@ -2,6 +2,8 @@ package org.example.lamebeats.repositories;
 
 import org.example.lamebeats.enums.Language;
 import org.example.lamebeats.models.Lyrics;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -32,6 +34,11 @@ public interface LyricsRepository extends JpaRepository<Lyrics, UUID> {
     @Query("SELECT l FROM Lyrics l WHERE l.deletedAt IS NULL")
     List<Lyrics> findAllActive();
 
+    // Find all active lyrics (paginated, sorted by the pageable)
+    @Query(value = "SELECT l FROM Lyrics l WHERE l.deletedAt IS NULL",
+            countQuery = "SELECT COUNT(l) FROM Lyrics l WHERE l.deletedAt IS NULL")
+    Page<Lyrics> findAllActive(Pageable pageable);
+
     // Find active by id
     @Query("SELECT l FROM Lyrics l WHERE l.id = :id AND l.deletedAt IS NULL")
     Optional<Lyrics> findActiveById(@Param("id") UUID id);
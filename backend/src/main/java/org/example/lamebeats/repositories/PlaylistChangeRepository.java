@@ -0,0 +1,139 @@
+package org.example.lamebeats.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * The playlist change log (playlist_changes, written by triggers, see V6__playlist_changes.sql)
+ * read as range scans over (user_id, version), plus the track rows a sync has to send and the
+ * compaction statements. Runs on the connection of the surrounding transaction.
+ */
+@Repository
+public class PlaylistChangeRepository {
+
+    public record Change(long version, UUID playlistId, UUID songId, String kind) {
+    }
+
+    public record TrackState(UUID playlistId, UUID songId, BigDecimal position, LocalDateTime addedAt) {
+    }
+
+    // Waits for the user's in-flight playlist writes to commit, so no lower version can show up later
+    private static final String LOCK_USER_SHARED = "SELECT pg_advisory_xact_lock_shared(hashtext('playlist_changes'), hashtext(?::text))";
+
+    private static final String FIND_CHANGES_AFTER = "SELECT version, playlist_id, song_id, kind FROM playlist_changes " +
+            "WHERE user_id = ? AND version > ? ORDER BY version LIMIT ?";
+
+    private static final String FIND_HEAD_VERSION = "SELECT greatest(" +
+            "(SELECT coalesce(max(version), 0) FROM playlist_changes WHERE user_id = ?), " +
+            "(SELECT compacted_through FROM playlist_change_watermark WHERE id = 1))";
+
+    private static final String FIND_COMPACTED_THROUGH = "SELECT compacted_through FROM playlist_change_watermark WHERE id = 1";
+
+    private static final String FIND_ACTIVE_TRACKS = "SELECT ps.playlist_id, ps.song_id, ps.position, ps.created_at " +
+            "FROM unnest(?::uuid[], ?::uuid[]) AS req(playlist_id, song_id) " +
+            "JOIN playlist_songs ps ON ps.playlist_id = req.playlist_id AND ps.song_id = req.song_id " +
+            "WHERE ps.deleted_at IS NULL";
+
+    // Deletes the changes of the oldest batch (from a version on) that are older than minAgeSeconds and
+    // superseded by a newer change of the same playlist or track. Returns the last version of the
+    // batch and how many of its changes are still younger than that
+    private static final String COLLAPSE_BATCH = "WITH batch AS (" +
+            "SELECT version, playlist_id, song_id, changed_at FROM playlist_changes " +
+            "WHERE version > ? ORDER BY version LIMIT ?), " +
+            "superseded AS (DELETE FROM playlist_changes c USING batch b " +
+            "WHERE c.version = b.version AND b.changed_at < now() - ? * interval '1 second' AND EXISTS (" +
+            "SELECT 1 FROM playlist_changes n WHERE n.playlist_id = b.playlist_id " +
+            "AND n.song_id IS NOT DISTINCT FROM b.song_id AND n.version > b.version)) " +
+            "SELECT max(version), count(*) FILTER (WHERE changed_at >= now() - ? * interval '1 second') FROM batch";
+
+    // Drops the oldest changes (at most one batch) older than minAgeSeconds and moves the watermark up to
+    // the last dropped version. Returns the number of changes dropped
+    private static final String DROP_BATCH = "WITH horizon AS (" +
+            "SELECT max(version) AS version FROM (" +
+            "SELECT version, changed_at FROM playlist_changes ORDER BY version LIMIT ?) oldest " +
+            "WHERE changed_at < now() - ? * interval '1 second'), " +
+            "dropped AS (DELETE FROM playlist_changes WHERE version <= (SELECT version FROM horizon) RETURNING version), " +
+            "raised AS (UPDATE playlist_change_watermark w SET compacted_through = greatest(w.compacted_through, h.version) " +
+            "FROM horizon h WHERE w.id = 1 AND h.version IS NOT NULL RETURNING w.id) " +
+            "SELECT count(*) FROM dropped";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public PlaylistChangeRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Block until the user's uncommitted playlist writes are done, for the rest of the transaction
+     */
+    public void lockUserForRead(UUID userId) {
+        jdbcTemplate.queryForList(LOCK_USER_SHARED, userId);
+    }
+
+    /**
+     * The user's changes after a version, oldest first
+     */
+    public List<Change> findChangesAfter(UUID userId, long since, int limit) {
+        return jdbcTemplate.query(FIND_CHANGES_AFTER, (rs, rowNum) -> new Change(
+                rs.getLong(1),
+                rs.getObject(2, UUID.class),
+                rs.getObject(3, UUID.class),
+                rs.getString(4)), userId, since, limit);
+    }
+
+    /**
+     * The version a client is up to date with after downloading the user's full library
+     */
+    public long findHeadVersion(UUID userId) {
+        return jdbcTemplate.queryForObject(FIND_HEAD_VERSION, Long.class, userId);
+    }
+
+    /**
+     * Versions up to this one may have been dropped by compaction
+     */
+    public long findCompactedThrough() {
+        return jdbcTemplate.queryForObject(FIND_COMPACTED_THROUGH, Long.class);
+    }
+
+    /**
+     * Current position and added date of the given (playlist, song) pairs that are still in their playlist
+     */
+    public List<TrackState> findActiveTracks(List<UUID> playlistIds, List<UUID> songIds) {
+        if (playlistIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(FIND_ACTIVE_TRACKS, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("uuid", playlistIds.toArray()));
+            ps.setArray(2, ps.getConnection().createArrayOf("uuid", songIds.toArray()));
+        }, (rs, rowNum) -> new TrackState(
+                rs.getObject(1, UUID.class),
+                rs.getObject(2, UUID.class),
+                rs.getBigDecimal(3),
+                rs.getTimestamp(4).toLocalDateTime()));
+    }
+
+    /**
+     * Collapse one batch of changes after a version. Returns {last version of the batch, changes in it
+     * younger than minAgeSeconds}, or null when there are no changes after `from`
+     */
+    public long[] collapseSupersededBatch(long from, int batchSize, long minAgeSeconds) {
+        return jdbcTemplate.queryForObject(COLLAPSE_BATCH, (rs, rowNum) -> {
+            long last = rs.getLong(1);
+            return rs.wasNull() ? null : new long[]{last, rs.getLong(2)};
+        }, from, batchSize, minAgeSeconds, minAgeSeconds);
+    }
+
+    /**
+     * Drop one batch of the oldest changes older than minAgeSeconds. Returns the number dropped
+     */
+    public int dropOldestBatch(int batchSize, long minAgeSeconds) {
+        Integer dropped = jdbcTemplate.queryForObject(DROP_BATCH, Integer.class, batchSize, minAgeSeconds);
+        return dropped == null ? 0 : dropped;
+    }
+}
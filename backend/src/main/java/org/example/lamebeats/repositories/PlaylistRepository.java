@@ -5,10 +5,12 @@ import org.example.lamebeats.models.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -39,16 +41,55 @@ public interface PlaylistRepository extends JpaRepository<Playlist, UUID> {
     @Query("SELECT p FROM Playlist p WHERE p.deletedAt IS NULL")
     Page<Playlist> findAllActive(Pageable pageable);
 
+    // Keyset page of active playlists after a (createdAt, id) cursor, newest first
+    @Query("SELECT p FROM Playlist p WHERE p.deletedAt IS NULL AND " +
+            "(p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Playlist> findActiveAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") UUID id, Pageable pageable);
+
+    // Keyset page of a user's active playlists after a (createdAt, id) cursor, newest first
+    @Query("SELECT p FROM Playlist p WHERE p.user.id = :userId AND p.deletedAt IS NULL AND " +
+            "(p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Playlist> findActiveByUserIdAfter(@Param("userId") UUID userId, @Param("createdAt") LocalDateTime createdAt, @Param("id") UUID id, Pageable pageable);
+
     // Find active playlist by ID
     @Query("SELECT p FROM Playlist p WHERE p.id = :id AND p.deletedAt IS NULL")
     Optional<Playlist> findActiveById(@Param("id") UUID id);
 
+    // (playlistId, userId) of every active playlist, for the in-memory membership index
+    @Query("SELECT p.id, p.user.id FROM Playlist p WHERE p.deletedAt IS NULL")
+    List<Object[]> findAllActiveIdAndUserId();
+
+    // Check that an active playlist exists without loading it
+    @Query("SELECT COUNT(p) > 0 FROM Playlist p WHERE p.id = :id AND p.deletedAt IS NULL")
+    boolean existsActiveById(@Param("id") UUID id);
+
+    // Edit version of an active playlist, read before an ordering change
+    @Query("SELECT p.version FROM Playlist p WHERE p.id = :id AND p.deletedAt IS NULL")
+    Optional<Long> findActiveEditVersion(@Param("id") UUID id);
+
+    // Commit point of an ordering change: moves the edit version on only if nobody else did since
+    // it was read. 0 when another edit got there first (or the playlist was deleted)
+    @Modifying
+    @Query("UPDATE Playlist p SET p.version = p.version + 1 WHERE p.id = :id AND p.version = :version AND p.deletedAt IS NULL")
+    int claimVersion(@Param("id") UUID id, @Param("version") long version);
+
+    // Version row of an active playlist header and its owner (ETag / Last-Modified checks). Track
+    // changes bump the playlist's updated_at through the playlist_songs triggers
+    @Query("SELECT p.updatedAt, u.updatedAt, p.trackCount, p.totalDuration " +
+            "FROM Playlist p JOIN p.user u WHERE p.id = :id AND p.deletedAt IS NULL")
+    List<Object[]> findActiveVersionRows(@Param("id") UUID id);
+
     // Find by name containing (case insensitive)
     List<Playlist> findByNameContainingIgnoreCase(String name);
 
-    // Find active playlists by name containing (case insensitive)
-    @Query("SELECT p FROM Playlist p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%')) AND p.deletedAt IS NULL")
-    List<Playlist> findActiveByNameContaining(@Param("name") String name);
+    // Full-text search of active playlists by name and description, ranked by relevance (query built by SearchQueryUtil)
+    @Query(value = "SELECT p.* FROM playlists p WHERE p.deleted_at IS NULL AND p.search_vector @@ to_tsquery('simple', :query) " +
+            "ORDER BY ts_rank(p.search_vector, to_tsquery('simple', :query)) DESC, p.id",
+            countQuery = "SELECT COUNT(*) FROM playlists p WHERE p.deleted_at IS NULL AND p.search_vector @@ to_tsquery('simple', :query)",
+            nativeQuery = true)
+    Page<Playlist> searchActive(@Param("query") String query, Pageable pageable);
 
     // Find all deleted playlists
     @Query("SELECT p FROM Playlist p WHERE p.deletedAt IS NOT NULL")
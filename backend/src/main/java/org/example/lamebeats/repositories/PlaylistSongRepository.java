@@ -3,10 +3,12 @@ package org.example.lamebeats.repositories;
 import org.example.lamebeats.models.PlaylistSong;
 import org.example.lamebeats.models.PlaylistSongId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -52,4 +54,50 @@ public interface PlaylistSongRepository extends JpaRepository<PlaylistSong, Play
     // Find all soft-deleted playlist-song relationships
     @Query("SELECT ps FROM PlaylistSong ps WHERE ps.deletedAt IS NOT NULL")
     List<PlaylistSong> findAllDeleted();
-}
\ No newline at end of file
+
+    // First position in a playlist, null when it is empty
+    @Query("SELECT MIN(ps.position) FROM PlaylistSong ps WHERE ps.playlistId = :playlistId AND ps.deletedAt IS NULL")
+    BigDecimal findFirstPosition(@Param("playlistId") UUID playlistId);
+
+    // Last position in a playlist, null when it is empty
+    @Query("SELECT MAX(ps.position) FROM PlaylistSong ps WHERE ps.playlistId = :playlistId AND ps.deletedAt IS NULL")
+    BigDecimal findLastPosition(@Param("playlistId") UUID playlistId);
+
+    // Position following the given one, null at the end of the playlist
+    @Query("SELECT MIN(ps.position) FROM PlaylistSong ps WHERE ps.playlistId = :playlistId AND ps.deletedAt IS NULL " +
+            "AND ps.position > :position")
+    BigDecimal findNextPosition(@Param("playlistId") UUID playlistId, @Param("position") BigDecimal position);
+
+    // The positions at an index and the one after it, ignoring one song (the one being placed)
+    @Query(value = "SELECT ps.position FROM playlist_songs ps WHERE ps.playlist_id = :playlistId AND ps.deleted_at IS NULL " +
+            "AND ps.song_id <> :excludeSongId ORDER BY ps.position, ps.song_id LIMIT 2 OFFSET :index",
+            nativeQuery = true)
+    List<BigDecimal> findPositionsAt(@Param("playlistId") UUID playlistId, @Param("index") int index,
+                                     @Param("excludeSongId") UUID excludeSongId);
+
+    // Move one song: a single-row update
+    @Modifying
+    @Query(value = "UPDATE playlist_songs SET position = :position, updated_at = now() " +
+            "WHERE playlist_id = :playlistId AND song_id = :songId AND deleted_at IS NULL",
+            nativeQuery = true)
+    int updatePosition(@Param("playlistId") UUID playlistId, @Param("songId") UUID songId,
+                       @Param("position") BigDecimal position);
+
+    // Renumber a playlist to 1..n in its current order
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE playlist_songs ps SET position = ordered.rn FROM (" +
+            "SELECT song_id, row_number() OVER (ORDER BY position, song_id) AS rn " +
+            "FROM playlist_songs WHERE playlist_id = :playlistId) ordered " +
+            "WHERE ps.playlist_id = :playlistId AND ps.song_id = ordered.song_id AND ps.position <> ordered.rn",
+            nativeQuery = true)
+    int renumberPositions(@Param("playlistId") UUID playlistId);
+
+    // Song ids of the active entries of a playlist
+    @Query("SELECT ps.songId FROM PlaylistSong ps WHERE ps.playlistId = :playlistId AND ps.deletedAt IS NULL")
+    List<UUID> findActiveSongIdsByPlaylistId(@Param("playlistId") UUID playlistId);
+
+    // (playlistId, songId) pairs of every active playlist, for the in-memory membership index
+    @Query("SELECT ps.playlistId, ps.songId FROM PlaylistSong ps JOIN ps.playlist p " +
+            "WHERE ps.deletedAt IS NULL AND p.deletedAt IS NULL")
+    List<Object[]> findAllActivePlaylistSongPairs();
+}
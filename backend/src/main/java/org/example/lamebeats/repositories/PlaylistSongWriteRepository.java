@@ -0,0 +1,89 @@
+package org.example.lamebeats.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Playlist membership changes as single statements on playlist_songs, so adding or removing a
+ * song costs the same for a playlist of ten songs or ten thousand: nothing is loaded, Hibernate
+ * never diffs the Playlist.songs collection, and each call returns the songs it actually changed.
+ * Runs on the connection of the surrounding transaction.
+ */
+@Repository
+public class PlaylistSongWriteRepository {
+
+    // Appends in request order after the current last position. Unknown songs are dropped by the join;
+    // soft-deleted rows are restored at the new position, songs already in the playlist are left alone
+    private static final String APPEND_SONGS = "INSERT INTO playlist_songs (playlist_id, song_id, position, created_at, updated_at) " +
+            "SELECT ?, s.id, tail.position + req.ord, now(), now() " +
+            "FROM unnest(?::uuid[]) WITH ORDINALITY AS req(song_id, ord) " +
+            "JOIN songs s ON s.id = req.song_id " +
+            "CROSS JOIN (SELECT coalesce(floor(max(position)), 0) AS position FROM playlist_songs " +
+            "WHERE playlist_id = ? AND deleted_at IS NULL) tail " +
+            "ON CONFLICT (playlist_id, song_id) DO UPDATE " +
+            "SET deleted_at = NULL, position = EXCLUDED.position, updated_at = now() " +
+            "WHERE playlist_songs.deleted_at IS NOT NULL " +
+            "RETURNING song_id";
+
+    // Soft-deleted rows go as well, but were no longer in the playlist, so only active ones are returned
+    private static final String DELETE_SONGS = "WITH deleted AS (" +
+            "DELETE FROM playlist_songs WHERE playlist_id = ? AND song_id = ANY(?::uuid[]) " +
+            "RETURNING song_id, deleted_at) " +
+            "SELECT song_id FROM deleted WHERE deleted_at IS NULL";
+
+    // Same for a whole playlist: counts the active rows only
+    private static final String DELETE_ALL_SONGS = "WITH deleted AS (" +
+            "DELETE FROM playlist_songs WHERE playlist_id = ? RETURNING deleted_at) " +
+            "SELECT count(*) FROM deleted WHERE deleted_at IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public PlaylistSongWriteRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Append songs to the end of a playlist, restoring the ones that were soft-deleted. Returns the
+     * ids of the songs added or restored
+     */
+    public List<UUID> appendSongs(UUID playlistId, Collection<UUID> songIds) {
+        if (songIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(APPEND_SONGS, ps -> {
+            ps.setObject(1, playlistId);
+            // DO UPDATE may not touch a row twice in one statement, so repeated songs are dropped here
+            ps.setArray(2, ps.getConnection().createArrayOf("uuid", new LinkedHashSet<>(songIds).toArray()));
+            ps.setObject(3, playlistId);
+        }, (rs, rowNum) -> rs.getObject(1, UUID.class));
+    }
+
+    /**
+     * Remove songs from a playlist, soft-deleted entries included. Returns the ids of the songs
+     * that were in the playlist
+     */
+    public List<UUID> deleteSongs(UUID playlistId, Collection<UUID> songIds) {
+        if (songIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(DELETE_SONGS, ps -> {
+            ps.setObject(1, playlistId);
+            ps.setArray(2, ps.getConnection().createArrayOf("uuid", songIds.toArray()));
+        }, (rs, rowNum) -> rs.getObject(1, UUID.class));
+    }
+
+    /**
+     * Remove every song from a playlist, soft-deleted entries included. Returns the number of songs
+     * that were in the playlist
+     */
+    public int deleteAllSongs(UUID playlistId) {
+        return jdbcTemplate.queryForObject(DELETE_ALL_SONGS, Integer.class, playlistId);
+    }
+}
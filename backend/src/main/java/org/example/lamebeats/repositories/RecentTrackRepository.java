@@ -21,6 +21,24 @@ public interface RecentTrackRepository extends JpaRepository<RecentTrack, UUID>
     // Find recent tracks by user with pagination
     List<RecentTrack> findByUserIdOrderByCreatedAtDesc(UUID userId, Pageable pageable);
 
+    // Count recent tracks of a user
+    long countByUserId(UUID userId);
+
+    // Page of all recent tracks, newest first (no count query, totals come from CountService)
+    List<RecentTrack> findAllByOrderByCreatedAtDesc(Pageable pageable);
+
+    // Keyset page of recent tracks after a (createdAt, id) cursor, newest first
+    @Query("SELECT rt FROM RecentTrack rt WHERE " +
+            "(rt.createdAt < :createdAt OR (rt.createdAt = :createdAt AND rt.id < :id)) " +
+            "ORDER BY rt.createdAt DESC, rt.id DESC")
+    List<RecentTrack> findAllAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") UUID id, Pageable pageable);
+
+    // Keyset page of a user's recent tracks after a (createdAt, id) cursor, newest first
+    @Query("SELECT rt FROM RecentTrack rt WHERE rt.user.id = :userId AND " +
+            "(rt.createdAt < :createdAt OR (rt.createdAt = :createdAt AND rt.id < :id)) " +
+            "ORDER BY rt.createdAt DESC, rt.id DESC")
+    List<RecentTrack> findByUserIdAfter(@Param("userId") UUID userId, @Param("createdAt") LocalDateTime createdAt, @Param("id") UUID id, Pageable pageable);
+
     // Find track by user and song
     Optional<RecentTrack> findByUserIdAndSongId(UUID userId, UUID songId);
 
@@ -47,4 +65,20 @@ public interface RecentTrackRepository extends JpaRepository<RecentTrack, UUID>
     // Count plays for a specific song by user
     @Query("SELECT COUNT(rt) FROM RecentTrack rt WHERE rt.song.id = :songId AND rt.user.id = :userId")
     long countPlaysBySongIdAndUserId(@Param("songId") UUID songId, @Param("userId") UUID userId);
+
+    // Play counts per song id
+    @Query("SELECT rt.song.id, COUNT(rt) FROM RecentTrack rt GROUP BY rt.song.id")
+    List<Object[]> countPlaysPerSong();
+
+    // Play counts per artist id, summed over the artist's songs
+    @Query("SELECT a.id, COUNT(rt) FROM RecentTrack rt JOIN rt.song s JOIN s.artists a GROUP BY a.id")
+    List<Object[]> countPlaysPerArtist();
+
+    // Play counts per album id, summed over the album's songs
+    @Query("SELECT s.album.id, COUNT(rt) FROM RecentTrack rt JOIN rt.song s WHERE s.album IS NOT NULL GROUP BY s.album.id")
+    List<Object[]> countPlaysPerAlbum();
+
+    // Play counts per genre id, summed over the songs of the genre's artists
+    @Query("SELECT g.id, COUNT(DISTINCT rt) FROM RecentTrack rt JOIN rt.song s JOIN s.artists a JOIN a.genres g GROUP BY g.id")
+    List<Object[]> countPlaysPerGenre();
 }
\ No newline at end of file
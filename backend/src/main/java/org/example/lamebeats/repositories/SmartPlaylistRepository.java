@@ -0,0 +1,130 @@
+package org.example.lamebeats.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.util.*;
+
+/**
+ * Smart playlist maintenance (see V8__smart_playlists.sql): the queue of songs to re-evaluate,
+ * which smart playlists they can affect, and the statement bringing a playlist's songs in line
+ * with its rules. Runs on the connection of the surrounding transaction.
+ */
+@Repository
+public class SmartPlaylistRepository {
+
+    public record Pending(UUID songId, UUID userId) {
+    }
+
+    public record Refresh(List<UUID> added, List<UUID> removed) {
+    }
+
+    // Takes the oldest queued songs off the queue; concurrent workers skip each other's rows
+    private static final String CLAIM_PENDING = "DELETE FROM smart_playlist_pending WHERE id IN (" +
+            "SELECT id FROM smart_playlist_pending ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING song_id, user_id";
+
+    // (playlist, song) pairs to re-evaluate for changed songs, all users' or one user's (user_id set):
+    // smart playlists holding the song, those with one of its genres, and play-window rules without
+    // genres of users who played it. `??` is the jsonb key-exists operator, escaped for the driver
+    private static final String FIND_AFFECTED = "WITH changed AS (" +
+            "SELECT DISTINCT song_id, user_id FROM unnest(?::uuid[], ?::uuid[]) AS c(song_id, user_id)) " +
+            "SELECT p.id, c.song_id FROM changed c " +
+            "JOIN playlist_songs ps ON ps.song_id = c.song_id " +
+            "JOIN playlists p ON p.id = ps.playlist_id AND p.rules IS NOT NULL AND p.deleted_at IS NULL " +
+            "WHERE c.user_id IS NULL OR p.user_id = c.user_id " +
+            "UNION " +
+            "SELECT p.id, c.song_id FROM changed c " +
+            "JOIN song_genres sg ON sg.song_id = c.song_id " +
+            "JOIN playlists p ON p.rules @> jsonb_build_object('genreIds', jsonb_build_array(sg.genre_id)) " +
+            "AND p.rules IS NOT NULL AND p.deleted_at IS NULL " +
+            "WHERE c.user_id IS NULL OR p.user_id = c.user_id " +
+            "UNION " +
+            "SELECT p.id, c.song_id FROM changed c " +
+            "JOIN recent_tracks rt ON rt.song_id = c.song_id AND (c.user_id IS NULL OR rt.user_id = c.user_id) " +
+            "JOIN playlists p ON p.user_id = rt.user_id AND p.rules IS NOT NULL AND p.deleted_at IS NULL " +
+            "AND p.rules ?? 'playedWithinDays' AND NOT p.rules ?? 'genreIds'";
+
+    // Puts songs back on the queue for the owner's smart playlists; nothing when the playlist is gone
+    private static final String REQUEUE = "INSERT INTO smart_playlist_pending (song_id, user_id) " +
+            "SELECT s.song_id, p.user_id FROM unnest(?::uuid[]) AS s(song_id) " +
+            "JOIN playlists p ON p.id = ? AND p.deleted_at IS NULL";
+
+    private static final String REFRESH = "SELECT song_id, added FROM refresh_smart_playlist(?, ?::uuid[])";
+
+    // Only play windows make songs stop matching as time passes
+    private static final String FIND_PLAY_WINDOW_PLAYLIST_IDS = "SELECT id FROM playlists " +
+            "WHERE rules IS NOT NULL AND deleted_at IS NULL AND rules ?? 'playedWithinDays'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public SmartPlaylistRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Remove and return up to `limit` queued songs
+     */
+    public List<Pending> claimPending(int limit) {
+        return jdbcTemplate.query(CLAIM_PENDING, (rs, rowNum) -> new Pending(
+                rs.getObject(1, UUID.class),
+                rs.getObject(2, UUID.class)), limit);
+    }
+
+    /**
+     * The songs to re-evaluate per smart playlist for the given queued songs
+     */
+    public Map<UUID, List<UUID>> findAffected(List<Pending> pending) {
+        if (pending.isEmpty()) {
+            return Map.of();
+        }
+        Map<UUID, List<UUID>> affected = new LinkedHashMap<>();
+        jdbcTemplate.query(FIND_AFFECTED, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("uuid", pending.stream().map(Pending::songId).toArray()));
+            ps.setArray(2, ps.getConnection().createArrayOf("uuid", pending.stream().map(Pending::userId).toArray()));
+        }, rs -> {
+            affected.computeIfAbsent(rs.getObject(1, UUID.class), id -> new ArrayList<>()).add(rs.getObject(2, UUID.class));
+        });
+        return affected;
+    }
+
+    /**
+     * Queue songs again whose re-evaluation for a playlist failed
+     */
+    public void requeue(UUID playlistId, Collection<UUID> songIds) {
+        jdbcTemplate.update(REQUEUE, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("uuid", songIds.toArray()));
+            ps.setObject(2, playlistId);
+        });
+    }
+
+    /**
+     * Re-evaluate a smart playlist's rules for some songs, or for all of them when songIds is null.
+     * Returns nothing changed when the playlist is not an active smart playlist
+     */
+    public Refresh refresh(UUID playlistId, Collection<UUID> songIds) {
+        List<UUID> added = new ArrayList<>();
+        List<UUID> removed = new ArrayList<>();
+        jdbcTemplate.query(REFRESH, ps -> {
+            ps.setObject(1, playlistId);
+            if (songIds == null) {
+                ps.setNull(2, Types.ARRAY);
+            } else {
+                ps.setArray(2, ps.getConnection().createArrayOf("uuid", songIds.toArray()));
+            }
+        }, rs -> {
+            (rs.getBoolean(2) ? added : removed).add(rs.getObject(1, UUID.class));
+        });
+        return new Refresh(added, removed);
+    }
+
+    /**
+     * Active smart playlists with a play window
+     */
+    public List<UUID> findPlayWindowPlaylistIds() {
+        return jdbcTemplate.queryForList(FIND_PLAY_WINDOW_PLAYLIST_IDS, UUID.class);
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -36,4 +37,12 @@ public interface SongArtistRepository extends JpaRepository<SongArtist, SongArti
             "WHERE sa1.songId = sa2.songId AND sa1.artistId < sa2.artistId " +
             "GROUP BY sa1.artistId, sa2.artistId ORDER BY COUNT(sa1) DESC")
     List<Object[]> findArtistCollaborations(org.springframework.data.domain.Pageable pageable);
-}
\ No newline at end of file
+
+    // Every song-artist link (collaboration graph load)
+    @Query("SELECT sa.songId, sa.artistId FROM SongArtist sa")
+    List<Object[]> findAllSongArtistPairs();
+
+    // Artist id and name per song for a batch of songs (song list projections)
+    @Query("SELECT sa.songId, a.id, a.name FROM SongArtist sa JOIN sa.artist a WHERE sa.songId IN :songIds ORDER BY a.name")
+    List<Object[]> findArtistNamesBySongIds(@Param("songIds") Collection<UUID> songIds);
+}
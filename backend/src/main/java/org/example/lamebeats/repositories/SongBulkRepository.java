@@ -0,0 +1,146 @@
+package org.example.lamebeats.repositories;
+
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Bulk inserts of songs and their song_artists rows, bypassing the persistence context.
+ * Ids are generated by the caller, so nothing has to be read back. Up to `copy-threshold` songs
+ * are written with JDBC batches, larger loads are streamed with Postgres COPY. Both run on the
+ * connection of the surrounding transaction. The song_artists triggers run per statement
+ * (V9__song_artists_statement_triggers.sql), so search vectors and song_genres are rebuilt once
+ * per COPY or rewritten multi-row INSERT, not once per link.
+ */
+@Repository
+public class SongBulkRepository {
+
+    private static final String INSERT_SONG = "INSERT INTO songs (id, spotify_id, title, album_id, duration, file_url, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_SONG_ARTIST = "INSERT INTO song_artists (song_id, artist_id, created_at, updated_at) VALUES (?, ?, ?, ?)";
+
+    private static final String COPY_SONGS = "COPY songs (id, spotify_id, title, album_id, duration, file_url, created_at, updated_at) FROM STDIN";
+    private static final String COPY_SONG_ARTISTS = "COPY song_artists (song_id, artist_id, created_at, updated_at) FROM STDIN";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+
+    @Value("${jdbc.bulk.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${jdbc.bulk.copy-threshold:5000}")
+    private int copyThreshold;
+
+    public record SongRow(UUID id, String spotifyId, String title, UUID albumId, int duration, String fileUrl,
+                          List<UUID> artistIds) {
+    }
+
+    @Autowired
+    public SongBulkRepository(JdbcTemplate jdbcTemplate, DataSource dataSource) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Insert the songs and their artist links. Returns the number of rows written (songs + links)
+     */
+    public long insertAll(List<SongRow> songs) {
+        if (songs.isEmpty()) {
+            return 0;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return songs.size() >= copyThreshold ? copy(songs, now) : batch(songs, now);
+    }
+
+    private long batch(List<SongRow> songs, Timestamp now) {
+        jdbcTemplate.batchUpdate(INSERT_SONG, songs, batchSize, (ps, song) -> {
+            ps.setObject(1, song.id());
+            ps.setString(2, song.spotifyId());
+            ps.setString(3, song.title());
+            ps.setObject(4, song.albumId());
+            ps.setInt(5, song.duration());
+            ps.setString(6, song.fileUrl());
+            ps.setTimestamp(7, now);
+            ps.setTimestamp(8, now);
+        });
+
+        List<UUID[]> links = new ArrayList<>();
+        for (SongRow song : songs) {
+            for (UUID artistId : song.artistIds()) {
+                links.add(new UUID[]{song.id(), artistId});
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_SONG_ARTIST, links, batchSize, (ps, link) -> {
+            ps.setObject(1, link[0]);
+            ps.setObject(2, link[1]);
+            ps.setTimestamp(3, now);
+            ps.setTimestamp(4, now);
+        });
+        return songs.size() + links.size();
+    }
+
+    private long copy(List<SongRow> songs, Timestamp now) {
+        String timestamp = now.toLocalDateTime().toString();
+        StringBuilder songData = new StringBuilder(songs.size() * 128);
+        StringBuilder linkData = new StringBuilder(songs.size() * 96);
+        for (SongRow song : songs) {
+            appendRow(songData, song.id(), song.spotifyId(), song.title(), song.albumId(), song.duration(),
+                    song.fileUrl(), timestamp, timestamp);
+            for (UUID artistId : song.artistIds()) {
+                appendRow(linkData, song.id(), artistId, timestamp, timestamp);
+            }
+        }
+
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            var copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            long rows = copyManager.copyIn(COPY_SONGS, new StringReader(songData.toString()));
+            rows += copyManager.copyIn(COPY_SONG_ARTISTS, new StringReader(linkData.toString()));
+            return rows;
+        } catch (SQLException | IOException e) {
+            throw new IllegalStateException("COPY of " + songs.size() + " songs failed", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    // One line of COPY text format: tab separated, \N for null
+    private static void appendRow(StringBuilder out, Object... values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.append('\t');
+            }
+            if (values[i] == null) {
+                out.append("\\N");
+            } else {
+                appendEscaped(out, values[i].toString());
+            }
+        }
+        out.append('\n');
+    }
+
+    private static void appendEscaped(StringBuilder out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '\t' -> out.append("\\t");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                default -> out.append(c);
+            }
+        }
+    }
+}
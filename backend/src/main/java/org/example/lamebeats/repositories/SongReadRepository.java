@@ -0,0 +1,179 @@
+package org.example.lamebeats.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.example.lamebeats.dto.PlaylistTrackDto;
+import org.example.lamebeats.dto.SongSummaryDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Read-only song list queries that project into SongSummaryDto instead of loading Song entities:
+ * one flat song + album query and one batched artist-name query per page.
+ * Filters are optional, so the JPQL is assembled here rather than in one @Query per combination.
+ */
+@Repository
+public class SongReadRepository {
+
+    private static final String SELECT_SUMMARY = "SELECT new org.example.lamebeats.dto.SongSummaryDto(" +
+            "s.id, s.title, s.duration, s.fileUrl, s.spotifyId, al.id, al.title, al.photo, s.createdAt, s.updatedAt) " +
+            "FROM Song s LEFT JOIN s.album al ";
+
+    private static final String NEWEST_FIRST = " ORDER BY s.createdAt DESC, s.id DESC";
+
+    private static final String SELECT_PLAYLIST_TRACK = "SELECT new org.example.lamebeats.dto.PlaylistTrackDto(" +
+            "ps.position, ps.createdAt, s.id, s.title, s.duration, s.fileUrl, s.spotifyId, al.id, al.title, al.photo, s.createdAt, s.updatedAt) " +
+            "FROM PlaylistSong ps JOIN ps.song s LEFT JOIN s.album al " +
+            "WHERE ps.playlistId = :playlistId AND ps.deletedAt IS NULL";
+
+    private static final String PLAYLIST_ORDER = " ORDER BY ps.position, ps.songId";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final SongArtistRepository songArtistRepository;
+
+    @Autowired
+    public SongReadRepository(SongArtistRepository songArtistRepository) {
+        this.songArtistRepository = songArtistRepository;
+    }
+
+    /**
+     * Page of active songs, newest first, optionally filtered by album and/or artist.
+     * No count query; see countActive
+     */
+    public List<SongSummaryDto> findActivePage(UUID albumId, UUID artistId, Pageable pageable) {
+        String where = activeFilter(albumId, artistId);
+
+        TypedQuery<SongSummaryDto> query = entityManager.createQuery(SELECT_SUMMARY + where + NEWEST_FIRST, SongSummaryDto.class)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize());
+        bindFilter(query, albumId, artistId);
+
+        return withArtists(query.getResultList());
+    }
+
+    /**
+     * Number of active songs, optionally filtered by album and/or artist
+     */
+    public long countActive(UUID albumId, UUID artistId) {
+        TypedQuery<Long> countQuery = entityManager.createQuery("SELECT COUNT(s) FROM Song s " + activeFilter(albumId, artistId), Long.class);
+        bindFilter(countQuery, albumId, artistId);
+        return countQuery.getSingleResult();
+    }
+
+    /**
+     * Keyset page of active songs after a (createdAt, id) cursor, newest first.
+     * Fetches up to `limit` rows, callers pass limit + 1 to detect a next page
+     */
+    public List<SongSummaryDto> findActiveAfter(UUID albumId, UUID artistId, LocalDateTime createdAt, UUID id, int limit) {
+        String where = activeFilter(albumId, artistId) +
+                " AND (s.createdAt < :createdAt OR (s.createdAt = :createdAt AND s.id < :id))";
+
+        TypedQuery<SongSummaryDto> query = entityManager.createQuery(SELECT_SUMMARY + where + NEWEST_FIRST, SongSummaryDto.class)
+                .setParameter("createdAt", createdAt)
+                .setParameter("id", id)
+                .setMaxResults(limit);
+        bindFilter(query, albumId, artistId);
+
+        return withArtists(query.getResultList());
+    }
+
+    /**
+     * Songs by id, returned in the order of the given ids (e.g. search rank order)
+     */
+    public List<SongSummaryDto> findByIds(List<UUID> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<UUID, SongSummaryDto> byId = new HashMap<>();
+        entityManager.createQuery(SELECT_SUMMARY + "WHERE s.id IN :ids", SongSummaryDto.class)
+                .setParameter("ids", ids)
+                .getResultList()
+                .forEach(song -> byId.put(song.id(), song));
+
+        List<SongSummaryDto> ordered = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            SongSummaryDto song = byId.get(id);
+            if (song != null) {
+                ordered.add(song);
+            }
+        }
+        return withArtists(ordered);
+    }
+
+    /**
+     * Keyset page of a playlist's songs in playlist order, after a (position, songId) cursor;
+     * a null position starts from the first track. Callers pass limit + 1 to detect a next page
+     */
+    public List<PlaylistTrackDto> findPlaylistTracksAfter(UUID playlistId, BigDecimal position, UUID songId, int limit) {
+        String seek = position == null ? ""
+                : " AND (ps.position > :position OR (ps.position = :position AND ps.songId > :songId))";
+
+        TypedQuery<PlaylistTrackDto> query = entityManager.createQuery(SELECT_PLAYLIST_TRACK + seek + PLAYLIST_ORDER, PlaylistTrackDto.class)
+                .setParameter("playlistId", playlistId)
+                .setMaxResults(limit);
+        if (position != null) {
+            query.setParameter("position", position);
+            query.setParameter("songId", songId);
+        }
+
+        List<PlaylistTrackDto> tracks = query.getResultList();
+        Map<UUID, List<SongSummaryDto.ArtistRef>> artistsBySong =
+                artistsBySong(tracks.stream().map(track -> track.song().id()).toList());
+        return tracks.stream()
+                .map(track -> track.withArtists(artistsBySong.getOrDefault(track.song().id(), List.of())))
+                .toList();
+    }
+
+    private String activeFilter(UUID albumId, UUID artistId) {
+        StringBuilder where = new StringBuilder("WHERE s.deletedAt IS NULL");
+        if (albumId != null) {
+            where.append(" AND s.album.id = :albumId");
+        }
+        if (artistId != null) {
+            where.append(" AND EXISTS (SELECT 1 FROM SongArtist sa WHERE sa.songId = s.id AND sa.artistId = :artistId)");
+        }
+        return where.toString();
+    }
+
+    private void bindFilter(TypedQuery<?> query, UUID albumId, UUID artistId) {
+        if (albumId != null) {
+            query.setParameter("albumId", albumId);
+        }
+        if (artistId != null) {
+            query.setParameter("artistId", artistId);
+        }
+    }
+
+    // One batched query for the artist names of every song in the page
+    private List<SongSummaryDto> withArtists(List<SongSummaryDto> songs) {
+        if (songs.isEmpty()) {
+            return songs;
+        }
+
+        Map<UUID, List<SongSummaryDto.ArtistRef>> artistsBySong = artistsBySong(songs.stream().map(SongSummaryDto::id).toList());
+        return songs.stream()
+                .map(song -> song.withArtists(artistsBySong.getOrDefault(song.id(), List.of())))
+                .toList();
+    }
+
+    private Map<UUID, List<SongSummaryDto.ArtistRef>> artistsBySong(List<UUID> songIds) {
+        Map<UUID, List<SongSummaryDto.ArtistRef>> artistsBySong = new HashMap<>();
+        if (songIds.isEmpty()) {
+            return artistsBySong;
+        }
+        for (Object[] row : songArtistRepository.findArtistNamesBySongIds(songIds)) {
+            artistsBySong.computeIfAbsent((UUID) row[0], k -> new ArrayList<>())
+                    .add(new SongSummaryDto.ArtistRef((UUID) row[1], (String) row[2]));
+        }
+        return artistsBySong;
+    }
+}
@@ -6,6 +6,7 @@ import org.example.lamebeats.models.Playlist;
 import org.example.lamebeats.models.Song;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -19,115 +20,166 @@ import java.util.UUID;
 @Repository
 public interface SongRepository extends JpaRepository<Song, UUID> {
 
+    // All songs, regardless of deleted status, with artists and album
+    @Override
+    @EntityGraph(Song.WITH_ARTISTS_AND_ALBUM)
+    List<Song> findAll();
+
     // Modified to include artists
-    @Query("SELECT DISTINCT s FROM Song s LEFT JOIN FETCH s.artists WHERE LOWER(s.title) LIKE LOWER(CONCAT('%', :title, '%'))")
+    @EntityGraph(Song.WITH_ARTISTS_AND_ALBUM)
+    @Query("SELECT s FROM Song s WHERE LOWER(s.title) LIKE LOWER(CONCAT('%', :title, '%'))")
     List<Song> findByTitleContainingIgnoreCase(@Param("title") String title);
 
     // Modified to include artists
-    @Query("SELECT DISTINCT s FROM Song s LEFT JOIN FETCH s.artists WHERE s.album = :album")
+    @EntityGraph(Song.WITH_ARTISTS_AND_ALBUM)
+    @Query("SELECT s FROM Song s WHERE s.album = :album")
     List<Song> findByAlbum(@Param("album") Album album);
 
     // Modified to include artists
-    @Query("SELECT DISTINCT s FROM Song s LEFT JOIN FETCH s.artists WHERE s.album.id = :albumId")
+    @EntityGraph(Song.WITH_ARTISTS_AND_ALBUM)
+    @Query("SELECT s FROM Song s WHERE s.album.id = :albumId")
     List<Song> findByAlbumId(@Param("albumId") UUID albumId);
 
     // Modified to include artists
-    @Query("SELECT DISTINCT s FROM Song s LEFT JOIN FETCH s.artists WHERE s.duration BETWEEN :minDuration AND :maxDuration")
+    @EntityGraph(Song.WITH_ARTISTS_AND_ALBUM)
+    @Query("SELECT s FROM Song s WHERE s.duration BETWEEN :minDuration AND :maxDuration")
     List<Song> findByDurationBetween(@Param("minDuration") int minDuration, @Param("maxDuration") int maxDuration);
 
     // Find all active songs with artists
-    @Query("SELECT DISTINCT s FROM Song s LEFT JOIN FETCH s.artists WHERE s.deletedAt IS NULL")
+    @EntityGraph(Song.WITH_ARTISTS_AND_ALBUM)
+    @Query("SELECT s FROM Song s WHERE s.deletedAt IS NULL")
     List<Song> findAllActive();
 
-    // Find all active songs (paginated) - can't use FETCH with pagination directly
+    // Find all active songs (paginated) - no collection fetch with pagination,
+    // artists and album are batch-loaded (hibernate.default_batch_fetch_size)
     @Query(value = "SELECT s FROM Song s WHERE s.deletedAt IS NULL",
             countQuery = "SELECT COUNT(s) FROM Song s WHERE s.deletedAt IS NULL")
     Page<Song> findAllActive(Pageable pageable);
 
+    // Id and title of all active songs, without hydrating entities (search index build)
+    @Query("SELECT s.id, s.title FROM Song s WHERE s.deletedAt IS NULL")
+    List<Object[]> findAllActiveIdAndTitle();
+
     // Find active by id with artists
-    @Query("SELECT DISTINCT s FROM Song s LEFT JOIN FETCH s.artists WHERE s.id = :id AND s.deletedAt IS NULL")
+    @EntityGraph(Song.WITH_ARTISTS_AND_ALBUM)
+    @Query("SELECT s FROM Song s WHERE s.id = :id AND s.deletedAt IS NULL")
     Optional<Song> findActiveById(@Param("id") UUID id);
 
-    // Find active songs by title with artists
-    @Query("SELECT DISTINCT s FROM Song s LEFT JOIN FETCH s.artists WHERE LOWER(s.title) LIKE LOWER(CONCAT('%', :title, '%')) AND s.deletedAt IS NULL")
-    List<Song> findActiveByTitleContaining(@Param("title") String title);
+    // Version rows of an active song and everything its detail response shows (album, artists,
+    // artist genres) - for ETag checks without loading the entities
+    @Query("SELECT s.updatedAt, al.id, al.updatedAt, a.id, a.updatedAt, g.id, g.updatedAt FROM Song s " +
+            "LEFT JOIN s.album al LEFT JOIN s.artists a LEFT JOIN a.genres g " +
+            "WHERE s.id = :id AND s.deletedAt IS NULL ORDER BY a.id, g.id")
+    List<Object[]> findActiveVersionRows(@Param("id") UUID id);
 
     // Find songs by artist with artists
-    @Query("SELECT DISTINCT s FROM Song s LEFT JOIN FETCH s.artists a WHERE :artist MEMBER OF s.artists")
+    @EntityGraph(Song.WITH_ARTISTS_AND_ALBUM)
+    @Query("SELECT s FROM Song s WHERE :artist MEMBER OF s.artists")
     List<Song> findByArtist(@Param("artist") Artist artist);
 
     // Find active songs by artist with artists
-    @Query("SELECT DISTINCT s FROM Song s LEFT JOIN FETCH s.artists a WHERE :artist MEMBER OF s.artists AND s.deletedAt IS NULL")
+    @EntityGraph(Song.WITH_ARTISTS_AND_ALBUM)
+    @Query("SELECT s FROM Song s WHERE :artist MEMBER OF s.artists AND s.deletedAt IS NULL")
     List<Song> findActiveByArtist(@Param("artist") Artist artist);
 
     // Find songs by artist id with artists
-    @Query("SELECT DISTINCT s FROM Song s LEFT JOIN FETCH s.artists a WHERE a.id = :artistId")
+    @EntityGraph(Song.WITH_ARTISTS_AND_ALBUM)
+    @Query("SELECT s FROM Song s JOIN s.artists a WHERE a.id = :artistId")
     List<Song> findByArtistId(@Param("artistId") UUID artistId);
 
     // Find active songs by artist id with artists
-    @Query("SELECT DISTINCT s FROM Song s LEFT JOIN FETCH s.artists a WHERE a.id = :artistId AND s.deletedAt IS NULL")
+    @EntityGraph(Song.WITH_ARTISTS_AND_ALBUM)
+    @Query("SELECT s FROM Song s JOIN s.artists a WHERE a.id = :artistId AND s.deletedAt IS NULL")
     List<Song> findActiveByArtistId(@Param("artistId") UUID artistId);
 
     // Find active songs by album and not deleted with artists
-    @Query("SELECT DISTINCT s FROM Song s LEFT JOIN FETCH s.artists WHERE s.album = :album AND s.deletedAt IS NULL")
+    @EntityGraph(Song.WITH_ARTISTS_AND_ALBUM)
+    @Query("SELECT s FROM Song s WHERE s.album = :album AND s.deletedAt IS NULL")
     List<Song> findActiveByAlbum(@Param("album") Album album);
 
     // Find active songs by album id with artists
-    @Query("SELECT DISTINCT s FROM Song s LEFT JOIN FETCH s.artists WHERE s.album.id = :albumId AND s.deletedAt IS NULL")
+    @EntityGraph(Song.WITH_ARTISTS_AND_ALBUM)
+    @Query("SELECT s FROM Song s WHERE s.album.id = :albumId AND s.deletedAt IS NULL")
     List<Song> findActiveByAlbumId(@Param("albumId") UUID albumId);
 
     // Find recently added songs with artists
-    @Query("SELECT DISTINCT s FROM Song s LEFT JOIN FETCH s.artists WHERE s.deletedAt IS NULL ORDER BY s.createdAt DESC")
+    // Only the album is joined: fetching a collection with a limit would paginate in memory,
+    // artists are batch-loaded instead
+    @EntityGraph(attributePaths = "album")
+    @Query("SELECT s FROM Song s WHERE s.deletedAt IS NULL ORDER BY s.createdAt DESC")
     List<Song> findRecentlyAddedSongs(Pageable pageable);
 
     // Find all deleted songs with artists
-    @Query("SELECT DISTINCT s FROM Song s LEFT JOIN FETCH s.artists WHERE s.deletedAt IS NOT NULL")
+    @EntityGraph(Song.WITH_ARTISTS_AND_ALBUM)
+    @Query("SELECT s FROM Song s WHERE s.deletedAt IS NOT NULL")
     List<Song> findAllDeleted();
 
-    // Search songs by title or artist name with artists
-    @Query("SELECT DISTINCT s FROM Song s LEFT JOIN FETCH s.artists a WHERE " +
-            "(LOWER(s.title) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-            "LOWER(a.name) LIKE LOWER(CONCAT('%', :searchTerm, '%'))) AND s.deletedAt IS NULL")
-    List<Song> searchByTitleOrArtist(@Param("searchTerm") String searchTerm);
+    /**
+     * Full-text search of active songs over title, artist names and album title (GIN index on search_vector).
+     * The query must be a tsquery built by SearchQueryUtil. Returns ids only, in rank order -
+     * load the rows with SongReadRepository.findByIds
+     */
+    @Query(value = "SELECT s.id FROM songs s WHERE s.deleted_at IS NULL AND s.search_vector @@ to_tsquery('simple', :query) " +
+            "ORDER BY ts_rank(s.search_vector, to_tsquery('simple', :query)) DESC, s.id",
+            countQuery = "SELECT COUNT(*) FROM songs s WHERE s.deleted_at IS NULL AND s.search_vector @@ to_tsquery('simple', :query)",
+            nativeQuery = true)
+    Page<UUID> searchActiveIds(@Param("query") String query, Pageable pageable);
 
     // Find songs not in a specific playlist with artists
-    @Query("SELECT DISTINCT s FROM Song s LEFT JOIN FETCH s.artists WHERE s.deletedAt IS NULL AND s.id NOT IN " +
+    @EntityGraph(Song.WITH_ARTISTS_AND_ALBUM)
+    @Query("SELECT s FROM Song s WHERE s.deletedAt IS NULL AND s.id NOT IN " +
             "(SELECT ps.songId FROM PlaylistSong ps WHERE ps.playlistId = :playlistId AND ps.deletedAt IS NULL)")
     List<Song> findSongsNotInPlaylist(@Param("playlistId") UUID playlistId);
 
     /**
-     * Find songs by genre ID - joined through artists that have the specified genre
+     * Find active songs by genre ID, from the song_genres projection
      */
-    @Query("SELECT DISTINCT s FROM Song s LEFT JOIN FETCH s.artists a JOIN a.genres g WHERE g.id = :genreId AND s.deletedAt IS NULL")
+    @EntityGraph(Song.WITH_ARTISTS_AND_ALBUM)
+    @Query("SELECT s FROM Song s WHERE s.id IN (SELECT sg.songId FROM SongGenre sg WHERE sg.genreId = :genreId)")
     List<Song> findSongsByGenreId(@Param("genreId") UUID genreId);
 
     /**
-     * Find songs by multiple genre IDs - joined through artists that have any of the specified genres
+     * Find active songs having any of the genre IDs, from the song_genres projection
      */
-    @Query("SELECT DISTINCT s FROM Song s LEFT JOIN FETCH s.artists a JOIN a.genres g WHERE g.id IN :genreIds AND s.deletedAt IS NULL")
+    @EntityGraph(Song.WITH_ARTISTS_AND_ALBUM)
+    @Query("SELECT s FROM Song s WHERE s.id IN (SELECT sg.songId FROM SongGenre sg WHERE sg.genreId IN :genreIds)")
     List<Song> findSongsByGenreIds(@Param("genreIds") Set<UUID> genreIds);
 
     /**
-     * Find songs by genre ID with pagination - cannot use FETCH with pagination directly
-     * Use a separate query to load artists after getting paged results
+     * Find active songs by genre ID with pagination, ordered by title - one range scan of the
+     * (genre_id, song_title, song_id) index of song_genres. The order is fixed by the query, pass an
+     * unsorted pageable. Artists and album of the page are batch-loaded (hibernate.default_batch_fetch_size)
      */
-    @Query(value = "SELECT DISTINCT s FROM Song s JOIN s.artists a JOIN a.genres g WHERE g.id = :genreId AND s.deletedAt IS NULL",
-            countQuery = "SELECT COUNT(DISTINCT s) FROM Song s JOIN s.artists a JOIN a.genres g WHERE g.id = :genreId AND s.deletedAt IS NULL")
+    @Query(value = "SELECT s FROM SongGenre sg JOIN Song s ON s.id = sg.songId WHERE sg.genreId = :genreId " +
+            "ORDER BY sg.songTitle, sg.songId",
+            countQuery = "SELECT COUNT(sg) FROM SongGenre sg WHERE sg.genreId = :genreId")
     Page<Song> findSongsByGenreId(@Param("genreId") UUID genreId, Pageable pageable);
 
     /**
-     * Find songs by multiple genre IDs with pagination - cannot use FETCH with pagination directly
-     * Use a separate query to load artists after getting paged results
+     * Find active songs having any of the genre IDs with pagination, ordered by title. The order is
+     * fixed by the query, pass an unsorted pageable. Artists and album of the page are batch-loaded
      */
-    @Query(value = "SELECT DISTINCT s FROM Song s JOIN s.artists a JOIN a.genres g WHERE g.id IN :genreIds AND s.deletedAt IS NULL",
-            countQuery = "SELECT COUNT(DISTINCT s) FROM Song s JOIN s.artists a JOIN a.genres g WHERE g.id IN :genreIds AND s.deletedAt IS NULL")
+    @Query(value = "SELECT s FROM Song s WHERE s.id IN (SELECT sg.songId FROM SongGenre sg WHERE sg.genreId IN :genreIds) " +
+            "ORDER BY s.title, s.id",
+            countQuery = "SELECT COUNT(DISTINCT sg.songId) FROM SongGenre sg WHERE sg.genreId IN :genreIds")
     Page<Song> findSongsByGenreIds(@Param("genreIds") Set<UUID> genreIds, Pageable pageable);
 
+    /**
+     * Typo-tolerant search of active songs by title (pg_trgm GIN index), most similar first.
+     * The similarity threshold is the pg_trgm.similarity_threshold setting of the current transaction.
+     * Returns ids only - load the rows with SongReadRepository.findByIds
+     */
+    @Query(value = "SELECT s.id FROM songs s WHERE s.deleted_at IS NULL AND lower(s.title) % lower(:term) " +
+            "ORDER BY similarity(lower(s.title), lower(:term)) DESC, s.id LIMIT :limit",
+            nativeQuery = true)
+    List<UUID> findActiveIdsBySimilarTitle(@Param("term") String term, @Param("limit") int limit);
+
     /**
      * Find songs by their IDs with artists eagerly loaded
      * Used to load artists after pagination
      */
-    @Query("SELECT DISTINCT s FROM Song s LEFT JOIN FETCH s.artists WHERE s.id IN :ids")
+    @EntityGraph(Song.WITH_ARTISTS_AND_ALBUM)
+    @Query("SELECT s FROM Song s WHERE s.id IN :ids")
     List<Song> findByIdInWithArtists(@Param("ids") List<UUID> ids);
 
     Song findBySpotifyId(String spotifyId);
@@ -0,0 +1,33 @@
+package org.example.lamebeats.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Planner statistics from the Postgres catalog.
+ */
+@Repository
+public class TableStatsRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Estimate of the live rows of a table as of its last VACUUM / ANALYZE: pg_class.reltuples
+     * scaled by the fraction of rows whose deleted_at is null (pg_stats.null_frac), so soft-deleted
+     * rows are not counted. Tables without deleted_at are not scaled. Returns -1 when the table has
+     * never been analyzed or does not exist
+     */
+    public long estimateActiveRowCount(String table) {
+        Object estimate = entityManager.createNativeQuery("SELECT COALESCE((SELECT CASE WHEN c.reltuples < 0 THEN -1 " +
+                        "ELSE round(c.reltuples * COALESCE(s.null_frac, 1))::bigint END " +
+                        "FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace " +
+                        "LEFT JOIN pg_stats s ON s.schemaname = n.nspname AND s.tablename = c.relname " +
+                        "AND s.attname = 'deleted_at' " +
+                        "WHERE c.oid = to_regclass(:table)), -1)")
+                .setParameter("table", table)
+                .getSingleResult();
+        return ((Number) estimate).longValue();
+    }
+}
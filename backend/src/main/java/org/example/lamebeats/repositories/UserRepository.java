@@ -28,6 +28,12 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     @Query("SELECT u FROM User u WHERE u.deletedAt IS NULL")
     Page<User> findAllActive(Pageable pageable);
 
+    // Keyset page of active users after a (createdAt, id) cursor, newest first
+    @Query("SELECT u FROM User u WHERE u.deletedAt IS NULL AND " +
+            "(u.createdAt < :createdAt OR (u.createdAt = :createdAt AND u.id < :id)) " +
+            "ORDER BY u.createdAt DESC, u.id DESC")
+    List<User> findActiveAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") UUID id, Pageable pageable);
+
 
     // Find by username and not deleted
     @Query("SELECT u FROM User u WHERE LOWER(u.username) = LOWER(:username) AND u.deletedAt IS NULL")
@@ -64,6 +70,12 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     @Query("SELECT u FROM User u WHERE LOWER(u.username) LIKE LOWER(CONCAT('%', :username, '%')) AND u.deletedAt IS NULL")
     List<User> findActiveByUsernameContaining(@Param("username") String username);
 
+    // Typo-tolerant search of active users by username (pg_trgm GIN index), most similar first
+    @Query(value = "SELECT u.* FROM users u WHERE u.deleted_at IS NULL AND lower(u.username) % lower(:term) " +
+            "ORDER BY similarity(lower(u.username), lower(:term)) DESC, u.id LIMIT :limit",
+            nativeQuery = true)
+    List<User> findActiveBySimilarUsername(@Param("term") String term, @Param("limit") int limit);
+
     // Count active users by type
     @Query("SELECT COUNT(u) FROM User u WHERE u.type = :type AND u.deletedAt IS NULL")
     long countActiveUsersByType(@Param("type") UserType type);
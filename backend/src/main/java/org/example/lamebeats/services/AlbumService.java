@@ -1,13 +1,21 @@
 package org.example.lamebeats.services;
 
+import org.example.lamebeats.events.CatalogChangeEvent;
+import org.example.lamebeats.events.SongArtistsChangedEvent;
 import org.example.lamebeats.models.Album;
 import org.example.lamebeats.models.Artist;
 import org.example.lamebeats.models.Song;
 import org.example.lamebeats.repositories.AlbumRepository;
 import org.example.lamebeats.repositories.ArtistRepository;
 import org.example.lamebeats.repositories.AlbumArtistRepository;
+import org.example.lamebeats.repositories.CatalogPurgeRepository;
 import org.example.lamebeats.repositories.SongRepository;
+import org.example.lamebeats.utils.HttpCacheUtil;
+import org.example.lamebeats.utils.SearchQueryUtil;
+import org.example.lamebeats.utils.SortUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -22,27 +30,31 @@ import java.util.stream.Collectors;
 @Service
 public class AlbumService {
 
+    private static final Set<String> SORTABLE_FIELDS = Set.of("releaseDate", "title", "createdAt");
+
     private final AlbumRepository albumRepository;
     private final ArtistRepository artistRepository;
     private final AlbumArtistRepository albumArtistRepository;
     private final SongRepository songRepository;
+    private final CatalogPurgeRepository catalogPurgeRepository;
+    private final CountService countService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public AlbumService(AlbumRepository albumRepository, 
                         ArtistRepository artistRepository,
                         AlbumArtistRepository albumArtistRepository,
-                        SongRepository songRepository) {
+                        SongRepository songRepository,
+                        CatalogPurgeRepository catalogPurgeRepository,
+                        CountService countService,
+                        ApplicationEventPublisher eventPublisher) {
         this.albumRepository = albumRepository;
         this.artistRepository = artistRepository;
         this.albumArtistRepository = albumArtistRepository;
         this.songRepository = songRepository;
-    }
-
-    /**
-     * Get all albums (regardless of deleted status)
-     */
-    public List<Album> getAllAlbums() {
-        return albumRepository.findAll();
+        this.catalogPurgeRepository = catalogPurgeRepository;
+        this.countService = countService;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -53,32 +65,35 @@ public class AlbumService {
     }
     
     /**
-     * Get all active albums with pagination
+     * Get all active albums with pagination, sorted by one of releaseDate, title, createdAt (prefix "-" for descending).
+     * The total comes from CountService unless exactTotal is set
      */
-    public Map<String, Object> getAllActiveAlbumsPaginated(int page, int limit) {
+    @Transactional(readOnly = true)
+    public Map<String, Object> getAllActiveAlbumsPaginated(int page, int limit, String sort, boolean exactTotal) {
         int pageIndex = Math.max(page - 1, 0); // Convert to zero-based index
-        Pageable pageable = PageRequest.of(pageIndex, limit, Sort.by("releaseDate").descending());
-        
-        List<Album> albums = albumRepository.findAllActive();
-        
-        // Manual pagination since repository doesn't have a paginated method
-        int total = albums.size();
-        int fromIndex = pageIndex * limit;
-        int toIndex = Math.min(fromIndex + limit, total);
-        
-        List<Album> pagedAlbums = fromIndex < total ? 
-                albums.subList(fromIndex, toIndex) : new ArrayList<>();
-        
+        Pageable pageable = PageRequest.of(pageIndex, limit, SortUtil.parse(sort, SORTABLE_FIELDS, Sort.by("releaseDate").descending()));
+
+        List<Album> albums = albumRepository.findActivePage(pageable);
+        CountService.Count total = countService.count("albums", null, exactTotal, albumRepository::countActive);
+
         Map<String, Object> response = new HashMap<>();
-        response.put("data", pagedAlbums);
+        response.put("data", albums);
         response.put("page", page);
         response.put("limit", limit);
-        response.put("pages", (int) Math.ceil((double) total / limit));
-        response.put("total", total);
-        
+        response.put("pages", total.pages(limit));
+        response.put("total", total.total());
+        response.put("totalEstimated", total.estimated());
+
         return response;
     }
 
+    /**
+     * Whether a album exists, deleted or not
+     */
+    public boolean albumExists(UUID id) {
+        return albumRepository.existsById(id);
+    }
+
     /**
      * Get album by ID
      */
@@ -92,6 +107,13 @@ public class AlbumService {
     public Optional<Album> getActiveAlbumById(UUID id) {
         return albumRepository.findActiveById(id);
     }
+
+    /**
+     * Version (ETag only, see HttpCacheUtil.compositeVersion) of an active album, from ids and timestamps only
+     */
+    public Optional<HttpCacheUtil.Version> getActiveAlbumVersion(UUID id) {
+        return HttpCacheUtil.compositeVersion(albumRepository.findActiveVersionRows(id));
+    }
     
     /**
      * Search albums by title
@@ -101,10 +123,24 @@ public class AlbumService {
     }
     
     /**
-     * Search active albums by title
+     * Search active albums by title with pagination (full-text prefix match, ranked by relevance)
      */
-    public List<Album> searchActiveAlbumsByTitle(String title) {
-        return albumRepository.findActiveByTitleContaining(title);
+    @Transactional(readOnly = true)
+    public Map<String, Object> searchActiveAlbumsPaginated(String searchTerm, int page, int limit) {
+        int pageIndex = Math.max(page - 1, 0); // Convert to zero-based index
+        Pageable pageable = PageRequest.of(pageIndex, limit);
+
+        String query = SearchQueryUtil.toPrefixTsQuery(searchTerm);
+        Page<Album> albumPage = query.isEmpty() ? Page.empty(pageable) : albumRepository.searchActive(query, pageable);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("data", albumPage.getContent());
+        response.put("page", page);
+        response.put("limit", limit);
+        response.put("pages", albumPage.getTotalPages());
+        response.put("total", albumPage.getTotalElements());
+
+        return response;
     }
     
     /**
@@ -199,6 +235,8 @@ public class AlbumService {
         album.setSpotifyId(spotifyId);
         
         Album savedAlbum = albumRepository.save(album);
+        publishAlbumChange(savedAlbum);
+        countService.adjust("albums", null, 1);
         
         // Add artists if provided
         if (artistIds != null && !artistIds.isEmpty()) {
@@ -228,7 +266,9 @@ public class AlbumService {
                 album.setPhoto(photo);
             }
             
-            return albumRepository.save(album);
+            Album savedAlbum = albumRepository.save(album);
+            publishAlbumChange(savedAlbum);
+            return savedAlbum;
         });
     }
     
@@ -324,6 +364,8 @@ public class AlbumService {
         return albumRepository.findActiveById(albumId).map(album -> {
             album.softDelete();
             albumRepository.save(album);
+            eventPublisher.publishEvent(CatalogChangeEvent.removed(CatalogChangeEvent.Type.ALBUM, albumId));
+            countService.adjust("albums", null, -1);
             return true;
         }).orElse(false);
     }
@@ -338,52 +380,41 @@ public class AlbumService {
                 .map(album -> {
                     album.restore();
                     albumRepository.save(album);
+                    publishAlbumChange(album);
+                    countService.adjust("albums", null, 1);
                     return true;
                 }).orElse(false);
     }
 
     /**
-     * Hard delete an album and all its relationships (use with caution)
+     * Hard delete an album, its songs and everything referencing them (use with caution).
+     * A handful of set-based statements in one transaction; returns the deleted rows per table,
+     * or empty when the album does not exist
      */
     @Transactional
-    public boolean hardDeleteAlbum(UUID albumId) {
-        if (albumRepository.existsById(albumId)) {
-            Optional<Album> albumOpt = albumRepository.findById(albumId);
-            if (albumOpt.isPresent()) {
-                Album album = albumOpt.get();
-
-                // Clear artist relationships
-                for (Artist artist : new ArrayList<>(album.getArtists())) {
-                    artist.getAlbums().remove(album);
-                    artistRepository.save(artist);
-                }
-                album.getArtists().clear();
-
-                // Delete associated songs directly with repository
-                if (album.getSongs() != null) {
-                    for (Song song : new ArrayList<>(album.getSongs())) {
-                        song.setAlbum(null);
-
-                        for (Artist artist : new ArrayList<>(song.getArtists())) {
-                            artist.getSongs().remove(song);
-                            song.getArtists().remove(artist);
-                        }
+    public Optional<Map<String, Integer>> hardDeleteAlbum(UUID albumId) {
+        if (!albumRepository.existsById(albumId)) {
+            return Optional.empty();
+        }
 
-                        // Hard delete the song
-                        songRepository.deleteById(song.getId());
-                    }
-                    album.setSongs(new ArrayList<>());
-                }
+        List<UUID> songIds = catalogPurgeRepository.findSongIdsByAlbumIds(List.of(albumId));
+        Map<String, Integer> deleted = catalogPurgeRepository.deleteAlbums(List.of(albumId));
 
-                // Now delete the album using the hard delete method
-                albumRepository.hardDeleteById(albumId);
-                return true;
-            }
-        }
-        return false;
+        songIds.forEach(songId -> {
+            eventPublisher.publishEvent(CatalogChangeEvent.removed(CatalogChangeEvent.Type.SONG, songId));
+            eventPublisher.publishEvent(new SongArtistsChangedEvent(songId, Set.of()));
+        });
+        eventPublisher.publishEvent(CatalogChangeEvent.removed(CatalogChangeEvent.Type.ALBUM, albumId));
+        countService.invalidate("albums");
+        countService.invalidate("songs");
+        return Optional.of(deleted);
     }
 
     public Album findBySpotifyId(String spotifyId) {
         return albumRepository.findBySpotifyId(spotifyId);
     }
+
+    private void publishAlbumChange(Album album) {
+        eventPublisher.publishEvent(CatalogChangeEvent.upserted(CatalogChangeEvent.Type.ALBUM, album.getId(), album.getTitle()));
+    }
 }
\ No newline at end of file
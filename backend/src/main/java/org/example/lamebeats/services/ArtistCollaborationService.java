@@ -0,0 +1,282 @@
+package org.example.lamebeats.services;
+
+import org.example.lamebeats.events.CatalogChangeEvent;
+import org.example.lamebeats.events.SongArtistsChangedEvent;
+import org.example.lamebeats.repositories.AlbumArtistRepository;
+import org.example.lamebeats.repositories.ArtistRepository;
+import org.example.lamebeats.repositories.SongArtistRepository;
+import org.example.lamebeats.utils.graph.CollaborationGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Artist collaboration graph kept in memory. Two artists are linked with one unit of weight per
+ * song they share and per album they share. Song link changes are applied incrementally from
+ * SongArtistsChangedEvents; queries read an immutable CollaborationGraph snapshot without
+ * locking. After changes a new snapshot is built in the background from the edge weights and
+ * swapped in, so reads may trail writes by up to graph.collaboration.rebuild-interval-ms. A
+ * periodic full reload picks up album links, bulk deletes and anything else that bypasses
+ * SongService.
+ */
+@Service
+public class ArtistCollaborationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArtistCollaborationService.class);
+
+    private final SongArtistRepository songArtistRepository;
+    private final AlbumArtistRepository albumArtistRepository;
+    private final ArtistRepository artistRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    // Mutable state, guarded by `this`: artists per song and the symmetric edge weights
+    private Map<UUID, Set<UUID>> songArtists = new HashMap<>();
+    private Map<UUID, Map<UUID, Integer>> edges = new HashMap<>();
+
+    // Names of active artists; artists missing here are left out of every answer
+    private final Map<UUID, String> artistNames = new ConcurrentHashMap<>();
+
+    private volatile CollaborationGraph graph = CollaborationGraph.builder().build();
+    private volatile boolean dirty = false;
+
+    // Guarded by `this`: edge changes so far, and the last change included in `graph`
+    private long changeVersion;
+    private long graphVersion;
+
+    // Changes committed while a full load is running, replayed once it finishes
+    private final Queue<SongArtistsChangedEvent> pendingChanges = new ConcurrentLinkedQueue<>();
+    private volatile boolean loading = true;
+
+    @Autowired
+    public ArtistCollaborationService(SongArtistRepository songArtistRepository,
+                                      AlbumArtistRepository albumArtistRepository,
+                                      ArtistRepository artistRepository,
+                                      PlatformTransactionManager transactionManager) {
+        this.songArtistRepository = songArtistRepository;
+        this.albumArtistRepository = albumArtistRepository;
+        this.artistRepository = artistRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public record Collaborator(UUID artistId, String name, int weight) {
+    }
+
+    public record RelatedArtist(UUID artistId, String name, int hops) {
+    }
+
+    /**
+     * First load, off the startup thread. reload() is called directly rather than through the
+     * proxy, so it runs in an explicit read-only transaction
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        readOnlyTransaction.executeWithoutResult(status -> reload());
+    }
+
+    /**
+     * Reload the graph from song_artists and album_artist
+     */
+    @Scheduled(fixedDelayString = "${graph.collaboration.reload-interval-ms:3600000}",
+            initialDelayString = "${graph.collaboration.reload-interval-ms:3600000}")
+    @Transactional(readOnly = true)
+    public void reload() {
+        long start = System.currentTimeMillis();
+        loading = true;
+        try {
+            Map<UUID, Set<UUID>> loadedSongArtists = group(songArtistRepository.findAllSongArtistPairs());
+            Map<UUID, Set<UUID>> albumArtists = group(albumArtistRepository.findAllAlbumArtistPairs());
+
+            Map<UUID, Map<UUID, Integer>> loadedEdges = new HashMap<>();
+            loadedSongArtists.values().forEach(artists -> addPairs(loadedEdges, artists, 1));
+            albumArtists.values().forEach(artists -> addPairs(loadedEdges, artists, 1));
+
+            Map<UUID, String> names = new HashMap<>();
+            for (Object[] row : artistRepository.findAllActiveIdAndName()) {
+                names.put((UUID) row[0], (String) row[1]);
+            }
+
+            synchronized (this) {
+                songArtists = loadedSongArtists;
+                edges = loadedEdges;
+                artistNames.keySet().retainAll(names.keySet());
+                artistNames.putAll(names);
+                loading = false;
+                SongArtistsChangedEvent pending;
+                while ((pending = pendingChanges.poll()) != null) {
+                    apply(pending);
+                }
+                changeVersion++;
+                dirty = true;
+            }
+            rebuildSnapshot();
+            logger.info("Artist collaboration graph loaded in {} ms: {} artists, {} edges",
+                    System.currentTimeMillis() - start, graph.artistCount(), graph.edgeCount());
+        } catch (RuntimeException e) {
+            // Keep serving the previous graph, with the changes that arrived meanwhile
+            synchronized (this) {
+                loading = false;
+                SongArtistsChangedEvent pending;
+                while ((pending = pendingChanges.poll()) != null) {
+                    apply(pending);
+                }
+            }
+            logger.error("Failed to load the artist collaboration graph", e);
+        }
+    }
+
+    /**
+     * Build a snapshot of the current edge weights if they changed since the last one, and swap it
+     * in. Only copying the weights holds the lock; readers keep using the previous snapshot
+     */
+    @Scheduled(fixedDelayString = "${graph.collaboration.rebuild-interval-ms:1000}",
+            initialDelayString = "${graph.collaboration.rebuild-interval-ms:1000}")
+    public void rebuildSnapshot() {
+        if (!dirty) {
+            return;
+        }
+
+        CollaborationGraph.Builder builder = CollaborationGraph.builder();
+        long version;
+        synchronized (this) {
+            dirty = false;
+            version = changeVersion;
+            edges.forEach((artistId, others) -> others.forEach((otherId, weight) -> {
+                if (artistId.compareTo(otherId) < 0) {
+                    builder.addEdge(artistId, otherId, weight);
+                }
+            }));
+        }
+
+        CollaborationGraph built = builder.build();
+        synchronized (this) {
+            // A concurrent reload may already have published a newer snapshot
+            if (version > graphVersion) {
+                graph = built;
+                graphVersion = version;
+            }
+        }
+    }
+
+    /**
+     * Apply a song's new artist set after its transaction has committed
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSongArtistsChanged(SongArtistsChangedEvent event) {
+        synchronized (this) {
+            if (loading) {
+                pendingChanges.add(event);
+                return;
+            }
+            apply(event);
+        }
+    }
+
+    /**
+     * Track artist names and deletions for the answers
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        if (event.type() != CatalogChangeEvent.Type.ARTIST) {
+            return;
+        }
+        if (event.isRemoval()) {
+            artistNames.remove(event.id());
+        } else {
+            artistNames.put(event.id(), event.title());
+        }
+    }
+
+    /**
+     * Artists who worked with the given artist, most shared songs and albums first
+     */
+    public List<Collaborator> getTopCollaborators(UUID artistId, int limit) {
+        return graph.topCollaborators(artistId, limit, artistNames::containsKey).stream()
+                .map(c -> new Collaborator(c.artistId(), artistNames.get(c.artistId()), c.weight()))
+                .toList();
+    }
+
+    /**
+     * Artists within `hops` collaborations of the given artist, nearest first
+     */
+    public List<RelatedArtist> getRelatedArtists(UUID artistId, int hops, int limit) {
+        return graph.neighborhood(artistId, hops, limit, artistNames::containsKey).stream()
+                .map(r -> new RelatedArtist(r.artistId(), artistNames.get(r.artistId()), r.hops()))
+                .toList();
+    }
+
+    /**
+     * Shortest chain of collaborations between two artists (both included), empty when there is
+     * none within maxHops
+     */
+    public List<RelatedArtist> getCollaborationPath(UUID fromArtistId, UUID toArtistId, int maxHops) {
+        List<UUID> path = graph.shortestPath(fromArtistId, toArtistId, maxHops, artistNames::containsKey);
+        List<RelatedArtist> result = new ArrayList<>(path.size());
+        for (int i = 0; i < path.size(); i++) {
+            result.add(new RelatedArtist(path.get(i), artistNames.get(path.get(i)), i));
+        }
+        return result;
+    }
+
+    /**
+     * The strongest collaborations overall as [artistId, otherArtistId, weight] rows
+     */
+    public List<Object[]> getStrongestCollaborations(int limit) {
+        return graph.strongestEdges(limit, artistNames::containsKey).stream()
+                .map(e -> new Object[]{e.artistId(), e.otherArtistId(), (long) e.weight()})
+                .toList();
+    }
+
+    // Caller holds the lock
+    private void apply(SongArtistsChangedEvent event) {
+        Set<UUID> previous = songArtists.getOrDefault(event.songId(), Set.of());
+        if (previous.equals(event.artistIds())) {
+            return;
+        }
+        addPairs(edges, previous, -1);
+        addPairs(edges, event.artistIds(), 1);
+        if (event.artistIds().isEmpty()) {
+            songArtists.remove(event.songId());
+        } else {
+            songArtists.put(event.songId(), Set.copyOf(event.artistIds()));
+        }
+        changeVersion++;
+        dirty = true;
+    }
+
+    private static void addPairs(Map<UUID, Map<UUID, Integer>> edges, Set<UUID> artists, int delta) {
+        for (UUID a : artists) {
+            for (UUID b : artists) {
+                if (!a.equals(b)) {
+                    Map<UUID, Integer> row = edges.computeIfAbsent(a, id -> new HashMap<>());
+                    if (row.merge(b, delta, Integer::sum) <= 0) {
+                        row.remove(b);
+                    }
+                }
+            }
+        }
+    }
+
+    private static Map<UUID, Set<UUID>> group(List<Object[]> pairs) {
+        Map<UUID, Set<UUID>> grouped = new HashMap<>();
+        for (Object[] pair : pairs) {
+            grouped.computeIfAbsent((UUID) pair[0], id -> new HashSet<>()).add((UUID) pair[1]);
+        }
+        return grouped;
+    }
+}
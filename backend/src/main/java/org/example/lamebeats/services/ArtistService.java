@@ -1,8 +1,14 @@
 package org.example.lamebeats.services;
 
+import org.example.lamebeats.events.CatalogChangeEvent;
+import org.example.lamebeats.events.SongArtistsChangedEvent;
 import org.example.lamebeats.models.*;
 import org.example.lamebeats.repositories.*;
+import org.example.lamebeats.utils.HttpCacheUtil;
+import org.example.lamebeats.utils.SearchQueryUtil;
+import org.example.lamebeats.utils.SortUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -17,30 +23,34 @@ import java.util.stream.Collectors;
 @Service
 public class ArtistService {
 
+    private static final Set<String> SORTABLE_FIELDS = Set.of("name", "createdAt");
+
     private final ArtistRepository artistRepository;
     private final GenreRepository genreRepository;
     private final ArtistGenreRepository artistGenreRepository;
     private final AlbumRepository albumRepository;
     private final SongRepository songRepository;
+    private final CatalogPurgeRepository catalogPurgeRepository;
+    private final CountService countService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public ArtistService(ArtistRepository artistRepository,
                          GenreRepository genreRepository,
                          ArtistGenreRepository artistGenreRepository,
                          AlbumRepository albumRepository,
-                         SongRepository songRepository) {
+                         SongRepository songRepository,
+                         CatalogPurgeRepository catalogPurgeRepository,
+                         CountService countService,
+                         ApplicationEventPublisher eventPublisher) {
         this.artistRepository = artistRepository;
         this.genreRepository = genreRepository;
         this.artistGenreRepository = artistGenreRepository;
         this.albumRepository = albumRepository;
         this.songRepository = songRepository;
-    }
-
-    /**
-     * Get all artists (regardless of deleted status)
-     */
-    public List<Artist> getAllArtists() {
-        return artistRepository.findAll();
+        this.catalogPurgeRepository = catalogPurgeRepository;
+        this.countService = countService;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -51,32 +61,35 @@ public class ArtistService {
     }
 
     /**
-     * Get all active artists with pagination
+     * Get all active artists with pagination, sorted by one of name, createdAt (prefix "-" for descending).
+     * The total comes from CountService unless exactTotal is set
      */
-    public Map<String, Object> getAllActiveArtistsPaginated(int page, int limit) {
+    @Transactional(readOnly = true)
+    public Map<String, Object> getAllActiveArtistsPaginated(int page, int limit, String sort, boolean exactTotal) {
         int pageIndex = Math.max(page - 1, 0); // Convert to zero-based index
-        Pageable pageable = PageRequest.of(pageIndex, limit, Sort.by("name").ascending());
+        Pageable pageable = PageRequest.of(pageIndex, limit, SortUtil.parse(sort, SORTABLE_FIELDS, Sort.by("name").ascending()));
 
-        List<Artist> artists = artistRepository.findAllActive();
-
-        // Manual pagination since repository doesn't have a paginated method
-        int total = artists.size();
-        int fromIndex = pageIndex * limit;
-        int toIndex = Math.min(fromIndex + limit, total);
-
-        List<Artist> pagedArtists = fromIndex < total ?
-                artists.subList(fromIndex, toIndex) : new ArrayList<>();
+        List<Artist> artists = artistRepository.findActivePage(pageable);
+        CountService.Count total = countService.count("artists", null, exactTotal, artistRepository::countActive);
 
         Map<String, Object> response = new HashMap<>();
-        response.put("data", pagedArtists);
+        response.put("data", artists);
         response.put("page", page);
         response.put("limit", limit);
-        response.put("pages", (int) Math.ceil((double) total / limit));
-        response.put("total", total);
+        response.put("pages", total.pages(limit));
+        response.put("total", total.total());
+        response.put("totalEstimated", total.estimated());
 
         return response;
     }
 
+    /**
+     * Whether a artist exists, deleted or not
+     */
+    public boolean artistExists(UUID id) {
+        return artistRepository.existsById(id);
+    }
+
     /**
      * Get artist by ID
      */
@@ -91,6 +104,13 @@ public class ArtistService {
         return artistRepository.findActiveById(id);
     }
 
+    /**
+     * Version (ETag only, see HttpCacheUtil.compositeVersion) of an active artist, from ids and timestamps only
+     */
+    public Optional<HttpCacheUtil.Version> getActiveArtistVersion(UUID id) {
+        return HttpCacheUtil.compositeVersion(artistRepository.findActiveVersionRows(id));
+    }
+
     /**
      * Get artist by name (exact match, case insensitive)
      */
@@ -106,10 +126,24 @@ public class ArtistService {
     }
 
     /**
-     * Search active artists by name (partial match)
+     * Search active artists by name with pagination (full-text prefix match, ranked by relevance)
      */
-    public List<Artist> searchActiveArtistsByName(String name) {
-        return artistRepository.findActiveByNameContaining(name);
+    @Transactional(readOnly = true)
+    public Map<String, Object> searchActiveArtistsPaginated(String searchTerm, int page, int limit) {
+        int pageIndex = Math.max(page - 1, 0); // Convert to zero-based index
+        Pageable pageable = PageRequest.of(pageIndex, limit);
+
+        String query = SearchQueryUtil.toPrefixTsQuery(searchTerm);
+        Page<Artist> artistPage = query.isEmpty() ? Page.empty(pageable) : artistRepository.searchActive(query, pageable);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("data", artistPage.getContent());
+        response.put("page", page);
+        response.put("limit", limit);
+        response.put("pages", artistPage.getTotalPages());
+        response.put("total", artistPage.getTotalElements());
+
+        return response;
     }
 
     /**
@@ -172,7 +206,10 @@ public class ArtistService {
         artist.setSpotifyId(spotifyId);
         artist.setGenres(new HashSet<>());
 
-        return artistRepository.save(artist);
+        Artist savedArtist = artistRepository.save(artist);
+        publishArtistChange(savedArtist);
+        countService.adjust("artists", null, 1);
+        return savedArtist;
     }
 
     /**
@@ -194,7 +231,9 @@ public class ArtistService {
                 artist.setPhoto(photo);
             }
 
-            return artistRepository.save(artist);
+            Artist savedArtist = artistRepository.save(artist);
+            publishArtistChange(savedArtist);
+            return savedArtist;
         });
     }
 
@@ -206,6 +245,8 @@ public class ArtistService {
         return artistRepository.findActiveById(artistId).map(artist -> {
             artist.softDelete();
             artistRepository.save(artist);
+            eventPublisher.publishEvent(CatalogChangeEvent.removed(CatalogChangeEvent.Type.ARTIST, artistId));
+            countService.adjust("artists", null, -1);
             return true;
         }).orElse(false);
     }
@@ -220,67 +261,41 @@ public class ArtistService {
                 .map(artist -> {
                     artist.restore();
                     artistRepository.save(artist);
+                    publishArtistChange(artist);
+                    countService.adjust("artists", null, 1);
                     return true;
                 }).orElse(false);
     }
 
     /**
-     * Hard delete an artist and all its relationships (use with caution)
+     * Hard delete an artist with its albums, their songs and everything referencing them (use with caution).
+     * A handful of set-based statements in one transaction; returns the deleted rows per table,
+     * or empty when the artist does not exist
      */
     @Transactional
-    public boolean hardDeleteArtist(UUID artistId) {
-        if (artistRepository.existsById(artistId)) {
-            // First, remove artist from all relationships
-            Optional<Artist> artistOpt = artistRepository.findById(artistId);
-            if (artistOpt.isPresent()) {
-                Artist artist = artistOpt.get();
-
-                // Clear genre relationships (we only remove the artist from genres, not delete genres)
-                for (Genre genre : new ArrayList<>(artist.getGenres())) {
-                    genre.getArtists().remove(artist);
-                    genreRepository.save(genre);
-                }
-                artist.getGenres().clear();
-
-                // Delete associated albums
-                for (Album albumData : new ArrayList<>(artist.getAlbums())) {
-                    Optional<Album> albumOpt = albumRepository.findById(albumData.getId());
-                    if (albumOpt.isPresent()) {
-                        Album album = albumOpt.get();
-
-                        // Clear artist relationships
-                        for (Artist albumArtist : new ArrayList<>(album.getArtists())) {
-                            albumArtist.getAlbums().remove(album);
-                        }
-                        album.getArtists().clear();
-
-                        // Delete associated songs directly with repository
-                        if (album.getSongs() != null) {
-                            for (Song song : new ArrayList<>(album.getSongs())) {
-                                song.setAlbum(null);
-
-                                for (Artist songArtist : new ArrayList<>(song.getArtists())) {
-                                    songArtist.getSongs().remove(song);
-                                    song.getArtists().remove(songArtist);
-                                }
-
-                                // Hard delete the song
-                                songRepository.deleteById(song.getId());
-                            }
-                            album.setSongs(new ArrayList<>());
-                        }
-
-                        // Delete the album
-                        albumRepository.hardDeleteById(album.getId());
-                    }
-                }
-
-                // Delete the artist
-                artistRepository.hardDeleteById(artistId);
-                return true;
-            }
+    public Optional<Map<String, Integer>> hardDeleteArtist(UUID artistId) {
+        if (!artistRepository.existsById(artistId)) {
+            return Optional.empty();
         }
-        return false;
+
+        List<UUID> albumIds = catalogPurgeRepository.findAlbumIdsByArtistId(artistId);
+        List<UUID> songIds = catalogPurgeRepository.findSongIdsByAlbumIds(albumIds);
+        // Songs on other artists' albums stay, credited to their remaining artists only
+        Map<UUID, Set<UUID>> survivingSongArtists = catalogPurgeRepository.findSurvivingSongArtists(artistId);
+        Map<String, Integer> deleted = catalogPurgeRepository.deleteArtist(artistId, albumIds);
+
+        songIds.forEach(songId -> {
+            eventPublisher.publishEvent(CatalogChangeEvent.removed(CatalogChangeEvent.Type.SONG, songId));
+            eventPublisher.publishEvent(new SongArtistsChangedEvent(songId, Set.of()));
+        });
+        survivingSongArtists.forEach((songId, artistIds) ->
+                eventPublisher.publishEvent(new SongArtistsChangedEvent(songId, artistIds)));
+        albumIds.forEach(albumId -> eventPublisher.publishEvent(CatalogChangeEvent.removed(CatalogChangeEvent.Type.ALBUM, albumId)));
+        eventPublisher.publishEvent(CatalogChangeEvent.removed(CatalogChangeEvent.Type.ARTIST, artistId));
+        countService.invalidate("artists");
+        countService.invalidate("albums");
+        countService.invalidate("songs");
+        return Optional.of(deleted);
     }
 
     /**
@@ -427,4 +442,8 @@ public class ArtistService {
     public Artist findBySpotifyId(String spotifyId) {
         return artistRepository.findBySpotifyId(spotifyId);
     }
+
+    private void publishArtistChange(Artist artist) {
+        eventPublisher.publishEvent(CatalogChangeEvent.upserted(CatalogChangeEvent.Type.ARTIST, artist.getId(), artist.getName()));
+    }
 }
\ No newline at end of file
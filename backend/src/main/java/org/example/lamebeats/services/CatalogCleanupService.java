@@ -0,0 +1,57 @@
+package org.example.lamebeats.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Runs hard deletes of large albums and artists off the request thread. Each purge is still a
+ * single transaction in AlbumService / ArtistService; the outcome is only logged.
+ */
+@Service
+public class CatalogCleanupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogCleanupService.class);
+
+    private final AlbumService albumService;
+    private final ArtistService artistService;
+
+    @Autowired
+    public CatalogCleanupService(AlbumService albumService, ArtistService artistService) {
+        this.albumService = albumService;
+        this.artistService = artistService;
+    }
+
+    @Async
+    public CompletableFuture<Map<String, Integer>> hardDeleteAlbumAsync(UUID albumId) {
+        return purge("album", albumId, () -> albumService.hardDeleteAlbum(albumId));
+    }
+
+    @Async
+    public CompletableFuture<Map<String, Integer>> hardDeleteArtistAsync(UUID artistId) {
+        return purge("artist", artistId, () -> artistService.hardDeleteArtist(artistId));
+    }
+
+    private CompletableFuture<Map<String, Integer>> purge(String type, UUID id,
+                                                          Supplier<Optional<Map<String, Integer>>> delete) {
+        long start = System.currentTimeMillis();
+        try {
+            Optional<Map<String, Integer>> deleted = delete.get();
+            if (deleted.isEmpty()) {
+                logger.warn("Hard delete of {} {} skipped, it no longer exists", type, id);
+                return CompletableFuture.completedFuture(Map.of());
+            }
+            logger.info("Hard deleted {} {} in {} ms: {}", type, id, System.currentTimeMillis() - start, deleted.get());
+            return CompletableFuture.completedFuture(deleted.get());
+        } catch (RuntimeException e) {
+            logger.error("Hard delete of {} {} failed", type, id, e);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
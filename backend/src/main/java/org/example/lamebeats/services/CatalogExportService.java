@@ -0,0 +1,156 @@
+package org.example.lamebeats.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.lamebeats.repositories.CatalogExportRepository;
+import org.postgresql.util.PGobject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.*;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams whole catalog tables as newline-delimited JSON, one object per row, optionally gzipped.
+ * Rows go from the JDBC cursor straight into the response, so heap use does not grow with the
+ * catalog. The read runs in its own read-only transaction on the streaming thread, after the
+ * controller has returned.
+ */
+@Service
+public class CatalogExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogExportService.class);
+
+    public static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final CatalogExportRepository catalogExportRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @Autowired
+    public CatalogExportService(CatalogExportRepository catalogExportRepository,
+                                ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager) {
+        this.catalogExportRepository = catalogExportRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Response streaming the table as NDJSON, gzip-encoded when asked for
+     */
+    public ResponseEntity<StreamingResponseBody> export(CatalogExportRepository.Table table, boolean gzip) {
+        String filename = table.name().toLowerCase(Locale.ROOT) + ".ndjson" + (gzip ? ".gz" : "");
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(out -> write(table, gzip ? new GZIPOutputStream(out, 64 * 1024) : out));
+    }
+
+    private void write(CatalogExportRepository.Table table, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        JsonGenerator generator = objectMapper.createGenerator(out);
+        generator.setPrettyPrinter(new MinimalPrettyPrinter(""));
+        RowWriter writer = new RowWriter(generator);
+        try (generator) {
+            readOnlyTransaction.executeWithoutResult(status -> catalogExportRepository.forEachRow(table, writer));
+        } catch (UncheckedIOException e) {
+            // Usually the client went away; nothing more can be sent
+            logger.warn("Export of {} aborted after {} rows: {}", table, writer.rows, e.getCause().getMessage());
+            return;
+        }
+        logger.info("Exported {} {} rows in {} ms", writer.rows, table, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Writes each row as one JSON object with camelCase keys and a trailing newline
+     */
+    private static class RowWriter implements RowCallbackHandler {
+        private final JsonGenerator generator;
+        private String[] fields;
+        private long rows;
+
+        RowWriter(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            if (fields == null) {
+                ResultSetMetaData meta = rs.getMetaData();
+                fields = new String[meta.getColumnCount()];
+                for (int i = 0; i < fields.length; i++) {
+                    fields[i] = camelCase(meta.getColumnLabel(i + 1));
+                }
+            }
+
+            try {
+                generator.writeStartObject();
+                for (int i = 0; i < fields.length; i++) {
+                    generator.writeFieldName(fields[i]);
+                    writeValue(rs.getObject(i + 1));
+                }
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows++;
+        }
+
+        private void writeValue(Object value) throws IOException, SQLException {
+            if (value == null) {
+                generator.writeNull();
+            } else if (value instanceof PGobject json) {
+                generator.writeRawValue(json.getValue());
+            } else if (value instanceof Timestamp timestamp) {
+                generator.writeObject(timestamp.toLocalDateTime());
+            } else if (value instanceof Date date) {
+                generator.writeObject(date.toLocalDate());
+            } else if (value instanceof Array array) {
+                generator.writeStartArray();
+                for (Object element : (Object[]) array.getArray()) {
+                    generator.writeString(element.toString());
+                }
+                generator.writeEndArray();
+                array.free();
+            } else if (value instanceof Number || value instanceof Boolean) {
+                generator.writeObject(value);
+            } else {
+                generator.writeString(value.toString());
+            }
+        }
+    }
+
+    private static String camelCase(String column) {
+        StringBuilder name = new StringBuilder(column.length());
+        boolean upper = false;
+        for (char c : column.toCharArray()) {
+            if (c == '_') {
+                upper = true;
+            } else {
+                name.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        return name.toString();
+    }
+}
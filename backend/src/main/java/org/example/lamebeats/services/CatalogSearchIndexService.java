@@ -0,0 +1,122 @@
+package org.example.lamebeats.services;
+
+import org.example.lamebeats.events.CatalogChangeEvent;
+import org.example.lamebeats.repositories.AlbumRepository;
+import org.example.lamebeats.repositories.ArtistRepository;
+import org.example.lamebeats.repositories.SongRepository;
+import org.example.lamebeats.utils.search.NGramIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * In-process search over song titles, artist names and album titles.
+ * The indexes are built once at startup and then kept current from the
+ * CatalogChangeEvents published by SongService, ArtistService and AlbumService.
+ */
+@Service
+public class CatalogSearchIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSearchIndexService.class);
+
+    private final SongRepository songRepository;
+    private final ArtistRepository artistRepository;
+    private final AlbumRepository albumRepository;
+
+    private final Map<CatalogChangeEvent.Type, NGramIndex> indexes = new EnumMap<>(CatalogChangeEvent.Type.class);
+
+    // Changes committed while the initial build is running, replayed once it finishes
+    private final Queue<CatalogChangeEvent> pendingChanges = new ConcurrentLinkedQueue<>();
+    private volatile boolean ready = false;
+
+    @Autowired
+    public CatalogSearchIndexService(SongRepository songRepository,
+                                     ArtistRepository artistRepository,
+                                     AlbumRepository albumRepository) {
+        this.songRepository = songRepository;
+        this.artistRepository = artistRepository;
+        this.albumRepository = albumRepository;
+        for (CatalogChangeEvent.Type type : CatalogChangeEvent.Type.values()) {
+            indexes.put(type, new NGramIndex());
+        }
+    }
+
+    /**
+     * Build the indexes from the database once the application has started
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndexes() {
+        long start = System.currentTimeMillis();
+
+        load(CatalogChangeEvent.Type.SONG, songRepository.findAllActiveIdAndTitle());
+        load(CatalogChangeEvent.Type.ARTIST, artistRepository.findAllActiveIdAndName());
+        load(CatalogChangeEvent.Type.ALBUM, albumRepository.findAllActiveIdAndTitle());
+
+        ready = true;
+        CatalogChangeEvent pending;
+        while ((pending = pendingChanges.poll()) != null) {
+            apply(pending);
+        }
+
+        logger.info("Catalog search index built in {} ms: {} songs, {} artists, {} albums, ~{} KB",
+                System.currentTimeMillis() - start,
+                indexes.get(CatalogChangeEvent.Type.SONG).size(),
+                indexes.get(CatalogChangeEvent.Type.ARTIST).size(),
+                indexes.get(CatalogChangeEvent.Type.ALBUM).size(),
+                getEstimatedSizeBytes() / 1024);
+    }
+
+    /**
+     * Apply a catalog change after its transaction has committed
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        if (!ready) {
+            pendingChanges.add(event);
+            // The build may have finished between the check and the add
+            if (!ready || !pendingChanges.remove(event)) {
+                return;
+            }
+        }
+        apply(event);
+    }
+
+    /**
+     * Search one entity type, best matches first
+     */
+    public List<NGramIndex.Hit> search(CatalogChangeEvent.Type type, String query, int limit) {
+        return indexes.get(type).search(query, limit);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public long getEstimatedSizeBytes() {
+        return indexes.values().stream().mapToLong(NGramIndex::estimatedSizeBytes).sum();
+    }
+
+    private void load(CatalogChangeEvent.Type type, List<Object[]> rows) {
+        NGramIndex index = indexes.get(type);
+        for (Object[] row : rows) {
+            index.put((UUID) row[0], (String) row[1]);
+        }
+    }
+
+    private void apply(CatalogChangeEvent event) {
+        NGramIndex index = indexes.get(event.type());
+        if (event.isRemoval()) {
+            index.remove(event.id());
+        } else {
+            index.put(event.id(), event.title());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.lamebeats.services;
+
+import org.example.lamebeats.repositories.TableStatsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Pagination totals without a COUNT(*) per page. Each (table, filter) counter is counted exactly
+ * once, then kept current by the services through adjust() and invalidate() after their
+ * transactions commit. Unfiltered tables above `estimate-threshold` live rows answer with the
+ * planner estimate, scaled to the rows that are not soft-deleted, instead of ever being counted.
+ * Counters are dropped every `refresh-interval-ms` to bound drift from writes that bypass the
+ * services.
+ */
+@Service
+public class CountService {
+
+    private final TableStatsRepository tableStatsRepository;
+
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    @Value("${pagination.count.estimate-threshold:100000}")
+    private long estimateThreshold;
+
+    @Value("${pagination.count.max-counters:10000}")
+    private int maxCounters;
+
+    public record Count(long total, boolean estimated) {
+
+        public int pages(int limit) {
+            return (int) Math.ceil((double) total / limit);
+        }
+    }
+
+    @Autowired
+    public CountService(TableStatsRepository tableStatsRepository) {
+        this.tableStatsRepository = tableStatsRepository;
+    }
+
+    /**
+     * Total for a table and optional filter (e.g. "album:<id>"). With `exact`, the count query
+     * runs and resets the counter; otherwise the counter, the estimate or (once) the count query answers
+     */
+    public Count count(String table, String filter, boolean exact, LongSupplier exactCount) {
+        String key = key(table, filter);
+        if (!exact) {
+            AtomicLong counter = counters.get(key);
+            if (counter != null) {
+                return new Count(counter.get(), false);
+            }
+            if (filter == null) {
+                long estimate = tableStatsRepository.estimateActiveRowCount(table);
+                if (estimate >= estimateThreshold) {
+                    return new Count(estimate, true);
+                }
+            }
+        }
+
+        long total = exactCount.getAsLong();
+        if (counters.size() >= maxCounters) {
+            counters.clear();
+        }
+        counters.put(key, new AtomicLong(total));
+        return new Count(total, false);
+    }
+
+    /**
+     * Add delta to a counter once the current transaction commits (counters not loaded yet are left alone)
+     */
+    public void adjust(String table, String filter, long delta) {
+        String key = key(table, filter);
+        afterCommit(() -> counters.computeIfPresent(key, (k, counter) -> {
+            counter.addAndGet(delta);
+            return counter;
+        }));
+    }
+
+    /**
+     * Drop the counters of a table, all filters included, once the current transaction commits
+     */
+    public void invalidate(String table) {
+        afterCommit(() -> counters.keySet().removeIf(key -> key.equals(table) || key.startsWith(table + ":")));
+    }
+
+    /**
+     * Drop the filtered counters of a table, keeping its unfiltered total
+     */
+    public void invalidateFiltered(String table) {
+        afterCommit(() -> counters.keySet().removeIf(key -> key.startsWith(table + ":")));
+    }
+
+    @Scheduled(fixedDelayString = "${pagination.count.refresh-interval-ms:600000}",
+            initialDelayString = "${pagination.count.refresh-interval-ms:600000}")
+    public void refresh() {
+        counters.clear();
+    }
+
+    private static String key(String table, String filter) {
+        return filter == null ? table : table + ":" + filter;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
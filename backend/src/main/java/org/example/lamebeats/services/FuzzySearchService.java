@@ -0,0 +1,109 @@
+package org.example.lamebeats.services;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.example.lamebeats.dto.SongSummaryDto;
+import org.example.lamebeats.models.Album;
+import org.example.lamebeats.models.Artist;
+import org.example.lamebeats.models.User;
+import org.example.lamebeats.repositories.AlbumRepository;
+import org.example.lamebeats.repositories.ArtistRepository;
+import org.example.lamebeats.repositories.SongReadRepository;
+import org.example.lamebeats.repositories.SongRepository;
+import org.example.lamebeats.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Typo-tolerant search backed by pg_trgm trigram indexes.
+ * Every query uses the trigram "%" operator so it can be answered from the GIN index,
+ * results are ordered by similarity and capped at a hard limit.
+ */
+@Service
+public class FuzzySearchService {
+
+    private final SongRepository songRepository;
+    private final SongReadRepository songReadRepository;
+    private final ArtistRepository artistRepository;
+    private final AlbumRepository albumRepository;
+    private final UserRepository userRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${search.fuzzy.similarity-threshold:0.3}")
+    private double similarityThreshold;
+
+    @Value("${search.fuzzy.max-results:50}")
+    private int maxResults;
+
+    @Autowired
+    public FuzzySearchService(SongRepository songRepository,
+                              SongReadRepository songReadRepository,
+                              ArtistRepository artistRepository,
+                              AlbumRepository albumRepository,
+                              UserRepository userRepository) {
+        this.songRepository = songRepository;
+        this.songReadRepository = songReadRepository;
+        this.artistRepository = artistRepository;
+        this.albumRepository = albumRepository;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Search active songs by title, as flat projections in similarity order
+     */
+    @Transactional(readOnly = true)
+    public List<SongSummaryDto> searchSongs(String term, int limit) {
+        applySimilarityThreshold();
+        return songReadRepository.findByIds(songRepository.findActiveIdsBySimilarTitle(term.trim(), capLimit(limit)));
+    }
+
+    /**
+     * Search active artists by name
+     */
+    @Transactional(readOnly = true)
+    public List<Artist> searchArtists(String term, int limit) {
+        applySimilarityThreshold();
+        return artistRepository.findActiveBySimilarName(term.trim(), capLimit(limit));
+    }
+
+    /**
+     * Search active albums by title
+     */
+    @Transactional(readOnly = true)
+    public List<Album> searchAlbums(String term, int limit) {
+        applySimilarityThreshold();
+        return albumRepository.findActiveBySimilarTitle(term.trim(), capLimit(limit));
+    }
+
+    /**
+     * Search active users by username
+     */
+    @Transactional(readOnly = true)
+    public List<User> searchUsers(String term, int limit) {
+        applySimilarityThreshold();
+        return userRepository.findActiveBySimilarUsername(term.trim(), capLimit(limit));
+    }
+
+    /**
+     * Hard upper bound for the number of fuzzy results
+     */
+    public int capLimit(int limit) {
+        return Math.max(1, Math.min(limit, maxResults));
+    }
+
+    /**
+     * Set the trigram similarity threshold for the current transaction only
+     * (is_local = true), so pooled connections are not affected
+     */
+    private void applySimilarityThreshold() {
+        entityManager.createNativeQuery("SELECT set_config('pg_trgm.similarity_threshold', :threshold, true)")
+                .setParameter("threshold", Double.toString(similarityThreshold))
+                .getSingleResult();
+    }
+}
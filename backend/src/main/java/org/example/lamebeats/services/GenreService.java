@@ -4,6 +4,7 @@ import org.example.lamebeats.models.Genre;
 import org.example.lamebeats.models.Artist;
 import org.example.lamebeats.repositories.GenreRepository;
 import org.example.lamebeats.repositories.ArtistRepository;
+import org.example.lamebeats.utils.SortUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -17,20 +18,17 @@ import java.util.*;
 @Service
 public class GenreService {
 
+    private static final Set<String> SORTABLE_FIELDS = Set.of("title", "createdAt");
+
     private final GenreRepository genreRepository;
     private final ArtistRepository artistRepository;
+    private final CountService countService;
 
     @Autowired
-    public GenreService(GenreRepository genreRepository, ArtistRepository artistRepository) {
+    public GenreService(GenreRepository genreRepository, ArtistRepository artistRepository, CountService countService) {
         this.genreRepository = genreRepository;
         this.artistRepository = artistRepository;
-    }
-
-    /**
-     * Get all genres (regardless of deleted status)
-     */
-    public List<Genre> getAllGenres() {
-        return genreRepository.findAll();
+        this.countService = countService;
     }
 
     /**
@@ -41,29 +39,25 @@ public class GenreService {
     }
     
     /**
-     * Get all active genres with pagination
+     * Get all active genres with pagination, sorted by one of title, createdAt (prefix "-" for descending).
+     * The total comes from CountService unless exactTotal is set
      */
-    public Map<String, Object> getAllActiveGenresPaginated(int page, int limit) {
+    @Transactional(readOnly = true)
+    public Map<String, Object> getAllActiveGenresPaginated(int page, int limit, String sort, boolean exactTotal) {
         int pageIndex = Math.max(page - 1, 0); // Convert to zero-based index
-        Pageable pageable = PageRequest.of(pageIndex, limit, Sort.by("title").ascending());
-        
-        List<Genre> genres = genreRepository.findAllActive();
-        
-        // Manual pagination since repository doesn't have a paginated method
-        int total = genres.size();
-        int fromIndex = pageIndex * limit;
-        int toIndex = Math.min(fromIndex + limit, total);
-        
-        List<Genre> pagedGenres = fromIndex < total ? 
-                genres.subList(fromIndex, toIndex) : new ArrayList<>();
-        
+        Pageable pageable = PageRequest.of(pageIndex, limit, SortUtil.parse(sort, SORTABLE_FIELDS, Sort.by("title").ascending()));
+
+        List<Genre> genres = genreRepository.findActivePage(pageable);
+        CountService.Count total = countService.count("genres", null, exactTotal, genreRepository::countActive);
+
         Map<String, Object> response = new HashMap<>();
-        response.put("data", pagedGenres);
+        response.put("data", genres);
         response.put("page", page);
         response.put("limit", limit);
-        response.put("pages", (int) Math.ceil((double) total / limit));
-        response.put("total", total);
-        
+        response.put("pages", total.pages(limit));
+        response.put("total", total.total());
+        response.put("totalEstimated", total.estimated());
+
         return response;
     }
 
@@ -153,7 +147,9 @@ public class GenreService {
         genre.setTitle(title);
         genre.setArtists(new HashSet<>());
         
-        return genreRepository.save(genre);
+        Genre savedGenre = genreRepository.save(genre);
+        countService.adjust("genres", null, 1);
+        return savedGenre;
     }
     
     /**
@@ -185,6 +181,7 @@ public class GenreService {
         return genreRepository.findActiveById(genreId).map(genre -> {
             genre.softDelete();
             genreRepository.save(genre);
+            countService.adjust("genres", null, -1);
             return true;
         }).orElse(false);
     }
@@ -199,6 +196,7 @@ public class GenreService {
                 .map(genre -> {
                     genre.restore();
                     genreRepository.save(genre);
+                    countService.adjust("genres", null, 1);
                     return true;
                 }).orElse(false);
     }
@@ -210,6 +208,7 @@ public class GenreService {
     public boolean hardDeleteGenre(UUID genreId) {
         if (genreRepository.existsById(genreId)) {
             genreRepository.deleteById(genreId);
+            countService.invalidate("genres");
             return true;
         }
         return false;
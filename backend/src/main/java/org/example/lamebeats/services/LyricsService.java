@@ -6,9 +6,12 @@ import org.example.lamebeats.models.Lyrics;
 import org.example.lamebeats.models.Song;
 import org.example.lamebeats.repositories.LyricsRepository;
 import org.example.lamebeats.repositories.SongRepository;
+import org.example.lamebeats.utils.SortUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,6 +22,8 @@ import java.util.stream.Collectors;
 @Service
 public class LyricsService {
 
+    private static final Set<String> SORTABLE_FIELDS = Set.of("createdAt", "language");
+
     private final LyricsRepository lyricsRepository;
     private final SongRepository songRepository;
     private final ObjectMapper objectMapper;
@@ -30,13 +35,6 @@ public class LyricsService {
         this.objectMapper = objectMapper;
     }
 
-    /**
-     * Get all lyrics (regardless of deleted status)
-     */
-    public List<Lyrics> getAllLyrics() {
-        return lyricsRepository.findAll();
-    }
-
     /**
      * Get all active lyrics
      */
@@ -45,27 +43,21 @@ public class LyricsService {
     }
 
     /**
-     * Get all active lyrics with pagination
+     * Get all active lyrics with pagination, sorted by one of createdAt, language (prefix "-" for descending)
      */
-    public Map<String, Object> getAllActiveLyricsPaginated(int page, int limit) {
+    @Transactional(readOnly = true)
+    public Map<String, Object> getAllActiveLyricsPaginated(int page, int limit, String sort) {
         int pageIndex = Math.max(page - 1, 0); // Convert to zero-based index
+        Pageable pageable = PageRequest.of(pageIndex, limit, SortUtil.parse(sort, SORTABLE_FIELDS, Sort.by("createdAt").descending()));
 
-        List<Lyrics> lyrics = lyricsRepository.findAllActive();
-
-        // Manual pagination since repository doesn't have a paginated method
-        int total = lyrics.size();
-        int fromIndex = pageIndex * limit;
-        int toIndex = Math.min(fromIndex + limit, total);
-
-        List<Lyrics> pagedLyrics = fromIndex < total ?
-                lyrics.subList(fromIndex, toIndex) : new ArrayList<>();
+        Page<Lyrics> lyricsPage = lyricsRepository.findAllActive(pageable);
 
         Map<String, Object> response = new HashMap<>();
-        response.put("data", pagedLyrics);
+        response.put("data", lyricsPage.getContent());
         response.put("page", page);
         response.put("limit", limit);
-        response.put("pages", (int) Math.ceil((double) total / limit));
-        response.put("total", total);
+        response.put("pages", lyricsPage.getTotalPages());
+        response.put("total", lyricsPage.getTotalElements());
 
         return response;
     }
@@ -0,0 +1,97 @@
+package org.example.lamebeats.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs an edit in its own transaction and, when it loses an optimistic concurrency check (a JPA
+ * @Version mismatch or a failed PlaylistRepository.claimVersion), runs it again from scratch on
+ * the now current state, after a short randomized backoff. Nothing is locked while an edit
+ * reads, so concurrent editors only pay for the edits that actually collided.
+ *
+ * Every attempt is counted as playlist.edits{operation, result=committed|conflict|exhausted} on
+ * /actuator/metrics; conflict / (committed + exhausted) is the conflict rate per edit.
+ */
+@Service
+public class OptimisticEditExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimisticEditExecutor.class);
+
+    private final TransactionTemplate transaction;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    @Value("${playlist.edits.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${playlist.edits.backoff-ms:5}")
+    private long backoffMillis;
+
+    @Autowired
+    public OptimisticEditExecutor(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Run the edit, retrying it on optimistic conflicts. Inside a surrounding transaction it runs
+     * once as part of it, since only the outer transaction could be retried. Throws the last
+     * OptimisticLockingFailureException when every attempt conflicted
+     */
+    public <T> T execute(String operation, Supplier<T> edit) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return edit.get();
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = transaction.execute(status -> edit.get());
+                count(operation, "committed");
+                return result;
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    count(operation, "exhausted");
+                    logger.warn("Playlist edit {} still conflicting after {} attempts", operation, attempt);
+                    throw e;
+                }
+                count(operation, "conflict");
+                backoff(attempt);
+            }
+        }
+    }
+
+    // Full jitter: up to backoff-ms * 2^attempt, so colliding editors spread out
+    private void backoff(int attempt) {
+        long bound = backoffMillis << Math.min(attempt, 6);
+        if (bound <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OptimisticLockingFailureException("Interrupted while retrying a playlist edit", e);
+        }
+    }
+
+    private void count(String operation, String result) {
+        counters.computeIfAbsent(operation + ':' + result, key -> Counter.builder("playlist.edits")
+                .tag("operation", operation)
+                .tag("result", result)
+                .register(meterRegistry)).increment();
+    }
+}
@@ -0,0 +1,342 @@
+package org.example.lamebeats.services;
+
+import org.example.lamebeats.events.CatalogChangeEvent;
+import org.example.lamebeats.events.PlaylistSongsChangedEvent;
+import org.example.lamebeats.repositories.PlaylistRepository;
+import org.example.lamebeats.repositories.PlaylistSongRepository;
+import org.example.lamebeats.repositories.SongRepository;
+import org.example.lamebeats.utils.bitmap.CompactBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Which songs are in which active playlist, kept in memory. Song ids are mapped to dense int
+ * ordinals and every playlist holds a CompactBitmap of its song ordinals, so membership checks,
+ * counts and playlist set algebra never touch Postgres. Changes are applied in place from
+ * PlaylistSongsChangedEvents under the write lock, readers hold the read lock; hard-deleted songs
+ * are evicted from every playlist on their CatalogChangeEvent. A periodic full reload picks up
+ * anything else that bypasses PlaylistService.
+ */
+@Service
+public class PlaylistMembershipService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlaylistMembershipService.class);
+
+    private final PlaylistRepository playlistRepository;
+    private final PlaylistSongRepository playlistSongRepository;
+    private final SongRepository songRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    // Bitmaps are modified in place under the write lock; every read of one holds the read lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Song ordinals only ever grow, so a bitmap and the ordinal table stay consistent across reloads.
+    // Assigned under the write lock; songsByOrdinal is replaced when it has to grow
+    private final Map<UUID, Integer> songOrdinals = new ConcurrentHashMap<>();
+    private volatile UUID[] songsByOrdinal = new UUID[1024];
+
+    private volatile Map<UUID, CompactBitmap> playlistSongs = new ConcurrentHashMap<>();
+    private volatile Map<UUID, UUID> playlistOwners = new ConcurrentHashMap<>();
+    private volatile Map<UUID, Set<UUID>> userPlaylists = new ConcurrentHashMap<>();
+
+    // Changes committed while a full load is running, replayed once it finishes
+    private final Queue<Runnable> pendingChanges = new ConcurrentLinkedQueue<>();
+    private volatile boolean loading = true;
+    private volatile boolean ready = false;
+
+    public enum SetOperation {
+        UNION, INTERSECTION, DIFFERENCE
+    }
+
+    @Autowired
+    public PlaylistMembershipService(PlaylistRepository playlistRepository,
+                                     PlaylistSongRepository playlistSongRepository,
+                                     SongRepository songRepository,
+                                     PlatformTransactionManager transactionManager) {
+        this.playlistRepository = playlistRepository;
+        this.playlistSongRepository = playlistSongRepository;
+        this.songRepository = songRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * First load on an async thread (isReady() stays false until it is done), in an explicit
+     * read-only transaction since a direct reload() call skips the proxy
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        readOnlyTransaction.executeWithoutResult(status -> reload());
+    }
+
+    /**
+     * Reload every active playlist's songs from playlist_songs
+     */
+    @Scheduled(fixedDelayString = "${playlist.membership.reload-interval-ms:3600000}",
+            initialDelayString = "${playlist.membership.reload-interval-ms:3600000}")
+    @Transactional(readOnly = true)
+    public void reload() {
+        long start = System.currentTimeMillis();
+        loading = true;
+        try {
+            Map<UUID, UUID> owners = new ConcurrentHashMap<>();
+            Map<UUID, Set<UUID>> byUser = new ConcurrentHashMap<>();
+            Map<UUID, CompactBitmap> bitmaps = new ConcurrentHashMap<>();
+            for (Object[] row : playlistRepository.findAllActiveIdAndUserId()) {
+                owners.put((UUID) row[0], (UUID) row[1]);
+                byUser.computeIfAbsent((UUID) row[1], id -> ConcurrentHashMap.newKeySet()).add((UUID) row[0]);
+                bitmaps.put((UUID) row[0], new CompactBitmap());
+            }
+            List<Object[]> pairs = playlistSongRepository.findAllActivePlaylistSongPairs();
+
+            long bytes = 0;
+            lock.writeLock().lock();
+            try {
+                for (Object[] pair : pairs) {
+                    CompactBitmap bitmap = bitmaps.get((UUID) pair[0]);
+                    if (bitmap != null) {
+                        bitmap.add(ordinal((UUID) pair[1]));
+                    }
+                }
+                playlistSongs = bitmaps;
+                playlistOwners = owners;
+                userPlaylists = byUser;
+                replayPending();
+                ready = true;
+                for (CompactBitmap bitmap : bitmaps.values()) {
+                    bytes += bitmap.sizeInBytes();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.info("Playlist membership index loaded in {} ms: {} playlists, {} songs, {} entries, ~{} KB",
+                    System.currentTimeMillis() - start, owners.size(), songOrdinals.size(), pairs.size(), bytes / 1024);
+        } catch (RuntimeException e) {
+            // Keep serving the previous index, with the changes that arrived meanwhile
+            write(this::replayPending);
+            logger.error("Failed to load the playlist membership index", e);
+        }
+    }
+
+    /**
+     * Apply a playlist change after its transaction has committed
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPlaylistSongsChanged(PlaylistSongsChangedEvent event) {
+        write(() -> {
+            if (loading) {
+                pendingChanges.add(() -> apply(event));
+            } else {
+                apply(event);
+            }
+        });
+    }
+
+    /**
+     * Evict a hard-deleted song from every playlist. Soft-deleted songs keep their playlist_songs
+     * rows and stay in the index, as they do after a reload
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        if (event.type() != CatalogChangeEvent.Type.SONG || !event.isRemoval()
+                || (!loading && !songOrdinals.containsKey(event.id())) || songRepository.existsById(event.id())) {
+            return;
+        }
+        write(() -> {
+            if (loading) {
+                pendingChanges.add(() -> evict(event.id()));
+            } else {
+                evict(event.id());
+            }
+        });
+    }
+
+    /**
+     * Whether an active playlist contains a song, empty when the playlist is unknown
+     */
+    public Optional<Boolean> contains(UUID playlistId, UUID songId) {
+        return read(() -> {
+            CompactBitmap bitmap = playlistSongs.get(playlistId);
+            if (bitmap == null) {
+                return Optional.empty();
+            }
+            Integer ordinal = songOrdinals.get(songId);
+            return Optional.of(ordinal != null && bitmap.contains(ordinal));
+        });
+    }
+
+    /**
+     * Number of songs in an active playlist, empty when the playlist is unknown
+     */
+    public Optional<Integer> count(UUID playlistId) {
+        return read(() -> Optional.ofNullable(playlistSongs.get(playlistId)).map(CompactBitmap::cardinality));
+    }
+
+    /**
+     * For each song, the user's active playlists that contain it (songs in none of them map to an empty list)
+     */
+    public Map<UUID, List<UUID>> playlistsOfUserContaining(UUID userId, Collection<UUID> songIds) {
+        return read(() -> {
+            Map<UUID, CompactBitmap> bitmaps = playlistSongs;
+            Set<UUID> playlistsOfUser = userPlaylists.getOrDefault(userId, Set.of());
+
+            Map<UUID, List<UUID>> result = new LinkedHashMap<>();
+            for (UUID songId : songIds) {
+                Integer ordinal = songOrdinals.get(songId);
+                List<UUID> containing = new ArrayList<>();
+                if (ordinal != null) {
+                    for (UUID playlistId : playlistsOfUser) {
+                        CompactBitmap bitmap = bitmaps.get(playlistId);
+                        if (bitmap != null && bitmap.contains(ordinal)) {
+                            containing.add(playlistId);
+                        }
+                    }
+                }
+                result.put(songId, containing);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Songs of the union, intersection or difference (first minus second) of two active playlists,
+     * empty when either playlist is unknown
+     */
+    public Optional<List<UUID>> combine(UUID playlistId, UUID otherPlaylistId, SetOperation operation) {
+        // The result is a new bitmap, so only the set operation needs the lock
+        CompactBitmap combined = read(() -> {
+            CompactBitmap first = playlistSongs.get(playlistId);
+            CompactBitmap second = playlistSongs.get(otherPlaylistId);
+            if (first == null || second == null) {
+                return null;
+            }
+            return switch (operation) {
+                case UNION -> first.or(second);
+                case INTERSECTION -> first.and(second);
+                case DIFFERENCE -> first.andNot(second);
+            };
+        });
+        if (combined == null) {
+            return Optional.empty();
+        }
+
+        UUID[] songs = songsByOrdinal;
+        List<UUID> songIds = new ArrayList<>(combined.cardinality());
+        combined.forEach(ordinal -> songIds.add(songs[ordinal]));
+        return Optional.of(songIds);
+    }
+
+    // Caller holds the write lock
+    private void replayPending() {
+        loading = false;
+        Runnable pending;
+        while ((pending = pendingChanges.poll()) != null) {
+            pending.run();
+        }
+    }
+
+    // Caller holds the write lock
+    private void apply(PlaylistSongsChangedEvent event) {
+        UUID playlistId = event.playlistId();
+        switch (event.type()) {
+            case ACTIVATED -> {
+                CompactBitmap bitmap = new CompactBitmap();
+                event.songIds().forEach(songId -> bitmap.add(ordinal(songId)));
+                playlistOwners.put(playlistId, event.userId());
+                userPlaylists.computeIfAbsent(event.userId(), id -> ConcurrentHashMap.newKeySet()).add(playlistId);
+                playlistSongs.put(playlistId, bitmap);
+            }
+            case DEACTIVATED -> {
+                playlistSongs.remove(playlistId);
+                UUID ownerId = playlistOwners.remove(playlistId);
+                if (ownerId != null) {
+                    userPlaylists.getOrDefault(ownerId, new HashSet<>()).remove(playlistId);
+                }
+            }
+            case CLEARED -> playlistSongs.computeIfPresent(playlistId, (id, bitmap) -> new CompactBitmap());
+            case ADDED -> {
+                CompactBitmap bitmap = playlistSongs.get(playlistId);
+                if (bitmap != null) {
+                    event.songIds().forEach(songId -> bitmap.add(ordinal(songId)));
+                }
+            }
+            case REMOVED -> {
+                CompactBitmap bitmap = playlistSongs.get(playlistId);
+                if (bitmap != null) {
+                    event.songIds().forEach(songId -> {
+                        Integer ordinal = songOrdinals.get(songId);
+                        if (ordinal != null) {
+                            bitmap.remove(ordinal);
+                        }
+                    });
+                }
+            }
+        }
+    }
+
+    // Caller holds the write lock
+    private void evict(UUID songId) {
+        Integer ordinal = songOrdinals.get(songId);
+        if (ordinal != null) {
+            playlistSongs.values().forEach(bitmap -> bitmap.remove(ordinal));
+        }
+    }
+
+    private void write(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private <T> T read(Supplier<T> action) {
+        lock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private int ordinal(UUID songId) {
+        Integer existing = songOrdinals.get(songId);
+        if (existing != null) {
+            return existing;
+        }
+        int ordinal = songOrdinals.size();
+        UUID[] songs = songsByOrdinal;
+        if (ordinal == songs.length) {
+            songs = Arrays.copyOf(songs, songs.length * 2);
+        }
+        songs[ordinal] = songId;
+        songsByOrdinal = songs;
+        songOrdinals.put(songId, ordinal);
+        return ordinal;
+    }
+}
@@ -1,36 +1,80 @@
 package org.example.lamebeats.services;
 
+import org.example.lamebeats.dto.PlaylistTrackDto;
+import org.example.lamebeats.events.PlaylistSongsChangedEvent;
 import org.example.lamebeats.models.Playlist;
-import org.example.lamebeats.models.Song;
+import org.example.lamebeats.models.PlaylistSong;
+import org.example.lamebeats.models.PlaylistSongId;
 import org.example.lamebeats.models.User;
 import org.example.lamebeats.repositories.PlaylistRepository;
+import org.example.lamebeats.repositories.PlaylistSongRepository;
+import org.example.lamebeats.repositories.PlaylistSongWriteRepository;
+import org.example.lamebeats.repositories.SongReadRepository;
 import org.example.lamebeats.repositories.SongRepository;
 import org.example.lamebeats.repositories.UserRepository;
+import org.example.lamebeats.utils.CursorUtil;
+import org.example.lamebeats.utils.HttpCacheUtil;
+import org.example.lamebeats.utils.PlaylistPositionUtil;
+import org.example.lamebeats.utils.SearchQueryUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class PlaylistService {
 
+    private static final Logger logger = LoggerFactory.getLogger(PlaylistService.class);
+
     private final PlaylistRepository playlistRepository;
     private final UserRepository userRepository;
     private final SongRepository songRepository;
+    private final PlaylistSongRepository playlistSongRepository;
+    private final PlaylistSongWriteRepository playlistSongWriteRepository;
+    private final SongReadRepository songReadRepository;
+    private final PlaylistMembershipService playlistMembershipService;
+    private final OptimisticEditExecutor optimisticEditExecutor;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Playlists whose positions got too precise, renumbered by rebalancePositions
+    private final Set<UUID> playlistsToRebalance = ConcurrentHashMap.newKeySet();
+
+    @Value("${playlist.positions.max-scale:20}")
+    private int maxPositionScale;
 
     @Autowired
     public PlaylistService(PlaylistRepository playlistRepository, 
                           UserRepository userRepository,
-                          SongRepository songRepository) {
+                          SongRepository songRepository,
+                          PlaylistSongRepository playlistSongRepository,
+                          PlaylistSongWriteRepository playlistSongWriteRepository,
+                          SongReadRepository songReadRepository,
+                          PlaylistMembershipService playlistMembershipService,
+                          OptimisticEditExecutor optimisticEditExecutor,
+                          ApplicationEventPublisher eventPublisher) {
         this.playlistRepository = playlistRepository;
         this.userRepository = userRepository;
         this.songRepository = songRepository;
+        this.playlistSongRepository = playlistSongRepository;
+        this.playlistSongWriteRepository = playlistSongWriteRepository;
+        this.songReadRepository = songReadRepository;
+        this.playlistMembershipService = playlistMembershipService;
+        this.optimisticEditExecutor = optimisticEditExecutor;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -50,6 +94,7 @@ public class PlaylistService {
     /**
      * Get all active playlists with pagination
      */
+    @Transactional(readOnly = true)
     public Map<String, Object> getAllActivePlaylistsPaginated(int page, int limit) {
         int pageIndex = Math.max(page - 1, 0); // Convert to zero-based index
         Pageable pageable = PageRequest.of(pageIndex, limit, Sort.by("createdAt").descending());
@@ -66,6 +111,17 @@ public class PlaylistService {
         return response;
     }
 
+    /**
+     * Get active playlists with keyset pagination, newest first
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getActivePlaylistsAfter(String after, int limit) {
+        CursorUtil.Cursor cursor = CursorUtil.decode(after);
+        List<Playlist> playlists = playlistRepository.findActiveAfter(cursor.createdAt(), cursor.id(),
+                CursorUtil.seekPageable(limit));
+        return CursorUtil.toResponse(playlists, limit, Playlist::getCreatedAt, Playlist::getId);
+    }
+
     /**
      * Get playlists by user
      */
@@ -90,6 +146,7 @@ public class PlaylistService {
     /**
      * Get active playlists by user ID with pagination
      */
+    @Transactional(readOnly = true)
     public Map<String, Object> getActivePlaylistsByUserIdPaginated(UUID userId, int page, int limit) {
         int pageIndex = Math.max(page - 1, 0); // Convert to zero-based index
         Pageable pageable = PageRequest.of(pageIndex, limit, Sort.by("createdAt").descending());
@@ -106,6 +163,17 @@ public class PlaylistService {
         return response;
     }
 
+    /**
+     * Get active playlists by user ID with keyset pagination, newest first
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getActivePlaylistsByUserIdAfter(UUID userId, String after, int limit) {
+        CursorUtil.Cursor cursor = CursorUtil.decode(after);
+        List<Playlist> playlists = playlistRepository.findActiveByUserIdAfter(userId, cursor.createdAt(), cursor.id(),
+                CursorUtil.seekPageable(limit));
+        return CursorUtil.toResponse(playlists, limit, Playlist::getCreatedAt, Playlist::getId);
+    }
+
     /**
      * Get playlist by ID
      */
@@ -119,6 +187,13 @@ public class PlaylistService {
     public Optional<Playlist> getActivePlaylistById(UUID id) {
         return playlistRepository.findActiveById(id);
     }
+
+    /**
+     * Version (ETag / Last-Modified) of an active playlist, from ids and timestamps only
+     */
+    public Optional<HttpCacheUtil.Version> getActivePlaylistVersion(UUID id) {
+        return HttpCacheUtil.version(playlistRepository.findActiveVersionRows(id));
+    }
     
     /**
      * Search playlists by name
@@ -128,10 +203,24 @@ public class PlaylistService {
     }
     
     /**
-     * Search active playlists by name
+     * Search active playlists by name or description with pagination (full-text prefix match, ranked by relevance)
      */
-    public List<Playlist> searchActivePlaylistsByName(String name) {
-        return playlistRepository.findActiveByNameContaining(name);
+    @Transactional(readOnly = true)
+    public Map<String, Object> searchActivePlaylistsPaginated(String searchTerm, int page, int limit) {
+        int pageIndex = Math.max(page - 1, 0); // Convert to zero-based index
+        Pageable pageable = PageRequest.of(pageIndex, limit);
+
+        String query = SearchQueryUtil.toPrefixTsQuery(searchTerm);
+        Page<Playlist> playlistPage = query.isEmpty() ? Page.empty(pageable) : playlistRepository.searchActive(query, pageable);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("data", playlistPage.getContent());
+        response.put("page", page);
+        response.put("limit", limit);
+        response.put("pages", playlistPage.getTotalPages());
+        response.put("total", playlistPage.getTotalElements());
+
+        return response;
     }
     
     /**
@@ -184,15 +273,17 @@ public class PlaylistService {
         playlist.setUser(user);
         playlist.setSongs(new HashSet<>());
         
-        return playlistRepository.save(playlist);
+        Playlist saved = playlistRepository.save(playlist);
+        eventPublisher.publishEvent(PlaylistSongsChangedEvent.activated(saved.getId(), userId, List.of()));
+        return saved;
     }
     
     /**
-     * Update playlist details
+     * Update playlist details. Only the given fields are set, and the edit is re-applied to the
+     * current playlist when a concurrent edit committed first
      */
-    @Transactional
     public Optional<Playlist> updatePlaylist(UUID playlistId, String name, String photo, String description) {
-        return playlistRepository.findActiveById(playlistId).map(playlist -> {
+        return optimisticEditExecutor.execute("update", () -> playlistRepository.findActiveById(playlistId).map(playlist -> {
             if (name != null && !name.trim().isEmpty()) {
                 playlist.setName(name);
             }
@@ -206,83 +297,219 @@ public class PlaylistService {
             }
             
             return playlistRepository.save(playlist);
-        });
+        }));
     }
     
     /**
-     * Add a song to a playlist
+     * Add a song to the end of a playlist. Returns the number of songs added (0 when the song is
+     * already in the playlist or does not exist), empty when the playlist does not exist
      */
     @Transactional
-    public Optional<Playlist> addSongToPlaylist(UUID playlistId, UUID songId) {
-        Optional<Playlist> playlistOpt = playlistRepository.findActiveById(playlistId);
-        Optional<Song> songOpt = songRepository.findById(songId);
-        
-        if (playlistOpt.isPresent() && songOpt.isPresent()) {
-            Playlist playlist = playlistOpt.get();
-            Song song = songOpt.get();
-            
-            playlist.getSongs().add(song);
-            return Optional.of(playlistRepository.save(playlist));
+    public Optional<Integer> addSongToPlaylist(UUID playlistId, UUID songId) {
+        return addSongsToPlaylist(playlistId, List.of(songId));
+    }
+
+    /**
+     * Put a song at a place in a playlist: right after `afterSongId`, at a zero-based `index`, or
+     * at the end when neither is given. A song already in the playlist is moved there instead.
+     * Only the placed row is written; retried when the playlist's order changed meanwhile. Empty
+     * when the playlist or song does not exist, throws IllegalArgumentException when `afterSongId`
+     * is not in the playlist
+     */
+    public Optional<PlaylistSong> insertSongAt(UUID playlistId, UUID songId, UUID afterSongId, Integer index) {
+        return optimisticEditExecutor.execute("insert", () -> {
+            Optional<Long> version = playlistRepository.findActiveEditVersion(playlistId);
+            if (version.isEmpty() || !songRepository.existsById(songId)) {
+                return Optional.empty();
+            }
+
+            BigDecimal position = resolvePosition(playlistId, songId, afterSongId, index);
+            Optional<PlaylistSong> existing = playlistSongRepository.findById(new PlaylistSongId(playlistId, songId));
+            // Only a new or restored row adds the song; an active one is just moved
+            boolean added = existing.map(PlaylistSong::isDeleted).orElse(true);
+            PlaylistSong track = existing
+                    .map(row -> {
+                        row.setPosition(position);
+                        row.restore();
+                        return row;
+                    })
+                    .orElseGet(() -> newTrack(playlistId, songId, position));
+            PlaylistSong saved = playlistSongRepository.save(track);
+            claimVersion(playlistId, version.get());
+            if (added) {
+                eventPublisher.publishEvent(PlaylistSongsChangedEvent.added(playlistId, List.of(songId)));
+            }
+            return Optional.of(saved);
+        });
+    }
+
+    /**
+     * Move a song of a playlist right after `afterSongId`, to a zero-based `index`, or to the end
+     * when neither is given, with a single-row update; retried when the playlist's order changed
+     * meanwhile. Returns the new position, empty when the song is not in the playlist; throws
+     * IllegalArgumentException when `afterSongId` is not in the playlist
+     */
+    public Optional<BigDecimal> moveSong(UUID playlistId, UUID songId, UUID afterSongId, Integer index) {
+        return optimisticEditExecutor.execute("move", () -> {
+            Optional<Long> version = playlistRepository.findActiveEditVersion(playlistId);
+            if (version.isEmpty() || !playlistSongRepository.existsByPlaylistIdAndSongIdAndDeletedAtIsNull(playlistId, songId)) {
+                return Optional.empty();
+            }
+
+            BigDecimal position = resolvePosition(playlistId, songId, afterSongId, index);
+            playlistSongRepository.updatePosition(playlistId, songId, position);
+            claimVersion(playlistId, version.get());
+            return Optional.of(position);
+        });
+    }
+
+    /**
+     * Get the songs of an active playlist in playlist order with keyset pagination, together with
+     * the maintained track count and total duration. Empty when the playlist does not exist;
+     * throws IllegalArgumentException for a malformed cursor
+     */
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> getPlaylistTracksAfter(UUID playlistId, String after, int limit) {
+        CursorUtil.PositionCursor cursor = CursorUtil.decodePosition(after);
+        return playlistRepository.findActiveById(playlistId).map(playlist -> {
+            List<PlaylistTrackDto> tracks = songReadRepository.findPlaylistTracksAfter(playlistId,
+                    cursor.position(), cursor.id(), limit + 1);
+
+            Map<String, Object> response = CursorUtil.toResponse(tracks, limit,
+                    track -> CursorUtil.encodePosition(track.position(), track.song().id()));
+            response.put("total", playlist.getTrackCount());
+            response.put("totalDuration", playlist.getTotalDuration());
+            return response;
+        });
+    }
+
+    /**
+     * Renumber the playlists whose positions got too precise to 1..n, keeping their order
+     */
+    @Scheduled(fixedDelayString = "${playlist.positions.rebalance-interval-ms:60000}",
+            initialDelayString = "${playlist.positions.rebalance-interval-ms:60000}")
+    public void rebalancePositions() {
+        Iterator<UUID> pending = playlistsToRebalance.iterator();
+        while (pending.hasNext()) {
+            UUID playlistId = pending.next();
+            pending.remove();
+            try {
+                int updated = optimisticEditExecutor.execute("renumber", () -> {
+                    Optional<Long> version = playlistRepository.findActiveEditVersion(playlistId);
+                    if (version.isEmpty()) {
+                        return 0;
+                    }
+                    int renumbered = playlistSongRepository.renumberPositions(playlistId);
+                    claimVersion(playlistId, version.get());
+                    return renumbered;
+                });
+                logger.info("Renumbered {} positions of playlist {}", updated, playlistId);
+            } catch (RuntimeException e) {
+                logger.error("Failed to renumber positions of playlist {}", playlistId, e);
+            }
         }
-        
-        return Optional.empty();
+    }
+
+    // Position for a song placed after `afterSongId`, at `index`, or at the end. A song being moved
+    // may be its own neighbour, which still orders it correctly; only index lookups have to skip it
+    private BigDecimal resolvePosition(UUID playlistId, UUID songId, UUID afterSongId, Integer index) {
+        BigDecimal before;
+        BigDecimal after;
+        if (afterSongId != null) {
+            if (afterSongId.equals(songId)) {
+                throw new IllegalArgumentException("A song cannot be placed after itself");
+            }
+            before = playlistSongRepository.findActiveByPlaylistIdAndSongId(playlistId, afterSongId)
+                    .map(PlaylistSong::getPosition)
+                    .orElseThrow(() -> new IllegalArgumentException("Song to place after is not in the playlist"));
+            after = playlistSongRepository.findNextPosition(playlistId, before);
+        } else if (index != null && index <= 0) {
+            before = null;
+            after = playlistSongRepository.findFirstPosition(playlistId);
+        } else if (index != null) {
+            List<BigDecimal> neighbours = playlistSongRepository.findPositionsAt(playlistId, index - 1, songId);
+            before = neighbours.isEmpty() ? playlistSongRepository.findLastPosition(playlistId) : neighbours.get(0);
+            after = neighbours.size() > 1 ? neighbours.get(1) : null;
+        } else {
+            before = playlistSongRepository.findLastPosition(playlistId);
+            after = null;
+        }
+
+        if (before != null && after != null && before.compareTo(after) >= 0) {
+            // Two concurrent inserts took the same midpoint: renumber now and look again
+            playlistSongRepository.renumberPositions(playlistId);
+            return resolvePosition(playlistId, songId, afterSongId, index);
+        }
+
+        BigDecimal position = PlaylistPositionUtil.between(before, after);
+        if (PlaylistPositionUtil.needsRebalance(position, maxPositionScale)) {
+            playlistsToRebalance.add(playlistId);
+        }
+        return position;
+    }
+
+    // Commit point of an ordering change read at `version`: conflicts when another one committed since
+    private void claimVersion(UUID playlistId, long version) {
+        if (playlistRepository.claimVersion(playlistId, version) == 0) {
+            throw new OptimisticLockingFailureException("Playlist " + playlistId + " changed during the edit");
+        }
+    }
+
+    private PlaylistSong newTrack(UUID playlistId, UUID songId, BigDecimal position) {
+        return PlaylistSong.builder()
+                .playlistId(playlistId)
+                .songId(songId)
+                .position(position)
+                .build();
     }
     
     /**
-     * Remove a song from a playlist
+     * Remove a song from a playlist. Returns the number of songs removed, empty when the playlist does not exist
      */
     @Transactional
-    public Optional<Playlist> removeSongFromPlaylist(UUID playlistId, UUID songId) {
-        Optional<Playlist> playlistOpt = playlistRepository.findActiveById(playlistId);
-        Optional<Song> songOpt = songRepository.findById(songId);
-        
-        if (playlistOpt.isPresent() && songOpt.isPresent()) {
-            Playlist playlist = playlistOpt.get();
-            Song song = songOpt.get();
-            
-            playlist.getSongs().remove(song);
-            return Optional.of(playlistRepository.save(playlist));
-        }
-        
-        return Optional.empty();
+    public Optional<Integer> removeSongFromPlaylist(UUID playlistId, UUID songId) {
+        return removeSongsFromPlaylist(playlistId, List.of(songId));
     }
     
     /**
      * Soft delete a playlist
      */
-    @Transactional
     public boolean softDeletePlaylist(UUID playlistId) {
-        return playlistRepository.findActiveById(playlistId).map(playlist -> {
+        return optimisticEditExecutor.execute("delete", () -> playlistRepository.findActiveById(playlistId).map(playlist -> {
             playlist.setDeletedAt(LocalDateTime.now());
             playlistRepository.save(playlist);
+            eventPublisher.publishEvent(PlaylistSongsChangedEvent.deactivated(playlistId));
             return true;
-        }).orElse(false);
+        }).orElse(false));
     }
     
     /**
      * Restore a soft-deleted playlist
      */
-    @Transactional
     public boolean restorePlaylist(UUID playlistId) {
-        return playlistRepository.findById(playlistId)
+        return optimisticEditExecutor.execute("restore", () -> playlistRepository.findById(playlistId)
                 .filter(playlist -> playlist.getDeletedAt() != null)
                 .map(playlist -> {
                     playlist.setDeletedAt(null);
                     playlistRepository.save(playlist);
+                    eventPublisher.publishEvent(PlaylistSongsChangedEvent.activated(playlistId, playlist.getUser().getId(),
+                            playlistSongRepository.findActiveSongIdsByPlaylistId(playlistId)));
                     return true;
-                }).orElse(false);
+                }).orElse(false));
     }
     
     /**
      * Hard delete a playlist (use with caution)
      */
-    @Transactional
     public boolean hardDeletePlaylist(UUID playlistId) {
-        if (playlistRepository.existsById(playlistId)) {
-            playlistRepository.deleteById(playlistId);
-            return true;
-        }
-        return false;
+        return optimisticEditExecutor.execute("hard-delete", () -> {
+            if (playlistRepository.existsById(playlistId)) {
+                playlistRepository.deleteById(playlistId);
+                eventPublisher.publishEvent(PlaylistSongsChangedEvent.deactivated(playlistId));
+                return true;
+            }
+            return false;
+        });
     }
     
     /**
@@ -295,73 +522,73 @@ public class PlaylistService {
     }
     
     /**
-     * Check if playlist contains song
+     * Check if playlist contains song, from the membership index once it is loaded
      */
     public boolean doesPlaylistContainSong(UUID playlistId, UUID songId) {
-        return playlistRepository.findById(playlistId)
-                .map(playlist -> playlist.getSongs().stream()
-                        .anyMatch(song -> song.getId().equals(songId)))
-                .orElse(false);
+        if (playlistMembershipService.isReady()) {
+            return playlistMembershipService.contains(playlistId, songId).orElse(false);
+        }
+        return playlistSongRepository.existsByPlaylistIdAndSongIdAndDeletedAtIsNull(playlistId, songId);
     }
     
     /**
-     * Get song count in playlist
+     * Get song count in playlist, from the membership index once it is loaded
      */
     public int getSongCountInPlaylist(UUID playlistId) {
+        if (playlistMembershipService.isReady()) {
+            return playlistMembershipService.count(playlistId).orElse(0);
+        }
         return playlistRepository.findById(playlistId)
-                .map(playlist -> playlist.getSongs().size())
+                .map(Playlist::getTrackCount)
                 .orElse(0);
     }
     
     /**
-     * Add multiple songs to playlist
+     * Add multiple songs to the end of a playlist in the given order, skipping unknown songs and songs
+     * already in it; soft-deleted entries are restored at the end. Appends leave the order of the
+     * songs already there alone, so they claim no edit version: the single insert is the only write,
+     * and the playlist row and owner locks its triggers take are held from there to commit only. A
+     * concurrent move or renumber can leave an appended song tied with another; ties order by song
+     * id and are split by the next insert between them. Returns the number of songs added, empty
+     * when the playlist does not exist
      */
     @Transactional
-    public Optional<Playlist> addSongsToPlaylist(UUID playlistId, List<UUID> songIds) {
-        Optional<Playlist> playlistOpt = playlistRepository.findActiveById(playlistId);
-        
-        if (playlistOpt.isPresent()) {
-            Playlist playlist = playlistOpt.get();
-            List<Song> songsToAdd = songRepository.findAllById(songIds);
-            
-            playlist.getSongs().addAll(songsToAdd);
-            return Optional.of(playlistRepository.save(playlist));
+    public Optional<Integer> addSongsToPlaylist(UUID playlistId, List<UUID> songIds) {
+        if (!playlistRepository.existsActiveById(playlistId)) {
+            return Optional.empty();
         }
-        
-        return Optional.empty();
+        List<UUID> added = playlistSongWriteRepository.appendSongs(playlistId, songIds);
+        if (!added.isEmpty()) {
+            eventPublisher.publishEvent(PlaylistSongsChangedEvent.added(playlistId, added));
+        }
+        return Optional.of(added.size());
     }
     
     /**
-     * Remove multiple songs from playlist
+     * Remove multiple songs from a playlist. Returns the number of songs removed, empty when the playlist does not exist
      */
     @Transactional
-    public Optional<Playlist> removeSongsFromPlaylist(UUID playlistId, List<UUID> songIds) {
-        Optional<Playlist> playlistOpt = playlistRepository.findActiveById(playlistId);
-        
-        if (playlistOpt.isPresent()) {
-            Playlist playlist = playlistOpt.get();
-            playlist.getSongs().removeIf(song -> songIds.contains(song.getId()));
-            
-            return Optional.of(playlistRepository.save(playlist));
+    public Optional<Integer> removeSongsFromPlaylist(UUID playlistId, List<UUID> songIds) {
+        if (!playlistRepository.existsActiveById(playlistId)) {
+            return Optional.empty();
         }
-        
-        return Optional.empty();
+        List<UUID> removed = playlistSongWriteRepository.deleteSongs(playlistId, songIds);
+        if (!removed.isEmpty()) {
+            eventPublisher.publishEvent(PlaylistSongsChangedEvent.removed(playlistId, removed));
+        }
+        return Optional.of(removed.size());
     }
     
     /**
-     * Clear all songs from playlist
+     * Clear all songs from a playlist. Returns the number of songs removed, empty when the playlist does not exist
      */
     @Transactional
-    public Optional<Playlist> clearPlaylist(UUID playlistId) {
-        Optional<Playlist> playlistOpt = playlistRepository.findActiveById(playlistId);
-        
-        if (playlistOpt.isPresent()) {
-            Playlist playlist = playlistOpt.get();
-            playlist.getSongs().clear();
-            
-            return Optional.of(playlistRepository.save(playlist));
+    public Optional<Integer> clearPlaylist(UUID playlistId) {
+        if (!playlistRepository.existsActiveById(playlistId)) {
+            return Optional.empty();
         }
-        
-        return Optional.empty();
+        int removed = playlistSongWriteRepository.deleteAllSongs(playlistId);
+        eventPublisher.publishEvent(PlaylistSongsChangedEvent.cleared(playlistId));
+        return Optional.of(removed);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,190 @@
+package org.example.lamebeats.services;
+
+import org.example.lamebeats.config.ReplicaRoutingDataSource;
+import org.example.lamebeats.dto.PlaylistDto;
+import org.example.lamebeats.models.Playlist;
+import org.example.lamebeats.repositories.PlaylistChangeRepository;
+import org.example.lamebeats.repositories.PlaylistChangeRepository.Change;
+import org.example.lamebeats.repositories.PlaylistChangeRepository.TrackState;
+import org.example.lamebeats.repositories.PlaylistRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Delta sync of a user's playlists from the playlist change log. A client keeps the version of
+ * its last sync and gets back only the playlists and tracks changed since then, each in its
+ * current state, and the version to send next time. Clients behind the compaction watermark (or
+ * new clients, since=0) are told to download their library again.
+ */
+@Service
+public class PlaylistSyncService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlaylistSyncService.class);
+
+    private static final String PLAYLIST_DELETE = "PLAYLIST_DELETE";
+    private static final String TRACK_DELETE = "TRACK_DELETE";
+
+    private final PlaylistChangeRepository playlistChangeRepository;
+    private final PlaylistRepository playlistRepository;
+
+    @Value("${sync.page-size:1000}")
+    private int pageSize;
+
+    @Value("${sync.changes.compact-after-seconds:86400}")
+    private long compactAfterSeconds;
+
+    @Value("${sync.changes.retention-seconds:2592000}")
+    private long retentionSeconds;
+
+    @Value("${sync.changes.compaction-batch-size:10000}")
+    private int compactionBatchSize;
+
+    @Autowired
+    public PlaylistSyncService(PlaylistChangeRepository playlistChangeRepository,
+                               PlaylistRepository playlistRepository) {
+        this.playlistChangeRepository = playlistChangeRepository;
+        this.playlistRepository = playlistRepository;
+    }
+
+    /**
+     * The user's playlist changes after a version, at most one page of the log per call (hasMore
+     * tells the client to call again with the returned version). Runs on the primary: the read has
+     * to wait for the user's in-flight writes, see V6__playlist_changes.sql. It is read-only, so
+     * syncing does not keep the user's later reads off the replicas
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getChangesSince(UUID userId, long since) {
+        ReplicaRoutingDataSource.readFromPrimary();
+        playlistChangeRepository.lockUserForRead(userId);
+
+        List<Change> changes = playlistChangeRepository.findChangesAfter(userId, since, pageSize + 1);
+        // Read after the changes: a compaction that dropped part of them has raised it by now
+        if (since <= 0 || since < playlistChangeRepository.findCompactedThrough()) {
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("fullResync", true);
+            response.put("version", playlistChangeRepository.findHeadVersion(userId));
+            return response;
+        }
+
+        boolean hasMore = changes.size() > pageSize;
+        if (hasMore) {
+            changes = changes.subList(0, pageSize);
+        }
+
+        // Only the latest change of each playlist and track matters, the state sent is the current one
+        Map<UUID, String> playlistChanges = new LinkedHashMap<>();
+        Map<List<UUID>, String> trackChanges = new LinkedHashMap<>();
+        for (Change change : changes) {
+            if (change.songId() == null) {
+                playlistChanges.put(change.playlistId(), change.kind());
+            } else {
+                trackChanges.put(List.of(change.playlistId(), change.songId()), change.kind());
+            }
+        }
+
+        List<PlaylistDto> upsertedPlaylists = new ArrayList<>();
+        Set<UUID> deletedPlaylists = new LinkedHashSet<>();
+        List<UUID> playlistIds = new ArrayList<>();
+        playlistChanges.forEach((playlistId, kind) -> {
+            if (PLAYLIST_DELETE.equals(kind)) {
+                deletedPlaylists.add(playlistId);
+            } else {
+                playlistIds.add(playlistId);
+            }
+        });
+        Map<UUID, Playlist> playlists = new HashMap<>();
+        playlistRepository.findAllById(playlistIds).forEach(playlist -> playlists.put(playlist.getId(), playlist));
+        for (UUID playlistId : playlistIds) {
+            // Deleted or given away after this page: the later change says so too
+            Playlist playlist = playlists.get(playlistId);
+            if (playlist == null || playlist.getDeletedAt() != null || !playlist.getUser().getId().equals(userId)) {
+                deletedPlaylists.add(playlistId);
+            } else {
+                upsertedPlaylists.add(PlaylistDto.fromEntity(playlist));
+            }
+        }
+
+        List<Map<String, Object>> removedTracks = new ArrayList<>();
+        List<UUID> trackPlaylistIds = new ArrayList<>();
+        List<UUID> trackSongIds = new ArrayList<>();
+        trackChanges.forEach((track, kind) -> {
+            if (deletedPlaylists.contains(track.get(0))) {
+                return;
+            }
+            if (TRACK_DELETE.equals(kind)) {
+                removedTracks.add(trackRef(track.get(0), track.get(1)));
+            } else {
+                trackPlaylistIds.add(track.get(0));
+                trackSongIds.add(track.get(1));
+            }
+        });
+
+        Set<List<UUID>> found = new HashSet<>();
+        List<Map<String, Object>> upsertedTracks = new ArrayList<>();
+        for (TrackState track : playlistChangeRepository.findActiveTracks(trackPlaylistIds, trackSongIds)) {
+            found.add(List.of(track.playlistId(), track.songId()));
+            Map<String, Object> item = trackRef(track.playlistId(), track.songId());
+            item.put("position", track.position());
+            item.put("addedAt", track.addedAt());
+            upsertedTracks.add(item);
+        }
+        for (int i = 0; i < trackPlaylistIds.size(); i++) {
+            if (!found.contains(List.of(trackPlaylistIds.get(i), trackSongIds.get(i)))) {
+                removedTracks.add(trackRef(trackPlaylistIds.get(i), trackSongIds.get(i)));
+            }
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("fullResync", false);
+        response.put("version", changes.isEmpty() ? since : changes.get(changes.size() - 1).version());
+        response.put("hasMore", hasMore);
+        response.put("playlists", Map.of("upserted", upsertedPlaylists, "deleted", deletedPlaylists));
+        response.put("tracks", Map.of("upserted", upsertedTracks, "removed", removedTracks));
+        return response;
+    }
+
+    /**
+     * Compact the change log: drop changes superseded by a newer change of the same playlist or
+     * track once they are compact-after old, and drop everything past the retention (raising the
+     * watermark). Each batch commits on its own
+     */
+    @Scheduled(fixedDelayString = "${sync.changes.compaction-interval-ms:3600000}",
+            initialDelayString = "${sync.changes.compaction-interval-ms:3600000}")
+    public void compactChanges() {
+        long start = System.currentTimeMillis();
+        try {
+            int dropped = 0;
+            int batch;
+            do {
+                batch = playlistChangeRepository.dropOldestBatch(compactionBatchSize, retentionSeconds);
+                dropped += batch;
+            } while (batch == compactionBatchSize);
+
+            long from = playlistChangeRepository.findCompactedThrough();
+            long[] collapsed;
+            while ((collapsed = playlistChangeRepository.collapseSupersededBatch(from, compactionBatchSize, compactAfterSeconds)) != null
+                    && collapsed[1] == 0) {
+                from = collapsed[0];
+            }
+
+            logger.info("Playlist change log compacted in {} ms: {} changes past retention dropped, superseded changes collapsed up to version {}",
+                    System.currentTimeMillis() - start, dropped, from);
+        } catch (RuntimeException e) {
+            logger.error("Failed to compact the playlist change log", e);
+        }
+    }
+
+    private Map<String, Object> trackRef(UUID playlistId, UUID songId) {
+        Map<String, Object> ref = new LinkedHashMap<>();
+        ref.put("playlistId", playlistId);
+        ref.put("songId", songId);
+        return ref;
+    }
+}
@@ -6,6 +6,7 @@ import org.example.lamebeats.models.User;
 import org.example.lamebeats.repositories.RecentTrackRepository;
 import org.example.lamebeats.repositories.SongRepository;
 import org.example.lamebeats.repositories.UserRepository;
+import org.example.lamebeats.utils.CursorUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -22,14 +23,17 @@ public class RecentTrackService {
     private final RecentTrackRepository recentTrackRepository;
     private final UserRepository userRepository;
     private final SongRepository songRepository;
+    private final CountService countService;
 
     @Autowired
     public RecentTrackService(RecentTrackRepository recentTrackRepository,
                               UserRepository userRepository,
-                              SongRepository songRepository) {
+                              SongRepository songRepository,
+                              CountService countService) {
         this.recentTrackRepository = recentTrackRepository;
         this.userRepository = userRepository;
         this.songRepository = songRepository;
+        this.countService = countService;
     }
 
     /**
@@ -40,25 +44,39 @@ public class RecentTrackService {
     }
 
     /**
-     * Get all recent tracks with pagination
+     * Get all recent tracks with pagination. The total comes from CountService (usually the
+     * planner estimate, the table is large) unless exactTotal is set
      */
-    public Map<String, Object> getAllRecentTracksPaginated(int page, int limit) {
+    @Transactional(readOnly = true)
+    public Map<String, Object> getAllRecentTracksPaginated(int page, int limit, boolean exactTotal) {
         int pageIndex = Math.max(page - 1, 0); // Convert to zero-based index
-        Pageable pageable = PageRequest.of(pageIndex, limit, Sort.by(Sort.Direction.DESC, "createdAt"));
+        Pageable pageable = PageRequest.of(pageIndex, limit);
 
-        List<RecentTrack> recentTracks = recentTrackRepository.findAll(pageable).getContent();
-        long total = recentTrackRepository.count();
+        List<RecentTrack> recentTracks = recentTrackRepository.findAllByOrderByCreatedAtDesc(pageable);
+        CountService.Count total = countService.count("recent_tracks", null, exactTotal, recentTrackRepository::count);
 
         Map<String, Object> response = new HashMap<>();
         response.put("data", recentTracks);
         response.put("page", page);
         response.put("limit", limit);
-        response.put("pages", (int) Math.ceil((double) total / limit));
-        response.put("total", total);
+        response.put("pages", total.pages(limit));
+        response.put("total", total.total());
+        response.put("totalEstimated", total.estimated());
 
         return response;
     }
 
+    /**
+     * Get all recent tracks with keyset pagination, newest first
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getAllRecentTracksAfter(String after, int limit) {
+        CursorUtil.Cursor cursor = CursorUtil.decode(after);
+        List<RecentTrack> recentTracks = recentTrackRepository.findAllAfter(cursor.createdAt(), cursor.id(),
+                CursorUtil.seekPageable(limit));
+        return CursorUtil.toResponse(recentTracks, limit, RecentTrack::getCreatedAt, RecentTrack::getId);
+    }
+
     /**
      * Get recent tracks by user
      */
@@ -67,25 +85,40 @@ public class RecentTrackService {
     }
 
     /**
-     * Get recent tracks by user with pagination
+     * Get recent tracks by user with pagination. The total is the user's counter in
+     * CountService unless exactTotal is set
      */
-    public Map<String, Object> getRecentTracksByUserPaginated(UUID userId, int page, int limit) {
+    @Transactional(readOnly = true)
+    public Map<String, Object> getRecentTracksByUserPaginated(UUID userId, int page, int limit, boolean exactTotal) {
         int pageIndex = Math.max(page - 1, 0);
         Pageable pageable = PageRequest.of(pageIndex, limit);
 
         List<RecentTrack> recentTracks = recentTrackRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable);
-        long total = recentTrackRepository.findByUserIdOrderByCreatedAtDesc(userId).size();
+        CountService.Count total = countService.count("recent_tracks", "user=" + userId, exactTotal,
+                () -> recentTrackRepository.countByUserId(userId));
 
         Map<String, Object> response = new HashMap<>();
         response.put("data", recentTracks);
         response.put("page", page);
         response.put("limit", limit);
-        response.put("pages", (int) Math.ceil((double) total / limit));
-        response.put("total", total);
+        response.put("pages", total.pages(limit));
+        response.put("total", total.total());
+        response.put("totalEstimated", total.estimated());
 
         return response;
     }
 
+    /**
+     * Get recent tracks by user with keyset pagination, newest first
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getRecentTracksByUserAfter(UUID userId, String after, int limit) {
+        CursorUtil.Cursor cursor = CursorUtil.decode(after);
+        List<RecentTrack> recentTracks = recentTrackRepository.findByUserIdAfter(userId, cursor.createdAt(), cursor.id(),
+                CursorUtil.seekPageable(limit));
+        return CursorUtil.toResponse(recentTracks, limit, RecentTrack::getCreatedAt, RecentTrack::getId);
+    }
+
     /**
      * Get recent track by user and song
      */
@@ -152,6 +185,10 @@ public class RecentTrackService {
         recentTrack.setSong(song);
         // If it's a new track, createdAt will be set automatically
         // If it's an existing track, updatedAt will be updated
+        if (recentTrack.getId() == null) {
+            countService.adjust("recent_tracks", null, 1);
+            countService.adjust("recent_tracks", "user=" + userId, 1);
+        }
 
         return recentTrackRepository.save(recentTrack);
     }
@@ -166,6 +203,7 @@ public class RecentTrackService {
                 .count();
 
         recentTrackRepository.deleteByCreatedAtBefore(beforeDate);
+        countService.invalidate("recent_tracks");
         return count;
     }
 
@@ -176,6 +214,7 @@ public class RecentTrackService {
     public boolean deleteRecentTrack(UUID trackId) {
         if (recentTrackRepository.existsById(trackId)) {
             recentTrackRepository.deleteById(trackId);
+            countService.invalidate("recent_tracks");
             return true;
         }
         return false;
@@ -190,6 +229,8 @@ public class RecentTrackService {
         long count = tracksToDelete.size();
 
         recentTrackRepository.deleteAll(tracksToDelete);
+        countService.adjust("recent_tracks", null, -count);
+        countService.adjust("recent_tracks", "user=" + userId, -count);
         return count;
     }
 }
\ No newline at end of file
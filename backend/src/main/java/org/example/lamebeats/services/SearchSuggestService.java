@@ -0,0 +1,108 @@
+package org.example.lamebeats.services;
+
+import org.example.lamebeats.repositories.*;
+import org.example.lamebeats.utils.search.PrefixSuggester;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Search-as-you-type suggestions over song titles, artist names, album titles and genre titles,
+ * weighted by play counts. Lookups only read the current in-memory PrefixSuggester; a new one
+ * is built in the background and swapped in atomically, so suggestions never wait on Postgres.
+ */
+@Service
+public class SearchSuggestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchSuggestService.class);
+
+    private final SongRepository songRepository;
+    private final ArtistRepository artistRepository;
+    private final AlbumRepository albumRepository;
+    private final GenreRepository genreRepository;
+    private final RecentTrackRepository recentTrackRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final AtomicReference<PrefixSuggester> suggester =
+            new AtomicReference<>(PrefixSuggester.builder().build());
+
+    @Autowired
+    public SearchSuggestService(SongRepository songRepository,
+                                ArtistRepository artistRepository,
+                                AlbumRepository albumRepository,
+                                GenreRepository genreRepository,
+                                RecentTrackRepository recentTrackRepository,
+                                PlatformTransactionManager transactionManager) {
+        this.songRepository = songRepository;
+        this.artistRepository = artistRepository;
+        this.albumRepository = albumRepository;
+        this.genreRepository = genreRepository;
+        this.recentTrackRepository = recentTrackRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Suggestions for a prefix, most played first
+     */
+    public List<PrefixSuggester.Suggestion> suggest(String prefix, int limit) {
+        return suggester.get().suggest(prefix, limit);
+    }
+
+    /**
+     * First build, on an async thread so startup does not wait for it. Calling rebuild() from here
+     * bypasses the proxy, so the read-only transaction is opened explicitly
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        readOnlyTransaction.executeWithoutResult(status -> rebuild());
+    }
+
+    /**
+     * Rebuild the suggester from the database and swap it in
+     */
+    @Scheduled(fixedDelayString = "${search.suggest.rebuild-interval-ms:300000}",
+            initialDelayString = "${search.suggest.rebuild-interval-ms:300000}")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        try {
+            PrefixSuggester.Builder builder = PrefixSuggester.builder();
+            addAll(builder, "song", songRepository.findAllActiveIdAndTitle(), recentTrackRepository.countPlaysPerSong());
+            addAll(builder, "artist", artistRepository.findAllActiveIdAndName(), recentTrackRepository.countPlaysPerArtist());
+            addAll(builder, "album", albumRepository.findAllActiveIdAndTitle(), recentTrackRepository.countPlaysPerAlbum());
+            addAll(builder, "genre", genreRepository.findAllActiveIdAndTitle(), recentTrackRepository.countPlaysPerGenre());
+
+            PrefixSuggester built = builder.build();
+            suggester.set(built);
+            logger.info("Search suggestions rebuilt in {} ms with {} entries",
+                    System.currentTimeMillis() - start, built.size());
+        } catch (RuntimeException e) {
+            // Keep serving the previous suggester
+            logger.error("Failed to rebuild search suggestions", e);
+        }
+    }
+
+    private void addAll(PrefixSuggester.Builder builder, String type, List<Object[]> rows, List<Object[]> playCounts) {
+        Map<UUID, Long> weights = new HashMap<>();
+        for (Object[] count : playCounts) {
+            weights.put((UUID) count[0], ((Number) count[1]).longValue());
+        }
+        for (Object[] row : rows) {
+            UUID id = (UUID) row[0];
+            builder.add(type, id, (String) row[1], weights.getOrDefault(id, 0L));
+        }
+    }
+}
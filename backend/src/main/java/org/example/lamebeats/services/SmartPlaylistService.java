@@ -0,0 +1,207 @@
+package org.example.lamebeats.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.example.lamebeats.dto.SmartPlaylistRules;
+import org.example.lamebeats.events.PlaylistSongsChangedEvent;
+import org.example.lamebeats.models.Playlist;
+import org.example.lamebeats.repositories.PlaylistRepository;
+import org.example.lamebeats.repositories.PlaylistSongRepository;
+import org.example.lamebeats.repositories.SmartPlaylistRepository;
+import org.example.lamebeats.repositories.SmartPlaylistRepository.Pending;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * Smart playlists: playlists whose songs are the ones matching their rules, materialized in
+ * playlist_songs so they read like any other playlist. The rules are evaluated in full only when
+ * they are set; afterwards triggers queue the songs whose genres, duration, deletion or plays
+ * changed, and only the smart playlists those songs can affect are re-evaluated, for those songs
+ * only. Plays falling out of a play window are caught by a periodic pass over the songs already
+ * in play-window playlists.
+ */
+@Service
+public class SmartPlaylistService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SmartPlaylistService.class);
+
+    private final PlaylistService playlistService;
+    private final PlaylistRepository playlistRepository;
+    private final PlaylistSongRepository playlistSongRepository;
+    private final SmartPlaylistRepository smartPlaylistRepository;
+    private final OptimisticEditExecutor optimisticEditExecutor;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transaction;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${playlist.smart.batch-size:500}")
+    private int batchSize;
+
+    @Autowired
+    public SmartPlaylistService(PlaylistService playlistService,
+                                PlaylistRepository playlistRepository,
+                                PlaylistSongRepository playlistSongRepository,
+                                SmartPlaylistRepository smartPlaylistRepository,
+                                OptimisticEditExecutor optimisticEditExecutor,
+                                ObjectMapper objectMapper,
+                                ApplicationEventPublisher eventPublisher,
+                                PlatformTransactionManager transactionManager) {
+        this.playlistService = playlistService;
+        this.playlistRepository = playlistRepository;
+        this.playlistSongRepository = playlistSongRepository;
+        this.smartPlaylistRepository = smartPlaylistRepository;
+        this.optimisticEditExecutor = optimisticEditExecutor;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Rules from a request body. Throws IllegalArgumentException when they are malformed or invalid
+     */
+    public SmartPlaylistRules parseRules(Object json) {
+        if (json == null) {
+            throw new IllegalArgumentException("Rules are required");
+        }
+        SmartPlaylistRules rules = objectMapper.convertValue(json, SmartPlaylistRules.class).normalized();
+        rules.validate();
+        return rules;
+    }
+
+    /**
+     * Whether the playlist is a smart playlist, whose songs cannot be edited by hand
+     */
+    public boolean isSmartPlaylist(UUID playlistId) {
+        return playlistRepository.findById(playlistId)
+                .map(playlist -> playlist.getRules() != null)
+                .orElse(false);
+    }
+
+    /**
+     * Create a smart playlist and fill it with the songs matching its rules
+     */
+    @Transactional
+    public Playlist createSmartPlaylist(String name, String description, String photo, UUID userId,
+                                        SmartPlaylistRules rules) {
+        Playlist playlist = playlistService.createPlaylist(name, description, photo, userId);
+        playlist.setRules(toJson(rules));
+        playlistRepository.saveAndFlush(playlist);
+        return materialize(playlist);
+    }
+
+    /**
+     * Replace the rules of a smart playlist and re-evaluate them in full. Empty when the playlist
+     * does not exist; throws IllegalArgumentException when it is not a smart playlist
+     */
+    public Optional<Playlist> updateRules(UUID playlistId, SmartPlaylistRules rules) {
+        String json = toJson(rules);
+        return optimisticEditExecutor.execute("rules", () -> playlistRepository.findActiveById(playlistId).map(playlist -> {
+            if (playlist.getRules() == null) {
+                throw new IllegalArgumentException("Not a smart playlist");
+            }
+            playlist.setRules(json);
+            playlistRepository.saveAndFlush(playlist);
+            return materialize(playlist);
+        }));
+    }
+
+    /**
+     * Re-evaluate the smart playlists affected by the queued song changes. A batch is claimed in one
+     * transaction and every playlist is refreshed in its own, so a refresh holds one playlist row and
+     * one owner's change-log lock at a time, in the order edits take them
+     */
+    @Scheduled(fixedDelayString = "${playlist.smart.refresh-interval-ms:2000}",
+            initialDelayString = "${playlist.smart.refresh-interval-ms:2000}")
+    public void processPending() {
+        try {
+            int claimed;
+            do {
+                List<Pending> pending = new ArrayList<>();
+                Map<UUID, List<UUID>> affected = transaction.execute(status -> {
+                    pending.addAll(smartPlaylistRepository.claimPending(batchSize));
+                    return smartPlaylistRepository.findAffected(pending);
+                });
+                affected.forEach(this::refreshPending);
+                claimed = pending.size();
+            } while (claimed == batchSize);
+        } catch (RuntimeException e) {
+            // An unclaimed batch stays queued and is retried on the next run
+            logger.error("Failed to refresh smart playlists", e);
+        }
+    }
+
+    /**
+     * Drop the songs whose last play by the owner has left the play window
+     */
+    @Scheduled(fixedDelayString = "${playlist.smart.expiry-interval-ms:3600000}",
+            initialDelayString = "${playlist.smart.expiry-interval-ms:3600000}")
+    public void expirePlayWindows() {
+        long start = System.currentTimeMillis();
+        int removed = 0;
+        List<UUID> playlistIds = smartPlaylistRepository.findPlayWindowPlaylistIds();
+        for (UUID playlistId : playlistIds) {
+            try {
+                removed += transaction.execute(status -> {
+                    SmartPlaylistRepository.Refresh refresh = smartPlaylistRepository.refresh(playlistId,
+                            playlistSongRepository.findActiveSongIdsByPlaylistId(playlistId));
+                    publish(playlistId, refresh);
+                    return refresh.removed().size();
+                });
+            } catch (RuntimeException e) {
+                logger.error("Failed to expire plays of smart playlist {}", playlistId, e);
+            }
+        }
+        logger.info("Smart playlist play windows checked in {} ms: {} playlists, {} songs removed",
+                System.currentTimeMillis() - start, playlistIds.size(), removed);
+    }
+
+    // One playlist per transaction; on failure its songs go back on the queue for the next run
+    private void refreshPending(UUID playlistId, List<UUID> songIds) {
+        try {
+            transaction.executeWithoutResult(status ->
+                    publish(playlistId, smartPlaylistRepository.refresh(playlistId, songIds)));
+        } catch (RuntimeException e) {
+            logger.error("Failed to refresh smart playlist {}, its songs are queued again", playlistId, e);
+            smartPlaylistRepository.requeue(playlistId, songIds);
+        }
+    }
+
+    // Full evaluation of the (flushed) rules; the entity is reloaded for the counts the triggers maintain
+    private Playlist materialize(Playlist playlist) {
+        publish(playlist.getId(), smartPlaylistRepository.refresh(playlist.getId(), null));
+        entityManager.refresh(playlist);
+        return playlist;
+    }
+
+    private void publish(UUID playlistId, SmartPlaylistRepository.Refresh refresh) {
+        if (!refresh.added().isEmpty()) {
+            eventPublisher.publishEvent(PlaylistSongsChangedEvent.added(playlistId, refresh.added()));
+        }
+        if (!refresh.removed().isEmpty()) {
+            eventPublisher.publishEvent(PlaylistSongsChangedEvent.removed(playlistId, refresh.removed()));
+        }
+    }
+
+    private String toJson(SmartPlaylistRules rules) {
+        try {
+            return objectMapper.writeValueAsString(rules);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid rules", e);
+        }
+    }
+}
@@ -1,18 +1,28 @@
 package org.example.lamebeats.services;
 
 import jakarta.persistence.EntityNotFoundException;
+import org.example.lamebeats.dto.SongSummaryDto;
+import org.example.lamebeats.events.CatalogChangeEvent;
+import org.example.lamebeats.events.SongArtistsChangedEvent;
 import org.example.lamebeats.models.Album;
 import org.example.lamebeats.models.Artist;
 import org.example.lamebeats.models.Song;
 import org.example.lamebeats.repositories.AlbumRepository;
 import org.example.lamebeats.repositories.ArtistRepository;
 import org.example.lamebeats.repositories.SongArtistRepository;
+import org.example.lamebeats.repositories.SongBulkRepository;
+import org.example.lamebeats.repositories.SongReadRepository;
 import org.example.lamebeats.repositories.SongRepository;
+import org.example.lamebeats.utils.CursorUtil;
+import org.example.lamebeats.utils.HttpCacheUtil;
+import org.example.lamebeats.utils.SearchQueryUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,49 +33,37 @@ import java.util.stream.Collectors;
 @Service
 public class SongService {
 
+    private static final Logger logger = LoggerFactory.getLogger(SongService.class);
+
     private final SongRepository songRepository;
     private final ArtistRepository artistRepository;
     private final AlbumRepository albumRepository;
     private final SongArtistRepository songArtistRepository;
+    private final SongReadRepository songReadRepository;
+    private final SongBulkRepository songBulkRepository;
+    private final ArtistCollaborationService artistCollaborationService;
+    private final CountService countService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public SongService(SongRepository songRepository,
                        ArtistRepository artistRepository,
                        AlbumRepository albumRepository,
-                       SongArtistRepository songArtistRepository) {
+                       SongArtistRepository songArtistRepository,
+                       SongReadRepository songReadRepository,
+                       SongBulkRepository songBulkRepository,
+                       ArtistCollaborationService artistCollaborationService,
+                       CountService countService,
+                       ApplicationEventPublisher eventPublisher) {
         this.songRepository = songRepository;
         this.artistRepository = artistRepository;
         this.albumRepository = albumRepository;
         this.songArtistRepository = songArtistRepository;
-    }
-
-    /**
-     * Helper method to ensure artists are loaded for a list of songs
-     */
-    private List<Song> ensureArtistsLoaded(List<Song> songs) {
-        if (songs == null || songs.isEmpty()) {
-            return songs;
-        }
-
-        List<UUID> ids = songs.stream()
-                .map(Song::getId)
-                .collect(Collectors.toList());
-
-        return songRepository.findByIdInWithArtists(ids);
-    }
-
-    /**
-     * Get all songs (regardless of deleted status)
-     */
-    @Transactional(readOnly = true)
-    public List<Song> getAllSongs() {
-        List<Song> songs = songRepository.findAll();
-        List<UUID> songIds = songs.stream().map(Song::getId).collect(Collectors.toList());
-
-        if (!songIds.isEmpty()) {
-            return songRepository.findByIdInWithArtists(songIds);
-        }
-        return songs;
+        this.songReadRepository = songReadRepository;
+        this.songBulkRepository = songBulkRepository;
+        this.artistCollaborationService = artistCollaborationService;
+        this.countService = countService;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -77,65 +75,49 @@ public class SongService {
     }
 
     /**
-     * Get all active songs with pagination
+     * Get all active songs with pagination, as flat projections (no entity hydration).
+     * The total comes from CountService (per album / artist filter) unless exactTotal is set
      */
     @Transactional(readOnly = true)
-    public Map<String, Object> getAllActiveSongsPaginated(int page, int limit, UUID albumId, UUID artistId) {
+    public Map<String, Object> getAllActiveSongsPaginated(int page, int limit, UUID albumId, UUID artistId, boolean exactTotal) {
         int pageIndex = Math.max(page - 1, 0); // Convert to zero-based index
-        Pageable pageable = PageRequest.of(pageIndex, limit, Sort.by("createdAt").descending());
-
-        Page<Song> songPage;
-
-        // Apply filters based on provided parameters
-        if (albumId != null && artistId != null) {
-            // Filter by both albumId and artistId
-            songPage = songRepository.findByAlbumIdAndArtistsIdAndDeletedAtIsNull(albumId, artistId, pageable);
-        } else if (albumId != null) {
-            // Filter by albumId only
-            songPage = songRepository.findByAlbumIdAndDeletedAtIsNull(albumId, pageable);
-        } else if (artistId != null) {
-            // Filter by artistId only
-            songPage = songRepository.findByArtistsIdAndDeletedAtIsNull(artistId, pageable);
-        } else {
-            // No filters
-            songPage = songRepository.findAllActive(pageable);
-        }
-
-        // Load artists for all songs in the page
-        List<Song> songsWithArtists = !songPage.isEmpty() ?
-                songRepository.findByIdInWithArtists(songPage.getContent().stream().map(Song::getId).collect(Collectors.toList())) :
-                Collections.emptyList();
+        Pageable pageable = PageRequest.of(pageIndex, limit);
 
-        // Create a map for quick lookup
-        Map<UUID, Song> songMap = songsWithArtists.stream()
-                .collect(Collectors.toMap(Song::getId, song -> song));
-
-        // Replace songs in the result with the ones that have artists loaded
-        List<Song> resultSongs = songPage.getContent().stream()
-                .map(song -> songMap.getOrDefault(song.getId(), song))
-                .collect(Collectors.toList());
+        List<SongSummaryDto> songs = songReadRepository.findActivePage(albumId, artistId, pageable);
+        String filter = albumId == null && artistId == null ? null : "album=" + albumId + ",artist=" + artistId;
+        CountService.Count total = countService.count("songs", filter, exactTotal,
+                () -> songReadRepository.countActive(albumId, artistId));
 
         Map<String, Object> response = new HashMap<>();
-        response.put("data", resultSongs);
+        response.put("data", songs);
         response.put("page", page);
         response.put("limit", limit);
-        response.put("pages", songPage.getTotalPages());
-        response.put("total", songPage.getTotalElements());
+        response.put("pages", total.pages(limit));
+        response.put("total", total.total());
+        response.put("totalEstimated", total.estimated());
 
         return response;
     }
 
+    /**
+     * Get active songs with keyset pagination, newest first, as flat projections.
+     * `after` is the cursor returned as `next` by the previous page (empty for the first page)
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getActiveSongsAfter(String after, int limit, UUID albumId, UUID artistId) {
+        CursorUtil.Cursor cursor = CursorUtil.decode(after);
+        List<SongSummaryDto> songs = songReadRepository.findActiveAfter(albumId, artistId,
+                cursor.createdAt(), cursor.id(), limit + 1);
+        return CursorUtil.toResponse(songs, limit, SongSummaryDto::createdAt, SongSummaryDto::id);
+    }
+
     /**
      * Get song by ID
      */
     @Transactional(readOnly = true)
     public Optional<Song> getSongById(UUID id) {
-        return songRepository.findById(id)
-                .map(song -> {
-                    // Use the repository method that joins artists
-                    return songRepository.findByIdInWithArtists(Collections.singletonList(song.getId()))
-                            .stream().findFirst().orElse(song);
-                });
+        return songRepository.findByIdInWithArtists(Collections.singletonList(id))
+                .stream().findFirst();
     }
 
     /**
@@ -147,27 +129,40 @@ public class SongService {
     }
 
     /**
-     * Search songs by title
+     * Version (ETag only, see HttpCacheUtil.compositeVersion) of an active song, from ids and timestamps only
      */
-    @Transactional(readOnly = true)
-    public List<Song> searchSongsByTitle(String title) {
-        return songRepository.findByTitleContainingIgnoreCase(title);
+    public Optional<HttpCacheUtil.Version> getActiveSongVersion(UUID id) {
+        return HttpCacheUtil.compositeVersion(songRepository.findActiveVersionRows(id));
     }
 
     /**
-     * Search active songs by title
+     * Search songs by title
      */
     @Transactional(readOnly = true)
-    public List<Song> searchActiveSongsByTitle(String title) {
-        return songRepository.findActiveByTitleContaining(title);
+    public List<Song> searchSongsByTitle(String title) {
+        return songRepository.findByTitleContainingIgnoreCase(title);
     }
 
     /**
-     * Search songs by title or artist name
+     * Full-text search of active songs (title, artist names, album title), best match first,
+     * as flat projections
      */
     @Transactional(readOnly = true)
-    public List<Song> searchSongsByTitleOrArtist(String searchTerm) {
-        return songRepository.searchByTitleOrArtist(searchTerm);
+    public Map<String, Object> searchSongsPaginated(String searchTerm, int page, int limit) {
+        int pageIndex = Math.max(page - 1, 0); // Convert to zero-based index
+        Pageable pageable = PageRequest.of(pageIndex, limit);
+
+        String query = SearchQueryUtil.toPrefixTsQuery(searchTerm);
+        Page<UUID> idPage = query.isEmpty() ? Page.empty(pageable) : songRepository.searchActiveIds(query, pageable);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("data", songReadRepository.findByIds(idPage.getContent()));
+        response.put("page", page);
+        response.put("limit", limit);
+        response.put("pages", idPage.getTotalPages());
+        response.put("total", idPage.getTotalElements());
+
+        return response;
     }
 
     /**
@@ -175,7 +170,7 @@ public class SongService {
      */
     @Transactional(readOnly = true)
     public List<Song> getSongsByDurationRange(int minDuration, int maxDuration) {
-        return ensureArtistsLoaded(songRepository.findByDurationBetween(minDuration, maxDuration));
+        return songRepository.findByDurationBetween(minDuration, maxDuration);
     }
 
     /**
@@ -282,11 +277,11 @@ public class SongService {
     }
 
     /**
-     * Get artist collaborations
+     * Get artist collaborations as [artistId, otherArtistId, weight] rows, from the in-memory
+     * collaboration graph (shared songs and albums)
      */
     public List<Object[]> getArtistCollaborations(int limit) {
-        Pageable pageable = PageRequest.of(0, limit);
-        return songArtistRepository.findArtistCollaborations(pageable);
+        return artistCollaborationService.getStrongestCollaborations(limit);
     }
 
     /**
@@ -309,6 +304,9 @@ public class SongService {
         song.setArtists(new HashSet<>());
 
         Song savedSong = songRepository.save(song);
+        publishSongChange(savedSong);
+        countService.adjust("songs", null, 1);
+        countService.invalidateFiltered("songs");
 
         // Add artists if provided
         if (artistIds != null && !artistIds.isEmpty()) {
@@ -349,6 +347,8 @@ public class SongService {
             }
 
             Song savedSong = songRepository.save(song);
+            publishSongChange(savedSong);
+            countService.invalidateFiltered("songs");
 
             // Reload to ensure artists are loaded
             return songRepository.findActiveById(savedSong.getId()).orElse(savedSong);
@@ -372,6 +372,8 @@ public class SongService {
             }
 
             Song savedSong = songRepository.save(song);
+            publishArtistsChange(savedSong);
+            countService.invalidateFiltered("songs");
 
             // Reload to ensure artists are loaded
             return songRepository.findActiveById(savedSong.getId());
@@ -400,6 +402,8 @@ public class SongService {
             }
 
             Song savedSong = songRepository.save(song);
+            publishArtistsChange(savedSong);
+            countService.invalidateFiltered("songs");
 
             // Reload to ensure artists are loaded
             return songRepository.findActiveById(savedSong.getId());
@@ -440,6 +444,8 @@ public class SongService {
             }
 
             Song savedSong = songRepository.save(song);
+            publishArtistsChange(savedSong);
+            countService.invalidateFiltered("songs");
 
             // Reload to ensure artists are loaded
             return songRepository.findActiveById(savedSong.getId());
@@ -456,6 +462,9 @@ public class SongService {
         return songRepository.findActiveById(songId).map(song -> {
             song.setDeletedAt(LocalDateTime.now());
             songRepository.save(song);
+            eventPublisher.publishEvent(CatalogChangeEvent.removed(CatalogChangeEvent.Type.SONG, songId));
+            countService.adjust("songs", null, -1);
+            countService.invalidateFiltered("songs");
             return true;
         }).orElse(false);
     }
@@ -470,6 +479,9 @@ public class SongService {
                 .map(song -> {
                     song.setDeletedAt(null);
                     songRepository.save(song);
+                    publishSongChange(song);
+                    countService.adjust("songs", null, 1);
+                    countService.invalidateFiltered("songs");
                     return true;
                 }).orElse(false);
     }
@@ -481,6 +493,8 @@ public class SongService {
     public boolean hardDeleteSong(UUID songId) {
         if (songRepository.existsById(songId)) {
             songRepository.deleteById(songId);
+            eventPublisher.publishEvent(CatalogChangeEvent.removed(CatalogChangeEvent.Type.SONG, songId));
+            countService.invalidate("songs");
             return true;
         }
         return false;
@@ -508,25 +522,14 @@ public class SongService {
     @Transactional(readOnly = true)
     public Map<String, Object> getSongsByGenreIdPaginated(UUID genreId, int page, int limit) {
         int pageIndex = Math.max(page - 1, 0); // Convert to zero-based index
-        Pageable pageable = PageRequest.of(pageIndex, limit, Sort.by("title").ascending());
+        Pageable pageable = PageRequest.of(pageIndex, limit); // ordered by title in the query
 
         Page<Song> songPage = songRepository.findSongsByGenreId(genreId, pageable);
 
-        // Load artists for all songs in the page
-        List<Song> songsWithArtists = songRepository.findByIdInWithArtists(
-                songPage.getContent().stream().map(Song::getId).collect(Collectors.toList()));
-
-        // Create a map for quick lookup
-        Map<UUID, Song> songMap = songsWithArtists.stream()
-                .collect(Collectors.toMap(Song::getId, song -> song));
-
-        // Replace songs in the result with the ones that have artists loaded
-        List<Song> resultSongs = songPage.getContent().stream()
-                .map(song -> songMap.getOrDefault(song.getId(), song))
-                .collect(Collectors.toList());
-
+        // Artists and album of the whole page are batch-loaded on first access,
+        // so the page keeps its database order without a second lookup
         Map<String, Object> response = new HashMap<>();
-        response.put("data", resultSongs);
+        response.put("data", songPage.getContent());
         response.put("page", page);
         response.put("limit", limit);
         response.put("pages", songPage.getTotalPages());
@@ -541,25 +544,14 @@ public class SongService {
     @Transactional(readOnly = true)
     public Map<String, Object> getSongsByGenreIdsPaginated(Set<UUID> genreIds, int page, int limit) {
         int pageIndex = Math.max(page - 1, 0); // Convert to zero-based index
-        Pageable pageable = PageRequest.of(pageIndex, limit, Sort.by("title").ascending());
+        Pageable pageable = PageRequest.of(pageIndex, limit); // ordered by title in the query
 
         Page<Song> songPage = songRepository.findSongsByGenreIds(genreIds, pageable);
 
-        // Load artists for all songs in the page
-        List<Song> songsWithArtists = songRepository.findByIdInWithArtists(
-                songPage.getContent().stream().map(Song::getId).collect(Collectors.toList()));
-
-        // Create a map for quick lookup
-        Map<UUID, Song> songMap = songsWithArtists.stream()
-                .collect(Collectors.toMap(Song::getId, song -> song));
-
-        // Replace songs in the result with the ones that have artists loaded
-        List<Song> resultSongs = songPage.getContent().stream()
-                .map(song -> songMap.getOrDefault(song.getId(), song))
-                .collect(Collectors.toList());
-
+        // Artists and album of the whole page are batch-loaded on first access,
+        // so the page keeps its database order without a second lookup
         Map<String, Object> response = new HashMap<>();
-        response.put("data", resultSongs);
+        response.put("data", songPage.getContent());
         response.put("page", page);
         response.put("limit", limit);
         response.put("pages", songPage.getTotalPages());
@@ -573,32 +565,72 @@ public class SongService {
     }
 
     /**
-     * Bulk creation of songs
+     * Bulk creation of songs. Albums and artists are resolved with one query each, ids are
+     * generated here (or taken from the input) and rows go out through SongBulkRepository
+     * as JDBC batches or COPY instead of one INSERT per song and link
      */
+    @Transactional
     public List<Song> createBulkSongs(List<Song> songDetails) {
-        List<Song> songs = new ArrayList<>();
-
+        long start = System.nanoTime();
+
+        Set<UUID> albumIds = songDetails.stream()
+                .map(song -> song.getAlbum().getId())
+                .collect(Collectors.toSet());
+        Set<UUID> artistIds = songDetails.stream()
+                .flatMap(song -> song.getArtists().stream())
+                .map(Artist::getId)
+                .collect(Collectors.toSet());
+
+        Map<UUID, Album> albums = albumRepository.findAllById(albumIds).stream()
+                .collect(Collectors.toMap(Album::getId, album -> album));
+        Map<UUID, Artist> artists = artistRepository.findAllById(artistIds).stream()
+                .collect(Collectors.toMap(Artist::getId, artist -> artist));
+
+        List<Song> songs = new ArrayList<>(songDetails.size());
+        List<SongBulkRepository.SongRow> rows = new ArrayList<>(songDetails.size());
         for (Song singleSong : songDetails) {
             UUID albumId = singleSong.getAlbum().getId();
-            List<UUID> artistIds = singleSong.getArtists().stream()
-                    .map(Artist::getId)
-                    .collect(Collectors.toList());
+            Album album = albums.get(albumId);
+            if (album == null) {
+                throw new EntityNotFoundException("Album not found with ID: " + albumId);
+            }
+
             Song song = new Song();
+            song.setId(singleSong.getId() != null ? singleSong.getId() : UUID.randomUUID());
             song.setTitle(singleSong.getTitle());
             song.setDuration(singleSong.getDuration());
             song.setFileUrl(singleSong.getFileUrl());
-
-            Album album = albumRepository.findById(albumId)
-                    .orElseThrow(() -> new EntityNotFoundException("Album not found with ID: " + albumId));
-            song.setAlbum(album);
-
-            List<Artist> artists = artistRepository.findAllById(artistIds);
-            song.setArtists(new HashSet<>(artists));
             song.setSpotifyId(singleSong.getSpotifyId());
+            song.setAlbum(album);
+            song.setArtists(singleSong.getArtists().stream()
+                    .map(artist -> artists.get(artist.getId()))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet()));
 
             songs.add(song);
+            rows.add(new SongBulkRepository.SongRow(song.getId(), song.getSpotifyId(), song.getTitle(), albumId,
+                    song.getDuration(), song.getFileUrl(),
+                    song.getArtists().stream().map(Artist::getId).toList()));
         }
 
-        return songRepository.saveAll(songs);
+        long written = songBulkRepository.insertAll(rows);
+        double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+        logger.info("Bulk inserted {} songs ({} rows) in {} ms, {} rows/s",
+                songs.size(), written, Math.round(seconds * 1000), Math.round(written / seconds));
+
+        songs.forEach(this::publishSongChange);
+        songs.forEach(this::publishArtistsChange);
+        countService.adjust("songs", null, songs.size());
+        countService.invalidateFiltered("songs");
+        return songs;
+    }
+
+    private void publishSongChange(Song song) {
+        eventPublisher.publishEvent(CatalogChangeEvent.upserted(CatalogChangeEvent.Type.SONG, song.getId(), song.getTitle()));
+    }
+
+    private void publishArtistsChange(Song song) {
+        Set<UUID> artistIds = song.getArtists().stream().map(Artist::getId).collect(Collectors.toSet());
+        eventPublisher.publishEvent(new SongArtistsChangedEvent(song.getId(), artistIds));
     }
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package org.example.lamebeats.services;
 import org.example.lamebeats.enums.UserType;
 import org.example.lamebeats.models.User;
 import org.example.lamebeats.repositories.UserRepository;
+import org.example.lamebeats.utils.CursorUtil;
 import org.example.lamebeats.utils.PasswordHashUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -37,6 +38,7 @@ public class UserService {
     /**
      * Return list of paginated users
      */
+    @Transactional(readOnly = true)
     public Map<String, Object> getAllActiveUsersPaginated(int page, int limit) {
         // Ensure page number is not negative (Spring Data uses zero-based page index)
         int pageIndex = Math.max(page - 1, 0);
@@ -54,6 +56,16 @@ public class UserService {
         return response;
     }
 
+    /**
+     * Return active users with keyset pagination, newest first
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getActiveUsersAfter(String after, int limit) {
+        CursorUtil.Cursor cursor = CursorUtil.decode(after);
+        List<User> users = userRepository.findActiveAfter(cursor.createdAt(), cursor.id(), CursorUtil.seekPageable(limit));
+        return CursorUtil.toResponse(users, limit, User::getCreatedAt, User::getId);
+    }
+
     /**
      * Find only active (non-deleted) users
      */
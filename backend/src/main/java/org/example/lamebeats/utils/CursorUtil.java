@@ -0,0 +1,166 @@
+package org.example.lamebeats.utils;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Opaque cursors for keyset pagination. A cursor encodes the (createdAt, id) of the last row
+ * of a page; the next page is everything strictly after it in (createdAt DESC, id DESC) order,
+ * which the repositories answer with an index seek instead of an OFFSET scan. Playlist tracks
+ * are paged the same way over (position, songId) ascending.
+ */
+public class CursorUtil {
+
+    // Largest page the list endpoints return
+    public static final int MAX_LIMIT = 100;
+
+    // Sorts after every real row, so a seek from here returns the first page
+    private static final Cursor FIRST_PAGE = new Cursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59),
+            new UUID(-1L, -1L));
+
+    private CursorUtil() {
+    }
+
+    public record Cursor(LocalDateTime createdAt, UUID id) {
+    }
+
+    // A null position means the first page
+    public record PositionCursor(BigDecimal position, UUID id) {
+    }
+
+    /**
+     * A malformed `after` token. Controllers answer it with 400 "Invalid cursor"; other
+     * IllegalArgumentExceptions are not a cursor problem
+     */
+    public static class InvalidCursorException extends IllegalArgumentException {
+        public InvalidCursorException(Throwable cause) {
+            super("Invalid cursor", cause);
+        }
+    }
+
+    /**
+     * Page size of a list request, between 1 and MAX_LIMIT
+     */
+    public static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    /**
+     * One-based page number of an offset list request, at least 1
+     */
+    public static int clampPage(int page) {
+        return Math.max(1, page);
+    }
+
+    /**
+     * Encode the position of a row as an opaque URL-safe token
+     */
+    public static String encode(LocalDateTime createdAt, UUID id) {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token from the `after` parameter. An empty token means the first page.
+     * Throws InvalidCursorException for malformed tokens
+     */
+    public static Cursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return FIRST_PAGE;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator < 0) {
+                throw new InvalidCursorException(null);
+            }
+            return new Cursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (InvalidCursorException e) {
+            throw e;
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            // Base64 and UUID failures are IllegalArgumentExceptions
+            throw new InvalidCursorException(e);
+        }
+    }
+
+    /**
+     * Encode the playlist position of a track as an opaque URL-safe token
+     */
+    public static String encodePosition(BigDecimal position, UUID id) {
+        String raw = position.toPlainString() + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a playlist position token. An empty token means the first page.
+     * Throws InvalidCursorException for malformed tokens
+     */
+    public static PositionCursor decodePosition(String token) {
+        if (token == null || token.isBlank()) {
+            return new PositionCursor(null, null);
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator < 0) {
+                throw new InvalidCursorException(null);
+            }
+            // NumberFormatException is an IllegalArgumentException as well
+            return new PositionCursor(new BigDecimal(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (InvalidCursorException e) {
+            throw e;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(e);
+        }
+    }
+
+    /**
+     * Page request for a seek query: one extra row tells whether another page exists
+     */
+    public static Pageable seekPageable(int limit) {
+        return PageRequest.of(0, limit + 1);
+    }
+
+    /**
+     * Build the response for a seek query fetched with seekPageable(limit):
+     * data, limit, hasMore and the `next` cursor (null on the last page)
+     */
+    public static <T> Map<String, Object> toResponse(List<T> rows, int limit,
+                                                     Function<T, LocalDateTime> createdAt,
+                                                     Function<T, UUID> id) {
+        return toResponse(rows, limit, row -> encode(createdAt.apply(row), id.apply(row)));
+    }
+
+    /**
+     * Build the response for a seek query fetched with limit + 1 rows, the `next` cursor
+     * being the token of the last returned row
+     */
+    public static <T> Map<String, Object> toResponse(List<T> rows, int limit, Function<T, String> cursor) {
+        // A page always holds at least one row, so there is a last row to continue from
+        limit = Math.max(limit, 1);
+        boolean hasMore = rows.size() > limit;
+        List<T> data = hasMore ? rows.subList(0, limit) : rows;
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("data", data);
+        response.put("limit", limit);
+        response.put("hasMore", hasMore);
+        if (hasMore) {
+            response.put("next", cursor.apply(data.get(data.size() - 1)));
+        } else {
+            response.put("next", null);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.lamebeats.utils;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP caching helpers for conditional GETs. A resource version is computed from a cheap
+ * repository query returning the ids and updatedAt of the rows a response is built from,
+ * so a 304 can be answered without loading and mapping the entity graph.
+ */
+public class HttpCacheUtil {
+
+    // Catalog items (songs, albums, artists): reused for a few minutes, then revalidated
+    public static final CacheControl CATALOG = CacheControl.maxAge(5, TimeUnit.MINUTES).cachePrivate();
+
+    // Playlists and list pages change often: always revalidated with the ETag
+    public static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private HttpCacheUtil() {
+    }
+
+    /**
+     * Strong ETag and Last-Modified (epoch millis, -1 for none) of a resource
+     */
+    public record Version(String etag, long lastModified) {
+    }
+
+    /**
+     * Version of a resource from its version rows (ids and timestamps, in a stable order).
+     * Empty when there are no rows, i.e. the resource does not exist
+     */
+    public static Optional<Version> version(List<Object[]> rows) {
+        return version(rows, true);
+    }
+
+    /**
+     * Version of a resource built from linked rows (a song with its album, artists and genres).
+     * ETag only: unlinking a row changes the fingerprint but leaves the newest timestamp as it
+     * was, so an If-Modified-Since check could answer 304 for a response that lost a link
+     */
+    public static Optional<Version> compositeVersion(List<Object[]> rows) {
+        return version(rows, false);
+    }
+
+    private static Optional<Version> version(List<Object[]> rows, boolean withLastModified) {
+        if (rows == null || rows.isEmpty()) {
+            return Optional.empty();
+        }
+
+        StringBuilder fingerprint = new StringBuilder();
+        LocalDateTime lastModified = null;
+        for (Object[] row : rows) {
+            fingerprint.append(Arrays.toString(row)).append('\n');
+            for (Object value : row) {
+                if (value instanceof LocalDateTime time && (lastModified == null || time.isAfter(lastModified))) {
+                    lastModified = time;
+                }
+            }
+        }
+
+        String etag = "\"" + DigestUtils.md5DigestAsHex(fingerprint.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+        long millis = lastModified == null || !withLastModified ? -1
+                : lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return Optional.of(new Version(etag, millis));
+    }
+
+    /**
+     * 200 response builder carrying the validators and cache policy of a version
+     */
+    public static ResponseEntity.BodyBuilder ok(Version version, CacheControl cacheControl) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().eTag(version.etag()).cacheControl(cacheControl);
+        if (version.lastModified() >= 0) {
+            builder.lastModified(version.lastModified());
+        }
+        return builder;
+    }
+
+    /**
+     * 304 response after WebRequest.checkNotModified matched (it has already set the validators)
+     */
+    public static <T> ResponseEntity<T> notModified(CacheControl cacheControl) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.lamebeats.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fractional positions for ordered playlists. A track is placed by picking a key strictly between
+ * its neighbours, so inserting or moving one never touches the other rows. Appends and prepends
+ * step to the next whole number; only inserts between two tracks halve the gap, adding about one
+ * decimal digit each time, and a playlist is renumbered once its keys get too precise.
+ */
+public class PlaylistPositionUtil {
+
+    private PlaylistPositionUtil() {
+    }
+
+    /**
+     * A position strictly between `before` and `after`. Either may be null for the start or end
+     * of the playlist; both null gives the position of the first track
+     */
+    public static BigDecimal between(BigDecimal before, BigDecimal after) {
+        if (before == null && after == null) {
+            return BigDecimal.ONE;
+        }
+        if (after == null) {
+            return before.setScale(0, RoundingMode.FLOOR).add(BigDecimal.ONE);
+        }
+        if (before == null) {
+            return after.setScale(0, RoundingMode.CEILING).subtract(BigDecimal.ONE);
+        }
+        if (before.compareTo(after) >= 0) {
+            throw new IllegalArgumentException("Position " + before + " is not before " + after);
+        }
+        // Halving always terminates, so the division is exact
+        BigDecimal midpoint = before.add(after).divide(BigDecimal.valueOf(2)).stripTrailingZeros();
+        return midpoint.scale() < 0 ? midpoint.setScale(0) : midpoint;
+    }
+
+    /**
+     * Whether a position has enough fractional digits that the playlist should be renumbered
+     */
+    public static boolean needsRebalance(BigDecimal position, int maxScale) {
+        return position.stripTrailingZeros().scale() > maxScale;
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.lamebeats.utils;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate StatementInspector that counts the SQL statements issued on the current thread.
+ * Registered for every session by QueryBudgetConfig; reset at the start of each request
+ * by QueryBudgetInterceptor, and usable from tests to assert the statements of a call.
+ */
+public class QueryCounter implements StatementInspector {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    /**
+     * Start counting from zero on the current thread
+     */
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    /**
+     * Statements issued on the current thread since the last reset
+     */
+    public static long count() {
+        return COUNT.get()[0];
+    }
+}
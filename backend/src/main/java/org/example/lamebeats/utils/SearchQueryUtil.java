@@ -0,0 +1,60 @@
+package org.example.lamebeats.utils;
+
+import java.util.Locale;
+import java.util.StringJoiner;
+
+public class SearchQueryUtil {
+
+    private static final int MAX_TERMS = 8;
+
+    private SearchQueryUtil() {
+    }
+
+    /**
+     * Convert free user input into a prefix-matching tsquery, e.g. "daft pun" -> "daft:* & pun:*".
+     * Everything except letters and digits is treated as a separator, so the result is always
+     * safe to pass to to_tsquery(). Returns an empty string when nothing searchable is left.
+     */
+    public static String toPrefixTsQuery(String input) {
+        if (input == null) {
+            return "";
+        }
+
+        StringJoiner query = new StringJoiner(" & ");
+        int terms = 0;
+        for (String term : normalize(input).split(" ")) {
+            if (term.isEmpty()) {
+                continue;
+            }
+            query.add(term + ":*");
+            if (++terms == MAX_TERMS) {
+                break;
+            }
+        }
+        return query.toString();
+    }
+
+    /**
+     * Lower-case the input and replace every non letter/digit character with a single space
+     */
+    public static String normalize(String input) {
+        if (input == null) {
+            return "";
+        }
+
+        StringBuilder sb = new StringBuilder(input.length());
+        boolean lastWasSpace = true;
+        for (int i = 0; i < input.length(); ) {
+            int cp = input.codePointAt(i);
+            i += Character.charCount(cp);
+            if (Character.isLetterOrDigit(cp)) {
+                sb.appendCodePoint(cp);
+                lastWasSpace = false;
+            } else if (!lastWasSpace) {
+                sb.append(' ');
+                lastWasSpace = true;
+            }
+        }
+        return sb.toString().trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.lamebeats.utils;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.Set;
+
+public class SortUtil {
+
+    private SortUtil() {
+    }
+
+    /**
+     * Parse a `sort` request parameter such as "name" or "-createdAt" (descending) against the
+     * properties an endpoint allows. The id is appended as a tie-breaker so pages are stable.
+     * Returns the default when no sort is given, throws IllegalArgumentException for unknown properties
+     */
+    public static Sort parse(String sort, Set<String> allowed, Sort defaultSort) {
+        if (sort == null || sort.isBlank()) {
+            return withIdTieBreaker(defaultSort);
+        }
+
+        String value = sort.trim();
+        Sort.Direction direction = Sort.Direction.ASC;
+        if (value.startsWith("-")) {
+            direction = Sort.Direction.DESC;
+            value = value.substring(1);
+        } else if (value.startsWith("+")) {
+            value = value.substring(1);
+        }
+
+        if (!allowed.contains(value)) {
+            throw new IllegalArgumentException("Unsupported sort '" + sort + "', allowed: " + String.join(", ", allowed));
+        }
+        return withIdTieBreaker(Sort.by(direction, value));
+    }
+
+    private static Sort withIdTieBreaker(Sort sort) {
+        Sort.Order first = sort.iterator().next();
+        return sort.and(Sort.by(first.getDirection(), "id"));
+    }
+}
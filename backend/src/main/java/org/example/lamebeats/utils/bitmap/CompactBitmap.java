@@ -0,0 +1,506 @@
+package org.example.lamebeats.utils.bitmap;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of ints in the style of Roaring bitmaps. Values are split by their high 16 bits
+ * into chunks; a chunk holding up to 4096 values is a sorted char array, a denser one a 65536-bit
+ * bitmap, so both sparse and dense sets stay small and set algebra works chunk by chunk.
+ * The cardinality is kept up to date, so counting is O(1). Not thread-safe: an instance that is
+ * modified while others read it needs a lock around both.
+ */
+public final class CompactBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+
+    private char[] keys;
+    private Container[] containers;
+    private int size;
+    private int cardinality;
+
+    public CompactBitmap() {
+        this(4);
+    }
+
+    private CompactBitmap(int capacity) {
+        keys = new char[Math.max(capacity, 1)];
+        containers = new Container[Math.max(capacity, 1)];
+    }
+
+    public static CompactBitmap of(int... values) {
+        CompactBitmap bitmap = new CompactBitmap();
+        for (int value : values) {
+            bitmap.add(value);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Add a value, returns whether it was missing
+     */
+    public boolean add(int value) {
+        char high = (char) (value >>> 16);
+        int index = indexOf(high);
+        if (index < 0) {
+            index = -index - 1;
+            insertChunk(index, high, new ArrayContainer());
+        }
+        Container container = containers[index];
+        int before = container.cardinality();
+        containers[index] = container.add((char) value);
+        int added = containers[index].cardinality() - before;
+        cardinality += added;
+        return added > 0;
+    }
+
+    /**
+     * Remove a value, returns whether it was present
+     */
+    public boolean remove(int value) {
+        int index = indexOf((char) (value >>> 16));
+        if (index < 0) {
+            return false;
+        }
+        Container container = containers[index];
+        int before = container.cardinality();
+        containers[index] = container.remove((char) value);
+        int removed = before - containers[index].cardinality();
+        cardinality -= removed;
+        if (containers[index].cardinality() == 0) {
+            removeChunk(index);
+        }
+        return removed > 0;
+    }
+
+    public boolean contains(int value) {
+        int index = indexOf((char) (value >>> 16));
+        return index >= 0 && containers[index].contains((char) value);
+    }
+
+    public int cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    public CompactBitmap copy() {
+        CompactBitmap copy = new CompactBitmap(size);
+        for (int i = 0; i < size; i++) {
+            copy.appendChunk(keys[i], containers[i].copy());
+        }
+        return copy;
+    }
+
+    /**
+     * Values present in both bitmaps
+     */
+    public CompactBitmap and(CompactBitmap other) {
+        CompactBitmap result = new CompactBitmap(Math.min(size, other.size));
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                result.appendChunk(keys[i], containers[i].and(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Values present in either bitmap
+     */
+    public CompactBitmap or(CompactBitmap other) {
+        CompactBitmap result = new CompactBitmap(size + other.size);
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j >= other.size || (i < size && keys[i] < other.keys[j])) {
+                result.appendChunk(keys[i], containers[i].copy());
+                i++;
+            } else if (i >= size || keys[i] > other.keys[j]) {
+                result.appendChunk(other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.appendChunk(keys[i], containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Values present in this bitmap but not in the other
+     */
+    public CompactBitmap andNot(CompactBitmap other) {
+        CompactBitmap result = new CompactBitmap(size);
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            boolean shared = j < other.size && other.keys[j] == keys[i];
+            result.appendChunk(keys[i], shared ? containers[i].andNot(other.containers[j]) : containers[i].copy());
+        }
+        return result;
+    }
+
+    /**
+     * Visit the values in ascending (unsigned) order
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    public int[] toArray() {
+        int[] values = new int[cardinality];
+        int[] next = {0};
+        forEach(value -> values[next[0]++] = value);
+        return values;
+    }
+
+    /**
+     * Approximate heap footprint of the values, for logging
+     */
+    public long sizeInBytes() {
+        long bytes = keys.length * 2L + containers.length * 8L;
+        for (int i = 0; i < size; i++) {
+            bytes += containers[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    private int indexOf(char high) {
+        return Arrays.binarySearch(keys, 0, size, high);
+    }
+
+    private void insertChunk(int index, char high, Container container) {
+        ensureCapacity(size + 1);
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = high;
+        containers[index] = container;
+        size++;
+    }
+
+    private void removeChunk(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        containers[--size] = null;
+    }
+
+    // Chunks are appended in ascending key order by the set operations; empty ones are dropped
+    private void appendChunk(char high, Container container) {
+        if (container.cardinality() == 0) {
+            return;
+        }
+        ensureCapacity(size + 1);
+        keys[size] = high;
+        containers[size] = container;
+        size++;
+        cardinality += container.cardinality();
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > keys.length) {
+            int grown = Math.max(capacity, keys.length * 2);
+            keys = Arrays.copyOf(keys, grown);
+            containers = Arrays.copyOf(containers, grown);
+        }
+    }
+
+    // add/remove may change the container in place and return it, or return a replacement;
+    // and/or/andNot/copy never modify their operands
+    private interface Container {
+        int cardinality();
+
+        boolean contains(char low);
+
+        Container add(char low);
+
+        Container remove(char low);
+
+        Container and(Container other);
+
+        Container or(Container other);
+
+        Container andNot(Container other);
+
+        Container copy();
+
+        void forEach(int high, IntConsumer action);
+
+        long sizeInBytes();
+    }
+
+    private static final class ArrayContainer implements Container {
+        private char[] values;
+        private int cardinality;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+        }
+
+        @Override
+        public Container add(char low) {
+            int index = Arrays.binarySearch(values, 0, cardinality, low);
+            if (index >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_MAX) {
+                return toBitmap().add(low);
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(values.length * 2, ARRAY_MAX));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = low;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        public Container remove(char low) {
+            int index = Arrays.binarySearch(values, 0, cardinality, low);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        public Container and(Container other) {
+            char[] result = new char[Math.min(cardinality, other.cardinality())];
+            int count = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (other.contains(values[i])) {
+                    result[count++] = values[i];
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        public Container or(Container other) {
+            if (other instanceof BitmapContainer bitmap) {
+                return bitmap.or(this);
+            }
+            ArrayContainer array = (ArrayContainer) other;
+            char[] merged = new char[cardinality + array.cardinality];
+            int i = 0;
+            int j = 0;
+            int count = 0;
+            while (i < cardinality || j < array.cardinality) {
+                if (j >= array.cardinality || (i < cardinality && values[i] < array.values[j])) {
+                    merged[count++] = values[i++];
+                } else if (i >= cardinality || values[i] > array.values[j]) {
+                    merged[count++] = array.values[j++];
+                } else {
+                    merged[count++] = values[i++];
+                    j++;
+                }
+            }
+            ArrayContainer result = new ArrayContainer(merged, count);
+            return count > ARRAY_MAX ? result.toBitmap() : result;
+        }
+
+        @Override
+        public Container andNot(Container other) {
+            char[] result = new char[cardinality];
+            int count = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (!other.contains(values[i])) {
+                    result[count++] = values[i];
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        public Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(cardinality, 1)), cardinality);
+        }
+
+        @Override
+        public void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < cardinality; i++) {
+                action.accept(high | values[i]);
+            }
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return values.length * 2L + 16;
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer(new long[1024], 0);
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer implements Container {
+        private final long[] words;
+        private int cardinality;
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public boolean contains(char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        public Container add(char low) {
+            long before = words[low >>> 6];
+            words[low >>> 6] = before | (1L << low);
+            if (before != words[low >>> 6]) {
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        public Container remove(char low) {
+            long before = words[low >>> 6];
+            words[low >>> 6] = before & ~(1L << low);
+            if (before != words[low >>> 6]) {
+                cardinality--;
+            }
+            return cardinality <= ARRAY_MAX ? toArrayContainer() : this;
+        }
+
+        @Override
+        public Container and(Container other) {
+            if (other instanceof ArrayContainer array) {
+                return array.and(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            long[] result = new long[1024];
+            int count = 0;
+            for (int i = 0; i < result.length; i++) {
+                result[i] = words[i] & otherWords[i];
+                count += Long.bitCount(result[i]);
+            }
+            return normalize(result, count);
+        }
+
+        @Override
+        public Container or(Container other) {
+            long[] result = words.clone();
+            int count = cardinality;
+            if (other instanceof ArrayContainer array) {
+                for (int i = 0; i < array.cardinality; i++) {
+                    char low = array.values[i];
+                    if ((result[low >>> 6] & (1L << low)) == 0) {
+                        result[low >>> 6] |= 1L << low;
+                        count++;
+                    }
+                }
+                return new BitmapContainer(result, count);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            count = 0;
+            for (int i = 0; i < result.length; i++) {
+                result[i] |= otherWords[i];
+                count += Long.bitCount(result[i]);
+            }
+            return new BitmapContainer(result, count);
+        }
+
+        @Override
+        public Container andNot(Container other) {
+            long[] result = words.clone();
+            int count = cardinality;
+            if (other instanceof ArrayContainer array) {
+                for (int i = 0; i < array.cardinality; i++) {
+                    char low = array.values[i];
+                    if ((result[low >>> 6] & (1L << low)) != 0) {
+                        result[low >>> 6] &= ~(1L << low);
+                        count--;
+                    }
+                }
+                return normalize(result, count);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            count = 0;
+            for (int i = 0; i < result.length; i++) {
+                result[i] &= ~otherWords[i];
+                count += Long.bitCount(result[i]);
+            }
+            return normalize(result, count);
+        }
+
+        @Override
+        public Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        @Override
+        public void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    action.accept(high | (i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return words.length * 8L + 16;
+        }
+
+        private static Container normalize(long[] words, int cardinality) {
+            BitmapContainer bitmap = new BitmapContainer(words, cardinality);
+            return cardinality <= ARRAY_MAX ? bitmap.toArrayContainer() : bitmap;
+        }
+
+        private ArrayContainer toArrayContainer() {
+            char[] values = new char[Math.max(cardinality, 1)];
+            int[] count = {0};
+            forEach(0, value -> values[count[0]++] = (char) value);
+            return new ArrayContainer(values, cardinality);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package org.example.lamebeats.utils.graph;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Immutable weighted, undirected artist graph in compressed sparse row form: the neighbours of
+ * artist i are neighbors[offsets[i] .. offsets[i + 1]), heaviest collaboration first, with the
+ * edge weights alongside in weights[]. Artists are addressed by UUID at the API and by int index
+ * inside, so traversals touch only primitive arrays. Build it with {@link Builder}, then share it
+ * freely between threads.
+ */
+public final class CollaborationGraph {
+
+    private final UUID[] artists;
+    private final Map<UUID, Integer> indexes;
+    private final int[] offsets;
+    private final int[] neighbors;
+    private final int[] weights;
+
+    public record Collaborator(UUID artistId, int weight) {
+    }
+
+    public record Reach(UUID artistId, int hops) {
+    }
+
+    public record Edge(UUID artistId, UUID otherArtistId, int weight) {
+    }
+
+    private CollaborationGraph(UUID[] artists, Map<UUID, Integer> indexes, int[] offsets, int[] neighbors, int[] weights) {
+        this.artists = artists;
+        this.indexes = indexes;
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        this.weights = weights;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Direct collaborators of an artist, heaviest first
+     */
+    public List<Collaborator> topCollaborators(UUID artistId, int limit, Predicate<UUID> include) {
+        Integer node = indexes.get(artistId);
+        if (node == null || limit <= 0) {
+            return List.of();
+        }
+
+        List<Collaborator> result = new ArrayList<>(Math.min(limit, offsets[node + 1] - offsets[node]));
+        for (int e = offsets[node]; e < offsets[node + 1] && result.size() < limit; e++) {
+            UUID other = artists[neighbors[e]];
+            if (include.test(other)) {
+                result.add(new Collaborator(other, weights[e]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Artists reachable within maxHops collaborations, nearest first and heaviest first within a hop.
+     * Excluded artists are neither returned nor traversed
+     */
+    public List<Reach> neighborhood(UUID artistId, int maxHops, int limit, Predicate<UUID> include) {
+        Integer start = indexes.get(artistId);
+        if (start == null) {
+            return List.of();
+        }
+
+        BitSet visited = new BitSet(artists.length);
+        visited.set(start);
+        int[] frontier = {start};
+        List<Reach> result = new ArrayList<>();
+        for (int hop = 1; hop <= maxHops && frontier.length > 0 && result.size() < limit; hop++) {
+            int[] next = new int[16];
+            int size = 0;
+            for (int node : frontier) {
+                for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                    int other = neighbors[e];
+                    if (visited.get(other)) {
+                        continue;
+                    }
+                    visited.set(other);
+                    if (!include.test(artists[other])) {
+                        continue;
+                    }
+                    if (result.size() < limit) {
+                        result.add(new Reach(artists[other], hop));
+                    }
+                    if (size == next.length) {
+                        next = Arrays.copyOf(next, size * 2);
+                    }
+                    next[size++] = other;
+                }
+            }
+            frontier = Arrays.copyOf(next, size);
+        }
+        return result;
+    }
+
+    /**
+     * Shortest chain of collaborations from one artist to another, both ends included.
+     * Empty when they are not connected within maxHops
+     */
+    public List<UUID> shortestPath(UUID fromArtistId, UUID toArtistId, int maxHops, Predicate<UUID> include) {
+        Integer from = indexes.get(fromArtistId);
+        Integer to = indexes.get(toArtistId);
+        if (from == null || to == null) {
+            return List.of();
+        }
+        if (from.equals(to)) {
+            return List.of(fromArtistId);
+        }
+
+        Map<Integer, Integer> parents = new HashMap<>();
+        parents.put(from, from);
+        int[] frontier = {from};
+        for (int hop = 1; hop <= maxHops && frontier.length > 0; hop++) {
+            int[] next = new int[16];
+            int size = 0;
+            for (int node : frontier) {
+                for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                    int other = neighbors[e];
+                    if (parents.containsKey(other) || !include.test(artists[other])) {
+                        continue;
+                    }
+                    parents.put(other, node);
+                    if (other == to) {
+                        return path(parents, from, to);
+                    }
+                    if (size == next.length) {
+                        next = Arrays.copyOf(next, size * 2);
+                    }
+                    next[size++] = other;
+                }
+            }
+            frontier = Arrays.copyOf(next, size);
+        }
+        return List.of();
+    }
+
+    /**
+     * The heaviest collaborations in the whole graph
+     */
+    public List<Edge> strongestEdges(int limit, Predicate<UUID> include) {
+        if (limit <= 0) {
+            return List.of();
+        }
+
+        PriorityQueue<int[]> heap = new PriorityQueue<>(Comparator.comparingInt(edge -> edge[2]));
+        for (int node = 0; node < artists.length; node++) {
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                int other = neighbors[e];
+                // Each edge is stored in both rows; rows are sorted by weight, so stop at the first light one
+                if (heap.size() == limit && weights[e] <= heap.peek()[2]) {
+                    break;
+                }
+                if (node < other && include.test(artists[node]) && include.test(artists[other])) {
+                    heap.add(new int[]{node, other, weights[e]});
+                    if (heap.size() > limit) {
+                        heap.poll();
+                    }
+                }
+            }
+        }
+
+        List<Edge> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            int[] edge = heap.poll();
+            result.add(new Edge(artists[edge[0]], artists[edge[1]], edge[2]));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    public int artistCount() {
+        return artists.length;
+    }
+
+    public int edgeCount() {
+        return neighbors.length / 2;
+    }
+
+    private List<UUID> path(Map<Integer, Integer> parents, int from, int to) {
+        LinkedList<UUID> path = new LinkedList<>();
+        for (int node = to; node != from; node = parents.get(node)) {
+            path.addFirst(artists[node]);
+        }
+        path.addFirst(artists[from]);
+        return path;
+    }
+
+    public static final class Builder {
+        private final Map<UUID, Integer> indexes = new HashMap<>();
+        private final List<UUID> artists = new ArrayList<>();
+        private final Map<Long, Integer> edges = new HashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Add weight to the collaboration between two artists (summed over repeated calls)
+         */
+        public Builder addEdge(UUID artistId, UUID otherArtistId, int weight) {
+            int a = index(artistId);
+            int b = index(otherArtistId);
+            if (a != b && weight > 0) {
+                long key = a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+                edges.merge(key, weight, Integer::sum);
+            }
+            return this;
+        }
+
+        public CollaborationGraph build() {
+            int n = artists.size();
+            int[] offsets = new int[n + 1];
+            for (long key : edges.keySet()) {
+                offsets[(int) (key >>> 32) + 1]++;
+                offsets[(int) key + 1]++;
+            }
+            for (int i = 0; i < n; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+
+            // Row entries packed as (inverted weight, neighbour) so an ascending sort puts the heaviest first
+            long[] packed = new long[offsets[n]];
+            int[] fill = Arrays.copyOf(offsets, n);
+            for (Map.Entry<Long, Integer> edge : edges.entrySet()) {
+                int a = (int) (edge.getKey() >>> 32);
+                int b = (int) (long) edge.getKey();
+                long inverted = (long) (Integer.MAX_VALUE - edge.getValue()) << 32;
+                packed[fill[a]++] = inverted | b;
+                packed[fill[b]++] = inverted | a;
+            }
+
+            int[] neighbors = new int[packed.length];
+            int[] weights = new int[packed.length];
+            for (int i = 0; i < n; i++) {
+                Arrays.sort(packed, offsets[i], offsets[i + 1]);
+                for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                    neighbors[e] = (int) packed[e];
+                    weights[e] = Integer.MAX_VALUE - (int) (packed[e] >>> 32);
+                }
+            }
+            return new CollaborationGraph(artists.toArray(new UUID[0]), Map.copyOf(indexes), offsets, neighbors, weights);
+        }
+
+        private int index(UUID artistId) {
+            return indexes.computeIfAbsent(artistId, id -> {
+                artists.add(id);
+                return artists.size() - 1;
+            });
+        }
+    }
+}
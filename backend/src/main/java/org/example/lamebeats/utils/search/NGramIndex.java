@@ -0,0 +1,351 @@
+package org.example.lamebeats.utils.search;
+
+import org.example.lamebeats.utils.SearchQueryUtil;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index of character trigrams over short texts (titles, names).
+ * Documents get dense int IDs so postings are plain int arrays sorted by doc ID,
+ * and queries are scored with BM25 over the trigrams they share with a document.
+ * Safe for concurrent use: queries share a read lock, updates take the write lock.
+ */
+public class NGramIndex {
+
+    private static final int GRAM_SIZE = 3;
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int[] NO_GRAMS = new int[0];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Trigram dictionary: gram -> gram ID, postings indexed by gram ID
+    private final Map<String, Integer> gramIds = new HashMap<>();
+    private final List<Postings> postings = new ArrayList<>();
+
+    // Document table indexed by doc ID
+    private final Map<UUID, Integer> docIds = new HashMap<>();
+    private UUID[] docKeys = new UUID[64];
+    private String[] docTexts = new String[64];
+    private int[][] docGrams = new int[64][];
+    private int[] docLengths = new int[64];
+    private int[] freeDocIds = new int[16];
+    private int freeCount;
+    private int nextDocId;
+    private long totalLength;
+
+    public record Hit(UUID id, String text, float score) {
+    }
+
+    /**
+     * Add a document or replace its text if it is already indexed
+     */
+    public void put(UUID id, String text) {
+        Map<String, Integer> grams = grams(text);
+
+        lock.writeLock().lock();
+        try {
+            Integer existing = docIds.get(id);
+            int doc;
+            if (existing != null) {
+                doc = existing;
+                unlink(doc);
+            } else {
+                doc = allocateDocId();
+                docIds.put(id, doc);
+                docKeys[doc] = id;
+            }
+
+            int[] gramList = new int[grams.size()];
+            int length = 0;
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : grams.entrySet()) {
+                int gram = gramIds.computeIfAbsent(entry.getKey(), g -> {
+                    postings.add(new Postings());
+                    return postings.size() - 1;
+                });
+                postings.get(gram).add(doc, entry.getValue());
+                gramList[i++] = gram;
+                length += entry.getValue();
+            }
+
+            docTexts[doc] = text;
+            docGrams[doc] = gramList;
+            docLengths[doc] = length;
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a document, returns false if it was not indexed
+     */
+    public boolean remove(UUID id) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = docIds.remove(id);
+            if (doc == null) {
+                return false;
+            }
+            unlink(doc);
+            docKeys[doc] = null;
+            docTexts[doc] = null;
+            docGrams[doc] = null;
+            if (freeCount == freeDocIds.length) {
+                freeDocIds = Arrays.copyOf(freeDocIds, freeCount * 2);
+            }
+            freeDocIds[freeCount++] = doc;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Top documents for a free-text query, best BM25 score first
+     */
+    public List<Hit> search(String query, int limit) {
+        Map<String, Integer> queryGrams = grams(query);
+        if (queryGrams.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int docCount = docIds.size();
+            if (docCount == 0) {
+                return List.of();
+            }
+            float avgLength = (float) totalLength / docCount;
+
+            // Postings of the query grams; their total length bounds the docs that can score
+            Postings[] lists = new Postings[queryGrams.size()];
+            int[] queryFreqs = new int[queryGrams.size()];
+            int listCount = 0;
+            int bound = 0;
+            for (Map.Entry<String, Integer> entry : queryGrams.entrySet()) {
+                Integer gram = gramIds.get(entry.getKey());
+                if (gram == null || postings.get(gram).size == 0) {
+                    continue;
+                }
+                lists[listCount] = postings.get(gram);
+                queryFreqs[listCount++] = entry.getValue();
+                bound += postings.get(gram).size;
+            }
+            if (listCount == 0) {
+                return List.of();
+            }
+
+            // Scores are accumulated only for the docs in those postings, so a query costs its
+            // postings, not the size of the catalog
+            ScoreTable scores = new ScoreTable(bound);
+            for (int l = 0; l < listCount; l++) {
+                Postings list = lists[l];
+                float idf = (float) Math.log(1 + (docCount - list.size + 0.5) / (list.size + 0.5));
+                float weight = idf * queryFreqs[l];
+                for (int p = 0; p < list.size; p++) {
+                    int doc = list.docs[p];
+                    int tf = list.freqs[p];
+                    float norm = K1 * (1 - B + B * docLengths[doc] / avgLength);
+                    scores.add(doc, weight * tf * (K1 + 1) / (tf + norm));
+                }
+            }
+
+            // Min-heap of the best `limit` slots, ties broken by doc ID for stable results
+            PriorityQueue<Integer> top = new PriorityQueue<>(Math.min(limit, scores.size) + 1,
+                    (a, b) -> scores.values[a] != scores.values[b]
+                            ? Float.compare(scores.values[a], scores.values[b])
+                            : Integer.compare(scores.keys[b], scores.keys[a]));
+            for (int t = 0; t < scores.size; t++) {
+                top.offer(scores.slots[t]);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+
+            Hit[] hits = new Hit[top.size()];
+            for (int h = hits.length - 1; h >= 0; h--) {
+                int slot = top.poll();
+                int doc = scores.keys[slot] - 1;
+                hits[h] = new Hit(docKeys[doc], docTexts[doc], scores.values[slot]);
+            }
+            return Arrays.asList(hits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of indexed documents
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Internal document ids handed out so far, ids freed by remove() and not yet reused included
+     */
+    int allocatedDocIds() {
+        lock.readLock().lock();
+        try {
+            return nextDocId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rough heap footprint of the index in bytes (arrays, dictionary and document table)
+     */
+    public long estimatedSizeBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (Postings list : postings) {
+                bytes += 32 + 2L * (16 + 4L * list.docs.length);
+            }
+            // Dictionary entries: key string (3 chars), boxed value and map node
+            bytes += gramIds.size() * 96L;
+            // Document map entries and per-doc arrays
+            bytes += docIds.size() * 96L;
+            bytes += 4L * (docKeys.length + docTexts.length + docGrams.length) + 4L * docLengths.length;
+            for (int doc = 0; doc < nextDocId; doc++) {
+                if (docGrams[doc] != null) {
+                    bytes += 16 + 4L * docGrams[doc].length;
+                }
+                if (docTexts[doc] != null) {
+                    bytes += 40 + docTexts[doc].length();
+                }
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Trigram frequencies of a text. Each normalized word is padded with a space on both
+     * sides, so word boundaries and short words (e.g. "u2") still produce grams
+     */
+    static Map<String, Integer> grams(String text) {
+        Map<String, Integer> grams = new HashMap<>();
+        String normalized = SearchQueryUtil.normalize(text);
+        if (normalized.isEmpty()) {
+            return grams;
+        }
+
+        for (String word : normalized.split(" ")) {
+            String padded = " " + word + " ";
+            for (int i = 0; i + GRAM_SIZE <= padded.length(); i++) {
+                grams.merge(padded.substring(i, i + GRAM_SIZE), 1, Integer::sum);
+            }
+        }
+        return grams;
+    }
+
+    private void unlink(int doc) {
+        int[] grams = docGrams[doc] != null ? docGrams[doc] : NO_GRAMS;
+        for (int gram : grams) {
+            postings.get(gram).remove(doc);
+        }
+        totalLength -= docLengths[doc];
+        docLengths[doc] = 0;
+        docGrams[doc] = NO_GRAMS;
+    }
+
+    private int allocateDocId() {
+        if (freeCount > 0) {
+            return freeDocIds[--freeCount];
+        }
+        if (nextDocId == docKeys.length) {
+            int capacity = docKeys.length * 2;
+            docKeys = Arrays.copyOf(docKeys, capacity);
+            docTexts = Arrays.copyOf(docTexts, capacity);
+            docGrams = Arrays.copyOf(docGrams, capacity);
+            docLengths = Arrays.copyOf(docLengths, capacity);
+        }
+        return nextDocId++;
+    }
+
+    /**
+     * Open-addressing map of doc ID to score for one query, sized for `expected` docs at a load
+     * factor of at most 1/2. Keys are stored as doc + 1 so 0 marks a free slot, and the used
+     * slots are listed in insertion order for the top-k pass
+     */
+    private static final class ScoreTable {
+        private final int[] keys;
+        private final float[] values;
+        private final int[] slots;
+        private final int mask;
+        private int size;
+
+        ScoreTable(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(4, expected) * 2 - 1) << 1;
+            keys = new int[capacity];
+            values = new float[capacity];
+            slots = new int[expected];
+            mask = capacity - 1;
+        }
+
+        void add(int doc, float score) {
+            int h = doc * 0x9E3779B9;
+            int slot = (h ^ (h >>> 16)) & mask;
+            while (keys[slot] != 0 && keys[slot] != doc + 1) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == 0) {
+                keys[slot] = doc + 1;
+                slots[size++] = slot;
+            }
+            values[slot] += score;
+        }
+    }
+
+    /**
+     * Postings list of one gram: doc IDs in ascending order with their term frequencies
+     */
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int[] freqs = new int[4];
+        private int size;
+
+        void add(int doc, int freq) {
+            // Appends are the common case while the index is being built
+            int pos = size > 0 && docs[size - 1] < doc ? size : Arrays.binarySearch(docs, 0, size, doc);
+            if (pos >= 0 && pos < size) {
+                freqs[pos] = freq;
+                return;
+            }
+            if (pos < 0) {
+                pos = -pos - 1;
+            }
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            System.arraycopy(docs, pos, docs, pos + 1, size - pos);
+            System.arraycopy(freqs, pos, freqs, pos + 1, size - pos);
+            docs[pos] = doc;
+            freqs[pos] = freq;
+            size++;
+        }
+
+        void remove(int doc) {
+            int pos = Arrays.binarySearch(docs, 0, size, doc);
+            if (pos < 0) {
+                return;
+            }
+            System.arraycopy(docs, pos + 1, docs, pos, size - pos - 1);
+            System.arraycopy(freqs, pos + 1, freqs, pos, size - pos - 1);
+            size--;
+        }
+    }
+}
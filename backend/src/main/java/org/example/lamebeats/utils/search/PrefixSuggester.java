@@ -0,0 +1,184 @@
+package org.example.lamebeats.utils.search;
+
+import org.example.lamebeats.utils.SearchQueryUtil;
+
+import java.util.*;
+
+/**
+ * Immutable prefix completion structure. Every entry is indexed under each of its word starts
+ * ("lose yourself" matches "lo" and "you"), the keys are kept in one sorted array so a prefix maps
+ * to a contiguous key range, and a max segment tree over the entry weights yields the top-k of
+ * any range in O(k log n) without scanning it. Build it with {@link Builder}, then share it freely
+ * between threads.
+ */
+public final class PrefixSuggester {
+
+    private static final int MAX_WORD_STARTS = 4;
+
+    private final String[] keys;
+    private final int[] keyEntries;
+    private final Suggestion[] entries;
+    private final long[] keyWeights;
+    private final int[] tree;
+    private final int leaves;
+
+    public record Suggestion(String type, UUID id, String text, long weight) {
+    }
+
+    private PrefixSuggester(String[] keys, int[] keyEntries, Suggestion[] entries) {
+        this.keys = keys;
+        this.keyEntries = keyEntries;
+        this.entries = entries;
+        this.keyWeights = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            keyWeights[i] = entries[keyEntries[i]].weight();
+        }
+
+        int size = 1;
+        while (size < Math.max(keys.length, 1)) {
+            size <<= 1;
+        }
+        this.leaves = size;
+        this.tree = new int[2 * size];
+        Arrays.fill(tree, -1);
+        for (int i = 0; i < keys.length; i++) {
+            tree[size + i] = i;
+        }
+        for (int node = size - 1; node > 0; node--) {
+            tree[node] = better(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Up to `limit` distinct entries with a word starting with the given prefix, heaviest first
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String normalized = SearchQueryUtil.normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0 || keys.length == 0) {
+            return List.of();
+        }
+
+        int from = lowerBound(normalized);
+        int to = lowerBound(normalized + Character.MAX_VALUE);
+        if (from >= to) {
+            return List.of();
+        }
+
+        // Best-first walk: each queue item is a key range together with its heaviest key
+        PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> compareKeys(b[2], a[2]));
+        ranges.add(new int[]{from, to, argMax(from, to)});
+
+        List<Suggestion> result = new ArrayList<>(limit);
+        Set<Integer> seen = new HashSet<>();
+        while (!ranges.isEmpty() && result.size() < limit) {
+            int[] range = ranges.poll();
+            int best = range[2];
+            if (seen.add(keyEntries[best])) {
+                result.add(entries[keyEntries[best]]);
+            }
+            if (range[0] < best) {
+                ranges.add(new int[]{range[0], best, argMax(range[0], best)});
+            }
+            if (best + 1 < range[1]) {
+                ranges.add(new int[]{best + 1, range[1], argMax(best + 1, range[1])});
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Number of distinct entries
+     */
+    public int size() {
+        return entries.length;
+    }
+
+    private int argMax(int from, int to) {
+        int best = -1;
+        for (int l = from + leaves, r = to + leaves; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) == 1) {
+                best = better(best, tree[l++]);
+            }
+            if ((r & 1) == 1) {
+                best = better(best, tree[--r]);
+            }
+        }
+        return best;
+    }
+
+    private int better(int a, int b) {
+        if (a < 0) {
+            return b;
+        }
+        if (b < 0) {
+            return a;
+        }
+        return compareKeys(a, b) >= 0 ? a : b;
+    }
+
+    // Heavier first, then alphabetical (lower key index)
+    private int compareKeys(int a, int b) {
+        if (keyWeights[a] != keyWeights[b]) {
+            return Long.compare(keyWeights[a], keyWeights[b]);
+        }
+        return Integer.compare(b, a);
+    }
+
+    private int lowerBound(String key) {
+        int lo = 0;
+        int hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    public static final class Builder {
+        private final List<Suggestion> entries = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        public Builder add(String type, UUID id, String text, long weight) {
+            if (text != null && !SearchQueryUtil.normalize(text).isEmpty()) {
+                entries.add(new Suggestion(type, id, text, weight));
+            }
+            return this;
+        }
+
+        public PrefixSuggester build() {
+            List<String> keyList = new ArrayList<>();
+            List<Integer> entryList = new ArrayList<>();
+            for (int e = 0; e < entries.size(); e++) {
+                String[] words = SearchQueryUtil.normalize(entries.get(e).text()).split(" ");
+                for (int w = 0; w < Math.min(words.length, MAX_WORD_STARTS); w++) {
+                    keyList.add(String.join(" ", Arrays.asList(words).subList(w, words.length)));
+                    entryList.add(e);
+                }
+            }
+
+            Integer[] order = new Integer[keyList.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparing(keyList::get));
+
+            String[] keys = new String[order.length];
+            int[] keyEntries = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                keys[i] = keyList.get(order[i]);
+                keyEntries[i] = entryList.get(order[i]);
+            }
+            return new PrefixSuggester(keys, keyEntries, entries.toArray(new Suggestion[0]));
+        }
+    }
+}
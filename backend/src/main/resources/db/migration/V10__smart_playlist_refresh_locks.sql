@@ -0,0 +1,56 @@
+-- Smart playlist refreshes without a write when nothing changed. V8 moved the edit version of
+-- every playlist a queued song could affect, so each play rewrote the playlists row of its
+-- owner's play-window playlists even when no song came or went. The playlist row is now locked
+-- (not updated) while the rule is evaluated, which still serializes a refresh with a rules update
+-- and with other refreshes, and the version only moves when songs were added or removed.
+-- SmartPlaylistService refreshes one playlist per transaction, so a refresh never holds one
+-- playlist while waiting for another, or for the owner's change-log lock held by an edit.
+CREATE OR REPLACE FUNCTION refresh_smart_playlist(p_playlist_id uuid, p_song_ids uuid[])
+RETURNS TABLE (song_id uuid, added boolean) AS $$
+#variable_conflict use_column
+DECLARE
+    matching uuid[];
+    changed boolean;
+BEGIN
+    PERFORM 1 FROM playlists
+    WHERE id = p_playlist_id AND rules IS NOT NULL AND deleted_at IS NULL
+    FOR NO KEY UPDATE;
+    IF NOT FOUND THEN
+        RETURN;
+    END IF;
+
+    matching := ARRAY(SELECT m.song_id FROM smart_playlist_matches(p_playlist_id, p_song_ids) m);
+
+    RETURN QUERY
+    WITH removed AS (
+        DELETE FROM playlist_songs ps
+        WHERE ps.playlist_id = p_playlist_id
+          AND (p_song_ids IS NULL OR ps.song_id = ANY (p_song_ids))
+          AND NOT EXISTS (SELECT 1 FROM unnest(matching) AS m(song_id) WHERE m.song_id = ps.song_id)
+        RETURNING ps.song_id
+    )
+    SELECT r.song_id, false FROM removed r;
+    changed := FOUND;
+
+    RETURN QUERY
+    WITH appended AS (
+        INSERT INTO playlist_songs AS ps (playlist_id, song_id, position, created_at, updated_at)
+        SELECT p_playlist_id, m.song_id, tail.position + row_number() OVER (ORDER BY m.song_id), now(), now()
+        FROM unnest(matching) AS m(song_id)
+        CROSS JOIN (SELECT coalesce(floor(max(position)), 0) AS position FROM playlist_songs
+                    WHERE playlist_id = p_playlist_id AND deleted_at IS NULL) tail
+        WHERE NOT EXISTS (SELECT 1 FROM playlist_songs cur
+                          WHERE cur.playlist_id = p_playlist_id AND cur.song_id = m.song_id AND cur.deleted_at IS NULL)
+        ON CONFLICT (playlist_id, song_id) DO UPDATE
+            SET position = EXCLUDED.position, deleted_at = NULL, updated_at = now()
+        RETURNING ps.song_id
+    )
+    SELECT a.song_id, true FROM appended a;
+    changed := changed OR FOUND;
+
+    -- A renumber read before the refresh retries against the new songs
+    IF changed THEN
+        UPDATE playlists SET version = version + 1 WHERE id = p_playlist_id;
+    END IF;
+END
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,66 @@
+-- song_genres refreshes that cannot collide. Two transactions refreshing the same song both
+-- deleted its rows and then inserted them again; the second insert hit the primary key once the
+-- first committed, and rows of a genre the other transaction had just removed could survive.
+-- The songs are now locked (in id order, so two refreshes cannot deadlock) before their rows are
+-- rewritten, which makes concurrent refreshes of a song run one after the other.
+CREATE OR REPLACE FUNCTION refresh_song_genres(p_song_ids uuid[]) RETURNS void AS $$
+BEGIN
+    PERFORM 1 FROM songs WHERE id = ANY (p_song_ids) ORDER BY id FOR NO KEY UPDATE;
+
+    DELETE FROM song_genres WHERE song_id = ANY (p_song_ids);
+    INSERT INTO song_genres (genre_id, song_id, song_title)
+    SELECT DISTINCT ag.genre_id, s.id, s.title
+    FROM songs s
+    JOIN song_artists sa ON sa.song_id = s.id
+    JOIN artist_genres ag ON ag.artist_id = sa.artist_id
+    WHERE s.id = ANY (p_song_ids) AND s.deleted_at IS NULL;
+END
+$$ LANGUAGE plpgsql;
+
+-- artist_genres maintenance per statement instead of per row: setting the genres of an artist
+-- refreshes the songs of that artist once, instead of once per genre added or removed.
+-- Replaces the row-level trigger of V2__search_and_projections.sql, like V9 did for song_artists.
+CREATE OR REPLACE FUNCTION artist_genres_changed_trigger() RETURNS trigger AS $$
+DECLARE
+    artist_ids uuid[];
+    song_ids uuid[];
+BEGIN
+    artist_ids := ARRAY(SELECT DISTINCT c.artist_id FROM changed_rows c);
+    IF TG_OP = 'UPDATE' THEN
+        artist_ids := ARRAY(SELECT unnest(artist_ids) UNION SELECT o.artist_id FROM old_rows o);
+    END IF;
+    song_ids := ARRAY(SELECT DISTINCT sa.song_id FROM song_artists sa WHERE sa.artist_id = ANY (artist_ids));
+    IF cardinality(song_ids) = 0 THEN
+        RETURN NULL;
+    END IF;
+
+    PERFORM refresh_song_genres(song_ids);
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS artist_genres_song_genres_update ON artist_genres;
+
+DROP FUNCTION IF EXISTS artist_genres_song_genres_trigger();
+
+-- A trigger with transition tables handles a single event
+DROP TRIGGER IF EXISTS artist_genres_changed_insert ON artist_genres;
+
+CREATE TRIGGER artist_genres_changed_insert
+    AFTER INSERT ON artist_genres
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION artist_genres_changed_trigger();
+
+DROP TRIGGER IF EXISTS artist_genres_changed_update ON artist_genres;
+
+CREATE TRIGGER artist_genres_changed_update
+    AFTER UPDATE ON artist_genres
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION artist_genres_changed_trigger();
+
+DROP TRIGGER IF EXISTS artist_genres_changed_delete ON artist_genres;
+
+CREATE TRIGGER artist_genres_changed_delete
+    AFTER DELETE ON artist_genres
+    REFERENCING OLD TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION artist_genres_changed_trigger();
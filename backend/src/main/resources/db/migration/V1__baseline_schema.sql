@@ -0,0 +1,122 @@
+-- Baseline: the tables as Hibernate (ddl-auto=update) created them before migrations took over.
+-- IF NOT EXISTS so databases created that way can be migrated (baseline-on-migrate at version 0).
+
+CREATE TABLE IF NOT EXISTS users (
+    id         uuid         NOT NULL PRIMARY KEY,
+    username   varchar(50)  NOT NULL UNIQUE,
+    email      varchar(100) NOT NULL UNIQUE,
+    password   varchar(255) NOT NULL,
+    photo      varchar(255),
+    type       varchar(255) CHECK (type IN ('ADMIN', 'USER')),
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    deleted_at timestamp(6)
+);
+
+CREATE TABLE IF NOT EXISTS genres (
+    id         uuid NOT NULL PRIMARY KEY,
+    title      varchar(255) UNIQUE,
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    deleted_at timestamp(6)
+);
+
+CREATE TABLE IF NOT EXISTS artists (
+    id         uuid         NOT NULL PRIMARY KEY,
+    spotify_id varchar(255) UNIQUE,
+    name       varchar(100) NOT NULL,
+    photo      varchar(255),
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    deleted_at timestamp(6)
+);
+
+CREATE TABLE IF NOT EXISTS albums (
+    id           uuid         NOT NULL PRIMARY KEY,
+    spotify_id   varchar(255) UNIQUE,
+    title        varchar(255) NOT NULL,
+    release_date date,
+    photo        varchar(255),
+    created_at   timestamp(6),
+    updated_at   timestamp(6),
+    deleted_at   timestamp(6)
+);
+
+CREATE TABLE IF NOT EXISTS songs (
+    id         uuid         NOT NULL PRIMARY KEY,
+    spotify_id varchar(255) UNIQUE,
+    title      varchar(255) NOT NULL,
+    album_id   uuid REFERENCES albums (id),
+    duration   integer      NOT NULL,
+    file_url   varchar(255) NOT NULL,
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    deleted_at timestamp(6)
+);
+
+CREATE TABLE IF NOT EXISTS album_artist (
+    album_id   uuid NOT NULL REFERENCES albums (id),
+    artist_id  uuid NOT NULL REFERENCES artists (id),
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    PRIMARY KEY (album_id, artist_id)
+);
+
+CREATE TABLE IF NOT EXISTS artist_genres (
+    artist_id uuid NOT NULL REFERENCES artists (id),
+    genre_id  uuid NOT NULL REFERENCES genres (id),
+    PRIMARY KEY (artist_id, genre_id)
+);
+
+CREATE TABLE IF NOT EXISTS song_artists (
+    song_id    uuid NOT NULL REFERENCES songs (id),
+    artist_id  uuid NOT NULL REFERENCES artists (id),
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    PRIMARY KEY (song_id, artist_id)
+);
+
+CREATE TABLE IF NOT EXISTS playlists (
+    id          uuid         NOT NULL PRIMARY KEY,
+    user_id     uuid         NOT NULL REFERENCES users (id),
+    name        varchar(255) NOT NULL,
+    description varchar(255),
+    photo       varchar(255),
+    created_at  timestamp(6),
+    updated_at  timestamp(6),
+    deleted_at  timestamp(6)
+);
+
+CREATE TABLE IF NOT EXISTS playlist_songs (
+    playlist_id uuid NOT NULL REFERENCES playlists (id),
+    song_id     uuid NOT NULL REFERENCES songs (id),
+    created_at  timestamp(6),
+    updated_at  timestamp(6),
+    deleted_at  timestamp(6),
+    PRIMARY KEY (playlist_id, song_id)
+);
+
+CREATE TABLE IF NOT EXISTS lyrics (
+    id         uuid NOT NULL PRIMARY KEY,
+    song_id    uuid NOT NULL REFERENCES songs (id),
+    content    jsonb,
+    language   varchar(255) CHECK (language IN ('EN', 'RU', 'UZ', 'CH', 'ES', 'UNKNOWN')),
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    deleted_at timestamp(6)
+);
+
+CREATE TABLE IF NOT EXISTS recent_tracks (
+    id         uuid NOT NULL PRIMARY KEY,
+    user_id    uuid NOT NULL REFERENCES users (id),
+    song_id    uuid NOT NULL REFERENCES songs (id),
+    created_at timestamp(6),
+    updated_at timestamp(6)
+);
+
+CREATE TABLE IF NOT EXISTS song_genres (
+    genre_id   uuid         NOT NULL,
+    song_id    uuid         NOT NULL,
+    song_title varchar(255) NOT NULL,
+    PRIMARY KEY (genre_id, song_id)
+);
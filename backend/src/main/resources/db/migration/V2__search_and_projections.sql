@@ -0,0 +1,247 @@
+-- Postgres-specific search structures that JPA mappings cannot express: tsvector columns and
+-- their triggers, trigram indexes, keyset and sort indexes, and the song_genres projection.
+-- Formerly schema.sql, written idempotently so it also applies to databases that ran it.
+
+-- Full-text search: albums, artists and playlists only depend on their own row,
+-- so their search vectors are generated columns.
+ALTER TABLE albums ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (to_tsvector('simple', coalesce(title, ''))) STORED;
+
+ALTER TABLE artists ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (to_tsvector('simple', coalesce(name, ''))) STORED;
+
+ALTER TABLE playlists ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', coalesce(name, '')), 'A') ||
+        setweight(to_tsvector('simple', coalesce(description, '')), 'C')
+    ) STORED;
+
+-- Songs are searched by title, artist names and album title, which live in other tables,
+-- so the vector is a plain column maintained by triggers.
+ALTER TABLE songs ADD COLUMN IF NOT EXISTS search_vector tsvector;
+
+CREATE OR REPLACE FUNCTION song_search_vector(p_song_id uuid, p_title text, p_album_id uuid)
+RETURNS tsvector AS $$
+    SELECT setweight(to_tsvector('simple', coalesce(p_title, '')), 'A') ||
+           setweight(to_tsvector('simple', coalesce((
+               SELECT string_agg(a.name, ' ')
+               FROM song_artists sa
+               JOIN artists a ON a.id = sa.artist_id
+               WHERE sa.song_id = p_song_id), '')), 'B') ||
+           setweight(to_tsvector('simple', coalesce((
+               SELECT al.title FROM albums al WHERE al.id = p_album_id), '')), 'C')
+$$ LANGUAGE sql STABLE;
+
+CREATE OR REPLACE FUNCTION songs_search_vector_trigger() RETURNS trigger AS $$
+BEGIN
+    NEW.search_vector := song_search_vector(NEW.id, NEW.title, NEW.album_id);
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS songs_search_vector_update ON songs;
+
+CREATE TRIGGER songs_search_vector_update
+    BEFORE INSERT OR UPDATE OF title, album_id ON songs
+    FOR EACH ROW EXECUTE FUNCTION songs_search_vector_trigger();
+
+CREATE OR REPLACE FUNCTION song_artists_search_vector_trigger() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        UPDATE songs s SET search_vector = song_search_vector(s.id, s.title, s.album_id)
+        WHERE s.id = NEW.song_id;
+    END IF;
+    IF TG_OP IN ('DELETE', 'UPDATE') THEN
+        UPDATE songs s SET search_vector = song_search_vector(s.id, s.title, s.album_id)
+        WHERE s.id = OLD.song_id;
+    END IF;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS song_artists_search_vector_update ON song_artists;
+
+CREATE TRIGGER song_artists_search_vector_update
+    AFTER INSERT OR UPDATE OR DELETE ON song_artists
+    FOR EACH ROW EXECUTE FUNCTION song_artists_search_vector_trigger();
+
+CREATE OR REPLACE FUNCTION artists_search_vector_trigger() RETURNS trigger AS $$
+BEGIN
+    UPDATE songs s SET search_vector = song_search_vector(s.id, s.title, s.album_id)
+    WHERE s.id IN (SELECT sa.song_id FROM song_artists sa WHERE sa.artist_id = NEW.id);
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS artists_search_vector_update ON artists;
+
+CREATE TRIGGER artists_search_vector_update
+    AFTER UPDATE OF name ON artists
+    FOR EACH ROW WHEN (OLD.name IS DISTINCT FROM NEW.name)
+    EXECUTE FUNCTION artists_search_vector_trigger();
+
+CREATE OR REPLACE FUNCTION albums_search_vector_trigger() RETURNS trigger AS $$
+BEGIN
+    UPDATE songs s SET search_vector = song_search_vector(s.id, s.title, s.album_id)
+    WHERE s.album_id = NEW.id;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS albums_search_vector_update ON albums;
+
+CREATE TRIGGER albums_search_vector_update
+    AFTER UPDATE OF title ON albums
+    FOR EACH ROW WHEN (OLD.title IS DISTINCT FROM NEW.title)
+    EXECUTE FUNCTION albums_search_vector_trigger();
+
+-- Backfill rows written before the trigger existed
+UPDATE songs s SET search_vector = song_search_vector(s.id, s.title, s.album_id)
+WHERE s.search_vector IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_songs_search_vector ON songs USING GIN (search_vector);
+
+CREATE INDEX IF NOT EXISTS idx_albums_search_vector ON albums USING GIN (search_vector);
+
+CREATE INDEX IF NOT EXISTS idx_artists_search_vector ON artists USING GIN (search_vector);
+
+CREATE INDEX IF NOT EXISTS idx_playlists_search_vector ON playlists USING GIN (search_vector);
+
+-- Typo-tolerant search: trigram indexes on the lower-cased names used by the fuzzy queries
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_songs_title_trgm ON songs USING GIN (lower(title) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_artists_name_trgm ON artists USING GIN (lower(name) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_albums_title_trgm ON albums USING GIN (lower(title) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_users_username_trgm ON users USING GIN (lower(username) gin_trgm_ops);
+
+-- Keyset pagination: (created_at, id) seeks for the newest-first list endpoints
+CREATE INDEX IF NOT EXISTS idx_songs_active_created_at_id ON songs (created_at DESC, id DESC)
+    WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_songs_album_created_at_id ON songs (album_id, created_at DESC, id DESC)
+    WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_playlists_active_created_at_id ON playlists (created_at DESC, id DESC)
+    WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_playlists_user_created_at_id ON playlists (user_id, created_at DESC, id DESC)
+    WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_users_active_created_at_id ON users (created_at DESC, id DESC)
+    WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_recent_tracks_created_at_id ON recent_tracks (created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_recent_tracks_user_created_at_id ON recent_tracks (user_id, created_at DESC, id DESC);
+
+-- Sorted list endpoints (albums, artists, genres, lyrics): one index per sortable property,
+-- with id as tie-breaker, so a page is read in index order instead of sorting the table
+CREATE INDEX IF NOT EXISTS idx_albums_active_release_date_id ON albums (release_date, id)
+    WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_albums_active_title_id ON albums (title, id)
+    WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_albums_active_created_at_id ON albums (created_at, id)
+    WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_artists_active_name_id ON artists (name, id)
+    WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_artists_active_created_at_id ON artists (created_at, id)
+    WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_genres_active_title_id ON genres (title, id)
+    WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_genres_active_created_at_id ON genres (created_at, id)
+    WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_lyrics_active_created_at_id ON lyrics (created_at, id)
+    WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_lyrics_active_language_id ON lyrics (language, id)
+    WHERE deleted_at IS NULL;
+
+-- Genre browsing: song_genres (the SongGenre entity) holds one row per
+-- (genre, active song) where a song's genres are those of its artists. Rows of a song are
+-- recomputed whenever its title, deleted_at or artists change, or the genres of one of its artists
+CREATE OR REPLACE FUNCTION refresh_song_genres(p_song_ids uuid[]) RETURNS void AS $$
+    DELETE FROM song_genres WHERE song_id = ANY(p_song_ids);
+    INSERT INTO song_genres (genre_id, song_id, song_title)
+    SELECT DISTINCT ag.genre_id, s.id, s.title
+    FROM songs s
+    JOIN song_artists sa ON sa.song_id = s.id
+    JOIN artist_genres ag ON ag.artist_id = sa.artist_id
+    WHERE s.id = ANY(p_song_ids) AND s.deleted_at IS NULL
+$$ LANGUAGE sql;
+
+CREATE OR REPLACE FUNCTION songs_song_genres_trigger() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        DELETE FROM song_genres WHERE song_id = OLD.id;
+    ELSE
+        PERFORM refresh_song_genres(ARRAY[NEW.id]);
+    END IF;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS songs_song_genres_update ON songs;
+
+CREATE TRIGGER songs_song_genres_update
+    AFTER UPDATE OF title, deleted_at OR DELETE ON songs
+    FOR EACH ROW EXECUTE FUNCTION songs_song_genres_trigger();
+
+CREATE OR REPLACE FUNCTION song_artists_song_genres_trigger() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        PERFORM refresh_song_genres(ARRAY[NEW.song_id]);
+    END IF;
+    IF TG_OP = 'DELETE' OR (TG_OP = 'UPDATE' AND OLD.song_id IS DISTINCT FROM NEW.song_id) THEN
+        PERFORM refresh_song_genres(ARRAY[OLD.song_id]);
+    END IF;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS song_artists_song_genres_update ON song_artists;
+
+CREATE TRIGGER song_artists_song_genres_update
+    AFTER INSERT OR UPDATE OR DELETE ON song_artists
+    FOR EACH ROW EXECUTE FUNCTION song_artists_song_genres_trigger();
+
+CREATE OR REPLACE FUNCTION artist_genres_song_genres_trigger() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        PERFORM refresh_song_genres(ARRAY(SELECT sa.song_id FROM song_artists sa WHERE sa.artist_id = NEW.artist_id));
+    END IF;
+    IF TG_OP = 'DELETE' OR (TG_OP = 'UPDATE' AND OLD.artist_id IS DISTINCT FROM NEW.artist_id) THEN
+        PERFORM refresh_song_genres(ARRAY(SELECT sa.song_id FROM song_artists sa WHERE sa.artist_id = OLD.artist_id));
+    END IF;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS artist_genres_song_genres_update ON artist_genres;
+
+CREATE TRIGGER artist_genres_song_genres_update
+    AFTER INSERT OR UPDATE OR DELETE ON artist_genres
+    FOR EACH ROW EXECUTE FUNCTION artist_genres_song_genres_trigger();
+
+-- Backfill once, when the projection is first created
+INSERT INTO song_genres (genre_id, song_id, song_title)
+SELECT DISTINCT ag.genre_id, s.id, s.title
+FROM songs s
+JOIN song_artists sa ON sa.song_id = s.id
+JOIN artist_genres ag ON ag.artist_id = sa.artist_id
+WHERE s.deleted_at IS NULL AND NOT EXISTS (SELECT 1 FROM song_genres);
+
+-- Covering index for genre pages: range scan in title order, song ids read from the index
+CREATE INDEX IF NOT EXISTS idx_song_genres_genre_title_song ON song_genres (genre_id, song_title, song_id);
+
+CREATE INDEX IF NOT EXISTS idx_song_genres_song ON song_genres (song_id);
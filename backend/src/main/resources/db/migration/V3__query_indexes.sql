@@ -0,0 +1,40 @@
+-- Indexes for the repository queries. Hibernate only created primary keys and unique constraints.
+-- Lookups filtered on deleted_at IS NULL get partial indexes covering only live rows; foreign keys
+-- get plain indexes so joins from the non-leading side and parent deletes do not scan the table.
+-- recent_tracks (user_id, created_at) is served by the keyset index
+-- idx_recent_tracks_user_created_at_id from V2, so it is not repeated here.
+
+-- Join tables: the primary key leads with the first column, index the other side
+CREATE INDEX IF NOT EXISTS idx_song_artists_artist ON song_artists (artist_id);
+
+CREATE INDEX IF NOT EXISTS idx_album_artist_artist ON album_artist (artist_id);
+
+CREATE INDEX IF NOT EXISTS idx_artist_genres_genre ON artist_genres (genre_id);
+
+CREATE INDEX IF NOT EXISTS idx_playlist_songs_song ON playlist_songs (song_id);
+
+CREATE INDEX IF NOT EXISTS idx_playlist_songs_active_playlist ON playlist_songs (playlist_id)
+    WHERE deleted_at IS NULL;
+
+-- Foreign keys of the entity tables
+CREATE INDEX IF NOT EXISTS idx_songs_album ON songs (album_id);
+
+CREATE INDEX IF NOT EXISTS idx_lyrics_song ON lyrics (song_id);
+
+CREATE INDEX IF NOT EXISTS idx_recent_tracks_song ON recent_tracks (song_id);
+
+-- Live-row lookups
+CREATE INDEX IF NOT EXISTS idx_songs_active_title_id ON songs (title, id)
+    WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_lyrics_active_song_language ON lyrics (song_id, language)
+    WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_users_active_lower_username ON users (lower(username))
+    WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_users_active_lower_email ON users (lower(email))
+    WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_users_active_type ON users (type)
+    WHERE deleted_at IS NULL;
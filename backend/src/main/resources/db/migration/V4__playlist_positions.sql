@@ -0,0 +1,23 @@
+-- Ordered playlists. Every playlist_songs row carries a fractional position: appends take the next
+-- whole number, inserts and moves take the midpoint of their neighbours, so reordering writes a
+-- single row. PlaylistService renumbers a playlist to 1..n once its midpoints get too precise.
+
+ALTER TABLE playlist_songs ADD COLUMN IF NOT EXISTS position numeric;
+
+-- Existing rows keep the order they were added in
+UPDATE playlist_songs ps
+SET position = ordered.rn
+FROM (
+    SELECT playlist_id, song_id,
+           row_number() OVER (PARTITION BY playlist_id ORDER BY created_at, song_id) AS rn
+    FROM playlist_songs
+) ordered
+WHERE ps.playlist_id = ordered.playlist_id
+  AND ps.song_id = ordered.song_id
+  AND ps.position IS NULL;
+
+ALTER TABLE playlist_songs ALTER COLUMN position SET NOT NULL;
+
+-- Ordered reads and neighbour lookups are index range scans within a playlist
+CREATE INDEX IF NOT EXISTS idx_playlist_songs_playlist_position ON playlist_songs (playlist_id, position, song_id)
+    WHERE deleted_at IS NULL;
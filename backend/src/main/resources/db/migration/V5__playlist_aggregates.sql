@@ -0,0 +1,94 @@
+-- Track count and total duration of every playlist, kept on the playlists row so the playlist header
+-- never has to read its tracks. Triggers maintain them for every write path (JPA and direct SQL)
+-- and bump updated_at, which the playlist ETag is derived from.
+
+ALTER TABLE playlists ADD COLUMN IF NOT EXISTS track_count integer NOT NULL DEFAULT 0;
+ALTER TABLE playlists ADD COLUMN IF NOT EXISTS total_duration bigint NOT NULL DEFAULT 0;
+
+-- Inserts and deletes are applied once per statement from the transition table, so a bulk add
+-- touches each playlist row once
+CREATE OR REPLACE FUNCTION playlist_songs_aggregate_statement_trigger() RETURNS trigger AS $$
+DECLARE
+    direction integer := CASE WHEN TG_OP = 'INSERT' THEN 1 ELSE -1 END;
+BEGIN
+    UPDATE playlists p
+    SET track_count = p.track_count + direction * changed.tracks,
+        total_duration = p.total_duration + direction * changed.duration,
+        updated_at = now()
+    FROM (
+        SELECT c.playlist_id, count(*) AS tracks, coalesce(sum(s.duration), 0) AS duration
+        FROM changed_rows c
+        JOIN songs s ON s.id = c.song_id
+        WHERE c.deleted_at IS NULL
+        GROUP BY c.playlist_id
+    ) changed
+    WHERE p.id = changed.playlist_id;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS playlist_songs_aggregate_insert ON playlist_songs;
+
+CREATE TRIGGER playlist_songs_aggregate_insert
+    AFTER INSERT ON playlist_songs
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION playlist_songs_aggregate_statement_trigger();
+
+DROP TRIGGER IF EXISTS playlist_songs_aggregate_delete ON playlist_songs;
+
+CREATE TRIGGER playlist_songs_aggregate_delete
+    AFTER DELETE ON playlist_songs
+    REFERENCING OLD TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION playlist_songs_aggregate_statement_trigger();
+
+-- Soft delete and restore of a playlist song; position updates do not fire it
+CREATE OR REPLACE FUNCTION playlist_songs_aggregate_soft_delete_trigger() RETURNS trigger AS $$
+DECLARE
+    direction integer := CASE WHEN NEW.deleted_at IS NULL THEN 1 ELSE -1 END;
+BEGIN
+    UPDATE playlists p
+    SET track_count = p.track_count + direction,
+        total_duration = p.total_duration + direction * coalesce((SELECT s.duration FROM songs s WHERE s.id = NEW.song_id), 0),
+        updated_at = now()
+    WHERE p.id = NEW.playlist_id;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS playlist_songs_aggregate_soft_delete ON playlist_songs;
+
+CREATE TRIGGER playlist_songs_aggregate_soft_delete
+    AFTER UPDATE OF deleted_at ON playlist_songs
+    FOR EACH ROW WHEN ((OLD.deleted_at IS NULL) <> (NEW.deleted_at IS NULL))
+    EXECUTE FUNCTION playlist_songs_aggregate_soft_delete_trigger();
+
+-- A song's duration changes in every playlist containing it
+CREATE OR REPLACE FUNCTION songs_playlist_duration_trigger() RETURNS trigger AS $$
+BEGIN
+    UPDATE playlists p
+    SET total_duration = p.total_duration + (NEW.duration - OLD.duration),
+        updated_at = now()
+    WHERE p.id IN (SELECT ps.playlist_id FROM playlist_songs ps WHERE ps.song_id = NEW.id AND ps.deleted_at IS NULL);
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS songs_playlist_duration_update ON songs;
+
+CREATE TRIGGER songs_playlist_duration_update
+    AFTER UPDATE OF duration ON songs
+    FOR EACH ROW WHEN (OLD.duration IS DISTINCT FROM NEW.duration)
+    EXECUTE FUNCTION songs_playlist_duration_trigger();
+
+-- Backfill playlists written before the triggers existed
+UPDATE playlists p
+SET track_count = totals.tracks,
+    total_duration = totals.duration
+FROM (
+    SELECT ps.playlist_id, count(*) AS tracks, coalesce(sum(s.duration), 0) AS duration
+    FROM playlist_songs ps
+    JOIN songs s ON s.id = ps.song_id
+    WHERE ps.deleted_at IS NULL
+    GROUP BY ps.playlist_id
+) totals
+WHERE p.id = totals.playlist_id;
@@ -0,0 +1,107 @@
+-- Change log for delta sync of a user's playlists. Every write to playlists and playlist_songs
+-- appends rows stamped with a version from one sequence, so GET /api/sync?since=<version> is an
+-- index range read over (user_id, version).
+--
+-- A transaction can take its version early and commit late, which would let a client skip it.
+-- To prevent that, every writer takes a per-user advisory lock before it records a change, and
+-- holds it until commit. Sync readers take the same lock in shared mode. Within one user,
+-- versions therefore become visible in order.
+
+CREATE SEQUENCE IF NOT EXISTS playlist_change_seq;
+
+CREATE TABLE IF NOT EXISTS playlist_changes (
+    version     bigint       NOT NULL PRIMARY KEY,
+    user_id     uuid         NOT NULL,
+    playlist_id uuid         NOT NULL,
+    song_id     uuid,
+    kind        varchar(16)  NOT NULL CHECK (kind IN ('PLAYLIST_UPSERT', 'PLAYLIST_DELETE', 'TRACK_UPSERT', 'TRACK_DELETE')),
+    changed_at  timestamp(6) NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_playlist_changes_user_version ON playlist_changes (user_id, version);
+
+-- Compaction looks for newer changes of the same playlist or track
+CREATE INDEX IF NOT EXISTS idx_playlist_changes_item_version ON playlist_changes (playlist_id, song_id, version);
+
+-- Versions up to compacted_through may have been dropped: clients behind it do a full resync.
+-- Nothing before this migration was logged, so the log starts after the current sequence value.
+CREATE TABLE IF NOT EXISTS playlist_change_watermark (
+    id                integer NOT NULL PRIMARY KEY CHECK (id = 1),
+    compacted_through bigint  NOT NULL
+);
+
+INSERT INTO playlist_change_watermark (id, compacted_through)
+VALUES (1, nextval('playlist_change_seq'))
+ON CONFLICT (id) DO NOTHING;
+
+CREATE OR REPLACE FUNCTION lock_playlist_changes(p_user_id uuid) RETURNS void AS $$
+    SELECT pg_advisory_xact_lock(hashtext('playlist_changes'), hashtext(p_user_id::text))
+$$ LANGUAGE sql;
+
+CREATE OR REPLACE FUNCTION playlists_change_trigger() RETURNS trigger AS $$
+DECLARE
+    target playlists%ROWTYPE;
+BEGIN
+    target := CASE WHEN TG_OP = 'DELETE' THEN OLD ELSE NEW END;
+    -- A playlist handed to another user disappears from the previous owner's library
+    IF TG_OP = 'UPDATE' AND OLD.user_id <> NEW.user_id THEN
+        PERFORM lock_playlist_changes(OLD.user_id);
+        INSERT INTO playlist_changes (version, user_id, playlist_id, kind)
+        VALUES (nextval('playlist_change_seq'), OLD.user_id, OLD.id, 'PLAYLIST_DELETE');
+    END IF;
+    PERFORM lock_playlist_changes(target.user_id);
+    INSERT INTO playlist_changes (version, user_id, playlist_id, kind)
+    VALUES (nextval('playlist_change_seq'), target.user_id, target.id,
+            CASE WHEN TG_OP = 'DELETE' OR target.deleted_at IS NOT NULL THEN 'PLAYLIST_DELETE' ELSE 'PLAYLIST_UPSERT' END);
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS playlists_change_log ON playlists;
+
+CREATE TRIGGER playlists_change_log
+    AFTER INSERT OR UPDATE OR DELETE ON playlists
+    FOR EACH ROW EXECUTE FUNCTION playlists_change_trigger();
+
+-- Track changes are logged once per statement from the transition table. Inserts and updates
+-- (moves, restores) are upserts, deletes and soft deletes are deletes. Locks are taken in user
+-- order so two bulk writers cannot deadlock on them.
+CREATE OR REPLACE FUNCTION playlist_songs_change_trigger() RETURNS trigger AS $$
+BEGIN
+    PERFORM lock_playlist_changes(owners.user_id)
+    FROM (
+        SELECT DISTINCT p.user_id
+        FROM changed_rows c
+        JOIN playlists p ON p.id = c.playlist_id
+        ORDER BY p.user_id
+    ) owners;
+
+    INSERT INTO playlist_changes (version, user_id, playlist_id, song_id, kind)
+    SELECT nextval('playlist_change_seq'), p.user_id, c.playlist_id, c.song_id,
+           CASE WHEN TG_OP = 'DELETE' OR c.deleted_at IS NOT NULL THEN 'TRACK_DELETE' ELSE 'TRACK_UPSERT' END
+    FROM changed_rows c
+    JOIN playlists p ON p.id = c.playlist_id;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS playlist_songs_change_log_insert ON playlist_songs;
+
+CREATE TRIGGER playlist_songs_change_log_insert
+    AFTER INSERT ON playlist_songs
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION playlist_songs_change_trigger();
+
+DROP TRIGGER IF EXISTS playlist_songs_change_log_update ON playlist_songs;
+
+CREATE TRIGGER playlist_songs_change_log_update
+    AFTER UPDATE ON playlist_songs
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION playlist_songs_change_trigger();
+
+DROP TRIGGER IF EXISTS playlist_songs_change_log_delete ON playlist_songs;
+
+CREATE TRIGGER playlist_songs_change_log_delete
+    AFTER DELETE ON playlist_songs
+    REFERENCING OLD TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION playlist_songs_change_trigger();
@@ -0,0 +1,29 @@
+-- Optimistic concurrency for playlist edits. playlists.version is the JPA @Version of header edits,
+-- and every change to the order of a playlist (insert at, move, renumber) moves it too: an edit
+-- that read the playlist at one version only commits if it is still that version, and is retried
+-- otherwise (see OptimisticEditExecutor). Appending and removing songs claim no version, so they
+-- never conflict with an edit or with each other.
+ALTER TABLE playlists ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
+
+-- A version bump alone is not a change the delta sync has to send
+CREATE OR REPLACE FUNCTION playlists_change_trigger() RETURNS trigger AS $$
+DECLARE
+    target playlists%ROWTYPE;
+BEGIN
+    IF TG_OP = 'UPDATE' AND to_jsonb(NEW) - 'version' = to_jsonb(OLD) - 'version' THEN
+        RETURN NULL;
+    END IF;
+    target := CASE WHEN TG_OP = 'DELETE' THEN OLD ELSE NEW END;
+    -- A playlist handed to another user disappears from the previous owner's library
+    IF TG_OP = 'UPDATE' AND OLD.user_id <> NEW.user_id THEN
+        PERFORM lock_playlist_changes(OLD.user_id);
+        INSERT INTO playlist_changes (version, user_id, playlist_id, kind)
+        VALUES (nextval('playlist_change_seq'), OLD.user_id, OLD.id, 'PLAYLIST_DELETE');
+    END IF;
+    PERFORM lock_playlist_changes(target.user_id);
+    INSERT INTO playlist_changes (version, user_id, playlist_id, kind)
+    VALUES (nextval('playlist_change_seq'), target.user_id, target.id,
+            CASE WHEN TG_OP = 'DELETE' OR target.deleted_at IS NOT NULL THEN 'PLAYLIST_DELETE' ELSE 'PLAYLIST_UPSERT' END);
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
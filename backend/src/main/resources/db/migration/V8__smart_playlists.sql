@@ -0,0 +1,186 @@
+-- Smart playlists: a playlist with rules (jsonb, see SmartPlaylistRules) whose songs are
+-- materialized in playlist_songs like any other playlist, so reading one costs the same and the
+-- aggregates, delta sync and membership index need nothing special.
+--
+-- Rules: {"genreIds": [uuid, ...], "minDuration": s, "maxDuration": s, "playedWithinDays": n}
+-- A song matches when it is active, has one of the genres (song_genres), minDuration <= duration
+-- < maxDuration and the owner played it within the last playedWithinDays days. Every rule has
+-- genreIds or playedWithinDays, which bounds the songs a rule can ever match.
+ALTER TABLE playlists ADD COLUMN IF NOT EXISTS rules jsonb;
+
+-- Which smart playlists a changed genre, song or play can affect
+CREATE INDEX IF NOT EXISTS idx_playlists_smart_rules ON playlists USING GIN (rules)
+    WHERE rules IS NOT NULL AND deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_playlists_smart_user ON playlists (user_id)
+    WHERE rules IS NOT NULL AND deleted_at IS NULL;
+
+-- Songs whose matches have to be re-evaluated, against every smart playlist (user_id NULL) or
+-- only those of one user (a play). Filled by the triggers below, drained by SmartPlaylistService
+CREATE TABLE IF NOT EXISTS smart_playlist_pending (
+    id      bigserial NOT NULL PRIMARY KEY,
+    song_id uuid      NOT NULL,
+    user_id uuid
+);
+
+-- Songs of the playlist's rule among p_song_ids, or all of them when p_song_ids is NULL. The
+-- candidates of a full evaluation come from the owner's plays when the rule has a play window,
+-- from song_genres otherwise
+CREATE OR REPLACE FUNCTION smart_playlist_matches(p_playlist_id uuid, p_song_ids uuid[])
+RETURNS TABLE (song_id uuid) AS $$
+    WITH rule AS (
+        SELECT p.user_id,
+               p.rules ? 'genreIds' AS has_genres,
+               ARRAY(SELECT jsonb_array_elements_text(p.rules -> 'genreIds')::uuid) AS genre_ids,
+               (p.rules ->> 'minDuration')::int AS min_duration,
+               (p.rules ->> 'maxDuration')::int AS max_duration,
+               now() - make_interval(days => (p.rules ->> 'playedWithinDays')::int) AS played_since
+        FROM playlists p
+        WHERE p.id = p_playlist_id AND p.rules IS NOT NULL AND p.deleted_at IS NULL
+    ),
+    candidates AS (
+        SELECT unnest(p_song_ids) AS song_id WHERE p_song_ids IS NOT NULL
+        UNION
+        SELECT rt.song_id FROM rule r
+        JOIN recent_tracks rt ON rt.user_id = r.user_id AND coalesce(rt.updated_at, rt.created_at) >= r.played_since
+        WHERE p_song_ids IS NULL
+        UNION
+        SELECT sg.song_id FROM rule r
+        JOIN song_genres sg ON sg.genre_id = ANY (r.genre_ids)
+        WHERE p_song_ids IS NULL AND r.played_since IS NULL
+    )
+    SELECT s.id
+    FROM candidates c
+    JOIN songs s ON s.id = c.song_id AND s.deleted_at IS NULL
+    CROSS JOIN rule r
+    WHERE (NOT r.has_genres OR EXISTS (
+              SELECT 1 FROM song_genres sg WHERE sg.song_id = s.id AND sg.genre_id = ANY (r.genre_ids)))
+      AND (r.min_duration IS NULL OR s.duration >= r.min_duration)
+      AND (r.max_duration IS NULL OR s.duration < r.max_duration)
+      AND (r.played_since IS NULL OR EXISTS (
+              SELECT 1 FROM recent_tracks rt WHERE rt.user_id = r.user_id AND rt.song_id = s.id
+              AND coalesce(rt.updated_at, rt.created_at) >= r.played_since))
+$$ LANGUAGE sql STABLE;
+
+-- Bring the playlist's songs among p_song_ids (all when NULL) in line with its rule: new matches
+-- are appended, songs that stopped matching removed. Returns the songs changed. The edit version
+-- is moved first, which locks the playlist row against a concurrent rules update or refresh and
+-- makes an order edit that read the playlist before the refresh retry (see V7__playlist_edit_version.sql)
+CREATE OR REPLACE FUNCTION refresh_smart_playlist(p_playlist_id uuid, p_song_ids uuid[])
+RETURNS TABLE (song_id uuid, added boolean) AS $$
+#variable_conflict use_column
+DECLARE
+    matching uuid[];
+BEGIN
+    UPDATE playlists SET version = version + 1
+    WHERE id = p_playlist_id AND rules IS NOT NULL AND deleted_at IS NULL;
+    IF NOT FOUND THEN
+        RETURN;
+    END IF;
+
+    matching := ARRAY(SELECT m.song_id FROM smart_playlist_matches(p_playlist_id, p_song_ids) m);
+
+    RETURN QUERY
+    WITH removed AS (
+        DELETE FROM playlist_songs ps
+        WHERE ps.playlist_id = p_playlist_id
+          AND (p_song_ids IS NULL OR ps.song_id = ANY (p_song_ids))
+          AND NOT EXISTS (SELECT 1 FROM unnest(matching) AS m(song_id) WHERE m.song_id = ps.song_id)
+        RETURNING ps.song_id
+    )
+    SELECT r.song_id, false FROM removed r;
+
+    RETURN QUERY
+    WITH appended AS (
+        INSERT INTO playlist_songs AS ps (playlist_id, song_id, position, created_at, updated_at)
+        SELECT p_playlist_id, m.song_id, tail.position + row_number() OVER (ORDER BY m.song_id), now(), now()
+        FROM unnest(matching) AS m(song_id)
+        CROSS JOIN (SELECT coalesce(floor(max(position)), 0) AS position FROM playlist_songs
+                    WHERE playlist_id = p_playlist_id AND deleted_at IS NULL) tail
+        WHERE NOT EXISTS (SELECT 1 FROM playlist_songs cur
+                          WHERE cur.playlist_id = p_playlist_id AND cur.song_id = m.song_id AND cur.deleted_at IS NULL)
+        ON CONFLICT (playlist_id, song_id) DO UPDATE
+            SET position = EXCLUDED.position, deleted_at = NULL, updated_at = now()
+        RETURNING ps.song_id
+    )
+    SELECT a.song_id, true FROM appended a;
+END
+$$ LANGUAGE plpgsql;
+
+-- A song's genres changed (song_genres is rewritten when its artists, their genres, its title
+-- or deleted_at change). Nothing is queued while nobody has a smart playlist
+CREATE OR REPLACE FUNCTION song_genres_smart_playlist_trigger() RETURNS trigger AS $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM playlists WHERE rules IS NOT NULL AND deleted_at IS NULL) THEN
+        INSERT INTO smart_playlist_pending (song_id)
+        SELECT DISTINCT c.song_id FROM changed_rows c;
+    END IF;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS song_genres_smart_playlist_insert ON song_genres;
+
+CREATE TRIGGER song_genres_smart_playlist_insert
+    AFTER INSERT ON song_genres
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION song_genres_smart_playlist_trigger();
+
+DROP TRIGGER IF EXISTS song_genres_smart_playlist_delete ON song_genres;
+
+CREATE TRIGGER song_genres_smart_playlist_delete
+    AFTER DELETE ON song_genres
+    REFERENCING OLD TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION song_genres_smart_playlist_trigger();
+
+-- Duration and soft delete also matter to rules without genres
+CREATE OR REPLACE FUNCTION songs_smart_playlist_trigger() RETURNS trigger AS $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM playlists WHERE rules IS NOT NULL AND deleted_at IS NULL) THEN
+        INSERT INTO smart_playlist_pending (song_id) VALUES (NEW.id);
+    END IF;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS songs_smart_playlist_update ON songs;
+
+CREATE TRIGGER songs_smart_playlist_update
+    AFTER UPDATE OF duration, deleted_at ON songs
+    FOR EACH ROW
+    WHEN (OLD.duration IS DISTINCT FROM NEW.duration OR OLD.deleted_at IS DISTINCT FROM NEW.deleted_at)
+    EXECUTE FUNCTION songs_smart_playlist_trigger();
+
+-- Plays only concern the player's own rules with a play window
+CREATE OR REPLACE FUNCTION recent_tracks_smart_playlist_trigger() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO smart_playlist_pending (song_id, user_id)
+    SELECT DISTINCT c.song_id, c.user_id
+    FROM changed_rows c
+    WHERE EXISTS (SELECT 1 FROM playlists p
+                  WHERE p.user_id = c.user_id AND p.rules IS NOT NULL AND p.deleted_at IS NULL
+                  AND p.rules ? 'playedWithinDays');
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS recent_tracks_smart_playlist_insert ON recent_tracks;
+
+CREATE TRIGGER recent_tracks_smart_playlist_insert
+    AFTER INSERT ON recent_tracks
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION recent_tracks_smart_playlist_trigger();
+
+DROP TRIGGER IF EXISTS recent_tracks_smart_playlist_update ON recent_tracks;
+
+CREATE TRIGGER recent_tracks_smart_playlist_update
+    AFTER UPDATE ON recent_tracks
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION recent_tracks_smart_playlist_trigger();
+
+DROP TRIGGER IF EXISTS recent_tracks_smart_playlist_delete ON recent_tracks;
+
+CREATE TRIGGER recent_tracks_smart_playlist_delete
+    AFTER DELETE ON recent_tracks
+    REFERENCING OLD TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION recent_tracks_smart_playlist_trigger();
@@ -0,0 +1,52 @@
+-- song_artists maintenance per statement instead of per row: a bulk load (COPY or batched
+-- multi-row INSERT, see SongBulkRepository) rebuilds the search vectors and song_genres rows of
+-- the songs it touched once, instead of once per artist link. Replaces the row-level triggers of
+-- V2__search_and_projections.sql; the functions they call are unchanged.
+CREATE OR REPLACE FUNCTION song_artists_changed_trigger() RETURNS trigger AS $$
+DECLARE
+    song_ids uuid[];
+BEGIN
+    song_ids := ARRAY(SELECT DISTINCT c.song_id FROM changed_rows c);
+    IF TG_OP = 'UPDATE' THEN
+        song_ids := ARRAY(SELECT unnest(song_ids) UNION SELECT o.song_id FROM old_rows o);
+    END IF;
+    IF cardinality(song_ids) = 0 THEN
+        RETURN NULL;
+    END IF;
+
+    UPDATE songs s SET search_vector = song_search_vector(s.id, s.title, s.album_id)
+    WHERE s.id = ANY (song_ids);
+    PERFORM refresh_song_genres(song_ids);
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS song_artists_search_vector_update ON song_artists;
+
+DROP TRIGGER IF EXISTS song_artists_song_genres_update ON song_artists;
+
+DROP FUNCTION IF EXISTS song_artists_search_vector_trigger();
+
+DROP FUNCTION IF EXISTS song_artists_song_genres_trigger();
+
+-- A trigger with transition tables handles a single event
+DROP TRIGGER IF EXISTS song_artists_changed_insert ON song_artists;
+
+CREATE TRIGGER song_artists_changed_insert
+    AFTER INSERT ON song_artists
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION song_artists_changed_trigger();
+
+DROP TRIGGER IF EXISTS song_artists_changed_update ON song_artists;
+
+CREATE TRIGGER song_artists_changed_update
+    AFTER UPDATE ON song_artists
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION song_artists_changed_trigger();
+
+DROP TRIGGER IF EXISTS song_artists_changed_delete ON song_artists;
+
+CREATE TRIGGER song_artists_changed_delete
+    AFTER DELETE ON song_artists
+    REFERENCING OLD TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION song_artists_changed_trigger();
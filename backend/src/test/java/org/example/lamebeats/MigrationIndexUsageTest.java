@@ -0,0 +1,91 @@
+package org.example.lamebeats;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The Flyway migrations create indexes the search and pagination queries can actually use.
+ * Sequential scans are disabled for each EXPLAIN, so a query the planner can only answer by
+ * scanning the table shows up as a (disabled) Seq Scan instead of the expected index.
+ */
+@SpringBootTest
+class MigrationIndexUsageTest extends PostgresIntegrationTest {
+
+    private static final String SOME_ID = "'00000000-0000-0000-0000-000000000001'";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    static Stream<Arguments> queries() {
+        return Stream.of(
+                // Search
+                Arguments.of("SELECT s.id FROM songs s WHERE s.deleted_at IS NULL " +
+                        "AND s.search_vector @@ to_tsquery('simple', 'love:*')", "idx_songs_search_vector"),
+                Arguments.of("SELECT a.id FROM albums a WHERE a.deleted_at IS NULL " +
+                        "AND a.search_vector @@ to_tsquery('simple', 'love:*')", "idx_albums_search_vector"),
+                Arguments.of("SELECT a.id FROM artists a WHERE a.deleted_at IS NULL " +
+                        "AND a.search_vector @@ to_tsquery('simple', 'daft:*')", "idx_artists_search_vector"),
+                Arguments.of("SELECT p.id FROM playlists p WHERE p.deleted_at IS NULL " +
+                        "AND p.search_vector @@ to_tsquery('simple', 'road:*')", "idx_playlists_search_vector"),
+                Arguments.of("SELECT s.id FROM songs s WHERE s.deleted_at IS NULL AND lower(s.title) % 'lvoe song'",
+                        "idx_songs_title_trgm"),
+                Arguments.of("SELECT a.id FROM artists a WHERE a.deleted_at IS NULL AND lower(a.name) % 'dfat punk'",
+                        "idx_artists_name_trgm"),
+                // Keyset and offset pagination
+                Arguments.of("SELECT s.id FROM songs s WHERE s.deleted_at IS NULL AND (s.created_at, s.id) < (now(), " +
+                        SOME_ID + ") ORDER BY s.created_at DESC, s.id DESC LIMIT 20", "idx_songs_active_created_at_id"),
+                Arguments.of("SELECT s.id FROM songs s WHERE s.deleted_at IS NULL AND s.album_id = " + SOME_ID +
+                        " ORDER BY s.created_at DESC, s.id DESC LIMIT 20", "idx_songs_album_created_at_id"),
+                Arguments.of("SELECT p.id FROM playlists p WHERE p.deleted_at IS NULL AND p.user_id = " + SOME_ID +
+                        " ORDER BY p.created_at DESC, p.id DESC LIMIT 20", "idx_playlists_user_created_at_id"),
+                Arguments.of("SELECT a.id FROM albums a WHERE a.deleted_at IS NULL ORDER BY a.title, a.id LIMIT 20",
+                        "idx_albums_active_title_id"),
+                Arguments.of("SELECT a.id FROM artists a WHERE a.deleted_at IS NULL ORDER BY a.name, a.id LIMIT 20",
+                        "idx_artists_active_name_id"),
+                Arguments.of("SELECT g.id FROM genres g WHERE g.deleted_at IS NULL ORDER BY g.title, g.id LIMIT 20",
+                        "idx_genres_active_title_id"),
+                Arguments.of("SELECT sg.song_id FROM song_genres sg WHERE sg.genre_id = " + SOME_ID +
+                        " ORDER BY sg.song_title, sg.song_id LIMIT 20", "idx_song_genres_genre_title_song"),
+                // V3 foreign-key and live-row lookups
+                Arguments.of("SELECT sa.song_id FROM song_artists sa WHERE sa.artist_id = " + SOME_ID,
+                        "idx_song_artists_artist"),
+                Arguments.of("SELECT ag.artist_id FROM artist_genres ag WHERE ag.genre_id = " + SOME_ID,
+                        "idx_artist_genres_genre"),
+                Arguments.of("SELECT l.id FROM lyrics l WHERE l.deleted_at IS NULL AND l.song_id = " + SOME_ID +
+                        " AND l.language = 'EN'", "idx_lyrics_active_song_language"),
+                Arguments.of("SELECT u.id FROM users u WHERE u.deleted_at IS NULL AND lower(u.username) = 'someone'",
+                        "idx_users_active_lower_username")
+        );
+    }
+
+    @ParameterizedTest(name = "{1}")
+    @MethodSource("queries")
+    void queryUsesIndex(String query, String index) {
+        String plan = explain(query);
+
+        assertThat(plan).containsPattern("(Index|Index Only|Bitmap Index) Scan (Backward )?(using|on) " + index + "\\b");
+        assertThat(plan).doesNotContain("Seq Scan");
+    }
+
+    private String explain(String query) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            return jdbcTemplate.queryForList("EXPLAIN " + query, String.class).stream()
+                    .collect(Collectors.joining("\n"));
+        });
+    }
+}
@@ -0,0 +1,30 @@
+package org.example.lamebeats;
+
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Base of the tests that need the real schema: one Postgres container for the whole run, migrated
+ * by Flyway when the Spring context starts. Subclasses share the cached context and the data
+ * they insert, so they use their own rows rather than assuming an empty database.
+ */
+public abstract class PostgresIntegrationTest {
+
+    protected static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    static {
+        POSTGRES.start();
+    }
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        // External APIs are never called by these tests
+        registry.add("spotify.clientId", () -> "test");
+        registry.add("spotify.clientSecret", () -> "test");
+        registry.add("musixmatch.apikey", () -> "test");
+    }
+}
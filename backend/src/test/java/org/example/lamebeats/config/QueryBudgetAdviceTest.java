@@ -0,0 +1,86 @@
+package org.example.lamebeats.config;
+
+import org.example.lamebeats.utils.QueryCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QueryBudgetAdviceTest {
+
+    private final QueryBudgetAdvice advice = new QueryBudgetAdvice();
+    private final MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+    @BeforeEach
+    void resetCounter() {
+        QueryCounter.reset();
+    }
+
+    @Test
+    void onlyBudgetedHandlersAreChecked() throws NoSuchMethodException {
+        assertThat(advice.supports(returnType("budgetOfTwo"), MappingJackson2HttpMessageConverter.class)).isTrue();
+        assertThat(advice.supports(returnType("unbudgeted"), MappingJackson2HttpMessageConverter.class)).isFalse();
+    }
+
+    @Test
+    void bodyWithinBudgetIsWritten() throws NoSuchMethodException {
+        ReflectionTestUtils.setField(advice, "enforce", true);
+        issueStatements(2);
+
+        assertThat(beforeBodyWrite("budget")).isEqualTo("budget");
+    }
+
+    @Test
+    void overBudgetFailsTheRequestBeforeTheBodyIsWrittenWhenEnforced() throws NoSuchMethodException {
+        ReflectionTestUtils.setField(advice, "enforce", true);
+        issueStatements(3);
+
+        assertThatThrownBy(() -> beforeBodyWrite("budget"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("GET /api/songs issued 3 SQL statements, budget is 2");
+        assertThat(servletResponse.isCommitted()).isFalse();
+    }
+
+    @Test
+    void overBudgetIsOnlyLoggedByDefault() throws NoSuchMethodException {
+        issueStatements(3);
+
+        assertThat(beforeBodyWrite("budget")).isEqualTo("budget");
+    }
+
+    @QueryBudget(2)
+    String budgetOfTwo() {
+        return "budget";
+    }
+
+    String unbudgeted() {
+        return "none";
+    }
+
+    private Object beforeBodyWrite(Object body) throws NoSuchMethodException {
+        return advice.beforeBodyWrite(body, returnType("budgetOfTwo"), MediaType.APPLICATION_JSON,
+                MappingJackson2HttpMessageConverter.class,
+                new ServletServerHttpRequest(new MockHttpServletRequest("GET", "/api/songs")),
+                new ServletServerHttpResponse(servletResponse));
+    }
+
+    private static MethodParameter returnType(String method) throws NoSuchMethodException {
+        return new MethodParameter(QueryBudgetAdviceTest.class.getDeclaredMethod(method), -1);
+    }
+
+    private static void issueStatements(int count) {
+        QueryCounter counter = new QueryCounter();
+        for (int i = 0; i < count; i++) {
+            counter.inspect("select 1");
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.lamebeats.controllers;
+
+import org.example.lamebeats.PostgresIntegrationTest;
+import org.example.lamebeats.utils.QueryCounter;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statement counts of the song list endpoints over a full page of songs with several artists,
+ * an album and artist genres each: associations must load in batches, not per row. Enforcement
+ * is on, so exceeding a @QueryBudget also fails the request.
+ */
+@SpringBootTest(properties = "jpa.query-budget.enforce=true")
+@AutoConfigureMockMvc
+@WithMockUser
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SongListQueryBudgetTest extends PostgresIntegrationTest {
+
+    private static final int SONGS = 20;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final UUID genreId = UUID.randomUUID();
+    private final UUID albumId = UUID.randomUUID();
+
+    @BeforeAll
+    void insertCatalog() {
+        jdbcTemplate.update("INSERT INTO genres (id, title, created_at) VALUES (?, ?, now())", genreId, "Budget " + genreId);
+        jdbcTemplate.update("INSERT INTO albums (id, title, created_at) VALUES (?, 'Budget Album', now())", albumId);
+        UUID[] artists = new UUID[3];
+        for (int a = 0; a < artists.length; a++) {
+            artists[a] = UUID.randomUUID();
+            jdbcTemplate.update("INSERT INTO artists (id, name, created_at) VALUES (?, ?, now())", artists[a], "Budget Artist " + a);
+            jdbcTemplate.update("INSERT INTO artist_genres (artist_id, genre_id) VALUES (?, ?)", artists[a], genreId);
+            jdbcTemplate.update("INSERT INTO album_artist (album_id, artist_id, created_at) VALUES (?, ?, now())", albumId, artists[a]);
+        }
+        for (int s = 0; s < SONGS; s++) {
+            UUID songId = UUID.randomUUID();
+            jdbcTemplate.update("INSERT INTO songs (id, title, album_id, duration, file_url, created_at) " +
+                    "VALUES (?, ?, ?, 180, 'budget.mp3', now())", songId, "Budget Song " + s, albumId);
+            jdbcTemplate.update("INSERT INTO song_artists (song_id, artist_id, created_at) VALUES (?, ?, now())", songId, artists[s % 3]);
+            jdbcTemplate.update("INSERT INTO song_artists (song_id, artist_id, created_at) VALUES (?, ?, now())", songId, artists[(s + 1) % 3]);
+        }
+    }
+
+    @Test
+    void songPage() throws Exception {
+        mockMvc.perform(get("/api/songs").param("albumId", albumId.toString()).param("limit", String.valueOf(SONGS)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(SONGS));
+
+        assertThat(QueryCounter.count()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void songSearch() throws Exception {
+        mockMvc.perform(get("/api/songs/search").param("title", "budget song").param("limit", String.valueOf(SONGS)))
+                .andExpect(status().isOk());
+
+        assertThat(QueryCounter.count()).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void songsByGenres() throws Exception {
+        mockMvc.perform(get("/api/songs/genres").param("genreIds", genreId.toString()).param("limit", String.valueOf(SONGS)))
+                .andExpect(status().isOk());
+
+        assertThat(QueryCounter.count()).isLessThanOrEqualTo(5);
+    }
+
+    @Test
+    void songsOfGenre() throws Exception {
+        mockMvc.perform(get("/api/genres/{id}/songs", genreId).param("limit", String.valueOf(SONGS)))
+                .andExpect(status().isOk());
+
+        assertThat(QueryCounter.count()).isLessThanOrEqualTo(6);
+    }
+}
@@ -0,0 +1,124 @@
+package org.example.lamebeats.repositories;
+
+import org.example.lamebeats.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Appends through PlaylistSongWriteRepository: repeated and known songs are skipped, soft-deleted
+ * entries come back at the end of the playlist. Deletes report only the songs still in the
+ * playlist. Every case runs in a rolled-back transaction.
+ */
+@SpringBootTest
+class PlaylistSongWriteRepositoryTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private PlaylistSongWriteRepository playlistSongWriteRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final UUID playlistId = UUID.randomUUID();
+    private final UUID[] songIds = {UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID()};
+
+    @Test
+    void appendSkipsRepeatedAndExistingSongs() {
+        inRolledBackTransaction(() -> {
+            assertThat(playlistSongWriteRepository.appendSongs(playlistId, List.of(songIds[0], songIds[1], songIds[0])))
+                    .containsExactly(songIds[0], songIds[1]);
+            assertThat(playlistSongWriteRepository.appendSongs(playlistId, List.of(songIds[1], songIds[2])))
+                    .containsExactly(songIds[2]);
+            assertThat(trackCount()).isEqualTo(3);
+        });
+    }
+
+    @Test
+    void appendRestoresSoftDeletedSongAtTheEnd() {
+        inRolledBackTransaction(() -> {
+            playlistSongWriteRepository.appendSongs(playlistId, List.of(songIds[0], songIds[1]));
+            softDelete(songIds[0]);
+            assertThat(trackCount()).isEqualTo(1);
+
+            assertThat(playlistSongWriteRepository.appendSongs(playlistId, List.of(songIds[0], songIds[1])))
+                    .containsExactly(songIds[0]);
+
+            assertThat(trackCount()).isEqualTo(2);
+            assertThat(position(songIds[0])).isGreaterThan(position(songIds[1]));
+            assertThat(jdbcTemplate.queryForObject("SELECT deleted_at IS NULL FROM playlist_songs " +
+                    "WHERE playlist_id = ? AND song_id = ?", Boolean.class, playlistId, songIds[0])).isTrue();
+        });
+    }
+
+    @Test
+    void deleteReportsOnlySongsStillInThePlaylist() {
+        inRolledBackTransaction(() -> {
+            playlistSongWriteRepository.appendSongs(playlistId, List.of(songIds));
+            softDelete(songIds[0]);
+
+            assertThat(playlistSongWriteRepository.deleteSongs(playlistId, List.of(songIds[0], songIds[1])))
+                    .containsExactly(songIds[1]);
+            assertThat(rowCount()).isEqualTo(1);
+
+            softDelete(songIds[2]);
+            playlistSongWriteRepository.appendSongs(playlistId, List.of(songIds[0]));
+            assertThat(playlistSongWriteRepository.deleteAllSongs(playlistId)).isEqualTo(1);
+            assertThat(rowCount()).isZero();
+            assertThat(trackCount()).isZero();
+        });
+    }
+
+    private void inRolledBackTransaction(Runnable test) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            insertPlaylist();
+            test.run();
+            status.setRollbackOnly();
+        });
+    }
+
+    private void insertPlaylist() {
+        UUID userId = UUID.randomUUID();
+        UUID albumId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO users (id, username, email, password, created_at) VALUES (?, ?, ?, 'x', now())",
+                userId, "append" + userId, userId + "@example.com");
+        jdbcTemplate.update("INSERT INTO playlists (id, user_id, name, created_at) VALUES (?, ?, 'Appends', now())",
+                playlistId, userId);
+        jdbcTemplate.update("INSERT INTO albums (id, title, created_at) VALUES (?, 'Append Album', now())", albumId);
+        for (UUID songId : songIds) {
+            jdbcTemplate.update("INSERT INTO songs (id, title, album_id, duration, file_url, created_at) " +
+                    "VALUES (?, 'Append Song', ?, 180, 'file', now())", songId, albumId);
+        }
+    }
+
+    private void softDelete(UUID songId) {
+        jdbcTemplate.update("UPDATE playlist_songs SET deleted_at = now() WHERE playlist_id = ? AND song_id = ?",
+                playlistId, songId);
+    }
+
+    // Rows of the playlist, soft-deleted ones included
+    private int rowCount() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM playlist_songs WHERE playlist_id = ?", Integer.class,
+                playlistId);
+    }
+
+    private int trackCount() {
+        return jdbcTemplate.queryForObject("SELECT track_count FROM playlists WHERE id = ?", Integer.class, playlistId);
+    }
+
+    private BigDecimal position(UUID songId) {
+        return jdbcTemplate.queryForObject("SELECT position FROM playlist_songs WHERE playlist_id = ? AND song_id = ?",
+                BigDecimal.class, playlistId, songId);
+    }
+}
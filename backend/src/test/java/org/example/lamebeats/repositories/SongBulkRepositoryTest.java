@@ -0,0 +1,108 @@
+package org.example.lamebeats.repositories;
+
+import org.example.lamebeats.PostgresIntegrationTest;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bulk loads through both paths of SongBulkRepository: the loaded songs get their search vectors
+ * and song_genres rows, and the song_genres rebuild runs once per statement rather than once per
+ * artist link (counted with track_functions). Every load is rolled back.
+ */
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SongBulkRepositoryTest extends PostgresIntegrationTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SongBulkRepositoryTest.class);
+
+    private static final int COPY_SONGS = 20_000;
+    private static final int BATCH_SONGS = 1_000;
+
+    @Autowired
+    private SongBulkRepository songBulkRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final UUID albumId = UUID.randomUUID();
+    private final UUID[] artistIds = {UUID.randomUUID(), UUID.randomUUID()};
+    private final UUID[] genreIds = {UUID.randomUUID(), UUID.randomUUID()};
+
+    @BeforeAll
+    void insertArtists() {
+        jdbcTemplate.update("INSERT INTO albums (id, title, created_at) VALUES (?, 'Bulk Album', now())", albumId);
+        for (int i = 0; i < artistIds.length; i++) {
+            jdbcTemplate.update("INSERT INTO genres (id, title, created_at) VALUES (?, ?, now())", genreIds[i], "Bulk " + genreIds[i]);
+            jdbcTemplate.update("INSERT INTO artists (id, name, created_at) VALUES (?, ?, now())", artistIds[i], "Bulkartist" + i);
+            jdbcTemplate.update("INSERT INTO artist_genres (artist_id, genre_id) VALUES (?, ?)", artistIds[i], genreIds[i]);
+        }
+    }
+
+    @Test
+    void copyLoadRebuildsProjectionsOnce() {
+        Load load = load(COPY_SONGS);
+
+        assertThat(load.written()).isEqualTo(COPY_SONGS * 3L);
+        assertThat(load.songGenres()).isEqualTo(COPY_SONGS * 2L);
+        assertThat(load.searchableByArtist()).isEqualTo(COPY_SONGS);
+        assertThat(load.projectionRebuilds()).isEqualTo(1);
+    }
+
+    @Test
+    void batchLoadRebuildsProjectionsPerStatement() {
+        Load load = load(BATCH_SONGS);
+
+        assertThat(load.written()).isEqualTo(BATCH_SONGS * 3L);
+        assertThat(load.songGenres()).isEqualTo(BATCH_SONGS * 2L);
+        assertThat(load.searchableByArtist()).isEqualTo(BATCH_SONGS);
+        // Batches are rewritten into multi-row INSERTs, each firing the triggers once
+        assertThat(load.projectionRebuilds()).isLessThan(BATCH_SONGS * 2L / 10);
+    }
+
+    private record Load(long written, long songGenres, long searchableByArtist, long projectionRebuilds) {
+    }
+
+    private Load load(int count) {
+        List<SongBulkRepository.SongRow> songs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            songs.add(new SongBulkRepository.SongRow(UUID.randomUUID(), null, "Bulk Song " + i, albumId, 180,
+                    "bulk.mp3", List.of(artistIds)));
+        }
+
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            status.setRollbackOnly();
+            jdbcTemplate.execute("SET LOCAL track_functions = 'all'");
+
+            long start = System.nanoTime();
+            long written = songBulkRepository.insertAll(songs);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            logger.info("Bulk loaded {} songs ({} rows) in {} ms", count, written, millis);
+
+            // The album only holds the songs of this load, which is rolled back
+            Long songGenres = jdbcTemplate.queryForObject("SELECT count(*) FROM song_genres sg " +
+                    "JOIN songs s ON s.id = sg.song_id WHERE s.album_id = ?", Long.class, albumId);
+            Long searchable = jdbcTemplate.queryForObject("SELECT count(*) FROM songs WHERE album_id = ? " +
+                    "AND search_vector @@ to_tsquery('simple', 'bulkartist1')", Long.class, albumId);
+            Long rebuilds = jdbcTemplate.queryForObject("SELECT coalesce(sum(calls), 0) FROM pg_stat_xact_user_functions " +
+                    "WHERE funcname = 'refresh_song_genres'", Long.class);
+            return new Load(written, songGenres, searchable, rebuilds);
+        });
+    }
+}
@@ -0,0 +1,226 @@
+package org.example.lamebeats.utils.bitmap;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * CompactBitmap checked against java.util.BitSet: sparse chunks (sorted arrays), dense chunks
+ * (bitmaps), sets crossing the 4096-value boundary between the two in both directions, values on
+ * either side of a 65536 chunk boundary, and every pairing of chunk kinds in the set operations.
+ */
+class CompactBitmapTest {
+
+    private static final int CHUNK = 1 << 16;
+    private static final int ARRAY_MAX = 4096;
+
+    private final Random random = new Random(42);
+
+    @Test
+    void addRemoveAndContainsAcrossChunkBoundaries() {
+        CompactBitmap bitmap = new CompactBitmap();
+        BitSet expected = new BitSet();
+        int[] edges = {0, 1, CHUNK - 1, CHUNK, CHUNK + 1, 2 * CHUNK - 1, 2 * CHUNK, 7 * CHUNK + 12345};
+
+        for (int value : edges) {
+            assertThat(bitmap.add(value)).isTrue();
+            expected.set(value);
+        }
+        assertThat(bitmap.add(CHUNK)).isFalse();
+        assertSame(bitmap, expected);
+
+        assertThat(bitmap.remove(CHUNK - 1)).isTrue();
+        assertThat(bitmap.remove(CHUNK - 1)).isFalse();
+        assertThat(bitmap.remove(3 * CHUNK)).isFalse();
+        expected.clear(CHUNK - 1);
+        assertSame(bitmap, expected);
+    }
+
+    @Test
+    void chunkTurnsIntoBitmapAndBackAtTheArrayLimit() {
+        CompactBitmap bitmap = new CompactBitmap();
+        BitSet expected = new BitSet();
+        int base = 3 * CHUNK;
+
+        for (int i = 0; i < ARRAY_MAX; i++) {
+            bitmap.add(base + i * 16);
+            expected.set(base + i * 16);
+        }
+        assertSame(bitmap, expected);
+
+        bitmap.add(base + 1);
+        expected.set(base + 1);
+        assertSame(bitmap, expected);
+
+        bitmap.remove(base + 16);
+        expected.clear(base + 16);
+        assertSame(bitmap, expected);
+
+        // Still correct after turning back into an array: grow past the limit again
+        for (int i = 0; i < 100; i++) {
+            bitmap.add(base + i * 16 + 3);
+            expected.set(base + i * 16 + 3);
+        }
+        assertSame(bitmap, expected);
+    }
+
+    @Test
+    void removingEveryValueEmptiesTheBitmap() {
+        CompactBitmap bitmap = new CompactBitmap();
+        BitSet expected = randomSet(0, 4 * CHUNK, 20_000);
+        expected.stream().forEach(bitmap::add);
+
+        expected.stream().forEach(value -> assertThat(bitmap.remove(value)).isTrue());
+
+        assertThat(bitmap.isEmpty()).isTrue();
+        assertThat(bitmap.cardinality()).isZero();
+        assertThat(bitmap.toArray()).isEmpty();
+        assertThat(bitmap.add(5)).isTrue();
+        assertThat(bitmap.toArray()).containsExactly(5);
+    }
+
+    @Test
+    void randomAddsAndRemovesMatchBitSet() {
+        CompactBitmap bitmap = new CompactBitmap();
+        BitSet expected = new BitSet();
+        for (int i = 0; i < 200_000; i++) {
+            // Mostly within three chunks, so some of them go dense and back
+            int value = random.nextInt(3 * CHUNK + 100);
+            if (random.nextInt(3) == 0) {
+                assertThat(bitmap.remove(value)).isEqualTo(expected.get(value));
+                expected.clear(value);
+            } else {
+                assertThat(bitmap.add(value)).isEqualTo(!expected.get(value));
+                expected.set(value);
+            }
+        }
+        assertSame(bitmap, expected);
+    }
+
+    @Test
+    void setOperationsMatchBitSetForEveryChunkPairing() {
+        for (BitSet[] pair : operandPairs()) {
+            CompactBitmap first = toBitmap(pair[0]);
+            CompactBitmap second = toBitmap(pair[1]);
+
+            BitSet and = (BitSet) pair[0].clone();
+            and.and(pair[1]);
+            BitSet or = (BitSet) pair[0].clone();
+            or.or(pair[1]);
+            BitSet andNot = (BitSet) pair[0].clone();
+            andNot.andNot(pair[1]);
+
+            assertSame(first.and(second), and);
+            assertSame(second.and(first), and);
+            assertSame(first.or(second), or);
+            assertSame(second.or(first), or);
+            assertSame(first.andNot(second), andNot);
+
+            // Operands are left untouched
+            assertSame(first, pair[0]);
+            assertSame(second, pair[1]);
+        }
+    }
+
+    @Test
+    void resultsOfSetOperationsCanBeModified() {
+        CompactBitmap dense = toBitmap(randomSet(0, CHUNK, 10_000));
+        CompactBitmap sparse = toBitmap(randomSet(0, CHUNK, 100));
+        BitSet expected = toBitSet(dense.and(sparse));
+
+        CompactBitmap result = dense.and(sparse);
+        for (int value = 0; value < 50; value++) {
+            result.add(value);
+            expected.set(value);
+        }
+        result.add(CHUNK + 7);
+        expected.set(CHUNK + 7);
+        assertSame(result, expected);
+    }
+
+    @Test
+    void copyIsIndependent() {
+        BitSet values = randomSet(0, 2 * CHUNK, 8_000);
+        CompactBitmap bitmap = toBitmap(values);
+        CompactBitmap copy = bitmap.copy();
+
+        copy.add(5 * CHUNK);
+        values.stream().limit(100).forEach(copy::remove);
+
+        assertSame(bitmap, values);
+        assertThat(copy.cardinality()).isEqualTo(values.cardinality() - 100 + 1);
+    }
+
+    @Test
+    void valuesAreVisitedInUnsignedOrder() {
+        CompactBitmap bitmap = CompactBitmap.of(-1, 7, Integer.MIN_VALUE, CHUNK, 3);
+
+        List<Integer> visited = new ArrayList<>();
+        bitmap.forEach(visited::add);
+
+        assertThat(visited).containsExactly(3, 7, CHUNK, Integer.MIN_VALUE, -1);
+        assertThat(bitmap.contains(-1)).isTrue();
+        assertThat(bitmap.contains(-2)).isFalse();
+    }
+
+    // Sparse/sparse, sparse/dense, dense/dense in the same chunks, plus chunks only one side has
+    private List<BitSet[]> operandPairs() {
+        List<BitSet[]> pairs = new ArrayList<>();
+        int[] sizes = {0, 50, ARRAY_MAX - 10, ARRAY_MAX + 10, 30_000};
+        for (int first : sizes) {
+            for (int second : sizes) {
+                BitSet a = randomSet(0, CHUNK, first);
+                BitSet b = randomSet(0, CHUNK, second);
+                // A chunk only the first has, one only the second has, and a shared sparse one
+                a.or(randomSet(CHUNK, 2 * CHUNK, 200));
+                b.or(randomSet(2 * CHUNK, 3 * CHUNK, 200));
+                a.or(randomSet(3 * CHUNK, 4 * CHUNK, 300));
+                b.or(randomSet(3 * CHUNK, 4 * CHUNK, 300));
+                pairs.add(new BitSet[]{a, b});
+            }
+        }
+        // Dense halves whose intersection and difference fall back under the array limit
+        BitSet low = new BitSet();
+        low.set(0, ARRAY_MAX * 2);
+        BitSet high = new BitSet();
+        high.set(ARRAY_MAX + ARRAY_MAX / 2, ARRAY_MAX * 3);
+        pairs.add(new BitSet[]{low, high});
+        return pairs;
+    }
+
+    private BitSet randomSet(int from, int to, int count) {
+        BitSet set = new BitSet();
+        while (set.cardinality() < count) {
+            set.set(from + random.nextInt(to - from));
+        }
+        return set;
+    }
+
+    private static CompactBitmap toBitmap(BitSet values) {
+        CompactBitmap bitmap = new CompactBitmap();
+        values.stream().forEach(bitmap::add);
+        return bitmap;
+    }
+
+    private static BitSet toBitSet(CompactBitmap bitmap) {
+        BitSet values = new BitSet();
+        bitmap.forEach(values::set);
+        return values;
+    }
+
+    private static void assertSame(CompactBitmap bitmap, BitSet expected) {
+        assertThat(bitmap.cardinality()).isEqualTo(expected.cardinality());
+        assertThat(bitmap.isEmpty()).isEqualTo(expected.isEmpty());
+        assertThat(bitmap.toArray()).containsExactly(expected.stream().toArray());
+        for (int value = expected.nextSetBit(0); value >= 0; value = expected.nextSetBit(value + 1)) {
+            assertThat(bitmap.contains(value)).isTrue();
+            // Neighbours, to catch off-by-one bits
+            assertThat(bitmap.contains(value + 1)).isEqualTo(expected.get(value + 1));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.example.lamebeats.utils.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CollaborationGraphTest {
+
+    private static final UUID A = new UUID(0, 1);
+    private static final UUID B = new UUID(0, 2);
+    private static final UUID C = new UUID(0, 3);
+    private static final UUID D = new UUID(0, 4);
+    private static final UUID E = new UUID(0, 5);
+
+    // A-B 3, A-C 1, B-C 2, C-D 1; E is isolated
+    private final CollaborationGraph graph = CollaborationGraph.builder()
+            .addEdge(A, B, 2)
+            .addEdge(B, A, 1)
+            .addEdge(A, C, 1)
+            .addEdge(B, C, 2)
+            .addEdge(C, D, 1)
+            .addEdge(E, E, 5)
+            .build();
+
+    @Test
+    void edgesAreUndirectedWithSummedWeights() {
+        assertThat(graph.artistCount()).isEqualTo(5);
+        assertThat(graph.edgeCount()).isEqualTo(4);
+        assertThat(graph.topCollaborators(A, 10, id -> true)).containsExactly(
+                new CollaborationGraph.Collaborator(B, 3), new CollaborationGraph.Collaborator(C, 1));
+    }
+
+    @Test
+    void strongestEdgesHeaviestFirst() {
+        assertThat(graph.strongestEdges(2, id -> true)).containsExactly(
+                new CollaborationGraph.Edge(A, B, 3), new CollaborationGraph.Edge(B, C, 2));
+    }
+
+    @Test
+    void nonPositiveLimitsReturnNothing() {
+        assertThat(graph.strongestEdges(0, id -> true)).isEmpty();
+        assertThat(graph.strongestEdges(-1, id -> true)).isEmpty();
+        assertThat(graph.topCollaborators(A, 0, id -> true)).isEmpty();
+        assertThat(graph.neighborhood(A, 2, 0, id -> true)).isEmpty();
+    }
+
+    @Test
+    void excludedArtistsAreNeitherReturnedNorTraversed() {
+        assertThat(graph.strongestEdges(10, id -> !id.equals(B))).containsExactlyInAnyOrder(
+                new CollaborationGraph.Edge(A, C, 1), new CollaborationGraph.Edge(C, D, 1));
+        assertThat(graph.neighborhood(A, 3, 10, id -> !id.equals(C)))
+                .containsExactly(new CollaborationGraph.Reach(B, 1));
+    }
+
+    @Test
+    void neighborhoodNearestFirst() {
+        assertThat(graph.neighborhood(A, 2, 10, id -> true)).containsExactly(
+                new CollaborationGraph.Reach(B, 1), new CollaborationGraph.Reach(C, 1), new CollaborationGraph.Reach(D, 2));
+        assertThat(graph.neighborhood(A, 1, 10, id -> true)).hasSize(2);
+    }
+
+    @Test
+    void shortestPathWithinMaxHops() {
+        assertThat(graph.shortestPath(A, D, 2, id -> true)).isEqualTo(List.of(A, C, D));
+        assertThat(graph.shortestPath(A, D, 1, id -> true)).isEmpty();
+        assertThat(graph.shortestPath(A, E, 5, id -> true)).isEmpty();
+        assertThat(graph.shortestPath(A, A, 1, id -> true)).isEqualTo(List.of(A));
+    }
+}
@@ -0,0 +1,126 @@
+package org.example.lamebeats.utils.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class NGramIndexTest {
+
+    @Test
+    void gramsPadEachWordSoShortWordsStillProduceGrams() {
+        assertThat(NGramIndex.grams("U2")).isEqualTo(Map.of(" u2", 1, "u2 ", 1));
+        assertThat(NGramIndex.grams("Daft-Punk")).containsOnlyKeys(
+                " da", "daf", "aft", "ft ", " pu", "pun", "unk", "nk ");
+    }
+
+    @Test
+    void gramsCountRepeatedTrigrams() {
+        assertThat(NGramIndex.grams("Na na")).isEqualTo(Map.of(" na", 2, "na ", 2));
+    }
+
+    @Test
+    void gramsOfTextWithoutLettersOrDigitsAreEmpty() {
+        assertThat(NGramIndex.grams("?! -")).isEmpty();
+        assertThat(NGramIndex.grams(null)).isEmpty();
+    }
+
+    @Test
+    void scoreIsBm25OverSharedGrams() {
+        NGramIndex index = new NGramIndex();
+        index.put(id(1), "abc");
+        index.put(id(2), "xyz");
+
+        // 3 grams each with df = 1 of 2 docs, tf = 1 and the average length:
+        // idf = ln(1 + 1.5 / 1.5) = ln 2, and tf * (k1 + 1) / (tf + k1) = 1
+        List<NGramIndex.Hit> hits = index.search("abc", 10);
+
+        assertThat(hits).extracting(NGramIndex.Hit::id).containsExactly(id(1));
+        assertThat(hits.get(0).score()).isCloseTo((float) (3 * Math.log(2)), within(1e-5f));
+    }
+
+    @Test
+    void shorterDocumentRanksFirstForTheSameMatch() {
+        NGramIndex index = new NGramIndex();
+        index.put(id(1), "Midnight City");
+        index.put(id(2), "Midnight");
+        index.put(id(3), "Sweet Dreams");
+
+        assertThat(index.search("midnight", 10)).extracting(NGramIndex.Hit::text)
+                .containsExactly("Midnight", "Midnight City");
+    }
+
+    @Test
+    void misspelledQueryStillMatches() {
+        NGramIndex index = new NGramIndex();
+        index.put(id(1), "Electric Feel");
+        index.put(id(2), "Sweet Dreams");
+
+        assertThat(index.search("electrik", 10)).extracting(NGramIndex.Hit::id).containsExactly(id(1));
+    }
+
+    @Test
+    void equalScoresKeepInsertionOrderAndLimitApplies() {
+        NGramIndex index = new NGramIndex();
+        for (int i = 1; i <= 5; i++) {
+            index.put(id(i), "Home");
+        }
+
+        assertThat(index.search("home", 3)).extracting(NGramIndex.Hit::id).containsExactly(id(1), id(2), id(3));
+        assertThat(index.search("home", 0)).isEmpty();
+    }
+
+    @Test
+    void unknownGramsMatchNothing() {
+        NGramIndex index = new NGramIndex();
+        index.put(id(1), "Golden River");
+
+        assertThat(index.search("zzz", 10)).isEmpty();
+        assertThat(index.search("", 10)).isEmpty();
+    }
+
+    @Test
+    void putReplacesTheTextOfAnIndexedDocument() {
+        NGramIndex index = new NGramIndex();
+        index.put(id(1), "Summer Rain");
+        index.put(id(1), "Winter Snow");
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.search("summer", 10)).isEmpty();
+        assertThat(index.search("winter", 10)).extracting(NGramIndex.Hit::text).containsExactly("Winter Snow");
+    }
+
+    @Test
+    void removedDocumentsAreNotReturnedAndTheirIdsAreReused() {
+        NGramIndex index = new NGramIndex();
+        for (int i = 1; i <= 100; i++) {
+            index.put(id(i), "Track " + i);
+        }
+        for (int i = 1; i <= 100; i += 2) {
+            assertThat(index.remove(id(i))).isTrue();
+        }
+        assertThat(index.remove(id(1))).isFalse();
+        index.put(id(1000), "Wild Fire");
+
+        assertThat(index.size()).isEqualTo(51);
+        assertThat(index.search("track 7", 100)).extracting(NGramIndex.Hit::id).doesNotContain(id(7));
+        assertThat(index.search("track 8", 1)).extracting(NGramIndex.Hit::id).containsExactly(id(8));
+        assertThat(index.search("wild fire", 10)).extracting(NGramIndex.Hit::id).containsExactly(id(1000));
+
+        // The 50 freed ids are enough for 50 new documents
+        for (int i = 1001; i < 1050; i++) {
+            index.put(id(i), "Song " + i);
+        }
+        assertThat(index.size()).isEqualTo(100);
+        assertThat(index.allocatedDocIds()).isEqualTo(100);
+        assertThat(index.search("song 1049", 1)).extracting(NGramIndex.Hit::id).containsExactly(id(1049));
+    }
+
+    private static UUID id(int n) {
+        return new UUID(0, n);
+    }
+}